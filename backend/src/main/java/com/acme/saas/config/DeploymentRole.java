@@ -0,0 +1,38 @@
+package com.acme.saas.config;
+
+import java.util.Locale;
+
+/**
+ * What a node of the application does, from {@code app.role}. All roles run from the same artifact.
+ * <ul>
+ *   <li>{@code api}: HTTP only; uploads are previewed in the request and their full extraction is queued</li>
+ *   <li>{@code worker}: no HTTP; claims queued extractions and resumes stalled ones</li>
+ *   <li>{@code all}: both, extracting its own uploads in-process (the default)</li>
+ * </ul>
+ */
+public enum DeploymentRole {
+    API,
+    WORKER,
+    ALL;
+
+    public static final String PROPERTY = "app.role";
+
+    public boolean servesHttp() {
+        return this != WORKER;
+    }
+
+    public boolean runsExtraction() {
+        return this != API;
+    }
+
+    public static DeploymentRole parse(String value) {
+        if (value == null || value.isBlank()) {
+            return ALL;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(PROPERTY + " must be one of api, worker, all; was: " + value);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.acme.saas.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Validates {@code app.role} before the context is created, normalizes it for the role
+ * conditions, and starts worker nodes without a web server.
+ */
+public class DeploymentRoleEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        DeploymentRole role = DeploymentRole.parse(environment.getProperty(DeploymentRole.PROPERTY));
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(DeploymentRole.PROPERTY, role.name().toLowerCase(Locale.ROOT));
+        if (!role.servesHttp()) {
+            properties.put("spring.main.web-application-type", "none");
+        }
+        environment.getPropertySources().addFirst(new MapPropertySource("deploymentRole", properties));
+    }
+}
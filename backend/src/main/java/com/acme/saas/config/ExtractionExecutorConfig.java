@@ -0,0 +1,115 @@
+package com.acme.saas.config;
+
+import com.acme.saas.extraction.worker.WorkerPool;
+import com.acme.saas.scheduling.ExtractionLane;
+import com.acme.saas.scheduling.FairExtractionScheduler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Workers for document extraction that runs after the upload request returns,
+ * and scheduling for recovery of extractions abandoned by other nodes.
+ * Nodes in the api role have no extraction executor; they queue extractions for worker nodes.
+ */
+@Configuration
+@EnableScheduling
+public class ExtractionExecutorConfig {
+
+    @Value("${extraction.executor.threads:4}")
+    private int threads;
+
+    @Value("${extraction.executor.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${extraction.scheduler.interactive-reserved-threads:1}")
+    private int interactiveReservedThreads;
+
+    @Value("${extraction.scheduler.max-running-per-tenant:3}")
+    private int maxRunningPerTenant;
+
+    @Value("${extraction.scheduler.quantum:1024}")
+    private long quantum;
+
+    @Value("${extraction.scheduler.max-wait:PT5M}")
+    private Duration maxWait;
+
+    // Share of the max heap that running extractions may reserve; the rest is for requests and caches
+    @Value("${extraction.admission.heap-fraction:0.5}")
+    private double heapFraction;
+
+    @Value("${extraction.worker.enabled:false}")
+    private boolean workersEnabled;
+
+    @Value("${extraction.worker.processes:${extraction.executor.threads:4}}")
+    private int workerProcesses;
+
+    @Value("${extraction.worker.heap:1g}")
+    private String workerHeap;
+
+    @Value("${extraction.worker.jvm-options:}")
+    private String workerJvmOptions;
+
+    // Recycling bounds heap fragmentation and leaks in the parsers
+    @Value("${extraction.worker.max-jobs:50}")
+    private int workerMaxJobs;
+
+    @Value("${extraction.worker.timeout:PT15M}")
+    private Duration workerTimeout;
+
+    /**
+     * Runs full extractions off the request thread, fairly across tenants and cheapest first,
+     * within a heap budget. Jobs run in the tenant they were submitted for.
+     */
+    @Bean(name = "extractionExecutor", destroyMethod = "shutdown")
+    @RunsExtraction
+    public FairExtractionScheduler extractionExecutor() {
+        long heapBudget = (long) (Runtime.getRuntime().maxMemory() * heapFraction);
+        return new FairExtractionScheduler(threads, queueCapacity, interactiveReservedThreads, maxRunningPerTenant,
+                quantum, maxWait, heapBudget);
+    }
+
+    /**
+     * Queue depth per lane, running jobs and live heap reservations, under /actuator/metrics.
+     */
+    @Bean
+    @RunsExtraction
+    public MeterBinder extractionSchedulerMetrics(FairExtractionScheduler extractionExecutor) {
+        return registry -> {
+            Gauge.builder("extraction.admission.reserved", extractionExecutor, FairExtractionScheduler::reservedBytes)
+                    .description("Heap reserved by running extractions")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("extraction.admission.budget", extractionExecutor, FairExtractionScheduler::heapBudgetBytes)
+                    .description("Heap that running extractions may reserve in total")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("extraction.jobs.running", extractionExecutor, FairExtractionScheduler::running)
+                    .description("Extractions currently running on this node")
+                    .register(registry);
+            for (ExtractionLane lane : ExtractionLane.values()) {
+                Gauge.builder("extraction.jobs.queued", extractionExecutor, scheduler -> scheduler.queued(lane))
+                        .description("Extractions waiting for a worker or for heap")
+                        .tag("lane", lane.name().toLowerCase(Locale.ROOT))
+                        .register(registry);
+            }
+        };
+    }
+
+    /**
+     * Forked extraction JVMs, when enabled; otherwise extraction runs in this JVM.
+     */
+    @Bean(destroyMethod = "close")
+    public WorkerPool extractionWorkerPool() {
+        return new WorkerPool(new WorkerPool.Settings(workersEnabled, workerProcesses, workerHeap,
+                Arrays.stream(workerJvmOptions.trim().split("\\s+")).filter(option -> !option.isEmpty()).toList(),
+                workerMaxJobs, workerTimeout));
+    }
+}
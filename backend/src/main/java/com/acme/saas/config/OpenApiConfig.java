@@ -11,6 +11,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@ServesHttp
 public class OpenApiConfig {
     @Bean
     public OpenAPI api() {
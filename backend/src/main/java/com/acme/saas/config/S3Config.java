@@ -3,12 +3,20 @@ package com.acme.saas.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.time.Duration;
 
 @Configuration
 public class S3Config {
@@ -22,12 +30,76 @@ public class S3Config {
     @Value("${aws.secret.access.key:}")
     private String secretAccessKey;
 
-    @Bean
-    public S3Client s3Client() {
-        return S3Client.builder()
+    // Endpoint of an S3-compatible stand-in such as MinIO or LocalStack; empty for AWS
+    @Value("${aws.s3.endpoint:}")
+    private String endpoint;
+
+    // Connections shared by every concurrent upload, download and copy on this node
+    @Value("${aws.s3.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${aws.s3.connection-acquisition-timeout:PT30S}")
+    private Duration connectionAcquisitionTimeout;
+
+    @Value("${aws.s3.connection-timeout:PT5S}")
+    private Duration connectionTimeout;
+
+    // Longest a transfer may stall without bytes moving, not a limit on the whole transfer
+    @Value("${aws.s3.socket-timeout:PT60S}")
+    private Duration socketTimeout;
+
+    /**
+     * Non-blocking S3 client over a bounded Netty connection pool. Requests wait up to the
+     * acquisition timeout for a free connection rather than failing as soon as the pool is busy.
+     */
+    @Bean(destroyMethod = "close")
+    public S3AsyncClient s3AsyncClient() {
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
                 .region(Region.of(region))
                 .credentialsProvider(getCredentialsProvider())
-                .build();
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(maxConnections)
+                        .maxPendingConnectionAcquires(10_000)
+                        .connectionAcquisitionTimeout(connectionAcquisitionTimeout)
+                        .connectionTimeout(connectionTimeout)
+                        .readTimeout(socketTimeout)
+                        .writeTimeout(socketTimeout)
+                        .tcpKeepAlive(true));
+        if (!endpoint.isBlank()) {
+            // Stand-ins serve buckets by path rather than by virtual host
+            builder.endpointOverride(URI.create(endpoint)).forcePathStyle(true);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Signs URLs that let clients upload straight to S3 without passing bytes through this service.
+     */
+    @Bean(destroyMethod = "close")
+    public S3Presigner s3Presigner() {
+        S3Presigner.Builder builder = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(getCredentialsProvider());
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint))
+                    .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Runs bulk imports from S3 prefixes; each import copies its objects with its own parallelism.
+     */
+    @Bean(name = "importExecutor", destroyMethod = "shutdown")
+    @ServesHttp
+    public ThreadPoolTaskExecutor importExecutor(@Value("${import.s3.max-running:2}") int maxRunning) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxRunning);
+        executor.setMaxPoolSize(maxRunning);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("s3-import-");
+        executor.initialize();
+        return executor;
     }
 
     private AwsCredentialsProvider getCredentialsProvider() {
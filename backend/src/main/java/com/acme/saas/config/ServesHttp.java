@@ -0,0 +1,19 @@
+package com.acme.saas.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Bean only created on nodes that serve HTTP ({@link DeploymentRole#API} and {@link DeploymentRole#ALL}).
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@ConditionalOnExpression("'${app.role:all}' != 'worker'")
+public @interface ServesHttp {
+}
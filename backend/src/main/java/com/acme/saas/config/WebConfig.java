@@ -16,6 +16,7 @@ import java.util.List;
  * Web MVC configuration for CORS and security headers.
  */
 @Configuration
+@ServesHttp
 public class WebConfig implements WebMvcConfigurer {
 
     @Value("${cors.allowed.origins:http://localhost:3000}")
@@ -29,7 +30,7 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedOrigins(origins.toArray(new String[0]))
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH")
                 .allowedHeaders("*")
-                .exposedHeaders("Authorization", "Content-Type")
+                .exposedHeaders("Authorization", "Content-Type", "Idempotent-Replayed")
                 .allowCredentials(true)
                 .maxAge(3600); // Cache preflight response for 1 hour
     }
@@ -0,0 +1,127 @@
+package com.acme.saas.controller;
+
+import com.acme.saas.config.ServesHttp;
+import com.acme.saas.domain.DocumentImport;
+import com.acme.saas.security.ApiKeyAuthenticationToken;
+import com.acme.saas.service.DocumentImportService;
+import com.acme.saas.tenancy.TenantContext;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bulk import of documents that already sit in S3, for service-to-service ingestion.
+ * Only API keys may import, into the tenant named by X-Tenant-Id.
+ */
+@RestController
+@ServesHttp
+@RequestMapping("/api/imports")
+public class DocumentImportController {
+
+    record StartImportRequest(String bucket, String prefix) {}
+
+    private final DocumentImportService importService;
+
+    public DocumentImportController(DocumentImportService importService) {
+        this.importService = importService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> start(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = true,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @RequestBody StartImportRequest req) {
+        ResponseEntity<?> denied = checkCaller();
+        if (denied != null) {
+            return denied;
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(importService.start(req.bucket(), req.prefix()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> get(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = true,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @PathVariable UUID id) {
+        ResponseEntity<?> denied = checkCaller();
+        if (denied != null) {
+            return denied;
+        }
+        return importService.find(id).<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<?> resume(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = true,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @PathVariable UUID id) {
+        ResponseEntity<?> denied = checkCaller();
+        if (denied != null) {
+            return denied;
+        }
+        try {
+            DocumentImport resumed = importService.resume(id);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(resumed);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<?> cancel(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = true,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @PathVariable UUID id) {
+        ResponseEntity<?> denied = checkCaller();
+        if (denied != null) {
+            return denied;
+        }
+        if (importService.find(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!importService.cancel(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Import is not running"));
+        }
+        return ResponseEntity.ok(importService.find(id).orElseThrow());
+    }
+
+    /**
+     * @return the error response if the caller is not an API key with a tenant, else null
+     */
+    private static ResponseEntity<?> checkCaller() {
+        if (!(SecurityContextHolder.getContext().getAuthentication() instanceof ApiKeyAuthenticationToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Imports require an API key"));
+        }
+        if (TenantContext.DEFAULT_TENANT.equals(TenantContext.getCurrentTenant())) {
+            return ResponseEntity.badRequest().body(Map.of("error", "X-Tenant-Id is required"));
+        }
+        return null;
+    }
+}
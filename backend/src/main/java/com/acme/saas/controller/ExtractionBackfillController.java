@@ -0,0 +1,127 @@
+package com.acme.saas.controller;
+
+import com.acme.saas.config.ServesHttp;
+import com.acme.saas.dto.ExtractionBackfill;
+import com.acme.saas.service.ExtractionBackfillService;
+import com.acme.saas.tenancy.TenantContext;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Re-extraction of documents extracted by an older extractor version. Organization admins
+ * can backfill their own tenant; backfilling every tenant requires an API key.
+ */
+@RestController
+@ServesHttp
+@RequestMapping("/api/admin/extraction-backfills")
+public class ExtractionBackfillController {
+
+    private static final String ORG_ADMIN = "ROLE_ORG_ADMIN";
+    private static final String SERVICE = "ROLE_SERVICE";
+
+    private final ExtractionBackfillService backfillService;
+
+    public ExtractionBackfillController(ExtractionBackfillService backfillService) {
+        this.backfillService = backfillService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> start(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @Parameter(description = "tenant (the caller's tenant) or fleet (every tenant)")
+            @RequestParam(defaultValue = "tenant") String scope) {
+        String tenant;
+        if ("fleet".equals(scope)) {
+            if (!hasAuthority(SERVICE)) {
+                return forbidden("Fleet-wide backfills require an API key");
+            }
+            tenant = null;
+        } else if ("tenant".equals(scope)) {
+            if (!hasAuthority(ORG_ADMIN) && !hasAuthority(SERVICE)) {
+                return forbidden("Backfills require an organization admin");
+            }
+            tenant = TenantContext.getCurrentTenant();
+            if (TenantContext.DEFAULT_TENANT.equals(tenant)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "No tenant selected"));
+            }
+        } else {
+            return ResponseEntity.badRequest().body(Map.of("error", "scope must be tenant or fleet"));
+        }
+
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(backfillService.start(tenant));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> get(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @PathVariable UUID id) {
+        Optional<ExtractionBackfill> backfill = backfillService.find(id).filter(this::visible);
+        return backfill.<ResponseEntity<?>>map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<?> cancel(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @PathVariable UUID id) {
+        if (backfillService.find(id).filter(this::visible).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!backfillService.cancel(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Backfill is not running"));
+        }
+        return ResponseEntity.ok(backfillService.find(id).orElseThrow());
+    }
+
+    /**
+     * API keys see every backfill; organization admins only those of their tenant.
+     */
+    private boolean visible(ExtractionBackfill backfill) {
+        if (hasAuthority(SERVICE)) {
+            return true;
+        }
+        return hasAuthority(ORG_ADMIN) && TenantContext.getCurrentTenant().equals(backfill.tenant());
+    }
+
+    private static boolean hasAuthority(String authority) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return false;
+        }
+        for (GrantedAuthority granted : authentication.getAuthorities()) {
+            if (authority.equals(granted.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ResponseEntity<?> forbidden(String message) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", message));
+    }
+}
@@ -1,11 +1,13 @@
 package com.acme.saas.controller;
 
+import com.acme.saas.config.ServesHttp;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Map;
 
 @RestController
+@ServesHttp
 public class HealthController {
     @GetMapping("/health")
     public Map<String,Object> health() {
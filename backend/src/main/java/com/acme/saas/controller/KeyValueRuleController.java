@@ -0,0 +1,65 @@
+package com.acme.saas.controller;
+
+import com.acme.saas.config.ServesHttp;
+import com.acme.saas.domain.KeyValueRule;
+import com.acme.saas.service.KeyValueRuleService;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@ServesHttp
+@RequestMapping("/api/kv-rules")
+public class KeyValueRuleController {
+
+    record CreateRuleRequest(String canonicalKey, List<String> aliases, List<String> delimiters, Integer lineWindow) {}
+
+    private final KeyValueRuleService ruleService;
+
+    public KeyValueRuleController(KeyValueRuleService ruleService) {
+        this.ruleService = ruleService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<KeyValueRule>> listRules(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader) {
+        return ResponseEntity.ok(ruleService.list());
+    }
+
+    @PostMapping
+    public ResponseEntity<?> createRule(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @RequestBody CreateRuleRequest req) {
+        try {
+            KeyValueRule rule = ruleService.create(req.canonicalKey(), req.aliases(), req.delimiters(), req.lineWindow());
+            return ResponseEntity.status(HttpStatus.CREATED).body(rule);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deleteRule(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @PathVariable("id") UUID id) {
+        return ruleService.delete(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+}
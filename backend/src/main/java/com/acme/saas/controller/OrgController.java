@@ -1,5 +1,6 @@
 package com.acme.saas.controller;
 
+import com.acme.saas.config.ServesHttp;
 import com.acme.saas.domain.Org;
 import com.acme.saas.service.OrgService;
 import jakarta.validation.constraints.NotBlank;
@@ -9,6 +10,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.Map;
 
 @RestController
+@ServesHttp
 @RequestMapping("/api/orgs")
 public class OrgController {
 
@@ -1,12 +1,28 @@
 package com.acme.saas.controller;
 
+import com.acme.saas.config.ServesHttp;
 import com.acme.saas.domain.RfpDocument;
-import com.acme.saas.domain.RfpDocumentExtraction;
-import com.acme.saas.repository.RfpDocumentExtractionRepository;
+import com.acme.saas.dto.BatchUploadResult;
+import com.acme.saas.dto.DocumentSearchPage;
+import com.acme.saas.dto.DocumentUpload;
+import com.acme.saas.dto.ExtractionPreview;
+import com.acme.saas.dto.ExtractedTextRange;
+import com.acme.saas.dto.KeyValueMatch;
+import com.acme.saas.dto.PackageUpload;
+import com.acme.saas.dto.TableRowMatch;
+import com.acme.saas.service.DocumentBatchUploadService;
+import com.acme.saas.service.DocumentPackageService;
+import com.acme.saas.service.DocumentSearchService;
+import com.acme.saas.service.ExtractionCheckpointService;
+import com.acme.saas.service.ExtractionQueryService;
+import com.acme.saas.service.IdempotencyService;
+import com.acme.saas.service.KeyValueIndexService;
 import com.acme.saas.service.RfpDocumentService;
+import com.acme.saas.service.TableCellIndexService;
 import com.acme.saas.tenancy.TenantContext;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -14,22 +30,49 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
+@ServesHttp
 @RequestMapping("/api/documents")
 public class RfpDocumentController {
 
     private final RfpDocumentService documentService;
-    private final RfpDocumentExtractionRepository extractionRepository;
+    private final ExtractionQueryService extractionQueryService;
+    private final DocumentSearchService searchService;
+    private final KeyValueIndexService keyValueIndexService;
+    private final TableCellIndexService tableCellIndexService;
+    private final ExtractionCheckpointService checkpointService;
+    private final DocumentPackageService packageService;
+    private final DocumentBatchUploadService batchUploadService;
+    private final IdempotencyService idempotencyService;
 
     public RfpDocumentController(
             RfpDocumentService documentService,
-            RfpDocumentExtractionRepository extractionRepository) {
+            ExtractionQueryService extractionQueryService,
+            DocumentSearchService searchService,
+            KeyValueIndexService keyValueIndexService,
+            TableCellIndexService tableCellIndexService,
+            ExtractionCheckpointService checkpointService,
+            DocumentPackageService packageService,
+            DocumentBatchUploadService batchUploadService,
+            IdempotencyService idempotencyService) {
         this.documentService = documentService;
-        this.extractionRepository = extractionRepository;
+        this.extractionQueryService = extractionQueryService;
+        this.searchService = searchService;
+        this.keyValueIndexService = keyValueIndexService;
+        this.tableCellIndexService = tableCellIndexService;
+        this.checkpointService = checkpointService;
+        this.packageService = packageService;
+        this.batchUploadService = batchUploadService;
+        this.idempotencyService = idempotencyService;
     }
     
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -39,28 +82,161 @@ public class RfpDocumentController {
                        example = "acme",
                        schema = @Schema(type = "string"))
             @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
-            @RequestParam("file") MultipartFile file) {
+            @Parameter(description = "Makes retries of this request safe: the first response is replayed to them")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestParam("file") MultipartFile file,
+            @Parameter(description = "Run the full extraction before responding instead of returning a preview")
+            @RequestParam(value = "wait", defaultValue = "false") boolean wait,
+            @Parameter(description = "ID of the document this upload revises; unchanged pages/sections/sheets are reused")
+            @RequestParam(value = "previousVersionId", required = false) UUID previousVersionId) {
+        String fingerprint;
         try {
-            // Get tenant from context (set by TenantFilter)
-            String tenantId = extractTenantIdFromContext();
-            
-            RfpDocument document = documentService.uploadDocument(file, tenantId);
-            
-            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
-                "id", document.getId(),
-                "filename", document.getOriginalFilename(),
-                "size", document.getFileSize(),
-                "status", document.getStatus().toString(),
-                "uploadedAt", document.getUploadedAt()
-            ));
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            fingerprint = idempotencyKey == null ? null : IdempotencyService.fingerprint(
+                    "upload", file.getOriginalFilename(), file.getSize(), IdempotencyService.digest(file), wait, previousVersionId);
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(Map.of("error", "Failed to store file: " + e.getMessage()));
+                .body(Map.of("error", "Failed to read file: " + e.getMessage()));
         }
+        return idempotencyService.execute(idempotencyKey, fingerprint, () -> {
+            try {
+                // Get tenant from context (set by TenantFilter)
+                String tenantId = extractTenantIdFromContext();
+                
+                RfpDocument document;
+                ExtractionPreview preview = null;
+                if (wait) {
+                    document = documentService.uploadDocument(file, tenantId, previousVersionId);
+                } else {
+                    DocumentUpload upload = documentService.uploadDocumentWithPreview(file, tenantId, previousVersionId);
+                    document = upload.document();
+                    preview = upload.preview();
+                }
+                
+                Map<String, Object> body = new LinkedHashMap<>(Map.of(
+                    "id", document.getId(),
+                    "filename", document.getOriginalFilename(),
+                    "size", document.getFileSize(),
+                    "status", document.getStatus().toString(),
+                    "uploadedAt", document.getUploadedAt()
+                ));
+                if (document.getPreviousVersionId() != null) {
+                    body.put("previousVersionId", document.getPreviousVersionId());
+                }
+                if (preview != null) {
+                    body.put("preview", preview);
+                }
+                return ResponseEntity.status(HttpStatus.CREATED).body(body);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            } catch (IOException e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to store file: " + e.getMessage()));
+            }
+        });
     }
     
+    /**
+     * Uploads many documents in one request. Each file gets its own result; the response is
+     * 201 if any document was created and 400 if every file was rejected.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> uploadBatch(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @Parameter(description = "Makes retries of this request safe: the first response is replayed to them")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestParam("files") List<MultipartFile> files) {
+        String fingerprint = null;
+        if (idempotencyKey != null) {
+            List<String> parts = new ArrayList<>(files.size());
+            try {
+                for (MultipartFile f : files) {
+                    parts.add(f.getOriginalFilename() + ":" + f.getSize() + ":" + IdempotencyService.digest(f));
+                }
+            } catch (IOException e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to read file: " + e.getMessage()));
+            }
+            fingerprint = IdempotencyService.fingerprint("batch", parts);
+        }
+        return idempotencyService.execute(idempotencyKey, fingerprint, () -> {
+            try {
+                String tenantId = extractTenantIdFromContext();
+                List<BatchUploadResult> results = batchUploadService.uploadBatch(files, tenantId);
+
+                long created = results.stream().filter(BatchUploadResult::isCreated).count();
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("created", created);
+                body.put("rejected", results.size() - created);
+                body.put("results", results);
+                return ResponseEntity.status(created > 0 ? HttpStatus.CREATED : HttpStatus.BAD_REQUEST).body(body);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Uploads a zip archive holding an RFP package. Each supported entry becomes a document of
+     * its own, extracted in the background; entries that were not imported are listed in the response.
+     * If unpacking fails after some members were stored, the response is still 201 with the package
+     * FAILED and its error, so a retry with the same Idempotency-Key replays it.
+     */
+    @PostMapping(value = "/packages", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> uploadPackage(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @Parameter(description = "Makes retries of this request safe: the first response is replayed to them")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestParam("file") MultipartFile file) {
+        String fingerprint;
+        try {
+            fingerprint = idempotencyKey == null ? null : IdempotencyService.fingerprint(
+                    "package", file.getOriginalFilename(), file.getSize(), IdempotencyService.digest(file));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Failed to read package: " + e.getMessage()));
+        }
+        return idempotencyService.execute(idempotencyKey, fingerprint, () -> {
+            try {
+                String tenantId = extractTenantIdFromContext();
+                PackageUpload upload = packageService.uploadPackage(file, tenantId);
+
+                RfpDocument document = upload.document();
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("id", document.getId());
+                body.put("filename", document.getOriginalFilename());
+                body.put("size", document.getFileSize());
+                body.put("status", document.getStatus().toString());
+                if (document.getErrorMessage() != null) {
+                    // Unpacking failed after these members were stored; they are kept
+                    body.put("error", document.getErrorMessage());
+                }
+                body.put("uploadedAt", document.getUploadedAt());
+                body.put("members", upload.members().stream()
+                    .map(member -> Map.of(
+                        "id", member.getId(),
+                        "filename", member.getOriginalFilename(),
+                        "size", member.getFileSize(),
+                        "status", member.getStatus().toString()))
+                    .toList());
+                body.put("skipped", upload.skipped());
+                return ResponseEntity.status(HttpStatus.CREATED).body(body);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            } catch (IOException e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to store package: " + e.getMessage()));
+            }
+        });
+    }
+
     @GetMapping
     public ResponseEntity<List<RfpDocument>> listDocuments(
             @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
@@ -72,6 +248,91 @@ public class RfpDocumentController {
         return ResponseEntity.ok(documents);
     }
     
+    @GetMapping("/search")
+    public ResponseEntity<?> searchDocuments(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @Parameter(description = "Search terms (web search syntax: quoted phrases, OR, -exclusion)", required = true)
+            @RequestParam("q") String query,
+            @Parameter(description = "Maximum number of results per page")
+            @RequestParam(value = "limit", defaultValue = "" + DocumentSearchService.DEFAULT_LIMIT) int limit,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page")
+            @RequestParam(value = "after", required = false) String after) {
+        try {
+            DocumentSearchPage page = searchService.search(query, limit, after);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/fields")
+    public ResponseEntity<?> queryFields(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @Parameter(description = "Field key, matched after normalization (e.g. 'Due Date')", required = true)
+            @RequestParam("key") String key,
+            @Parameter(description = "Exact value (case-insensitive)")
+            @RequestParam(value = "value", required = false) String value,
+            @Parameter(description = "Earliest date (inclusive, ISO yyyy-MM-dd)")
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Latest date (inclusive, ISO yyyy-MM-dd)")
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Minimum numeric value (inclusive)")
+            @RequestParam(value = "min", required = false) BigDecimal min,
+            @Parameter(description = "Maximum numeric value (inclusive)")
+            @RequestParam(value = "max", required = false) BigDecimal max,
+            @RequestParam(value = "limit", defaultValue = "" + KeyValueIndexService.DEFAULT_LIMIT) int limit) {
+        try {
+            boolean dateFilter = from != null || to != null;
+            boolean numberFilter = min != null || max != null;
+            if ((value != null ? 1 : 0) + (dateFilter ? 1 : 0) + (numberFilter ? 1 : 0) > 1) {
+                throw new IllegalArgumentException("Use only one of value, from/to or min/max");
+            }
+
+            List<KeyValueMatch> matches;
+            if (dateFilter) {
+                matches = keyValueIndexService.findByDateRange(key, from, to, limit);
+            } else if (numberFilter) {
+                matches = keyValueIndexService.findByNumberRange(key, min, max, limit);
+            } else {
+                matches = keyValueIndexService.findByValue(key, value, limit);
+            }
+            return ResponseEntity.ok(matches);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/tables/rows")
+    public ResponseEntity<?> queryTableRows(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @Parameter(description = "Cell predicate 'column:value' matched against the table header; repeat to AND predicates on the same row",
+                       required = true,
+                       example = "Type:PPO")
+            @RequestParam("where") List<String> where,
+            @RequestParam(value = "limit", defaultValue = "" + TableCellIndexService.DEFAULT_LIMIT) int limit) {
+        try {
+            List<TableCellIndexService.CellPredicate> predicates = where.stream()
+                    .map(this::parseCellPredicate)
+                    .toList();
+            List<TableRowMatch> matches = tableCellIndexService.findRows(predicates, limit);
+            return ResponseEntity.ok(matches);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<RfpDocument> getDocument(
             @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
@@ -89,6 +350,22 @@ public class RfpDocumentController {
         }
     }
     
+    @GetMapping("/{id}/members")
+    public ResponseEntity<List<RfpDocument>> getPackageMembers(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @Parameter(description = "Package document ID", required = true)
+            @PathVariable("id") UUID id) {
+        try {
+            return ResponseEntity.ok(documentService.getPackageMembers(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteDocument(
             @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
@@ -109,18 +386,121 @@ public class RfpDocumentController {
     }
 
     @GetMapping("/{id}/extraction")
-    public ResponseEntity<RfpDocumentExtraction> getDocumentExtraction(
+    public ResponseEntity<?> getDocumentExtraction(
             @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
                        required = false,
                        example = "acme",
                        schema = @Schema(type = "string"))
             @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
-            @PathVariable("id") UUID id) {
-        return extractionRepository.findByDocumentId(id)
-                .map(ResponseEntity::ok)
+            @PathVariable("id") UUID id,
+            @Parameter(description = "Comma-separated fields to return (e.g. 'keyValuesJson,pageCount'). Omit for all fields.")
+            @RequestParam(value = "fields", required = false) List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return extractionQueryService.findExtraction(id)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        }
+        try {
+            return extractionQueryService.findProjection(id, fields)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}/extraction/text")
+    public ResponseEntity<?> getExtractedTextRange(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @PathVariable("id") UUID id,
+            @Parameter(description = "Character offset to start from (0-based)")
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @Parameter(description = "Maximum number of characters to return")
+            @RequestParam(value = "length", defaultValue = "20000") int length) {
+        try {
+            Optional<ExtractedTextRange> range = extractionQueryService.findTextRange(id, offset, length);
+            return range.<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}/extraction/tables")
+    public ResponseEntity<?> getExtractedTableByName(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @PathVariable("id") UUID id,
+            @Parameter(description = "Table name (sheet name for XLSX, 'Table N' for DOCX)", required = true)
+            @RequestParam("name") String name) {
+        try {
+            return tableResponse(extractionQueryService.findTableJsonByName(id, name));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}/extraction/tables/{index}")
+    public ResponseEntity<?> getExtractedTable(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @PathVariable("id") UUID id,
+            @Parameter(description = "Table position (0-based)", required = true)
+            @PathVariable("index") int index) {
+        try {
+            return tableResponse(extractionQueryService.findTableJson(id, index));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}/extraction/units/{index}")
+    public ResponseEntity<?> getExtractedUnit(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @PathVariable("id") UUID id,
+            @Parameter(description = "Unit position (0-based page for PDF, section for DOCX, sheet for XLSX)",
+                       required = true)
+            @PathVariable("index") int index) {
+        if (index < 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "index must not be negative"));
+        }
+        // Units are checkpointed as extraction progresses, so they can be read before it completes
+        return checkpointService.findUnit(id, index)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<?> tableResponse(Optional<String> tableJson) {
+        // Table JSON comes straight from Postgres, pass it through without re-parsing
+        return tableJson.<ResponseEntity<?>>map(json -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(json))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    private TableCellIndexService.CellPredicate parseCellPredicate(String predicate) {
+        int separator = predicate.indexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Invalid predicate '" + predicate + "', expected column:value");
+        }
+        return new TableCellIndexService.CellPredicate(
+                predicate.substring(0, separator), predicate.substring(separator + 1));
+    }
+
     private String extractTenantIdFromContext() {
         String tenant = TenantContext.getCurrentTenant();
         if (tenant == null || tenant.equals(TenantContext.DEFAULT_TENANT)) {
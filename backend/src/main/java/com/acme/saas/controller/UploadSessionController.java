@@ -0,0 +1,205 @@
+package com.acme.saas.controller;
+
+import com.acme.saas.config.ServesHttp;
+import com.acme.saas.domain.RfpDocument;
+import com.acme.saas.domain.UploadSession;
+import com.acme.saas.dto.DirectUpload;
+import com.acme.saas.service.IdempotencyService;
+import com.acme.saas.service.ResumableUploadService;
+import com.acme.saas.tenancy.TenantContext;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Resumable uploads: create a session, PUT the file in chunks at the session's offset, and
+ * complete it. After a failed chunk, GET the session for the offset to continue from.
+ * Direct uploads instead hand out presigned S3 URLs; the client PUTs the bytes to S3 and
+ * then completes the session here.
+ */
+@RestController
+@ServesHttp
+@RequestMapping("/api/uploads")
+public class UploadSessionController {
+
+    record CreateSessionRequest(String filename, String contentType, Long size) {}
+
+    private final ResumableUploadService uploadService;
+    private final IdempotencyService idempotencyService;
+
+    public UploadSessionController(ResumableUploadService uploadService, IdempotencyService idempotencyService) {
+        this.uploadService = uploadService;
+        this.idempotencyService = idempotencyService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> create(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @Parameter(description = "Makes retries of this request safe: the first response is replayed to them")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody CreateSessionRequest req) {
+        String fingerprint = IdempotencyService.fingerprint("session", req.filename(), req.contentType(), req.size());
+        return idempotencyService.execute(idempotencyKey, fingerprint, () -> {
+            try {
+                UploadSession session = uploadService.create(
+                        req.filename(), req.contentType(), req.size() != null ? req.size() : 0, currentTenantId());
+                return ResponseEntity.status(HttpStatus.CREATED).body(body(session));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Starts an upload that goes straight to S3: one presigned PUT, or one presigned URL per
+     * part for files larger than the part size. POST /{id}/complete once every URL has succeeded.
+     */
+    @PostMapping("/direct")
+    public ResponseEntity<?> createDirect(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @Parameter(description = "Makes retries of this request safe: the first response is replayed to them")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody CreateSessionRequest req) {
+        String fingerprint = IdempotencyService.fingerprint("direct", req.filename(), req.contentType(), req.size());
+        return idempotencyService.execute(idempotencyKey, fingerprint, () -> {
+            try {
+                DirectUpload upload = uploadService.createDirect(
+                        req.filename(), req.contentType(), req.size() != null ? req.size() : 0, currentTenantId());
+                return ResponseEntity.status(HttpStatus.CREATED).body(upload);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
+        });
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> get(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @PathVariable("id") UUID id) {
+        try {
+            return ResponseEntity.ok(body(uploadService.get(id)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Appends the request body at the given offset. Responds 409 with the expected offset if it differs.
+     */
+    @PutMapping(value = "/{id}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> putChunk(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @PathVariable("id") UUID id,
+            @Parameter(description = "Byte offset of this chunk in the file")
+            @RequestParam("offset") long offset,
+            HttpServletRequest request) {
+        long length = request.getContentLengthLong();
+        if (length < 0) {
+            return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED)
+                .body(Map.of("error", "Content-Length is required"));
+        }
+        try (InputStream content = request.getInputStream()) {
+            long next = uploadService.appendChunk(id, offset, content, length);
+            return ResponseEntity.ok(Map.of("id", id, "offset", next));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("error", e.getMessage());
+            body.put("offset", uploadService.get(id).getReceivedBytes());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Failed to read chunk: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<?> complete(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @Parameter(description = "Makes retries of this request safe: the first response is replayed to them")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @PathVariable("id") UUID id) {
+        String fingerprint = IdempotencyService.fingerprint("complete", id);
+        return idempotencyService.execute(idempotencyKey, fingerprint, () -> {
+            try {
+                RfpDocument document = uploadService.complete(id);
+                return ResponseEntity.status(HttpStatus.CREATED).body(document);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.notFound().build();
+            } catch (IllegalStateException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+            }
+        });
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> abort(
+            @Parameter(description = "Tenant identifier (slug, e.g., 'acme')",
+                       required = false,
+                       example = "acme",
+                       schema = @Schema(type = "string"))
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenantHeader,
+            @PathVariable("id") UUID id) {
+        try {
+            return uploadService.abort(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Upload session is not open"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    private static Map<String, Object> body(UploadSession session) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", session.getId());
+        body.put("filename", session.getOriginalFilename());
+        body.put("size", session.getTotalSize());
+        body.put("offset", session.getReceivedBytes());
+        body.put("minChunkSize", ResumableUploadService.MIN_CHUNK_SIZE);
+        body.put("direct", session.isDirect());
+        body.put("status", session.getStatus().toString());
+        if (session.getDocumentId() != null) {
+            body.put("documentId", session.getDocumentId());
+        }
+        return body;
+    }
+
+    private static String currentTenantId() {
+        String tenant = TenantContext.getCurrentTenant();
+        if (tenant == null || tenant.equals(TenantContext.DEFAULT_TENANT)) {
+            throw new IllegalStateException("Tenant context not set");
+        }
+        return tenant.startsWith("tenant_") ? tenant.substring(7) : tenant;
+    }
+}
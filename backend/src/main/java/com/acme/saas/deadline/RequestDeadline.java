@@ -0,0 +1,45 @@
+package com.acme.saas.deadline;
+
+import com.acme.saas.exception.DeadlineExceededException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Point in time by which the current HTTP request must be answered. Set per request by
+ * {@link RequestDeadlineFilter}; S3 and database calls made on the request thread stop waiting
+ * once it has passed. Work handed to other threads does not inherit it.
+ */
+public class RequestDeadline {
+    private static final ThreadLocal<Instant> deadline = new ThreadLocal<>();
+
+    public static void set(Instant at) {
+        deadline.set(at);
+    }
+
+    /**
+     * @return time left, or empty if the current thread has no deadline
+     */
+    public static Optional<Duration> remaining() {
+        Instant at = deadline.get();
+        return at == null ? Optional.empty() : Optional.of(Duration.between(Instant.now(), at));
+    }
+
+    /**
+     * Time left for a call about to be made, or empty if there is no deadline.
+     *
+     * @throws DeadlineExceededException if the deadline has already passed
+     */
+    public static Optional<Duration> remainingFor(String call) {
+        Optional<Duration> remaining = remaining();
+        if (remaining.isPresent() && !remaining.get().isPositive()) {
+            throw new DeadlineExceededException("Request deadline passed before " + call);
+        }
+        return remaining;
+    }
+
+    public static void clear() {
+        deadline.remove();
+    }
+}
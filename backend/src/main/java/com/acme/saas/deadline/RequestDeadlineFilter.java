@@ -0,0 +1,62 @@
+package com.acme.saas.deadline;
+
+import com.acme.saas.config.ServesHttp;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Starts each request's deadline: the caller's X-Request-Timeout in milliseconds, capped by
+ * http.request.timeout when that is set. Without either the request has no deadline.
+ */
+@Component
+@ServesHttp
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Request-Timeout";
+
+    private final Duration defaultTimeout;
+
+    public RequestDeadlineFilter(@Value("${http.request.timeout:0s}") Duration defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                     FilterChain filterChain) throws ServletException, IOException {
+        Duration timeout = defaultTimeout.isPositive() ? defaultTimeout : null;
+        String header = request.getHeader(HEADER);
+        if (header != null) {
+            try {
+                Duration requested = Duration.ofMillis(Long.parseLong(header.trim()));
+                if (requested.isPositive() && (timeout == null || requested.compareTo(timeout) < 0)) {
+                    timeout = requested;
+                }
+            } catch (NumberFormatException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, HEADER + " must be a number of milliseconds");
+                return;
+            }
+        }
+        if (timeout == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try {
+            RequestDeadline.set(Instant.now().plus(timeout));
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.acme.saas.domain;
+
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Bulk import of the documents under an S3 prefix. Progress is written after every listing
+ * page together with that page's documents, so an interrupted import resumes after lastKey.
+ */
+@Entity
+@Table(name = "document_imports")
+public class DocumentImport {
+    @Id
+    private UUID id;
+
+    private String sourceBucket;
+    private String sourcePrefix;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    // Objects up to and including this key have been handled
+    private String lastKey;
+
+    private int objectsListed;
+    private int documentsCreated;
+    private int objectsSkipped;
+    private int objectsFailed;
+
+    private String errorMessage;
+
+    private OffsetDateTime heartbeat;
+    private OffsetDateTime createdAt;
+    private OffsetDateTime finishedAt;
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED,     // Resumable
+        CANCELLED
+    }
+
+    public DocumentImport() {
+        this.id = UUID.randomUUID();
+        this.createdAt = OffsetDateTime.now();
+        this.status = Status.RUNNING;
+    }
+
+    public DocumentImport(String sourceBucket, String sourcePrefix) {
+        this();
+        this.sourceBucket = sourceBucket;
+        this.sourcePrefix = sourcePrefix;
+        this.heartbeat = this.createdAt;
+    }
+
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public String getSourceBucket() { return sourceBucket; }
+    public void setSourceBucket(String sourceBucket) { this.sourceBucket = sourceBucket; }
+
+    public String getSourcePrefix() { return sourcePrefix; }
+    public void setSourcePrefix(String sourcePrefix) { this.sourcePrefix = sourcePrefix; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public String getLastKey() { return lastKey; }
+    public void setLastKey(String lastKey) { this.lastKey = lastKey; }
+
+    public int getObjectsListed() { return objectsListed; }
+    public void setObjectsListed(int objectsListed) { this.objectsListed = objectsListed; }
+
+    public int getDocumentsCreated() { return documentsCreated; }
+    public void setDocumentsCreated(int documentsCreated) { this.documentsCreated = documentsCreated; }
+
+    public int getObjectsSkipped() { return objectsSkipped; }
+    public void setObjectsSkipped(int objectsSkipped) { this.objectsSkipped = objectsSkipped; }
+
+    public int getObjectsFailed() { return objectsFailed; }
+    public void setObjectsFailed(int objectsFailed) { this.objectsFailed = objectsFailed; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public OffsetDateTime getHeartbeat() { return heartbeat; }
+    public void setHeartbeat(OffsetDateTime heartbeat) { this.heartbeat = heartbeat; }
+
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+
+    public OffsetDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(OffsetDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
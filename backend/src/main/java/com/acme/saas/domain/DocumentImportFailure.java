@@ -0,0 +1,47 @@
+package com.acme.saas.domain;
+
+import jakarta.persistence.*;
+
+import java.util.UUID;
+
+/**
+ * Object of an import that could not be copied, retried when the import is resumed.
+ */
+@Entity
+@Table(name = "document_import_failures")
+public class DocumentImportFailure {
+    @Id
+    private UUID id;
+
+    private UUID importId;
+    private String objectKey;
+    private long objectSize;
+    private String errorMessage;
+
+    public DocumentImportFailure() {
+        this.id = UUID.randomUUID();
+    }
+
+    public DocumentImportFailure(UUID importId, String objectKey, long objectSize, String errorMessage) {
+        this();
+        this.importId = importId;
+        this.objectKey = objectKey;
+        this.objectSize = objectSize;
+        this.errorMessage = errorMessage;
+    }
+
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public UUID getImportId() { return importId; }
+    public void setImportId(UUID importId) { this.importId = importId; }
+
+    public String getObjectKey() { return objectKey; }
+    public void setObjectKey(String objectKey) { this.objectKey = objectKey; }
+
+    public long getObjectSize() { return objectSize; }
+    public void setObjectSize(long objectSize) { this.objectSize = objectSize; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+}
@@ -0,0 +1,62 @@
+package com.acme.saas.domain;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * A single key-value pair from an extraction, normalized for indexed cross-document queries.
+ */
+@Entity
+@Table(name = "extraction_key_values")
+public class ExtractedKeyValue {
+    @Id
+    private UUID id;
+
+    private UUID extractionId;
+    private UUID documentId;
+    private Integer pairIndex;     // Order of the pair within the document
+
+    private String rawKey;         // Key as written, e.g. "Due Date"
+    private String normalizedKey;  // e.g. "due date"
+    private String rawValue;       // Value as written, e.g. "March 15, 2025"
+    private String valueText;      // Lowercased, whitespace-collapsed value for equality lookups
+    private BigDecimal valueNumber;
+    private LocalDate valueDate;
+
+    public ExtractedKeyValue() {
+        this.id = UUID.randomUUID();
+    }
+
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public UUID getExtractionId() { return extractionId; }
+    public void setExtractionId(UUID extractionId) { this.extractionId = extractionId; }
+
+    public UUID getDocumentId() { return documentId; }
+    public void setDocumentId(UUID documentId) { this.documentId = documentId; }
+
+    public Integer getPairIndex() { return pairIndex; }
+    public void setPairIndex(Integer pairIndex) { this.pairIndex = pairIndex; }
+
+    public String getRawKey() { return rawKey; }
+    public void setRawKey(String rawKey) { this.rawKey = rawKey; }
+
+    public String getNormalizedKey() { return normalizedKey; }
+    public void setNormalizedKey(String normalizedKey) { this.normalizedKey = normalizedKey; }
+
+    public String getRawValue() { return rawValue; }
+    public void setRawValue(String rawValue) { this.rawValue = rawValue; }
+
+    public String getValueText() { return valueText; }
+    public void setValueText(String valueText) { this.valueText = valueText; }
+
+    public BigDecimal getValueNumber() { return valueNumber; }
+    public void setValueNumber(BigDecimal valueNumber) { this.valueNumber = valueNumber; }
+
+    public LocalDate getValueDate() { return valueDate; }
+    public void setValueDate(LocalDate valueDate) { this.valueDate = valueDate; }
+}
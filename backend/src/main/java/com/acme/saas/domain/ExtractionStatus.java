@@ -2,6 +2,7 @@ package com.acme.saas.domain;
 
 public enum ExtractionStatus {
     PENDING,
+    PREVIEW,    // Partial result from the upload-time preview; replaced by the full extraction
     SUCCESS,
     FAILED
 }
@@ -0,0 +1,110 @@
+package com.acme.saas.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+/**
+ * Result of an upload request sent with an Idempotency-Key, replayed to retries of that request.
+ * Kept in the public schema so expired keys of every tenant can be swept.
+ */
+@Entity
+@Table(name = "idempotency_keys", schema = "public")
+public class IdempotencyKey {
+
+    @EmbeddedId
+    private Id id;
+
+    // Hash of the request the key was first used with
+    private String fingerprint;
+
+    // Null while the first request is still running
+    private Integer statusCode;
+
+    @Column(columnDefinition = "TEXT")
+    private String responseBody;
+
+    private OffsetDateTime createdAt;
+    private OffsetDateTime expiresAt;
+
+    @Embeddable
+    public static class Id implements Serializable {
+        private String tenantSchema;
+        private String idempotencyKey;
+
+        protected Id() {
+        }
+
+        public Id(String tenantSchema, String idempotencyKey) {
+            this.tenantSchema = tenantSchema;
+            this.idempotencyKey = idempotencyKey;
+        }
+
+        public String getTenantSchema() {
+            return tenantSchema;
+        }
+
+        public String getIdempotencyKey() {
+            return idempotencyKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Id other
+                    && Objects.equals(tenantSchema, other.tenantSchema)
+                    && Objects.equals(idempotencyKey, other.idempotencyKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenantSchema, idempotencyKey);
+        }
+    }
+
+    protected IdempotencyKey() {
+    }
+
+    public IdempotencyKey(Id id, String fingerprint) {
+        this.id = id;
+        this.fingerprint = fingerprint;
+        this.createdAt = OffsetDateTime.now();
+    }
+
+    public Id getId() {
+        return id;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+
+    public void setStatusCode(Integer statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public void setResponseBody(String responseBody) {
+        this.responseBody = responseBody;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public OffsetDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(OffsetDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,57 @@
+package com.acme.saas.domain;
+
+import com.acme.saas.extraction.KeyValueRuleDefinition;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Tenant-defined key-value extraction rule; see {@link KeyValueRuleDefinition}.
+ */
+@Entity
+@Table(name = "kv_rules")
+public class KeyValueRule {
+    @Id
+    private UUID id;
+
+    private String canonicalKey;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    private String[] aliases;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    private String[] delimiters;
+
+    private Integer lineWindow;
+
+    private OffsetDateTime createdAt = OffsetDateTime.now();
+
+    public KeyValueRule() {
+        this.id = UUID.randomUUID();
+    }
+
+    public KeyValueRuleDefinition toDefinition() {
+        return new KeyValueRuleDefinition(canonicalKey, List.of(aliases), List.of(delimiters), lineWindow);
+    }
+
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public String getCanonicalKey() { return canonicalKey; }
+    public void setCanonicalKey(String canonicalKey) { this.canonicalKey = canonicalKey; }
+
+    public String[] getAliases() { return aliases; }
+    public void setAliases(String[] aliases) { this.aliases = aliases; }
+
+    public String[] getDelimiters() { return delimiters; }
+    public void setDelimiters(String[] delimiters) { this.delimiters = delimiters; }
+
+    public Integer getLineWindow() { return lineWindow; }
+    public void setLineWindow(Integer lineWindow) { this.lineWindow = lineWindow; }
+
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+}
@@ -23,6 +23,18 @@ public class RfpDocument {
     
     private OffsetDateTime uploadedAt;
     private OffsetDateTime processedAt;
+
+    // Document this one is a revised version of, if any
+    private UUID previousVersionId;
+
+    // Package (zip archive) this document was unpacked from, if any
+    private UUID packageId;
+
+    // Extraction progress in units (pages/sheets/sections); maintained by extraction checkpoints only
+    @Column(insertable = false, updatable = false)
+    private Integer unitsTotal;
+    @Column(insertable = false, updatable = false)
+    private Integer unitsDone;
     
     public RfpDocument() {
         this.id = UUID.randomUUID();
@@ -69,6 +81,28 @@ public class RfpDocument {
     public OffsetDateTime getProcessedAt() { return processedAt; }
     public void setProcessedAt(OffsetDateTime processedAt) { this.processedAt = processedAt; }
     
+    public UUID getPreviousVersionId() { return previousVersionId; }
+    public void setPreviousVersionId(UUID previousVersionId) { this.previousVersionId = previousVersionId; }
+
+    public UUID getPackageId() { return packageId; }
+    public void setPackageId(UUID packageId) { this.packageId = packageId; }
+    
+    public Integer getUnitsTotal() { return unitsTotal; }
+    public Integer getUnitsDone() { return unitsDone; }
+
+    /**
+     * Extraction progress in percent, or null while the unit count is unknown.
+     */
+    public Integer getProgress() {
+        if (status == DocumentStatus.COMPLETED) {
+            return 100;
+        }
+        if (unitsTotal == null || unitsDone == null || unitsTotal == 0) {
+            return null;
+        }
+        return Math.min(100, unitsDone * 100 / unitsTotal);
+    }
+    
     public enum DocumentStatus {
         UPLOADED,      // File uploaded, waiting for processing
         PROCESSING,    // Currently being processed
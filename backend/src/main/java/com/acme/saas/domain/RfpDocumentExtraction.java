@@ -1,5 +1,6 @@
 package com.acme.saas.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
@@ -23,6 +24,20 @@ public class RfpDocumentExtraction {
     @JdbcTypeCode(SqlTypes.JSON)
     private String tablesJson;
 
+    // Compact binary encoding of tables (CompactTableCodec); not exposed in API responses
+    @JsonIgnore
+    @Column(name = "tables_compact")
+    private byte[] tablesCompact;
+
+    // CompactTableCodec.Index of tablesCompact, for reading a single table out of it
+    @JsonIgnore
+    @Column(name = "tables_compact_offsets")
+    private int[] tablesCompactOffsets;
+
+    @JsonIgnore
+    @Column(name = "tables_compact_names")
+    private String[] tablesCompactNames;
+
     @Column(name = "key_values_json", columnDefinition = "JSONB")
     @JdbcTypeCode(SqlTypes.JSON)
     private String keyValuesJson;
@@ -39,6 +54,9 @@ public class RfpDocumentExtraction {
 
     private OffsetDateTime extractedAt;
 
+    // DocumentExtractor.VERSION that produced this extraction; null for extractions before versioning
+    private Integer extractorVersion;
+
     public RfpDocumentExtraction() {
         this.id = UUID.randomUUID();
         this.status = ExtractionStatus.PENDING;
@@ -61,6 +79,15 @@ public class RfpDocumentExtraction {
     public String getTablesJson() { return tablesJson; }
     public void setTablesJson(String tablesJson) { this.tablesJson = tablesJson; }
 
+    public byte[] getTablesCompact() { return tablesCompact; }
+    public void setTablesCompact(byte[] tablesCompact) { this.tablesCompact = tablesCompact; }
+
+    public int[] getTablesCompactOffsets() { return tablesCompactOffsets; }
+    public void setTablesCompactOffsets(int[] tablesCompactOffsets) { this.tablesCompactOffsets = tablesCompactOffsets; }
+
+    public String[] getTablesCompactNames() { return tablesCompactNames; }
+    public void setTablesCompactNames(String[] tablesCompactNames) { this.tablesCompactNames = tablesCompactNames; }
+
     public String getKeyValuesJson() { return keyValuesJson; }
     public void setKeyValuesJson(String keyValuesJson) { this.keyValuesJson = keyValuesJson; }
 
@@ -84,4 +111,7 @@ public class RfpDocumentExtraction {
 
     public OffsetDateTime getExtractedAt() { return extractedAt; }
     public void setExtractedAt(OffsetDateTime extractedAt) { this.extractedAt = extractedAt; }
+
+    public Integer getExtractorVersion() { return extractorVersion; }
+    public void setExtractorVersion(Integer extractorVersion) { this.extractorVersion = extractorVersion; }
 }
@@ -0,0 +1,110 @@
+package com.acme.saas.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Upload of one file in progress: resumable through this service, backed by an S3 multipart
+ * upload, or direct to S3 through presigned URLs. Kept in the public schema so abandoned
+ * sessions of every tenant can be swept.
+ */
+@Entity
+@Table(name = "upload_sessions", schema = "public")
+public class UploadSession {
+    @Id
+    private UUID id;
+
+    @JsonIgnore
+    private String tenantSchema;
+
+    private String originalFilename;
+    private String contentType;
+    private long totalSize;
+
+    @JsonIgnore
+    private String storagePath;
+    // Null for a direct upload through a single presigned PUT
+    @JsonIgnore
+    @Column(name = "s3_upload_id")
+    private String s3UploadId;
+
+    // Whether the client uploads straight to S3 through presigned URLs instead of in chunks through us
+    private boolean direct;
+
+    // Offset of the next chunk
+    private long receivedBytes;
+    private int parts;
+    // ETag of every part, as recorded with its chunk
+    @JsonIgnore
+    @Column(name = "part_etags")
+    private String[] partETags = new String[0];
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    private UUID documentId;
+
+    private OffsetDateTime createdAt;
+    private OffsetDateTime updatedAt;
+
+    public enum Status {
+        OPEN,
+        COMPLETED,
+        ABORTED
+    }
+
+    public UploadSession() {
+        this.id = UUID.randomUUID();
+        this.createdAt = OffsetDateTime.now();
+        this.updatedAt = this.createdAt;
+        this.status = Status.OPEN;
+    }
+
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public String getTenantSchema() { return tenantSchema; }
+    public void setTenantSchema(String tenantSchema) { this.tenantSchema = tenantSchema; }
+
+    public String getOriginalFilename() { return originalFilename; }
+    public void setOriginalFilename(String originalFilename) { this.originalFilename = originalFilename; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public long getTotalSize() { return totalSize; }
+    public void setTotalSize(long totalSize) { this.totalSize = totalSize; }
+
+    public String getStoragePath() { return storagePath; }
+    public void setStoragePath(String storagePath) { this.storagePath = storagePath; }
+
+    public String getS3UploadId() { return s3UploadId; }
+    public void setS3UploadId(String s3UploadId) { this.s3UploadId = s3UploadId; }
+
+    public boolean isDirect() { return direct; }
+    public void setDirect(boolean direct) { this.direct = direct; }
+
+    public long getReceivedBytes() { return receivedBytes; }
+    public void setReceivedBytes(long receivedBytes) { this.receivedBytes = receivedBytes; }
+
+    public int getParts() { return parts; }
+    public void setParts(int parts) { this.parts = parts; }
+
+    public String[] getPartETags() { return partETags; }
+    public void setPartETags(String[] partETags) { this.partETags = partETags; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public UUID getDocumentId() { return documentId; }
+    public void setDocumentId(UUID documentId) { this.documentId = documentId; }
+
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+
+    public OffsetDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(OffsetDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
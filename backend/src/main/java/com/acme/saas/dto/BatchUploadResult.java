@@ -0,0 +1,25 @@
+package com.acme.saas.dto;
+
+import java.util.UUID;
+
+/**
+ * Outcome of one file of a batch upload: the created document, or why the file was rejected.
+ */
+public record BatchUploadResult(
+    String filename,
+    UUID id,
+    String status,
+    String error
+) {
+    public static BatchUploadResult created(String filename, UUID id, String status) {
+        return new BatchUploadResult(filename, id, status, null);
+    }
+
+    public static BatchUploadResult rejected(String filename, String error) {
+        return new BatchUploadResult(filename, null, "REJECTED", error);
+    }
+
+    public boolean isCreated() {
+        return id != null;
+    }
+}
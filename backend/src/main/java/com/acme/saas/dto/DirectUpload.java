@@ -0,0 +1,22 @@
+package com.acme.saas.dto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Where a client uploads a file straight to S3: a single presigned PUT with the headers it
+ * must send, or for large files one presigned PUT per part. Either way the client then
+ * completes the upload session.
+ */
+public record DirectUpload(
+    UUID id,
+    String url,
+    Map<String, String> headers,
+    List<PartUrl> parts,
+    Long partSize,
+    Instant expiresAt
+) {
+    public record PartUrl(int partNumber, String url) {}
+}
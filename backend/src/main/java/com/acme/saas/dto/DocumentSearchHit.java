@@ -0,0 +1,10 @@
+package com.acme.saas.dto;
+
+import java.util.UUID;
+
+public record DocumentSearchHit(
+    UUID documentId,
+    String filename,
+    float rank,      // ts_rank_cd score, higher is better
+    String snippet   // Highlighted excerpt as HTML: text escaped, matches wrapped in <mark></mark>
+) {}
@@ -0,0 +1,8 @@
+package com.acme.saas.dto;
+
+import java.util.List;
+
+public record DocumentSearchPage(
+    List<DocumentSearchHit> hits,
+    String nextCursor  // Pass as 'after' to fetch the next page; null when there are no more results
+) {}
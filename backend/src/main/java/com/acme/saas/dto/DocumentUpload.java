@@ -0,0 +1,8 @@
+package com.acme.saas.dto;
+
+import com.acme.saas.domain.RfpDocument;
+
+public record DocumentUpload(
+    RfpDocument document,
+    ExtractionPreview preview  // null when the preview pass failed
+) {}
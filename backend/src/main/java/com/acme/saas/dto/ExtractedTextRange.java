@@ -0,0 +1,8 @@
+package com.acme.saas.dto;
+
+public record ExtractedTextRange(
+    int offset,       // Character offset the range starts at (0-based)
+    int length,       // Number of characters actually returned
+    int totalLength,  // Length of the full extracted text
+    String text
+) {}
@@ -0,0 +1,16 @@
+package com.acme.saas.dto;
+
+import java.util.List;
+
+/**
+ * Extraction result of one checkpoint unit: a PDF page, an XLSX sheet or a DOCX section.
+ * Concatenating the text of all units in order yields the document's full text.
+ */
+public record ExtractedUnit(
+    int index,       // 0-based position in the document
+    String type,     // "page", "sheet" or "section"
+    String name,     // "Page 3", sheet name, "Section 2"
+    String contentHash, // SHA-256 of the unit's source content; equal hashes extract to the same result
+    String text,
+    List<ExtractedTable> tables
+) {}
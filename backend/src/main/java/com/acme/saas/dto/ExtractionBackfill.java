@@ -0,0 +1,19 @@
+package com.acme.saas.dto;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Progress of a re-extraction backfill.
+ */
+public record ExtractionBackfill(
+    UUID id,
+    String tenant,          // tenant schema, or null for every tenant
+    int targetVersion,      // extractor version documents are brought to
+    String status,          // RUNNING, COMPLETED or CANCELLED
+    String currentTenant,   // tenant schema being processed
+    int documentsDone,
+    int documentsFailed,    // skipped after a failed re-extraction; they keep their previous extraction
+    OffsetDateTime createdAt,
+    OffsetDateTime finishedAt
+) {}
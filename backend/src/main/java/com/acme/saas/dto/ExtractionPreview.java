@@ -0,0 +1,17 @@
+package com.acme.saas.dto;
+
+import java.util.List;
+
+/**
+ * Result of the bounded preview pass returned with an upload.
+ * Counts cover only the part of the document that was read.
+ */
+public record ExtractionPreview(
+    boolean complete,  // false when limits cut the pass short; the full extraction follows in the background
+    int pageCount,
+    int sheetCount,
+    int characterCount,
+    String text,
+    List<KeyValuePair> keyValues,
+    List<ExtractedTable> tables
+) {}
@@ -0,0 +1,13 @@
+package com.acme.saas.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+public record KeyValueMatch(
+    UUID documentId,
+    String key,          // Key as written in the document
+    String value,        // Value as written in the document
+    BigDecimal number,   // Parsed numeric value, if any
+    LocalDate date       // Parsed date value, if any
+) {}
@@ -0,0 +1,19 @@
+package com.acme.saas.dto;
+
+import com.acme.saas.domain.RfpDocument;
+
+import java.util.List;
+
+/**
+ * Result of unpacking a zip package: the package document, the member documents created
+ * from its entries, and the entries that were not imported. If unpacking failed after some
+ * members were stored, the package document is FAILED with the error and the members are
+ * those stored before it.
+ */
+public record PackageUpload(
+    RfpDocument document,
+    List<RfpDocument> members,
+    List<SkippedEntry> skipped
+) {
+    public record SkippedEntry(String name, String reason) {}
+}
@@ -0,0 +1,12 @@
+package com.acme.saas.dto;
+
+import java.util.Map;
+import java.util.UUID;
+
+public record TableRowMatch(
+    UUID documentId,
+    int tableIndex,
+    String tableName,
+    int rowIndex,               // Row position in the original table (header is row 0)
+    Map<String, String> cells   // Normalized column key -> cell value, non-empty cells only
+) {}
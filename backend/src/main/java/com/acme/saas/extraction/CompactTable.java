@@ -0,0 +1,87 @@
+package com.acme.saas.extraction;
+
+import com.acme.saas.dto.ExtractedTable;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decoded view of a table produced by {@link CompactTableCodec}.
+ * Only the dictionary and run boundaries are held in memory; row lists are
+ * materialized on demand, so callers can page through large sheets cheaply.
+ */
+public final class CompactTable {
+
+    private final String name;
+    private final int[] rowWidths;
+    private final String[] dictionary;
+    private final int[][] runEnds;  // per column, exclusive end row of each run
+    private final int[][] runIds;   // per column, dictionary id of each run
+
+    CompactTable(String name, int[] rowWidths, String[] dictionary, int[][] runEnds, int[][] runIds) {
+        this.name = name;
+        this.rowWidths = rowWidths;
+        this.dictionary = dictionary;
+        this.runEnds = runEnds;
+        this.runIds = runIds;
+    }
+
+    public String name() { return name; }
+
+    public int rowCount() { return rowWidths.length; }
+
+    public int columnCount() { return runEnds.length; }
+
+    public String cell(int row, int column) {
+        if (row < 0 || row >= rowWidths.length) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range 0.." + (rowWidths.length - 1));
+        }
+        if (column < 0 || column >= rowWidths[row]) {
+            throw new IndexOutOfBoundsException("Column " + column + " out of range for row " + row);
+        }
+        int[] ends = runEnds[column];
+        int run = Arrays.binarySearch(ends, row + 1);
+        if (run < 0) {
+            run = -run - 1;
+        }
+        return dictionary[runIds[column][run]];
+    }
+
+    /**
+     * Materializes a single row.
+     */
+    public List<String> row(int index) {
+        int width = rowWidths[index];
+        List<String> cells = new ArrayList<>(width);
+        for (int c = 0; c < width; c++) {
+            cells.add(cell(index, c));
+        }
+        return cells;
+    }
+
+    /**
+     * Lazy list view over the rows; each {@code get} decodes one row.
+     */
+    public List<List<String>> rows() {
+        return new AbstractList<>() {
+            @Override
+            public List<String> get(int index) {
+                return row(index);
+            }
+
+            @Override
+            public int size() {
+                return rowWidths.length;
+            }
+        };
+    }
+
+    /**
+     * Fully materializes the table in the JSON-facing shape.
+     */
+    public ExtractedTable toExtractedTable() {
+        return new ExtractedTable(name, new ArrayList<>(rows()));
+    }
+}
@@ -0,0 +1,358 @@
+package com.acme.saas.extraction;
+
+import com.acme.saas.dto.ExtractedTable;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Compact binary encoding for extracted tables.
+ *
+ * Each table is stored column-oriented with a per-table string dictionary and run-length
+ * encoded dictionary ids, so sparse sheets (long runs of empty cells) and repeated values
+ * (plan names, tiers, carriers) cost a few bytes per run instead of a JSON string per cell.
+ *
+ * Layout (all integers are unsigned LEB128 varints):
+ * <pre>
+ *   "RTBL" version tableCount bodyLength[tableCount] body[tableCount]
+ *   body = name rowCount columnCount
+ *          widthRunCount (runLength width)*      -- preserves ragged rows exactly
+ *          dictSize string*                      -- id 0 is the implicit empty string
+ *          per column: runCount (runLength id)*
+ * </pre>
+ * Null cells are stored as empty strings.
+ */
+public final class CompactTableCodec {
+
+    private static final byte[] MAGIC = {'R', 'T', 'B', 'L'};
+    private static final int VERSION = 1;
+
+    private CompactTableCodec() {}
+
+    public static byte[] encode(List<ExtractedTable> tables) {
+        List<byte[]> bodies = new ArrayList<>(tables.size());
+        for (ExtractedTable table : tables) {
+            bodies.add(encodeTable(table));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(MAGIC);
+        writeVarint(out, VERSION);
+        writeVarint(out, bodies.size());
+        for (byte[] body : bodies) {
+            writeVarint(out, body.length);
+        }
+        for (byte[] body : bodies) {
+            out.writeBytes(body);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes every table. Rows are still materialized lazily by {@link CompactTable}.
+     */
+    public static List<CompactTable> decode(byte[] data) {
+        Reader reader = readHeader(data);
+        int[] lengths = readDirectory(reader);
+        List<CompactTable> tables = new ArrayList<>(lengths.length);
+        for (int length : lengths) {
+            int end = reader.pos + length;
+            tables.add(decodeTable(reader));
+            reader.pos = end;
+        }
+        return tables;
+    }
+
+    /**
+     * Decodes a single table by position, skipping the bodies of all other tables.
+     */
+    public static Optional<CompactTable> decodeTable(byte[] data, int index) {
+        Reader reader = readHeader(data);
+        int[] lengths = readDirectory(reader);
+        if (index < 0 || index >= lengths.length) {
+            return Optional.empty();
+        }
+        for (int i = 0; i < index; i++) {
+            reader.pos += lengths[i];
+        }
+        return Optional.of(decodeTable(reader));
+    }
+
+    /**
+     * Decodes the first table with the given name, only reading the name of the tables it skips.
+     */
+    public static Optional<CompactTable> decodeTable(byte[] data, String name) {
+        Reader reader = readHeader(data);
+        int[] lengths = readDirectory(reader);
+        for (int length : lengths) {
+            int start = reader.pos;
+            if (reader.readString().equals(name)) {
+                reader.pos = start;
+                return Optional.of(decodeTable(reader));
+            }
+            reader.pos = start + length;
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Byte offset of every table body in an encoding, followed by its end, and the table names.
+     * Stored next to the encoding so a single table can be sliced out of it without reading the rest.
+     */
+    public record Index(int[] offsets, String[] names) {}
+
+    public static Index index(byte[] data) {
+        Reader reader = readHeader(data);
+        int[] lengths = readDirectory(reader);
+        int[] offsets = new int[lengths.length + 1];
+        String[] names = new String[lengths.length];
+        offsets[0] = reader.pos;
+        for (int i = 0; i < lengths.length; i++) {
+            names[i] = reader.readString();
+            offsets[i + 1] = offsets[i] + lengths[i];
+            reader.pos = offsets[i + 1];
+        }
+        return new Index(offsets, names);
+    }
+
+    /**
+     * Decodes one table body, as sliced out of an encoding at the offsets of its {@link Index}.
+     */
+    public static CompactTable decodeBody(byte[] body) {
+        return decodeTable(new Reader(body, 0));
+    }
+
+    public static int tableCount(byte[] data) {
+        Reader reader = readHeader(data);
+        return reader.readVarint();
+    }
+
+    // ===== Encoding =====
+
+    private static byte[] encodeTable(ExtractedTable table) {
+        List<List<String>> rows = table.rows() != null ? table.rows() : List.of();
+        int rowCount = rows.size();
+        int columnCount = 0;
+        for (List<String> row : rows) {
+            columnCount = Math.max(columnCount, row.size());
+        }
+
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        ids.put("", 0);
+
+        // Column runs are collected first because the dictionary is written ahead of them
+        IntBuffer columnRuns = new IntBuffer();
+        for (int c = 0; c < columnCount; c++) {
+            int runCountSlot = columnRuns.reserve();
+            int runs = 0;
+            int currentId = -1;
+            int runLength = 0;
+            for (List<String> row : rows) {
+                String value = c < row.size() ? row.get(c) : null;
+                int id = value == null || value.isEmpty() ? 0 : ids.computeIfAbsent(value, v -> {
+                    dictionary.add(v);
+                    return dictionary.size();
+                });
+                if (id == currentId) {
+                    runLength++;
+                } else {
+                    if (runLength > 0) {
+                        columnRuns.add(runLength);
+                        columnRuns.add(currentId);
+                        runs++;
+                    }
+                    currentId = id;
+                    runLength = 1;
+                }
+            }
+            if (runLength > 0) {
+                columnRuns.add(runLength);
+                columnRuns.add(currentId);
+                runs++;
+            }
+            columnRuns.set(runCountSlot, runs);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeString(out, table.name() != null ? table.name() : "");
+        writeVarint(out, rowCount);
+        writeVarint(out, columnCount);
+        writeWidthRuns(out, rows);
+
+        writeVarint(out, dictionary.size());
+        for (String value : dictionary) {
+            writeString(out, value);
+        }
+
+        for (int i = 0; i < columnRuns.size; i++) {
+            writeVarint(out, columnRuns.values[i]);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeWidthRuns(ByteArrayOutputStream out, List<List<String>> rows) {
+        IntBuffer runs = new IntBuffer();
+        int currentWidth = -1;
+        int runLength = 0;
+        for (List<String> row : rows) {
+            if (row.size() == currentWidth) {
+                runLength++;
+            } else {
+                if (runLength > 0) {
+                    runs.add(runLength);
+                    runs.add(currentWidth);
+                }
+                currentWidth = row.size();
+                runLength = 1;
+            }
+        }
+        if (runLength > 0) {
+            runs.add(runLength);
+            runs.add(currentWidth);
+        }
+        writeVarint(out, runs.size / 2);
+        for (int i = 0; i < runs.size; i++) {
+            writeVarint(out, runs.values[i]);
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    // ===== Decoding =====
+
+    private static Reader readHeader(byte[] data) {
+        if (data == null || data.length < MAGIC.length + 1
+                || !Arrays.equals(data, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+            throw new IllegalArgumentException("Not a compact table encoding");
+        }
+        Reader reader = new Reader(data, MAGIC.length);
+        int version = reader.readVarint();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported compact table version: " + version);
+        }
+        return reader;
+    }
+
+    private static int[] readDirectory(Reader reader) {
+        int count = reader.readVarint();
+        int[] lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            lengths[i] = reader.readVarint();
+        }
+        return lengths;
+    }
+
+    private static CompactTable decodeTable(Reader reader) {
+        String name = reader.readString();
+        int rowCount = reader.readVarint();
+        int columnCount = reader.readVarint();
+
+        int[] rowWidths = new int[rowCount];
+        int widthRuns = reader.readVarint();
+        int row = 0;
+        for (int i = 0; i < widthRuns; i++) {
+            int runLength = reader.readVarint();
+            int width = reader.readVarint();
+            Arrays.fill(rowWidths, row, row + runLength, width);
+            row += runLength;
+        }
+
+        int dictSize = reader.readVarint();
+        String[] dictionary = new String[dictSize + 1];
+        dictionary[0] = "";
+        for (int i = 1; i <= dictSize; i++) {
+            dictionary[i] = reader.readString();
+        }
+
+        int[][] runEnds = new int[columnCount][];
+        int[][] runIds = new int[columnCount][];
+        for (int c = 0; c < columnCount; c++) {
+            int runs = reader.readVarint();
+            int[] ends = new int[runs];
+            int[] values = new int[runs];
+            int end = 0;
+            for (int r = 0; r < runs; r++) {
+                end += reader.readVarint();
+                ends[r] = end;
+                values[r] = reader.readVarint();
+            }
+            runEnds[c] = ends;
+            runIds[c] = values;
+        }
+
+        return new CompactTable(name, rowWidths, dictionary, runEnds, runIds);
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int pos;
+
+        Reader(byte[] data, int pos) {
+            this.data = data;
+            this.pos = pos;
+        }
+
+        int readVarint() {
+            int result = 0;
+            int shift = 0;
+            while (true) {
+                if (pos >= data.length) {
+                    throw new IllegalArgumentException("Truncated compact table encoding");
+                }
+                byte b = data[pos++];
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+                shift += 7;
+            }
+        }
+
+        String readString() {
+            int length = readVarint();
+            String value = new String(data, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+    }
+
+    private static final class IntBuffer {
+        private int[] values = new int[64];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int reserve() {
+            add(0);
+            return size - 1;
+        }
+
+        void set(int index, int value) {
+            values[index] = value;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.acme.saas.extraction;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 over the source content of one unit, hex encoded.
+ * Every value is followed by its length so adjacent values cannot run into each other.
+ */
+final class ContentHash {
+
+    private final MessageDigest digest;
+
+    ContentHash(String unitType) {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        add(unitType);
+    }
+
+    ContentHash add(String value) {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        digest.update(bytes);
+        return add(bytes.length);
+    }
+
+    ContentHash add(long value) {
+        digest.update(ByteBuffer.allocate(Long.BYTES).putLong(value).array());
+        return this;
+    }
+
+    ContentHash add(InputStream in) throws IOException {
+        byte[] buffer = new byte[8192];
+        long length = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+            length += read;
+        }
+        return add(length);
+    }
+
+    String hex() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
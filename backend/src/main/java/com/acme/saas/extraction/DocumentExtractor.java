@@ -0,0 +1,634 @@
+package com.acme.saas.extraction;
+
+import com.acme.saas.dto.ExtractedTable;
+import com.acme.saas.dto.ExtractedUnit;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xwpf.usermodel.IBodyElement;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.apache.poi.xwpf.usermodel.XWPFTableCell;
+import org.apache.poi.xwpf.usermodel.XWPFTableRow;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Parses PDF, DOCX and XLSX documents in a single pass, emitting structural events to an
+ * {@link ExtractionListener} instead of building intermediate text and table copies.
+ *
+ * Every unit (page, section, sheet) is hashed from its source content before it is parsed.
+ * When an earlier version of the document had a unit with the same hash, that unit's result
+ * is emitted instead, so a revised document only pays for the units that changed.
+ */
+public class DocumentExtractor {
+
+    public static final String PDF = "application/pdf";
+    public static final String DOCX = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+    public static final String XLSX = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    /**
+     * Stamped on every extraction. Increment when a change here alters the extracted output;
+     * documents extracted by an older version are picked up by extraction backfills.
+     */
+    public static final int VERSION = 2;
+
+    public void extract(String contentType, InputStream inputStream, ExtractionListener listener) throws IOException {
+        extract(contentType, inputStream, listener, 0);
+    }
+
+    /**
+     * Extracts starting at the given unit, skipping earlier pages, sheets or sections,
+     * e.g. to resume after the last checkpointed unit. Unit indexes and names are the
+     * same as in a full pass. If the pass stops inside a unit, that unit is not ended.
+     */
+    public void extract(String contentType, InputStream inputStream, ExtractionListener listener, int firstUnit)
+            throws IOException {
+        extract(contentType, inputStream, listener, firstUnit, PreviousUnits.NONE);
+    }
+
+    /**
+     * Extracts as above, taking unchanged units from an earlier version of the document.
+     * Reused units are emitted with their position and name in this version.
+     */
+    public void extract(String contentType, InputStream inputStream, ExtractionListener listener, int firstUnit,
+                        PreviousUnits previous) throws IOException {
+        if (!PDF.equals(contentType) && !DOCX.equals(contentType) && !XLSX.equals(contentType)) {
+            throw new IllegalArgumentException("Unsupported content type: " + contentType);
+        }
+        listener.startDocument(contentType);
+        switch (contentType) {
+            case PDF -> extractPdf(inputStream, listener, firstUnit, previous);
+            case DOCX -> extractDocx(inputStream, listener, firstUnit, previous);
+            default -> extractXlsx(inputStream, listener, firstUnit, previous);
+        }
+        listener.endDocument();
+    }
+
+    /**
+     * Extracts for a preview that is expected to stop early, keeping the parse cost in line with
+     * what is emitted. XLSX sheets are streamed row by row instead of loading the whole workbook.
+     * PDFBox parses page objects lazily, so only the pages reached are parsed, though the whole
+     * file is read into memory first. DOCX is loaded in full before the first event, so its
+     * budget covers emitted content, not parse cost. Units carry no content hash.
+     */
+    public void extractPreview(String contentType, InputStream inputStream, ExtractionListener listener)
+            throws IOException {
+        if (!XLSX.equals(contentType)) {
+            extract(contentType, inputStream, listener);
+            return;
+        }
+        listener.startDocument(contentType);
+        streamXlsx(inputStream, listener);
+        listener.endDocument();
+    }
+
+    /**
+     * Text from PDF using Apache PDFBox, streamed page by page; each page is a unit.
+     * Note: PDF table extraction with PDFBox is limited; no table events are emitted.
+     */
+    private void extractPdf(InputStream inputStream, ExtractionListener listener, int firstUnit,
+                            PreviousUnits previous) throws IOException {
+        try (PDDocument document = Loader.loadPDF(inputStream.readAllBytes())) {
+            listener.unitCount(document.getNumberOfPages());
+            var stripper = new PDFTextStripper() {
+                private String pageHash;
+                // Next page to emit; pages without content streams are never passed to processPage
+                private int nextPage = firstUnit + 1;
+
+                @Override
+                public void processPage(PDPage page) throws IOException {
+                    int number = getCurrentPageNo();
+                    if (!emitPagesWithoutContent(number) || listener.stopRequested()) {
+                        return;
+                    }
+                    if (number >= getStartPage()) {
+                        nextPage = number + 1;
+                        pageHash = pageHash(page);
+                        ExtractedUnit match = previous.find(pageHash);
+                        if (match != null && "page".equals(match.type())) {
+                            // Unchanged page: skip text stripping, the most expensive part of PDF extraction
+                            UnitRecorder.replay(new ExtractedUnit(number - 1, "page", "Page " + number, pageHash,
+                                    match.text(), match.tables()), listener);
+                            return;
+                        }
+                    }
+                    super.processPage(page);
+                }
+
+                /**
+                 * Emits an empty unit for each page without content before the given page number, so
+                 * every page is a unit and unit indexes stay page positions. The stripper writes no
+                 * text for such pages, so neither do these. Returns false if the pass was stopped.
+                 */
+                boolean emitPagesWithoutContent(int before) throws IOException {
+                    for (; nextPage < before; nextPage++) {
+                        if (listener.stopRequested()) {
+                            return false;
+                        }
+                        String hash = pageHash(document.getPage(nextPage - 1));
+                        listener.startUnit(nextPage - 1, "page", "Page " + nextPage, hash);
+                        listener.startPage(nextPage);
+                        listener.endPage(nextPage);
+                        listener.endUnit(nextPage - 1);
+                    }
+                    return true;
+                }
+
+                @Override
+                protected void startPage(PDPage page) throws IOException {
+                    super.startPage(page);
+                    int number = getCurrentPageNo();
+                    listener.startUnit(number - 1, "page", "Page " + number, pageHash);
+                    listener.startPage(number);
+                }
+
+                @Override
+                protected void endPage(PDPage page) throws IOException {
+                    super.endPage(page);
+                    listener.endPage(getCurrentPageNo());
+                    listener.endUnit(getCurrentPageNo() - 1);
+                }
+            };
+            stripper.setStartPage(firstUnit + 1);
+            stripper.writeText(document, new ListenerWriter(listener));
+            stripper.emitPagesWithoutContent(document.getNumberOfPages() + 1);
+        }
+    }
+
+    /**
+     * Hash of what the text stripper reads for a page: its content streams, rotation, fonts
+     * and nested form XObjects. Images and annotations do not contribute text and are ignored.
+     */
+    private static String pageHash(PDPage page) throws IOException {
+        ContentHash hash = new ContentHash("page");
+        try (InputStream contents = page.getContents()) {
+            hash.add(contents);
+        }
+        hash.add(page.getRotation());
+        addResources(hash, page.getResources(), 0);
+        return hash.hex();
+    }
+
+    private static void addResources(ContentHash hash, PDResources resources, int depth) throws IOException {
+        if (resources == null || depth > 8) {
+            return;
+        }
+        for (COSName name : resources.getFontNames()) {
+            hash.add(name.getName());
+            // Read the font dictionary directly; PDResources.getFont would load the font program
+            COSDictionary fonts = resources.getCOSObject().getCOSDictionary(COSName.FONT);
+            COSDictionary fontDictionary = fonts != null ? fonts.getCOSDictionary(name) : null;
+            hash.add(fontDictionary != null ? fontDictionary.getNameAsString(COSName.BASE_FONT) : null);
+        }
+        for (COSName name : resources.getXObjectNames()) {
+            PDXObject xObject = resources.getXObject(name);
+            if (xObject instanceof PDFormXObject form) {
+                hash.add(name.getName());
+                try (InputStream contents = form.getContents()) {
+                    hash.add(contents);
+                }
+                addResources(hash, form.getResources(), depth + 1);
+            }
+        }
+    }
+
+    /**
+     * Paragraph text and tables from DOCX using Apache POI, in body order.
+     * Each section (ended by a section break) is a unit.
+     */
+    private void extractDocx(InputStream inputStream, ExtractionListener listener, int firstUnit,
+                             PreviousUnits previous) throws IOException {
+        try (XWPFDocument document = new XWPFDocument(inputStream)) {
+            List<List<IBodyElement>> sections = new ArrayList<>();
+            List<IBodyElement> section = new ArrayList<>();
+            for (IBodyElement element : document.getBodyElements()) {
+                section.add(element);
+                if (element instanceof XWPFParagraph paragraph && endsSection(paragraph)) {
+                    sections.add(section);
+                    section = new ArrayList<>();
+                }
+            }
+            if (!section.isEmpty() || sections.isEmpty()) {
+                sections.add(section);
+            }
+            listener.unitCount(sections.size());
+
+            int tableCounter = 1;
+            List<String> cells = new ArrayList<>();
+            for (int s = 0; s < sections.size(); s++) {
+                boolean skipped = s < firstUnit;
+                if (!skipped) {
+                    if (listener.stopRequested()) {
+                        return;
+                    }
+                    String sectionHash = sectionHash(sections.get(s));
+                    ExtractedUnit match = previous.find(sectionHash);
+                    if (match != null && "section".equals(match.type())) {
+                        // Tables are numbered across the document, so renumber them for this position
+                        List<ExtractedTable> tables = new ArrayList<>();
+                        for (ExtractedTable table : match.tables()) {
+                            tables.add(new ExtractedTable("Table " + tableCounter++, table.rows()));
+                        }
+                        UnitRecorder.replay(new ExtractedUnit(s, "section", "Section " + (s + 1), sectionHash,
+                                match.text(), tables), listener);
+                        continue;
+                    }
+                    listener.startUnit(s, "section", "Section " + (s + 1), sectionHash);
+                }
+                for (IBodyElement element : sections.get(s)) {
+                    if (element instanceof XWPFTable table) {
+                        if (!skipped) {
+                            if (!emitTable(table, "Table " + tableCounter, cells, listener)) {
+                                return;
+                            }
+                        }
+                        // Numbering only counts tables that have rows, as empty tables are dropped
+                        if (!table.getRows().isEmpty()) {
+                            tableCounter++;
+                        }
+                    } else if (element instanceof XWPFParagraph paragraph && !skipped) {
+                        if (listener.stopRequested()) {
+                            return;
+                        }
+                        listener.text(paragraph.getText());
+                        listener.text("\n");
+                    }
+                }
+                if (!skipped) {
+                    listener.endUnit(s);
+                }
+            }
+        }
+    }
+
+    /**
+     * Emits the table's rows; returns false if the pass was stopped inside the table.
+     */
+    private boolean emitTable(XWPFTable table, String name, List<String> cells, ExtractionListener listener) {
+        if (listener.stopRequested()) {
+            return false;
+        }
+        listener.startTable(name);
+        for (XWPFTableRow row : table.getRows()) {
+            if (listener.stopRequested()) {
+                listener.endTable();
+                return false;
+            }
+            cells.clear();
+            for (XWPFTableCell cell : row.getTableCells()) {
+                cells.add(cell.getText().trim());
+            }
+            listener.tableRow(cells);
+        }
+        listener.endTable();
+        return true;
+    }
+
+    /**
+     * Hash of the section's paragraph and table XML, the only body elements that are extracted.
+     */
+    private static String sectionHash(List<IBodyElement> section) {
+        ContentHash hash = new ContentHash("section");
+        for (IBodyElement element : section) {
+            if (element instanceof XWPFParagraph paragraph) {
+                hash.add(paragraph.getCTP().xmlText());
+            } else if (element instanceof XWPFTable table) {
+                hash.add(table.getCTTbl().xmlText());
+            }
+        }
+        return hash.hex();
+    }
+
+    private static boolean endsSection(XWPFParagraph paragraph) {
+        return paragraph.getCTP().getPPr() != null && paragraph.getCTP().getPPr().getSectPr() != null;
+    }
+
+    /**
+     * Sheets from XLSX using Apache POI; each sheet is a unit, a table and a block of text.
+     * Text is optimized for LLM consumption (field extraction and summarization).
+     */
+    private void extractXlsx(InputStream inputStream, ExtractionListener listener, int firstUnit,
+                             PreviousUnits previous) throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook(inputStream)) {
+            List<String> cells = new ArrayList<>();
+            List<String> meaningfulCells = new ArrayList<>();
+            listener.unitCount(workbook.getNumberOfSheets());
+            for (int i = firstUnit; i < workbook.getNumberOfSheets() && !listener.stopRequested(); i++) {
+                XSSFSheet sheet = workbook.getSheetAt(i);
+                String sheetName = sheet.getSheetName();
+                String sheetHash = sheetHash(sheet, i);
+                ExtractedUnit match = previous.find(sheetHash);
+                if (match != null && "sheet".equals(match.type())) {
+                    UnitRecorder.replay(new ExtractedUnit(i, "sheet", sheetName, sheetHash, match.text(), match.tables()),
+                            listener);
+                    continue;
+                }
+                listener.startUnit(i, "sheet", sheetName, sheetHash);
+                listener.startSheet(sheetName);
+
+                // Add sheet header for context
+                if (i > 0) {
+                    listener.text("\n\n");
+                }
+                listener.text("Sheet: " + sheetName + "\n");
+
+                listener.startTable(sheetName);
+                boolean stopped = false;
+                for (Row row : sheet) {
+                    if (listener.stopRequested()) {
+                        stopped = true;
+                        break;
+                    }
+                    cells.clear();
+                    meaningfulCells.clear();
+                    for (Cell cell : row) {
+                        String cellValue = getCellValueAsString(cell);
+                        cells.add(cellValue);
+
+                        // Only add meaningful cells to the text
+                        if (isMeaningfulCell(cellValue)) {
+                            meaningfulCells.add(cellValue.trim());
+                        }
+                    }
+                    listener.tableRow(cells);
+
+                    if (!meaningfulCells.isEmpty()) {
+                        listener.text(String.join(" ", meaningfulCells) + "\n");
+                    }
+                }
+                listener.endTable();
+                listener.endSheet(sheetName);
+                if (!stopped) {
+                    listener.endUnit(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sheets from XLSX as in {@link #extractXlsx}, read with a SAX parser over each sheet's XML,
+     * so stopping ends the parse instead of coming after it. Cell values are converted as
+     * {@link #getCellValueAsString} does, except that cells sharing another cell's formula give
+     * their cached value, as the shared formula text is only stored on the first cell.
+     */
+    private void streamXlsx(InputStream inputStream, ExtractionListener listener) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(inputStream)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            SharedStrings strings = new ReadOnlySharedStringsTable(pkg);
+            XMLReader parser = XMLHelper.newXMLReader();
+
+            int sheetCount = 0;
+            for (Iterator<InputStream> sheets = reader.getSheetsData(); sheets.hasNext(); sheetCount++) {
+                sheets.next().close();
+            }
+            listener.unitCount(sheetCount);
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            for (int i = 0; sheets.hasNext() && !listener.stopRequested(); i++) {
+                try (InputStream sheetData = sheets.next()) {
+                    String sheetName = sheets.getSheetName();
+                    listener.startUnit(i, "sheet", sheetName, null);
+                    listener.startSheet(sheetName);
+                    if (i > 0) {
+                        listener.text("\n\n");
+                    }
+                    listener.text("Sheet: " + sheetName + "\n");
+
+                    listener.startTable(sheetName);
+                    boolean stopped = false;
+                    parser.setContentHandler(new SheetRowHandler(strings, listener));
+                    try {
+                        parser.parse(new InputSource(sheetData));
+                    } catch (StopParsing e) {
+                        stopped = true;
+                    }
+                    listener.endTable();
+                    listener.endSheet(sheetName);
+                    if (!stopped) {
+                        listener.endUnit(i);
+                    }
+                }
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Failed to read XLSX: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Thrown from {@link SheetRowHandler} to end a sheet's parse once a stop is requested.
+     */
+    private static final class StopParsing extends SAXException {
+        StopParsing() {
+            super("Extraction stopped");
+        }
+    }
+
+    /**
+     * Emits the rows of one sheet's XML as table rows and text.
+     */
+    private static final class SheetRowHandler extends DefaultHandler {
+        private final SharedStrings strings;
+        private final ExtractionListener listener;
+        private final List<String> cells = new ArrayList<>();
+        private final List<String> meaningfulCells = new ArrayList<>();
+        private final StringBuilder chars = new StringBuilder();
+
+        private String cellType;
+        private String value;
+        private String formula;
+        private StringBuilder inlineText;
+        private boolean capturing;
+
+        SheetRowHandler(SharedStrings strings, ExtractionListener listener) {
+            this.strings = strings;
+            this.listener = listener;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+                throws SAXException {
+            switch (localName) {
+                case "row" -> {
+                    if (listener.stopRequested()) {
+                        throw new StopParsing();
+                    }
+                    cells.clear();
+                    meaningfulCells.clear();
+                }
+                case "c" -> {
+                    cellType = attributes.getValue("t");
+                    value = null;
+                    formula = null;
+                    inlineText = null;
+                }
+                case "is" -> inlineText = new StringBuilder();
+                case "v", "f", "t" -> {
+                    chars.setLength(0);
+                    capturing = true;
+                }
+                default -> { }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (capturing) {
+                chars.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v" -> value = chars.toString();
+                case "f" -> formula = chars.toString();
+                case "t" -> {
+                    if (inlineText != null) {
+                        inlineText.append(chars);
+                    }
+                }
+                case "c" -> {
+                    String cellValue = cellValue();
+                    cells.add(cellValue);
+                    if (isMeaningfulCell(cellValue)) {
+                        meaningfulCells.add(cellValue.trim());
+                    }
+                }
+                case "row" -> {
+                    listener.tableRow(cells);
+                    if (!meaningfulCells.isEmpty()) {
+                        listener.text(String.join(" ", meaningfulCells) + "\n");
+                    }
+                }
+                default -> { }
+            }
+            if (!"is".equals(localName) && !"r".equals(localName)) {
+                capturing = false;
+            }
+        }
+
+        private String cellValue() {
+            if (formula != null && !formula.isEmpty()) {
+                return formula;
+            }
+            if ("inlineStr".equals(cellType)) {
+                return inlineText != null ? inlineText.toString() : "";
+            }
+            if (value == null || "e".equals(cellType)) {
+                return "";
+            }
+            return switch (cellType != null ? cellType : "n") {
+                case "s" -> strings.getItemAt(Integer.parseInt(value)).getString();
+                case "b" -> String.valueOf("1".equals(value));
+                case "str" -> value;
+                default -> String.valueOf(Double.parseDouble(value));
+            };
+        }
+    }
+
+    /**
+     * Hash of the sheet's name and cell values. The workbook is already loaded, so this is a cheap
+     * walk over the cell model; whether the sheet is first is included since its text depends on it.
+     */
+    private String sheetHash(XSSFSheet sheet, int index) {
+        ContentHash hash = new ContentHash("sheet").add(sheet.getSheetName()).add(index == 0 ? 0 : 1);
+        for (Row row : sheet) {
+            hash.add(row.getRowNum());
+            for (Cell cell : row) {
+                hash.add(cell.getColumnIndex()).add(getCellValueAsString(cell));
+            }
+        }
+        return hash.hex();
+    }
+
+    /**
+     * Helper method to get cell value as string from Excel cell.
+     */
+    private String getCellValueAsString(Cell cell) {
+        if (cell == null) {
+            return "";
+        }
+
+        return switch (cell.getCellType()) {
+            case STRING -> cell.getStringCellValue();
+            case NUMERIC -> String.valueOf(cell.getNumericCellValue());
+            case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
+            case FORMULA -> cell.getCellFormula();
+            default -> "";
+        };
+    }
+
+    /**
+     * Check if a cell value is meaningful for text extraction.
+     * Filters out empty cells and cells containing only zeros (common in Excel for empty numeric cells).
+     */
+    private static boolean isMeaningfulCell(String cellValue) {
+        if (cellValue == null || cellValue.trim().isEmpty()) {
+            return false;
+        }
+
+        String trimmed = cellValue.trim();
+
+        // Skip cells that are just zeros (likely empty cells in Excel)
+        return !trimmed.equals("0") && !trimmed.equals("0.0");
+    }
+
+    /**
+     * Forwards PDFBox text output to the listener without buffering.
+     */
+    private static final class ListenerWriter extends Writer {
+        private final ExtractionListener listener;
+
+        ListenerWriter(ExtractionListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            listener.text(CharBuffer.wrap(buffer, offset, length));
+        }
+
+        @Override
+        public void write(String str, int offset, int length) {
+            listener.text(CharBuffer.wrap(str, offset, offset + length));
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.acme.saas.extraction;
+
+import java.util.List;
+
+/**
+ * Counts pages, sheets, non-empty tables, table rows and text characters.
+ */
+public class ExtractionCounters implements ExtractionListener {
+
+    private int pages;
+    private int sheets;
+    private int tables;
+    private int tableRows;
+    private long characters;
+    private boolean rowsInTable;
+
+    @Override
+    public void startPage(int number) {
+        pages++;
+    }
+
+    @Override
+    public void startSheet(String name) {
+        sheets++;
+    }
+
+    @Override
+    public void text(CharSequence chars) {
+        characters += chars.length();
+    }
+
+    @Override
+    public void startTable(String name) {
+        rowsInTable = false;
+    }
+
+    @Override
+    public void tableRow(List<String> cells) {
+        tableRows++;
+        rowsInTable = true;
+    }
+
+    @Override
+    public void endTable() {
+        if (rowsInTable) {
+            tables++;
+        }
+    }
+
+    public int pages() { return pages; }
+
+    public int sheets() { return sheets; }
+
+    public int tables() { return tables; }
+
+    public int tableRows() { return tableRows; }
+
+    public long characters() { return characters; }
+}
@@ -0,0 +1,146 @@
+package com.acme.saas.extraction;
+
+import java.util.List;
+
+/**
+ * Receives the structural events of a document as {@link DocumentExtractor} parses it.
+ *
+ * Events arrive in document order on the parsing thread: {@code startDocument}, then
+ * pages (PDF), sheets (XLSX) or paragraphs and tables (DOCX), then {@code endDocument}.
+ * {@link #text} carries the exact characters of the document's full text, including
+ * line breaks; concatenating every fragment reproduces it.
+ *
+ * Arguments are only valid for the duration of the call; copy anything that must be kept.
+ * Pages, sheets and DOCX sections are additionally reported as units ({@link #startUnit}),
+ * the granularity at which extraction is checkpointed and resumed.
+ *
+ * A listener can end the pass early through {@link #stopRequested}; the extractor checks it
+ * between pages, paragraphs and rows and still closes open tables and the document, but a
+ * unit interrupted this way gets no {@link #endUnit}.
+ */
+public interface ExtractionListener {
+
+    default void startDocument(String contentType) {}
+
+    default void endDocument() {}
+
+    /**
+     * Total number of units in the document, reported once before the first unit.
+     */
+    default void unitCount(int total) {}
+
+    /**
+     * @param index       0-based unit index
+     * @param type        "page", "sheet" or "section"
+     * @param contentHash hash of the unit's source content, stable across versions of a document
+     */
+    default void startUnit(int index, String type, String name, String contentHash) {}
+
+    default void endUnit(int index) {}
+
+    /**
+     * @param number 1-based page number
+     */
+    default void startPage(int number) {}
+
+    default void endPage(int number) {}
+
+    default void startSheet(String name) {}
+
+    default void endSheet(String name) {}
+
+    default void text(CharSequence chars) {}
+
+    default void startTable(String name) {}
+
+    default void tableRow(List<String> cells) {}
+
+    default void endTable() {}
+
+    default boolean stopRequested() {
+        return false;
+    }
+
+    /**
+     * Dispatches every event to each listener in order, within the same pass.
+     */
+    static ExtractionListener of(List<? extends ExtractionListener> listeners) {
+        List<ExtractionListener> targets = List.copyOf(listeners);
+        return new ExtractionListener() {
+            @Override
+            public void startDocument(String contentType) {
+                for (ExtractionListener l : targets) l.startDocument(contentType);
+            }
+
+            @Override
+            public void endDocument() {
+                for (ExtractionListener l : targets) l.endDocument();
+            }
+
+            @Override
+            public void unitCount(int total) {
+                for (ExtractionListener l : targets) l.unitCount(total);
+            }
+
+            @Override
+            public void startUnit(int index, String type, String name, String contentHash) {
+                for (ExtractionListener l : targets) l.startUnit(index, type, name, contentHash);
+            }
+
+            @Override
+            public void endUnit(int index) {
+                for (ExtractionListener l : targets) l.endUnit(index);
+            }
+
+            @Override
+            public void startPage(int number) {
+                for (ExtractionListener l : targets) l.startPage(number);
+            }
+
+            @Override
+            public void endPage(int number) {
+                for (ExtractionListener l : targets) l.endPage(number);
+            }
+
+            @Override
+            public void startSheet(String name) {
+                for (ExtractionListener l : targets) l.startSheet(name);
+            }
+
+            @Override
+            public void endSheet(String name) {
+                for (ExtractionListener l : targets) l.endSheet(name);
+            }
+
+            @Override
+            public void text(CharSequence chars) {
+                for (ExtractionListener l : targets) l.text(chars);
+            }
+
+            @Override
+            public void startTable(String name) {
+                for (ExtractionListener l : targets) l.startTable(name);
+            }
+
+            @Override
+            public void tableRow(List<String> cells) {
+                for (ExtractionListener l : targets) l.tableRow(cells);
+            }
+
+            @Override
+            public void endTable() {
+                for (ExtractionListener l : targets) l.endTable();
+            }
+
+            @Override
+            public boolean stopRequested() {
+                for (ExtractionListener l : targets) {
+                    if (l.stopRequested()) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+}
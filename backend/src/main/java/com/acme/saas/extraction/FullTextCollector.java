@@ -0,0 +1,22 @@
+package com.acme.saas.extraction;
+
+/**
+ * Assembles the document's full text from {@link ExtractionListener#text} fragments.
+ */
+public class FullTextCollector implements ExtractionListener {
+
+    private final StringBuilder text = new StringBuilder();
+
+    @Override
+    public void text(CharSequence chars) {
+        text.append(chars);
+    }
+
+    public String fullText() {
+        return text.toString();
+    }
+
+    public int length() {
+        return text.length();
+    }
+}
@@ -0,0 +1,56 @@
+package com.acme.saas.extraction;
+
+import com.acme.saas.dto.KeyValuePair;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a {@link KeyValueScanner} over the text stream line by line, buffering only the
+ * current line and ignoring everything past the scanner's line window.
+ */
+public class KeyValueCollector implements ExtractionListener {
+
+    private final KeyValueScanner scanner;
+    private final KeyValueScanner.LineMatcher matcher;
+    private final StringBuilder line = new StringBuilder();
+    private final List<KeyValuePair> pairs = new ArrayList<>();
+    private int lineIndex;
+
+    public KeyValueCollector(KeyValueScanner scanner) {
+        this.scanner = scanner;
+        this.matcher = scanner.lineMatcher();
+    }
+
+    @Override
+    public void text(CharSequence chars) {
+        int window = scanner.lineWindow();
+        for (int i = 0, n = chars.length(); i < n && lineIndex < window; i++) {
+            char c = chars.charAt(i);
+            if (c == '\n') {
+                endLine();
+            } else {
+                line.append(c);
+            }
+        }
+    }
+
+    @Override
+    public void endDocument() {
+        if (!line.isEmpty()) {
+            endLine();
+        }
+    }
+
+    private void endLine() {
+        KeyValuePair pair = matcher.match(line, lineIndex++);
+        if (pair != null) {
+            pairs.add(pair);
+        }
+        line.setLength(0);
+    }
+
+    public List<KeyValuePair> keyValues() {
+        return pairs;
+    }
+}
@@ -0,0 +1,123 @@
+package com.acme.saas.extraction;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes extracted keys and parses typed values (numbers, dates) so key-value
+ * pairs from different documents can be compared and range-queried.
+ */
+public final class KeyValueNormalizer {
+
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // Entire value must be numeric, so identifiers like "RFP-2025-001" are not treated as numbers
+    private static final Pattern NUMBER = Pattern.compile("^[$€£]?\\s*([-+]?(?:\\d{1,3}(?:,\\d{3})+|\\d+)?(?:\\.\\d+)?)\\s*%?$");
+
+    private static final Pattern ISO_DATE = Pattern.compile("\\b(\\d{4})-(\\d{1,2})-(\\d{1,2})\\b");
+    private static final Pattern US_DATE = Pattern.compile("\\b(\\d{1,2})/(\\d{1,2})/(\\d{4}|\\d{2})\\b");
+    private static final String MONTH_NAMES =
+            "(jan(?:uary)?|feb(?:ruary)?|mar(?:ch)?|apr(?:il)?|may|june?|july?|aug(?:ust)?|sep(?:t(?:ember)?)?|oct(?:ober)?|nov(?:ember)?|dec(?:ember)?)\\.?";
+    private static final Pattern MONTH_DAY_YEAR = Pattern.compile(
+            "\\b" + MONTH_NAMES + "\\s+(\\d{1,2})(?:st|nd|rd|th)?,?\\s+(\\d{4})\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern DAY_MONTH_YEAR = Pattern.compile(
+            "\\b(\\d{1,2})(?:st|nd|rd|th)?\\s+" + MONTH_NAMES + ",?\\s+(\\d{4})\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern MONTH_YEAR = Pattern.compile(
+            "\\b" + MONTH_NAMES + ",?\\s+(\\d{4})\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Map<String, Integer> MONTHS = Map.ofEntries(
+            Map.entry("jan", 1), Map.entry("feb", 2), Map.entry("mar", 3), Map.entry("apr", 4),
+            Map.entry("may", 5), Map.entry("jun", 6), Map.entry("jul", 7), Map.entry("aug", 8),
+            Map.entry("sep", 9), Map.entry("oct", 10), Map.entry("nov", 11), Map.entry("dec", 12));
+
+    private KeyValueNormalizer() {}
+
+    /**
+     * "Due Date:" / "DUE  DATE" / "due-date" -> "due date"
+     */
+    public static String normalizeKey(String key) {
+        if (key == null) {
+            return "";
+        }
+        return NON_ALPHANUMERIC.matcher(key.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Lowercased, whitespace-collapsed value used for case-insensitive equality lookups.
+     */
+    public static String normalizeText(String value) {
+        if (value == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(value.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+    }
+
+    /**
+     * Parses values like "1,250.50", "$512", "85%". Percentages keep their face value (85, not 0.85).
+     */
+    public static Optional<BigDecimal> parseNumber(String value) {
+        if (value == null) {
+            return Optional.empty();
+        }
+        Matcher matcher = NUMBER.matcher(value.trim());
+        if (!matcher.matches() || matcher.group(1).isEmpty() || matcher.group(1).matches("[-+]")) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new BigDecimal(matcher.group(1).replace(",", "")));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Finds the first date in a value such as "January 15, 2025 at 5pm ET", "01/15/2025" or "2025-01-15".
+     * Month-only values ("March 2025") resolve to the first day of the month. US month/day order is assumed.
+     */
+    public static Optional<LocalDate> parseDate(String value) {
+        if (value == null || value.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            Matcher m = ISO_DATE.matcher(value);
+            if (m.find()) {
+                return Optional.of(LocalDate.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)),
+                        Integer.parseInt(m.group(3))));
+            }
+            m = US_DATE.matcher(value);
+            if (m.find()) {
+                int year = Integer.parseInt(m.group(3));
+                return Optional.of(LocalDate.of(year < 100 ? 2000 + year : year, Integer.parseInt(m.group(1)),
+                        Integer.parseInt(m.group(2))));
+            }
+            m = MONTH_DAY_YEAR.matcher(value);
+            if (m.find()) {
+                return Optional.of(LocalDate.of(Integer.parseInt(m.group(3)), month(m.group(1)),
+                        Integer.parseInt(m.group(2))));
+            }
+            m = DAY_MONTH_YEAR.matcher(value);
+            if (m.find()) {
+                return Optional.of(LocalDate.of(Integer.parseInt(m.group(3)), month(m.group(2)),
+                        Integer.parseInt(m.group(1))));
+            }
+            m = MONTH_YEAR.matcher(value);
+            if (m.find()) {
+                return Optional.of(LocalDate.of(Integer.parseInt(m.group(2)), month(m.group(1)), 1));
+            }
+        } catch (DateTimeException e) {
+            // e.g. "02/30/2025" - not a real date
+        }
+        return Optional.empty();
+    }
+
+    private static int month(String name) {
+        return MONTHS.get(name.substring(0, 3).toLowerCase(Locale.ROOT));
+    }
+}
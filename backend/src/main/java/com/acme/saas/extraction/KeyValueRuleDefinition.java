@@ -0,0 +1,14 @@
+package com.acme.saas.extraction;
+
+import java.util.List;
+
+/**
+ * A tenant field rule: any alias at a word boundary followed by one of the delimiters
+ * within the first {@code lineWindow} lines yields a pair keyed by {@code canonicalKey}.
+ */
+public record KeyValueRuleDefinition(
+    String canonicalKey,     // e.g. "Due Date"
+    List<String> aliases,    // e.g. "proposal due date", "responses due"; matched case-insensitively
+    List<String> delimiters, // e.g. ":", "-", "="
+    int lineWindow           // Number of leading lines to search
+) {}
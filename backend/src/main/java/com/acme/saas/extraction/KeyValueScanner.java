@@ -0,0 +1,342 @@
+package com.acme.saas.extraction;
+
+import com.acme.saas.dto.KeyValuePair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Single-pass key-value scanner over the leading lines of a document.
+ *
+ * Walks the text once without splitting it into lines or substrings. Every line is
+ * checked against the generic {@code Key: value} pattern and, when tenant rules are
+ * compiled in, fed through one Aho-Corasick automaton built from all rule aliases,
+ * so adding rules does not add passes over the text. Scanning stops at the largest
+ * line window, which keeps the cost independent of document length.
+ *
+ * Instances are immutable and thread-safe; compile once per rule set and reuse.
+ * {@link LineMatcher}s are per text stream.
+ */
+public final class KeyValueScanner {
+
+    public static final int DEFAULT_LINE_WINDOW = 120;
+    private static final int MIN_KEY_LENGTH = 2;
+    private static final int MAX_KEY_LENGTH = 60;
+
+    private static final KeyValueScanner DEFAULTS = new KeyValueScanner(List.of());
+
+    private final List<KeyValueRuleDefinition> rules;
+    private final int lineWindow;
+
+    // Aho-Corasick automaton over lowercased, whitespace-collapsed aliases; the edges of each
+    // state are sorted by character, with targets at the same positions
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] failure;
+    private final int[][] outputs;      // per state: alias ids ending here, longest first
+    private final int[] aliasRule;      // alias id -> rule index
+    private final int[] aliasLength;    // alias id -> length in automaton characters
+
+    private KeyValueScanner(List<KeyValueRuleDefinition> rules) {
+        this.rules = List.copyOf(rules);
+
+        int window = DEFAULT_LINE_WINDOW;
+        List<String> aliases = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        for (int r = 0; r < this.rules.size(); r++) {
+            KeyValueRuleDefinition rule = this.rules.get(r);
+            window = Math.max(window, rule.lineWindow());
+            for (String alias : rule.aliases()) {
+                String normalized = normalizeAlias(alias);
+                if (!normalized.isEmpty()) {
+                    aliases.add(normalized);
+                    owners.add(r);
+                }
+            }
+        }
+        this.lineWindow = window;
+        this.aliasRule = owners.stream().mapToInt(Integer::intValue).toArray();
+        this.aliasLength = aliases.stream().mapToInt(String::length).toArray();
+
+        // Build trie
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        List<List<Integer>> stateOutputs = new ArrayList<>();
+        stateOutputs.add(new ArrayList<>());
+        for (int a = 0; a < aliases.size(); a++) {
+            int state = 0;
+            for (char c : aliases.get(a).toCharArray()) {
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    stateOutputs.add(new ArrayList<>());
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            stateOutputs.get(state).add(a);
+        }
+        this.edgeChars = new char[trie.size()][];
+        this.edgeTargets = new int[trie.size()][];
+        for (int s = 0; s < trie.size(); s++) {
+            edgeChars[s] = new char[trie.get(s).size()];
+            edgeTargets[s] = new int[trie.get(s).size()];
+            int e = 0;
+            for (Map.Entry<Character, Integer> edge : trie.get(s).entrySet()) {
+                edgeChars[s][e] = edge.getKey();
+                edgeTargets[s][e++] = edge.getValue();
+            }
+        }
+
+        // Breadth-first failure links, merging outputs of the failure state
+        this.failure = new int[trie.size()];
+        int[] queue = new int[trie.size()];
+        int tail = 0;
+        for (int child : edgeTargets[0]) {
+            queue[tail++] = child;
+        }
+        for (int head = 0; head < tail; head++) {
+            int state = queue[head];
+            for (int e = 0; e < edgeChars[state].length; e++) {
+                char c = edgeChars[state][e];
+                int child = edgeTargets[state][e];
+                int fallback = failure[state];
+                while (fallback != 0 && next(fallback, c) < 0) {
+                    fallback = failure[fallback];
+                }
+                int target = next(fallback, c);
+                failure[child] = target >= 0 && target != child ? target : 0;
+                stateOutputs.get(child).addAll(stateOutputs.get(failure[child]));
+                queue[tail++] = child;
+            }
+        }
+        this.outputs = new int[trie.size()][];
+        for (int s = 0; s < outputs.length; s++) {
+            outputs[s] = stateOutputs.get(s).stream()
+                    .sorted((x, y) -> Integer.compare(aliasLength[y], aliasLength[x]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+    }
+
+    /**
+     * Scanner with only the generic {@code Key: value} pattern over the first 120 lines.
+     */
+    public static KeyValueScanner defaults() {
+        return DEFAULTS;
+    }
+
+    public static KeyValueScanner compile(List<KeyValueRuleDefinition> rules) {
+        return rules == null || rules.isEmpty() ? DEFAULTS : new KeyValueScanner(rules);
+    }
+
+    public int lineWindow() {
+        return lineWindow;
+    }
+
+    public List<KeyValuePair> scan(CharSequence text) {
+        List<KeyValuePair> result = new ArrayList<>();
+        if (text == null) {
+            return result;
+        }
+
+        int length = text.length();
+        LineMatcher matcher = lineMatcher();
+        int pos = 0;
+        for (int line = 0; line < lineWindow && pos < length; line++) {
+            int end = pos;
+            while (end < length && text.charAt(end) != '\n') {
+                end++;
+            }
+            KeyValuePair pair = matcher.match(text, pos, end, line);
+            if (pair != null) {
+                result.add(pair);
+            }
+            pos = end + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Matcher for callers that receive text incrementally and match it line by line.
+     */
+    public LineMatcher lineMatcher() {
+        return new LineMatcher();
+    }
+
+    /**
+     * Matches lines against the scanner, reusing one buffer across lines. Not thread-safe;
+     * use one per text stream.
+     */
+    public final class LineMatcher {
+        private int[] positions = new int[128]; // source index of each character fed to the automaton
+
+        private LineMatcher() {
+        }
+
+        /**
+         * Matches a single line (without its terminator) at the given zero-based line index.
+         * Returns null when nothing matches.
+         */
+        public KeyValuePair match(CharSequence line, int lineIndex) {
+            if (lineIndex >= lineWindow) {
+                return null;
+            }
+            return match(line, 0, line.length(), lineIndex);
+        }
+
+        private KeyValuePair match(CharSequence text, int from, int to, int line) {
+            if (positions.length < to - from) {
+                positions = new int[Math.max(to - from, positions.length * 2)];
+            }
+            return matchLine(text, from, to, line, positions);
+        }
+    }
+
+    private KeyValuePair matchLine(CharSequence text, int from, int to, int line, int[] positions) {
+        // Same bounds as String.trim()
+        int start = from;
+        int stop = to;
+        while (start < stop && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (stop > start && text.charAt(stop - 1) <= ' ') {
+            stop--;
+        }
+        if (start == stop) {
+            return null;
+        }
+
+        KeyValuePair pair = rules.isEmpty() ? null : matchRules(text, start, stop, line, positions);
+        if (pair == null && line < DEFAULT_LINE_WINDOW) {
+            pair = matchGeneric(text, start, stop);
+        }
+        return pair;
+    }
+
+    /**
+     * Equivalent of {@code ^([^:]{2,60}):\s*(.+)$} on the trimmed line, with both groups trimmed.
+     */
+    private KeyValuePair matchGeneric(CharSequence text, int start, int stop) {
+        int colon = -1;
+        for (int i = start; i < stop; i++) {
+            if (text.charAt(i) == ':') {
+                colon = i;
+                break;
+            }
+        }
+        int keyLength = colon - start;
+        if (colon < 0 || keyLength < MIN_KEY_LENGTH || keyLength > MAX_KEY_LENGTH || colon + 1 >= stop) {
+            return null;
+        }
+        // '.' in the original pattern does not match line terminators
+        for (int i = colon + 1; i < stop; i++) {
+            char c = text.charAt(i);
+            if (c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return null;
+            }
+        }
+        return new KeyValuePair(trimmed(text, start, colon), trimmed(text, colon + 1, stop));
+    }
+
+    private KeyValuePair matchRules(CharSequence text, int start, int stop, int line, int[] positions) {
+        int state = 0;
+        int fed = 0;
+        boolean previousSpace = false;
+        for (int i = start; i < stop; i++) {
+            char raw = text.charAt(i);
+            boolean space = Character.isWhitespace(raw);
+            if (space && previousSpace) {
+                continue; // collapse whitespace runs, matching normalizeAlias
+            }
+            previousSpace = space;
+            char c = space ? ' ' : Character.toLowerCase(raw);
+            positions[fed++] = i;
+
+            int next = next(state, c);
+            while (next < 0 && state != 0) {
+                state = failure[state];
+                next = next(state, c);
+            }
+            state = Math.max(next, 0);
+
+            for (int alias : outputs[state]) {
+                KeyValueRuleDefinition rule = rules.get(aliasRule[alias]);
+                if (line >= rule.lineWindow()) {
+                    continue;
+                }
+                int aliasStart = positions[fed - aliasLength[alias]];
+                if (aliasStart > start && Character.isLetterOrDigit(text.charAt(aliasStart - 1))) {
+                    continue; // not at a word boundary ("update" must not match "date")
+                }
+                int valueStart = delimiterEnd(text, i + 1, stop, rule.delimiters());
+                if (valueStart < 0) {
+                    continue;
+                }
+                String value = trimmed(text, valueStart, stop);
+                if (!value.isEmpty()) {
+                    return new KeyValuePair(rule.canonicalKey(), value);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Target of the state's edge for {@code c}, or -1 if it has none.
+     */
+    private int next(int state, char c) {
+        int e = Arrays.binarySearch(edgeChars[state], c);
+        return e >= 0 ? edgeTargets[state][e] : -1;
+    }
+
+    /**
+     * Returns the index just past the delimiter following optional whitespace, or -1.
+     */
+    private static int delimiterEnd(CharSequence text, int from, int stop, List<String> delimiters) {
+        int i = from;
+        while (i < stop && (text.charAt(i) == ' ' || text.charAt(i) == '\t')) {
+            i++;
+        }
+        for (String delimiter : delimiters) {
+            int end = i + delimiter.length();
+            if (end <= stop && regionEquals(text, i, delimiter)) {
+                return end;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionEquals(CharSequence text, int offset, String value) {
+        for (int k = 0; k < value.length(); k++) {
+            if (text.charAt(offset + k) != value.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String trimmed(CharSequence text, int start, int stop) {
+        while (start < stop && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (stop > start && text.charAt(stop - 1) <= ' ') {
+            stop--;
+        }
+        return text.subSequence(start, stop).toString();
+    }
+
+    private static String normalizeAlias(String alias) {
+        if (alias == null) {
+            return "";
+        }
+        return String.join(" ", Arrays.stream(alias.trim().toLowerCase(Locale.ROOT).split("\\s+"))
+                .filter(part -> !part.isEmpty())
+                .toList());
+    }
+}
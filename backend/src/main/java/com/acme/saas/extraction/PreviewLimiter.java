@@ -0,0 +1,77 @@
+package com.acme.saas.extraction;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Ends an extraction pass after a number of pages, table rows or text characters,
+ * or once a wall-clock budget is spent, whichever comes first. Limits are checked between
+ * extraction events, so parse work done before the first event (see
+ * {@link DocumentExtractor#extractPreview}) is not bounded by them.
+ *
+ * Reaching a limit only stops the pass; the preview counts as truncated if the pass then ends
+ * before every unit of the document has, so a document that is exactly at a limit is complete.
+ */
+public class PreviewLimiter implements ExtractionListener {
+
+    private final int maxPages;
+    private final int maxRows;
+    private final int maxCharacters;
+    private final long deadline;
+
+    private int pages;
+    private int rows;
+    private long characters;
+    private int unitCount = -1;
+    private int endedUnits;
+    private boolean stopped;
+
+    public PreviewLimiter(int maxPages, int maxRows, int maxCharacters, Duration budget) {
+        this.maxPages = maxPages;
+        this.maxRows = maxRows;
+        this.maxCharacters = maxCharacters;
+        this.deadline = System.nanoTime() + budget.toNanos();
+    }
+
+    @Override
+    public void unitCount(int total) {
+        unitCount = total;
+    }
+
+    @Override
+    public void endUnit(int index) {
+        endedUnits++;
+    }
+
+    @Override
+    public void startPage(int number) {
+        pages++;
+    }
+
+    @Override
+    public void tableRow(List<String> cells) {
+        rows++;
+    }
+
+    @Override
+    public void text(CharSequence chars) {
+        characters += chars.length();
+    }
+
+    @Override
+    public boolean stopRequested() {
+        if (!stopped) {
+            stopped = pages >= maxPages || rows >= maxRows || characters >= maxCharacters
+                    || System.nanoTime() - deadline >= 0;
+        }
+        return stopped;
+    }
+
+    /**
+     * Whether the pass was cut short, i.e. the preview does not cover the whole document.
+     * Only meaningful once the pass has ended.
+     */
+    public boolean truncated() {
+        return stopped && (unitCount < 0 || endedUnits < unitCount);
+    }
+}
@@ -0,0 +1,18 @@
+package com.acme.saas.extraction;
+
+import com.acme.saas.dto.ExtractedUnit;
+
+/**
+ * Units extracted from an earlier version of a document, looked up by content hash.
+ * {@link DocumentExtractor} emits a matching unit in place of parsing the unchanged source.
+ */
+@FunctionalInterface
+public interface PreviousUnits {
+
+    PreviousUnits NONE = contentHash -> null;
+
+    /**
+     * @return the unit whose source had this hash, or null if it changed or is new
+     */
+    ExtractedUnit find(String contentHash);
+}
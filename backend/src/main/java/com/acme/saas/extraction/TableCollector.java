@@ -0,0 +1,39 @@
+package com.acme.saas.extraction;
+
+import com.acme.saas.dto.ExtractedTable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects table rows into {@link ExtractedTable}s. Tables without rows are dropped.
+ */
+public class TableCollector implements ExtractionListener {
+
+    private final List<ExtractedTable> tables = new ArrayList<>();
+    private String name;
+    private List<List<String>> rows;
+
+    @Override
+    public void startTable(String name) {
+        this.name = name;
+        this.rows = new ArrayList<>();
+    }
+
+    @Override
+    public void tableRow(List<String> cells) {
+        rows.add(new ArrayList<>(cells));
+    }
+
+    @Override
+    public void endTable() {
+        if (!rows.isEmpty()) {
+            tables.add(new ExtractedTable(name, rows));
+        }
+        rows = null;
+    }
+
+    public List<ExtractedTable> tables() {
+        return tables;
+    }
+}
@@ -0,0 +1,80 @@
+package com.acme.saas.extraction;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Serializes tables to JSON while rows stream in, producing the same document as
+ * writing {@code List<ExtractedTable>} with Jackson, without a second walk over the tables.
+ */
+public class TableJsonWriter implements ExtractionListener {
+
+    private final StringWriter out = new StringWriter();
+    private final JsonGenerator generator;
+    private String name;
+    private boolean tableOpen;
+
+    public TableJsonWriter(JsonFactory factory) {
+        try {
+            this.generator = factory.createGenerator(out);
+            generator.writeStartArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void startTable(String name) {
+        this.name = name;
+        this.tableOpen = false;
+    }
+
+    @Override
+    public void tableRow(List<String> cells) {
+        try {
+            if (!tableOpen) {
+                // Deferred until the first row, so empty tables are omitted like in TableCollector
+                generator.writeStartObject();
+                generator.writeStringField("name", name);
+                generator.writeArrayFieldStart("rows");
+                tableOpen = true;
+            }
+            generator.writeStartArray();
+            for (String cell : cells) {
+                generator.writeString(cell);
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void endTable() {
+        if (!tableOpen) {
+            return;
+        }
+        try {
+            generator.writeEndArray();
+            generator.writeEndObject();
+            tableOpen = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public String json() {
+        try {
+            generator.writeEndArray();
+            generator.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,113 @@
+package com.acme.saas.extraction;
+
+import com.acme.saas.dto.ExtractedTable;
+import com.acme.saas.dto.ExtractedUnit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Captures each completed unit (text and tables) and hands it to a sink, e.g. for checkpointing.
+ * Units interrupted by a stopped pass are never handed over.
+ */
+public class UnitRecorder implements ExtractionListener {
+
+    /**
+     * Receives each completed unit with the document's total unit count (-1 if unknown).
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void unit(ExtractedUnit unit, int unitCount);
+    }
+
+    private final Sink sink;
+    private final StringBuilder text = new StringBuilder();
+    private TableCollector tables = new TableCollector();
+    private String type;
+    private String name;
+    private String contentHash;
+    private boolean inUnit;
+    private int unitCount = -1;
+
+    public UnitRecorder(Sink sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public void unitCount(int total) {
+        this.unitCount = total;
+    }
+
+    @Override
+    public void startUnit(int index, String type, String name, String contentHash) {
+        this.type = type;
+        this.name = name;
+        this.contentHash = contentHash;
+        this.inUnit = true;
+        text.setLength(0);
+        tables = new TableCollector();
+    }
+
+    @Override
+    public void text(CharSequence chars) {
+        if (inUnit) {
+            text.append(chars);
+        }
+    }
+
+    @Override
+    public void startTable(String name) {
+        if (inUnit) {
+            tables.startTable(name);
+        }
+    }
+
+    @Override
+    public void tableRow(List<String> cells) {
+        if (inUnit) {
+            tables.tableRow(cells);
+        }
+    }
+
+    @Override
+    public void endTable() {
+        if (inUnit) {
+            tables.endTable();
+        }
+    }
+
+    @Override
+    public void endUnit(int index) {
+        sink.unit(new ExtractedUnit(index, type, name, contentHash, text.toString(), tables.tables()), unitCount);
+        inUnit = false;
+    }
+
+    /**
+     * Re-emits a recorded unit as events, so consumers see it as if it had just been parsed.
+     */
+    public static void replay(ExtractedUnit unit, ExtractionListener listener) {
+        listener.startUnit(unit.index(), unit.type(), unit.name(), unit.contentHash());
+        switch (unit.type()) {
+            case "page" -> listener.startPage(unit.index() + 1);
+            case "sheet" -> listener.startSheet(unit.name());
+            default -> { }
+        }
+        listener.text(unit.text());
+        List<String> cells = new ArrayList<>();
+        for (ExtractedTable table : unit.tables()) {
+            listener.startTable(table.name());
+            for (List<String> row : table.rows()) {
+                cells.clear();
+                cells.addAll(row);
+                listener.tableRow(cells);
+            }
+            listener.endTable();
+        }
+        switch (unit.type()) {
+            case "page" -> listener.endPage(unit.index() + 1);
+            case "sheet" -> listener.endSheet(unit.name());
+            default -> { }
+        }
+        listener.endUnit(unit.index());
+    }
+}
@@ -0,0 +1,62 @@
+package com.acme.saas.extraction.worker;
+
+import com.acme.saas.dto.ExtractedUnit;
+import com.acme.saas.extraction.DocumentExtractor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Entry point of an extraction worker process, started by {@link WorkerPool}.
+ *
+ * Handles one request at a time from stdin and streams the events back on stdout, until the
+ * parent closes stdin. Parsing garbage and parser crashes stay in this JVM; the parent only
+ * sees the event stream. Nothing else may write to stdout, so it is redirected to stderr.
+ */
+public final class ExtractionWorkerMain {
+
+    private ExtractionWorkerMain() {}
+
+    public static void main(String[] args) throws IOException {
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 64 * 1024));
+        System.setOut(System.err);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+        DocumentExtractor extractor = new DocumentExtractor();
+
+        while (true) {
+            WorkerProtocol.Request request;
+            try {
+                request = WorkerProtocol.readRequest(in);
+            } catch (EOFException e) {
+                return; // parent released this worker
+            }
+
+            Map<String, ExtractedUnit> previous = new HashMap<>();
+            for (ExtractedUnit unit : request.previous()) {
+                previous.putIfAbsent(unit.contentHash(), unit);
+            }
+            WorkerProtocol.EventWriter events = new WorkerProtocol.EventWriter(out);
+            try (InputStream content = Files.newInputStream(request.file())) {
+                extractor.extract(request.contentType(), content, events, request.firstUnit(), previous::get);
+                events.done();
+            } catch (UncheckedIOException e) {
+                return; // parent stopped reading
+            } catch (Exception e) {
+                events.failed(e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.acme.saas.extraction.worker;
+
+import com.acme.saas.dto.ExtractedUnit;
+import com.acme.saas.extraction.ExtractionListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.jar.JarFile;
+
+/**
+ * Runs extractions in forked worker JVMs instead of the calling one, so parser garbage,
+ * runaway documents and parser crashes do not reach the heap that serves requests.
+ *
+ * Workers are started on demand up to {@code processes}, each with its own heap, and are
+ * replaced after {@code maxJobsPerWorker} jobs, when they die, or when a job overruns
+ * {@code timeout}. The document is handed over as a local file; the events come back over
+ * the worker's stdout and are dispatched on the calling thread, so listeners are unaware of
+ * the fork. Listeners cannot stop a forked pass early ({@link ExtractionListener#stopRequested}
+ * is not consulted), so bounded passes such as previews stay in-process.
+ */
+public class WorkerPool {
+
+    private static final String SPRING_BOOT_LAUNCHER = "org.springframework.boot.loader.launch.PropertiesLauncher";
+
+    public record Settings(boolean enabled, int processes, String heap, List<String> jvmOptions,
+                           int maxJobsPerWorker, Duration timeout) {}
+
+    private final Settings settings;
+    private final List<String> command;
+    private final Semaphore slots;
+    private final ConcurrentLinkedQueue<WorkerProcess> idle = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService watchdog;
+    private volatile boolean closed;
+
+    public WorkerPool(Settings settings) {
+        this.settings = settings;
+        this.command = settings.enabled() ? command(settings) : List.of();
+        this.slots = new Semaphore(Math.max(1, settings.processes()));
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "extraction-worker-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean enabled() {
+        return settings.enabled();
+    }
+
+    /**
+     * Extracts the file in a worker process. Blocks while all workers are busy.
+     *
+     * @param previous units of an earlier version of the document, emitted in place of unchanged units
+     */
+    public void extract(String contentType, Path file, int firstUnit, Collection<ExtractedUnit> previous,
+                        ExtractionListener listener) throws IOException {
+        if (closed) {
+            throw new IOException("Extraction worker pool is shut down");
+        }
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for an extraction worker");
+        }
+        WorkerProcess worker = null;
+        try {
+            worker = borrow();
+            WorkerProcess running = worker;
+            AtomicBoolean timedOut = new AtomicBoolean();
+            ScheduledFuture<?> deadline = watchdog.schedule(() -> {
+                timedOut.set(true);
+                running.kill();
+            }, settings.timeout().toMillis(), TimeUnit.MILLISECONDS);
+            try {
+                worker.extract(contentType, file, firstUnit, previous, listener);
+            } catch (IOException e) {
+                if (timedOut.get()) {
+                    throw new IOException("Extraction did not finish within " + settings.timeout(), e);
+                }
+                throw e;
+            } finally {
+                deadline.cancel(false);
+            }
+        } finally {
+            if (worker != null) {
+                release(worker);
+            }
+            slots.release();
+        }
+    }
+
+    private WorkerProcess borrow() throws IOException {
+        WorkerProcess worker;
+        while ((worker = idle.poll()) != null) {
+            if (worker.usable()) {
+                return worker;
+            }
+            worker.close();
+        }
+        return WorkerProcess.start(command);
+    }
+
+    private void release(WorkerProcess worker) {
+        if (!closed && worker.usable() && worker.jobs() < settings.maxJobsPerWorker()) {
+            idle.add(worker);
+        } else {
+            worker.close();
+        }
+        if (closed) {
+            drain();
+        }
+    }
+
+    /**
+     * Stops idle workers; workers still running a job are stopped when it ends.
+     */
+    public void close() {
+        closed = true;
+        drain();
+        watchdog.shutdownNow();
+    }
+
+    private void drain() {
+        WorkerProcess worker;
+        while ((worker = idle.poll()) != null) {
+            worker.close();
+        }
+    }
+
+    /**
+     * Same Java runtime and classpath as this JVM. From a Spring Boot executable jar the
+     * worker main class is started through the jar's launcher, which sets up the nested classpath.
+     */
+    static List<String> command(Settings settings) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx" + settings.heap());
+        command.add("-XX:+ExitOnOutOfMemoryError");
+        command.addAll(settings.jvmOptions());
+        String classPath = System.getProperty("java.class.path");
+        command.add("-cp");
+        command.add(classPath);
+        if (isExecutableJar(classPath)) {
+            command.add("-Dloader.main=" + ExtractionWorkerMain.class.getName());
+            command.add(SPRING_BOOT_LAUNCHER);
+        } else {
+            command.add(ExtractionWorkerMain.class.getName());
+        }
+        return command;
+    }
+
+    private static boolean isExecutableJar(String classPath) {
+        if (classPath.contains(File.pathSeparator) || !classPath.endsWith(".jar")) {
+            return false;
+        }
+        try (JarFile jar = new JarFile(classPath)) {
+            return jar.getEntry("BOOT-INF/classes/") != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.acme.saas.extraction.worker;
+
+import com.acme.saas.dto.ExtractedUnit;
+import com.acme.saas.extraction.ExtractionListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parent-side handle of one worker process. Not thread-safe; the pool lends it to one caller at a time.
+ */
+final class WorkerProcess {
+
+    private final Process process;
+    private final DataOutputStream requests;
+    private final DataInputStream events;
+    private int jobs;
+    private boolean broken;
+
+    private WorkerProcess(Process process) {
+        this.process = process;
+        this.requests = new DataOutputStream(new BufferedOutputStream(process.getOutputStream(), 64 * 1024));
+        this.events = new DataInputStream(new BufferedInputStream(process.getInputStream(), 64 * 1024));
+    }
+
+    static WorkerProcess start(List<String> command) throws IOException {
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        return new WorkerProcess(process);
+    }
+
+    /**
+     * Extracts the file in the worker, dispatching its events to the listener as they arrive.
+     * A failure reported by the worker leaves it usable; any other failure (the process died,
+     * or the listener threw mid-stream) leaves the worker broken.
+     */
+    void extract(String contentType, Path file, int firstUnit, Collection<ExtractedUnit> previous,
+                 ExtractionListener listener) throws IOException {
+        jobs++;
+        boolean clean = false;
+        try {
+            WorkerProtocol.writeRequest(requests, contentType, file, firstUnit, previous);
+            WorkerProtocol.readEvents(events, listener);
+            clean = true;
+        } catch (WorkerProtocol.RemoteFailure e) {
+            clean = true;
+            throw new IOException(e.getMessage(), e);
+        } catch (EOFException e) {
+            throw new IOException(exitDescription(), e);
+        } catch (IOException e) {
+            throw process.isAlive() ? e : new IOException(exitDescription(), e);
+        } finally {
+            broken = !clean;
+        }
+    }
+
+    int jobs() {
+        return jobs;
+    }
+
+    boolean usable() {
+        return !broken && process.isAlive();
+    }
+
+    /**
+     * Hard stop, used when a job runs past its deadline; the blocked reader then fails.
+     */
+    void kill() {
+        process.destroyForcibly();
+    }
+
+    /**
+     * Lets an idle worker exit on its own by closing its stdin, killing it if it does not.
+     */
+    void close() {
+        try {
+            requests.close();
+            if (!process.waitFor(2, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (IOException e) {
+            process.destroyForcibly();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String exitDescription() {
+        try {
+            if (process.waitFor(1, TimeUnit.SECONDS)) {
+                return "Extraction worker exited with code " + process.exitValue();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "Extraction worker stopped responding";
+    }
+}
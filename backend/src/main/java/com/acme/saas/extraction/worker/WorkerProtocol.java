@@ -0,0 +1,317 @@
+package com.acme.saas.extraction.worker;
+
+import com.acme.saas.dto.ExtractedTable;
+import com.acme.saas.dto.ExtractedUnit;
+import com.acme.saas.extraction.ExtractionListener;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Wire format between the API process and extraction worker processes, over the worker's
+ * stdin (requests) and stdout (events). Strings are length-prefixed UTF-8, -1 meaning null.
+ *
+ * A request names the content type, the file to extract, the first unit and the units of a
+ * previous version. The worker answers with the extraction events in order, then DONE or FAILED.
+ */
+final class WorkerProtocol {
+
+    static final int START_DOCUMENT = 1;
+    static final int END_DOCUMENT = 2;
+    static final int UNIT_COUNT = 3;
+    static final int START_UNIT = 4;
+    static final int END_UNIT = 5;
+    static final int START_PAGE = 6;
+    static final int END_PAGE = 7;
+    static final int START_SHEET = 8;
+    static final int END_SHEET = 9;
+    static final int TEXT = 10;
+    static final int START_TABLE = 11;
+    static final int TABLE_ROW = 12;
+    static final int END_TABLE = 13;
+    static final int DONE = 100;
+    static final int FAILED = 101;
+
+    record Request(String contentType, Path file, int firstUnit, List<ExtractedUnit> previous) {}
+
+    /**
+     * The worker reported that extraction of the document failed; the worker itself is healthy.
+     */
+    static final class RemoteFailure extends IOException {
+        RemoteFailure(String message) {
+            super(message);
+        }
+    }
+
+    private WorkerProtocol() {}
+
+    static void writeRequest(DataOutputStream out, String contentType, Path file, int firstUnit,
+                             Collection<ExtractedUnit> previous) throws IOException {
+        writeString(out, contentType);
+        writeString(out, file.toAbsolutePath().toString());
+        out.writeInt(firstUnit);
+        out.writeInt(previous.size());
+        for (ExtractedUnit unit : previous) {
+            out.writeInt(unit.index());
+            writeString(out, unit.type());
+            writeString(out, unit.name());
+            writeString(out, unit.contentHash());
+            writeString(out, unit.text());
+            out.writeInt(unit.tables().size());
+            for (ExtractedTable table : unit.tables()) {
+                writeString(out, table.name());
+                out.writeInt(table.rows().size());
+                for (List<String> row : table.rows()) {
+                    writeRow(out, row);
+                }
+            }
+        }
+        out.flush();
+    }
+
+    static Request readRequest(DataInputStream in) throws IOException {
+        String contentType = readString(in);
+        Path file = Path.of(readString(in));
+        int firstUnit = in.readInt();
+        int count = in.readInt();
+        List<ExtractedUnit> previous = new ArrayList<>(count);
+        for (int u = 0; u < count; u++) {
+            int index = in.readInt();
+            String type = readString(in);
+            String name = readString(in);
+            String hash = readString(in);
+            String text = readString(in);
+            int tableCount = in.readInt();
+            List<ExtractedTable> tables = new ArrayList<>(tableCount);
+            for (int t = 0; t < tableCount; t++) {
+                String tableName = readString(in);
+                int rowCount = in.readInt();
+                List<List<String>> rows = new ArrayList<>(rowCount);
+                for (int r = 0; r < rowCount; r++) {
+                    rows.add(readRow(in));
+                }
+                tables.add(new ExtractedTable(tableName, rows));
+            }
+            previous.add(new ExtractedUnit(index, type, name, hash, text, tables));
+        }
+        return new Request(contentType, file, firstUnit, previous);
+    }
+
+    /**
+     * Reads events until the worker reports the outcome, dispatching them to the listener.
+     *
+     * @throws RemoteFailure if the worker could not extract the document
+     */
+    static void readEvents(DataInputStream in, ExtractionListener listener) throws IOException {
+        List<String> cells = new ArrayList<>();
+        while (true) {
+            int op = in.readUnsignedByte();
+            switch (op) {
+                case START_DOCUMENT -> listener.startDocument(readString(in));
+                case END_DOCUMENT -> listener.endDocument();
+                case UNIT_COUNT -> listener.unitCount(in.readInt());
+                case START_UNIT -> listener.startUnit(in.readInt(), readString(in), readString(in), readString(in));
+                case END_UNIT -> listener.endUnit(in.readInt());
+                case START_PAGE -> listener.startPage(in.readInt());
+                case END_PAGE -> listener.endPage(in.readInt());
+                case START_SHEET -> listener.startSheet(readString(in));
+                case END_SHEET -> listener.endSheet(readString(in));
+                case TEXT -> listener.text(readString(in));
+                case START_TABLE -> listener.startTable(readString(in));
+                case TABLE_ROW -> {
+                    cells.clear();
+                    int count = in.readInt();
+                    for (int c = 0; c < count; c++) {
+                        cells.add(readString(in));
+                    }
+                    listener.tableRow(cells);
+                }
+                case END_TABLE -> listener.endTable();
+                case DONE -> {
+                    return;
+                }
+                case FAILED -> throw new RemoteFailure(readString(in));
+                default -> throw new IOException("Unknown extraction worker event " + op);
+            }
+        }
+    }
+
+    /**
+     * Listener on the worker side that serializes every event to the parent.
+     */
+    static final class EventWriter implements ExtractionListener {
+        private final DataOutputStream out;
+
+        EventWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void startDocument(String contentType) {
+            write(() -> {
+                out.writeByte(START_DOCUMENT);
+                writeString(out, contentType);
+            });
+        }
+
+        @Override
+        public void endDocument() {
+            write(() -> out.writeByte(END_DOCUMENT));
+        }
+
+        @Override
+        public void unitCount(int total) {
+            write(() -> {
+                out.writeByte(UNIT_COUNT);
+                out.writeInt(total);
+            });
+        }
+
+        @Override
+        public void startUnit(int index, String type, String name, String contentHash) {
+            write(() -> {
+                out.writeByte(START_UNIT);
+                out.writeInt(index);
+                writeString(out, type);
+                writeString(out, name);
+                writeString(out, contentHash);
+            });
+        }
+
+        @Override
+        public void endUnit(int index) {
+            write(() -> {
+                out.writeByte(END_UNIT);
+                out.writeInt(index);
+            });
+        }
+
+        @Override
+        public void startPage(int number) {
+            write(() -> {
+                out.writeByte(START_PAGE);
+                out.writeInt(number);
+            });
+        }
+
+        @Override
+        public void endPage(int number) {
+            write(() -> {
+                out.writeByte(END_PAGE);
+                out.writeInt(number);
+            });
+        }
+
+        @Override
+        public void startSheet(String name) {
+            write(() -> {
+                out.writeByte(START_SHEET);
+                writeString(out, name);
+            });
+        }
+
+        @Override
+        public void endSheet(String name) {
+            write(() -> {
+                out.writeByte(END_SHEET);
+                writeString(out, name);
+            });
+        }
+
+        @Override
+        public void text(CharSequence chars) {
+            write(() -> {
+                out.writeByte(TEXT);
+                writeString(out, chars.toString());
+            });
+        }
+
+        @Override
+        public void startTable(String name) {
+            write(() -> {
+                out.writeByte(START_TABLE);
+                writeString(out, name);
+            });
+        }
+
+        @Override
+        public void tableRow(List<String> cells) {
+            write(() -> {
+                out.writeByte(TABLE_ROW);
+                writeRow(out, cells);
+            });
+        }
+
+        @Override
+        public void endTable() {
+            write(() -> out.writeByte(END_TABLE));
+        }
+
+        void done() throws IOException {
+            out.writeByte(DONE);
+            out.flush();
+        }
+
+        void failed(String message) throws IOException {
+            out.writeByte(FAILED);
+            writeString(out, message);
+            out.flush();
+        }
+
+        private void write(IoAction action) {
+            try {
+                action.run();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    private static void writeRow(DataOutputStream out, List<String> cells) throws IOException {
+        out.writeInt(cells.size());
+        for (String cell : cells) {
+            writeString(out, cell);
+        }
+    }
+
+    private static List<String> readRow(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<String> cells = new ArrayList<>(count);
+        for (int c = 0; c < count; c++) {
+            cells.add(readString(in));
+        }
+        return cells;
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
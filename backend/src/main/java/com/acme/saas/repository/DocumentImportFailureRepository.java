@@ -0,0 +1,14 @@
+package com.acme.saas.repository;
+
+import com.acme.saas.domain.DocumentImportFailure;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface DocumentImportFailureRepository extends JpaRepository<DocumentImportFailure, UUID> {
+
+    List<DocumentImportFailure> findByImportIdOrderByObjectKey(UUID importId);
+
+    long countByImportId(UUID importId);
+}
@@ -0,0 +1,69 @@
+package com.acme.saas.repository;
+
+import com.acme.saas.domain.DocumentImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public interface DocumentImportRepository extends JpaRepository<DocumentImport, UUID> {
+
+    /**
+     * Takes over a failed import, or a running one whose node stopped sending heartbeats.
+     *
+     * @return 1 if the import was claimed
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DocumentImport i SET i.status = com.acme.saas.domain.DocumentImport.Status.RUNNING, "
+            + "i.heartbeat = :now, i.errorMessage = null, i.finishedAt = null "
+            + "WHERE i.id = :id AND (i.status = com.acme.saas.domain.DocumentImport.Status.FAILED "
+            + "OR (i.status = com.acme.saas.domain.DocumentImport.Status.RUNNING AND i.heartbeat < :staleBefore))")
+    int claim(@Param("id") UUID id, @Param("now") OffsetDateTime now, @Param("staleBefore") OffsetDateTime staleBefore);
+
+    /**
+     * Records a handled listing page of a running import.
+     *
+     * @return 0 if the import is no longer running, e.g. it was cancelled
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DocumentImport i SET i.lastKey = :lastKey, i.objectsListed = i.objectsListed + :listed, "
+            + "i.documentsCreated = i.documentsCreated + :created, i.objectsSkipped = i.objectsSkipped + :skipped, "
+            + "i.objectsFailed = i.objectsFailed + :failed, i.heartbeat = :now "
+            + "WHERE i.id = :id AND i.status = com.acme.saas.domain.DocumentImport.Status.RUNNING")
+    int recordPage(@Param("id") UUID id, @Param("lastKey") String lastKey, @Param("listed") int listed,
+                   @Param("created") int created, @Param("skipped") int skipped, @Param("failed") int failed,
+                   @Param("now") OffsetDateTime now);
+
+    /**
+     * Records retried failures of a running import: created documents, and failures resolved by
+     * creating or skipping their object.
+     *
+     * @return 0 if the import is no longer running, e.g. it was cancelled
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DocumentImport i SET i.documentsCreated = i.documentsCreated + :created, "
+            + "i.objectsSkipped = i.objectsSkipped + :skipped, i.objectsFailed = i.objectsFailed - :resolved, "
+            + "i.heartbeat = :now "
+            + "WHERE i.id = :id AND i.status = com.acme.saas.domain.DocumentImport.Status.RUNNING")
+    int recordRetry(@Param("id") UUID id, @Param("created") int created, @Param("skipped") int skipped,
+                    @Param("resolved") int resolved, @Param("now") OffsetDateTime now);
+
+    /**
+     * Ends a running import with the given status.
+     *
+     * @return 0 if the import was not running
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DocumentImport i SET i.status = :status, i.errorMessage = :error, i.finishedAt = :now "
+            + "WHERE i.id = :id AND i.status = com.acme.saas.domain.DocumentImport.Status.RUNNING")
+    int finish(@Param("id") UUID id, @Param("status") DocumentImport.Status status,
+               @Param("error") String error, @Param("now") OffsetDateTime now);
+}
@@ -0,0 +1,32 @@
+package com.acme.saas.repository;
+
+import com.acme.saas.domain.ExtractedKeyValue;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public interface ExtractedKeyValueRepository extends JpaRepository<ExtractedKeyValue, UUID> {
+    List<ExtractedKeyValue> findByNormalizedKeyOrderByDocumentId(String normalizedKey, Pageable pageable);
+
+    List<ExtractedKeyValue> findByNormalizedKeyAndValueTextOrderByDocumentId(
+            String normalizedKey, String valueText, Pageable pageable);
+
+    List<ExtractedKeyValue> findByNormalizedKeyAndValueDateBetweenOrderByValueDate(
+            String normalizedKey, LocalDate from, LocalDate to, Pageable pageable);
+
+    List<ExtractedKeyValue> findByNormalizedKeyAndValueNumberBetweenOrderByValueNumber(
+            String normalizedKey, BigDecimal min, BigDecimal max, Pageable pageable);
+
+    List<ExtractedKeyValue> findByDocumentIdOrderByPairIndex(UUID documentId);
+
+    @Modifying
+    @Query("delete from ExtractedKeyValue kv where kv.documentId = :documentId")
+    int deleteByDocumentId(@Param("documentId") UUID documentId);
+}
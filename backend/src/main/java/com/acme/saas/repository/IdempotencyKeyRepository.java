@@ -0,0 +1,58 @@
+package com.acme.saas.repository;
+
+import com.acme.saas.domain.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, IdempotencyKey.Id> {
+
+    /**
+     * Claims a key for a new request: inserts it, or takes over a row that has expired or whose
+     * request has been running since before {@code staleBefore} (its node died mid-request).
+     *
+     * @return 0 if another request holds the key
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO public.idempotency_keys AS k "
+            + "(tenant_schema, idempotency_key, fingerprint, created_at, expires_at) "
+            + "VALUES (:tenant, :key, :fingerprint, :now, :expiresAt) "
+            + "ON CONFLICT (tenant_schema, idempotency_key) DO UPDATE SET "
+            + "fingerprint = EXCLUDED.fingerprint, status_code = NULL, response_body = NULL, "
+            + "created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at "
+            + "WHERE k.expires_at < :now OR (k.status_code IS NULL AND k.created_at < :staleBefore)",
+            nativeQuery = true)
+    int claim(@Param("tenant") String tenant, @Param("key") String key, @Param("fingerprint") String fingerprint,
+              @Param("now") OffsetDateTime now, @Param("expiresAt") OffsetDateTime expiresAt,
+              @Param("staleBefore") OffsetDateTime staleBefore);
+
+    /**
+     * Records the result of the request that claimed the key at {@code claimedAt}.
+     *
+     * @return 0 if the key has since been taken over by another request
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyKey k SET k.statusCode = :statusCode, k.responseBody = :body "
+            + "WHERE k.id = :id AND k.createdAt = :claimedAt")
+    int complete(@Param("id") IdempotencyKey.Id id, @Param("claimedAt") OffsetDateTime claimedAt,
+                 @Param("statusCode") int statusCode, @Param("body") String body);
+
+    /**
+     * Frees a key whose request failed, so a retry runs it again.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyKey k WHERE k.id = :id AND k.createdAt = :claimedAt AND k.statusCode IS NULL")
+    int release(@Param("id") IdempotencyKey.Id id, @Param("claimedAt") OffsetDateTime claimedAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt < :now")
+    int deleteExpired(@Param("now") OffsetDateTime now);
+}
@@ -0,0 +1,11 @@
+package com.acme.saas.repository;
+
+import com.acme.saas.domain.KeyValueRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface KeyValueRuleRepository extends JpaRepository<KeyValueRule, UUID> {
+    List<KeyValueRule> findAllByOrderByCreatedAt();
+}
@@ -6,7 +6,9 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.List;
 import java.util.UUID;
 
-public interface RfpDocumentRepository extends JpaRepository<RfpDocument, UUID> {
+public interface RfpDocumentRepository extends JpaRepository<RfpDocument, UUID>, RfpDocumentRepositoryCustom {
     List<RfpDocument> findAllByOrderByUploadedAtDesc();
+
+    List<RfpDocument> findByPackageIdOrderByOriginalFilename(UUID packageId);
 }
 
@@ -0,0 +1,15 @@
+package com.acme.saas.repository;
+
+import com.acme.saas.domain.RfpDocument;
+
+import java.util.List;
+
+public interface RfpDocumentRepositoryCustom {
+
+    /**
+     * Inserts new documents with one JDBC batch. Unlike saveAll, which merges documents with
+     * preassigned IDs one by one, this issues no selects; the documents are not attached to
+     * the persistence context.
+     */
+    void insertAll(List<RfpDocument> documents);
+}
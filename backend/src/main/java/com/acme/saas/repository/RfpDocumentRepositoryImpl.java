@@ -0,0 +1,49 @@
+package com.acme.saas.repository;
+
+import com.acme.saas.domain.RfpDocument;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+class RfpDocumentRepositoryImpl implements RfpDocumentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Runs on the tenant-scoped session connection, so it must be called in a transaction.
+     */
+    @Override
+    public void insertAll(List<RfpDocument> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        Session session = entityManager.unwrap(Session.class);
+        session.doWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO rfp_documents (id, filename, original_filename, content_type, file_size, "
+                            + "storage_path, status, uploaded_at, previous_version_id, package_id) "
+                            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (RfpDocument document : documents) {
+                    insert.setObject(1, document.getId());
+                    insert.setString(2, document.getFilename());
+                    insert.setString(3, document.getOriginalFilename());
+                    insert.setString(4, document.getContentType());
+                    insert.setLong(5, document.getFileSize());
+                    insert.setString(6, document.getStoragePath());
+                    insert.setString(7, document.getStatus().name());
+                    insert.setTimestamp(8, Timestamp.from(document.getUploadedAt().toInstant()));
+                    insert.setObject(9, document.getPreviousVersionId(), Types.OTHER);
+                    insert.setObject(10, document.getPackageId(), Types.OTHER);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package com.acme.saas.repository;
+
+import com.acme.saas.domain.UploadSession;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+
+    Optional<UploadSession> findByIdAndTenantSchema(UUID id, String tenantSchema);
+
+    List<UploadSession> findByStatusAndUpdatedAtBefore(UploadSession.Status status, OffsetDateTime before, Pageable page);
+
+    /**
+     * Records a chunk received at the given offset as the next part, with the ETag of that part.
+     *
+     * @return 0 if the session is not open or another chunk was recorded at that offset first
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE public.upload_sessions SET received_bytes = received_bytes + :length, parts = parts + 1, "
+            + "part_etags = array_append(part_etags, CAST(:eTag AS text)), updated_at = :now "
+            + "WHERE id = :id AND received_bytes = :offset AND status = 'OPEN'", nativeQuery = true)
+    int recordChunk(@Param("id") UUID id, @Param("offset") long offset, @Param("length") long length,
+                    @Param("eTag") String eTag, @Param("now") OffsetDateTime now);
+
+    /**
+     * Moves an open session to a final status.
+     *
+     * @return 0 if the session was not open
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession s SET s.status = :status, s.documentId = :documentId, s.updatedAt = :now "
+            + "WHERE s.id = :id AND s.status = com.acme.saas.domain.UploadSession.Status.OPEN")
+    int close(@Param("id") UUID id, @Param("status") UploadSession.Status status,
+              @Param("documentId") UUID documentId, @Param("now") OffsetDateTime now);
+}
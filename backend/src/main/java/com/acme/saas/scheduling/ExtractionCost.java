@@ -0,0 +1,41 @@
+package com.acme.saas.scheduling;
+
+/**
+ * Estimated extraction cost of a document, in KB-equivalents of PDF work, and its heap need.
+ * XLSX and DOCX are zipped XML that POI expands fully in memory, so a byte of them
+ * costs more than a byte of PDF.
+ */
+public final class ExtractionCost {
+
+    private static final String XLSX = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    private static final String DOCX = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+
+    // Parser state, consumers and buffers independent of the file size
+    private static final long BASELINE_HEAP_BYTES = 16L * 1024 * 1024;
+
+    private ExtractionCost() {}
+
+    public static long estimate(String contentType, Long fileSize) {
+        long kilobytes = fileSize != null ? Math.max(1, fileSize / 1024) : 1;
+        double weight = switch (contentType != null ? contentType : "") {
+            case XLSX -> 4.0;
+            case DOCX -> 2.0;
+            default -> 1.0;
+        };
+        return Math.max(1, (long) (kilobytes * weight));
+    }
+
+    /**
+     * Estimated peak heap while extracting. PDFBox holds the file bytes and the parsed object
+     * tree; POI inflates the zipped XML into a DOM, which for XLSX is many times the file size.
+     */
+    public static long heapBytes(String contentType, Long fileSize) {
+        long bytes = fileSize != null ? Math.max(0, fileSize) : 0;
+        long factor = switch (contentType != null ? contentType : "") {
+            case XLSX -> 20;
+            case DOCX -> 8;
+            default -> 4;
+        };
+        return BASELINE_HEAP_BYTES + bytes * factor;
+    }
+}
@@ -0,0 +1,26 @@
+package com.acme.saas.scheduling;
+
+import com.acme.saas.tenancy.TenantContext;
+
+/**
+ * A unit of extraction work with what the scheduler needs to order and admit it.
+ *
+ * @param tenant    tenant schema the job runs in; the worker sets it as the tenant context
+ * @param cost      estimated cost, see {@link ExtractionCost#estimate}
+ * @param heapBytes heap reserved while the job runs, see {@link ExtractionCost#heapBytes}
+ */
+public record ExtractionJob(String tenant, ExtractionLane lane, long cost, long heapBytes, Runnable task)
+        implements Runnable {
+
+    /**
+     * Job for the tenant of the calling thread.
+     */
+    public static ExtractionJob forCurrentTenant(ExtractionLane lane, long cost, long heapBytes, Runnable task) {
+        return new ExtractionJob(TenantContext.getCurrentTenant(), lane, cost, heapBytes, task);
+    }
+
+    @Override
+    public void run() {
+        task.run();
+    }
+}
@@ -0,0 +1,11 @@
+package com.acme.saas.scheduling;
+
+/**
+ * Queues that extraction jobs wait in. Interactive uploads are served ahead of bulk
+ * ingestion and have workers reserved for them, so a user's upload is not stuck
+ * behind an API client importing thousands of files.
+ */
+public enum ExtractionLane {
+    INTERACTIVE,  // uploads by signed-in users
+    BULK          // API-key ingestion and background recovery
+}
@@ -0,0 +1,255 @@
+package com.acme.saas.scheduling;
+
+import com.acme.saas.tenancy.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Executor for background extractions that replaces FIFO order with tenant-fair, cost-aware
+ * scheduling ({@link FairQueue}), so one tenant's multi-gigabyte backlog does not delay another
+ * tenant's one-page PDF.
+ *
+ * Workers take interactive jobs before bulk ones. Bulk jobs only run on the workers that are not
+ * reserved for interactive work, and a single tenant never occupies more than its worker limit.
+ *
+ * Admission control: a job starts only if its estimated heap fits in the node-wide budget next
+ * to the reservations of running jobs; otherwise it stays queued, and the scheduler moves on to
+ * jobs that fit. A job estimated above the whole budget runs only when nothing else does. Once a
+ * job held back for heap has waited longer than maxWait, no other job starts until it has: the
+ * running jobs drain until it fits, so a steady stream of small jobs cannot starve a large one.
+ *
+ * Plain runnables are treated as interactive jobs of cost 1 for the submitting thread's tenant.
+ */
+public class FairExtractionScheduler implements Executor {
+    private static final Logger log = LoggerFactory.getLogger(FairExtractionScheduler.class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final FairQueue queue;
+    private final int capacity;
+    private final int bulkWorkers;
+    private final int maxPerTenant;
+    private final long heapBudgetBytes;
+    private final Map<String, Integer> runningByTenant = new HashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private int running;
+    private int runningBulk;
+    private long reservedBytes;
+    // Overdue job held back for heap, which every other job waits behind
+    private ExtractionJob heapWaiter;
+    private boolean shutdown;
+
+    /**
+     * @param reservedInteractive workers that never take bulk jobs; fewer than threads, so bulk jobs have one
+     * @param maxPerTenant        workers a single tenant may occupy at once
+     * @param quantum             credit per tenant turn, in {@link ExtractionCost} units
+     * @param maxWait             wait after which a tenant's oldest job goes ahead of its cheaper ones
+     * @param heapBudgetBytes     heap that running jobs may reserve in total
+     */
+    public FairExtractionScheduler(int threads, int capacity, int reservedInteractive, int maxPerTenant,
+                                   long quantum, Duration maxWait, long heapBudgetBytes) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        if (reservedInteractive < 0 || (reservedInteractive > 0 && reservedInteractive >= threads)) {
+            throw new IllegalArgumentException("extraction.scheduler.interactive-reserved-threads must be less than "
+                    + "extraction.executor.threads (" + threads + "), or 0 to reserve none");
+        }
+        this.queue = new FairQueue(quantum, maxWait);
+        this.capacity = capacity;
+        this.bulkWorkers = threads - reservedInteractive;
+        this.maxPerTenant = Math.min(threads, Math.max(1, maxPerTenant));
+        this.heapBudgetBytes = heapBudgetBytes;
+        for (int i = 1; i <= threads; i++) {
+            Thread worker = new Thread(this::work, "extraction-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        ExtractionJob job = task instanceof ExtractionJob extractionJob
+                ? extractionJob
+                : ExtractionJob.forCurrentTenant(ExtractionLane.INTERACTIVE, 1, 0, task);
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("Extraction scheduler is shut down");
+            }
+            if (queue.size() >= capacity) {
+                throw new RejectedExecutionException("Extraction queue is full (" + capacity + " jobs)");
+            }
+            queue.add(job, System.nanoTime());
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queued(ExtractionLane lane) {
+        lock.lock();
+        try {
+            return queue.size(lane);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int running() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Heap currently reserved by running jobs.
+     */
+    public long reservedBytes() {
+        lock.lock();
+        try {
+            return reservedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long heapBudgetBytes() {
+        return heapBudgetBytes;
+    }
+
+    /**
+     * Lets running extractions finish. Queued ones are dropped; their documents stay PROCESSING
+     * and are resumed by stalled-extraction recovery on this or another node.
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void work() {
+        while (true) {
+            ExtractionJob job;
+            try {
+                job = take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (job == null) {
+                return;
+            }
+            TenantContext.setCurrentTenant(job.tenant());
+            try {
+                job.run();
+            } catch (Throwable e) {
+                // Includes OutOfMemoryError and StackOverflowError from parsers: the job's heap is
+                // released once it unwinds, and ending the thread would shrink the pool for good
+                log.error("Extraction job failed for tenant {}", job.tenant(), e);
+            } finally {
+                TenantContext.clear();
+                finished(job);
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    private ExtractionJob take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!shutdown) {
+                long now = System.nanoTime();
+                ExtractionJob job = null;
+                if (heapWaiter == null) {
+                    heapWaiter = queue.overdue(now, overdue -> belowTenantLimit(overdue) && !fitsHeap(overdue));
+                }
+                if (heapWaiter != null) {
+                    if (admissible(heapWaiter) && (heapWaiter.lane() == ExtractionLane.INTERACTIVE || runningBulk < bulkWorkers)) {
+                        queue.remove(heapWaiter);
+                        job = heapWaiter;
+                        heapWaiter = null;
+                    }
+                } else {
+                    job = queue.poll(ExtractionLane.INTERACTIVE, now, this::admissible);
+                    if (job == null && runningBulk < bulkWorkers) {
+                        job = queue.poll(ExtractionLane.BULK, now, this::admissible);
+                    }
+                }
+                if (job != null) {
+                    runningByTenant.merge(job.tenant(), 1, Integer::sum);
+                    reservedBytes += reservation(job);
+                    running++;
+                    if (job.lane() == ExtractionLane.BULK) {
+                        runningBulk++;
+                    }
+                    return job;
+                }
+                changed.await();
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void finished(ExtractionJob job) {
+        lock.lock();
+        try {
+            runningByTenant.computeIfPresent(job.tenant(), (tenant, count) -> count > 1 ? count - 1 : null);
+            reservedBytes -= reservation(job);
+            running--;
+            if (job.lane() == ExtractionLane.BULK) {
+                runningBulk--;
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean admissible(ExtractionJob job) {
+        return belowTenantLimit(job) && fitsHeap(job);
+    }
+
+    private boolean belowTenantLimit(ExtractionJob job) {
+        return runningByTenant.getOrDefault(job.tenant(), 0) < maxPerTenant;
+    }
+
+    private boolean fitsHeap(ExtractionJob job) {
+        return running == 0 || reservedBytes + reservation(job) <= heapBudgetBytes;
+    }
+
+    private long reservation(ExtractionJob job) {
+        return Math.min(Math.max(0, job.heapBytes()), heapBudgetBytes);
+    }
+}
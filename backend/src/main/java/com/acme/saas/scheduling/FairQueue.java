@@ -0,0 +1,232 @@
+package com.acme.saas.scheduling;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Pending extraction jobs, ordered by deficit round-robin across tenants within each lane.
+ *
+ * Tenants with pending work take turns. Each turn adds a quantum of credit, and the tenant
+ * dispatches jobs while its next job's cost fits the credit left; unused credit carries over.
+ * Every tenant thus gets an equal share of estimated work however many jobs it queues, and a
+ * small document from a quiet tenant goes out within one round. Within a tenant, the cheapest
+ * job goes first unless its oldest job has waited longer than maxWait.
+ *
+ * Not thread-safe; {@link FairExtractionScheduler} guards it with its lock.
+ */
+final class FairQueue {
+
+    private static final Comparator<Entry> CHEAPEST_FIRST =
+            Comparator.comparingLong((Entry e) -> e.job.cost()).thenComparingLong(e -> e.sequence);
+
+    private final long quantum;
+    private final long maxWaitNanos;
+    private final Map<ExtractionLane, Lane> lanes = new EnumMap<>(ExtractionLane.class);
+    private long sequence;
+    private int size;
+
+    FairQueue(long quantum, Duration maxWait) {
+        if (quantum < 1) {
+            throw new IllegalArgumentException("quantum must be positive");
+        }
+        this.quantum = quantum;
+        this.maxWaitNanos = maxWait.toNanos();
+        for (ExtractionLane lane : ExtractionLane.values()) {
+            lanes.put(lane, new Lane());
+        }
+    }
+
+    void add(ExtractionJob job, long nowNanos) {
+        Lane lane = lanes.get(job.lane());
+        TenantQueue queue = lane.tenants.get(job.tenant());
+        if (queue == null) {
+            queue = new TenantQueue(job.tenant());
+            lane.tenants.put(job.tenant(), queue);
+            lane.rotation.addLast(queue);
+        }
+        queue.add(new Entry(job, sequence++, nowNanos));
+        lane.size++;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int size(ExtractionLane lane) {
+        return lanes.get(lane).size;
+    }
+
+    /**
+     * Removes and returns the lane's next job, or null if no tenant's next job may start now.
+     * A tenant whose next job is not admissible sits out without losing its credit.
+     *
+     * @param admissible whether a job may start now, e.g. its tenant is below its worker limit
+     *                   and its heap reservation fits
+     */
+    ExtractionJob poll(ExtractionLane laneKey, long nowNanos, Predicate<ExtractionJob> admissible) {
+        Lane lane = lanes.get(laneKey);
+
+        // Skip whole rounds in which no eligible tenant could afford its next job
+        long rounds = Long.MAX_VALUE;
+        for (TenantQueue queue : lane.rotation) {
+            ExtractionJob next = queue.head(nowNanos).job;
+            if (admissible.test(next)) {
+                long credit = queue.deficit + (queue.credited ? 0 : quantum);
+                long missing = next.cost() - credit;
+                rounds = Math.min(rounds, missing <= 0 ? 0 : Math.ceilDiv(missing, quantum));
+            }
+        }
+        if (rounds == Long.MAX_VALUE) {
+            return null;
+        }
+        if (rounds > 0) {
+            for (TenantQueue queue : lane.rotation) {
+                if (admissible.test(queue.head(nowNanos).job)) {
+                    queue.deficit += rounds * quantum;
+                }
+            }
+        }
+
+        // At most two passes: the first may only credit tenants whose turn is starting
+        for (int visits = 2 * lane.rotation.size(); visits > 0; visits--) {
+            TenantQueue queue = lane.rotation.peekFirst();
+            Entry head = queue.head(nowNanos);
+            if (admissible.test(head.job)) {
+                if (!queue.credited) {
+                    queue.deficit += quantum;
+                    queue.credited = true;
+                }
+                if (head.job.cost() <= queue.deficit) {
+                    queue.remove(head);
+                    queue.deficit -= head.job.cost();
+                    lane.size--;
+                    size--;
+                    if (queue.isEmpty()) {
+                        // Idle tenants do not bank credit
+                        lane.rotation.pollFirst();
+                        lane.tenants.remove(queue.tenant);
+                    }
+                    return head.job;
+                }
+            }
+            queue.credited = false;
+            lane.rotation.addLast(lane.rotation.pollFirst());
+        }
+        return null;
+    }
+
+    /**
+     * The longest waiting job, in either lane, that has waited longer than maxWait and matches,
+     * or null if there is none. Only the oldest job of each tenant is considered.
+     */
+    ExtractionJob overdue(long nowNanos, Predicate<ExtractionJob> matching) {
+        Entry oldest = null;
+        for (Lane lane : lanes.values()) {
+            for (TenantQueue queue : lane.rotation) {
+                Entry entry = queue.byArrival.peekFirst();
+                if (nowNanos - entry.enqueuedNanos > maxWaitNanos && matching.test(entry.job)
+                        && (oldest == null || entry.sequence < oldest.sequence)) {
+                    oldest = entry;
+                }
+            }
+        }
+        return oldest != null ? oldest.job : null;
+    }
+
+    /**
+     * Removes a job out of turn, e.g. one found by {@link #overdue}. Its cost is still charged to
+     * its tenant's credit, which may go negative, so the tenant's share stays the same.
+     *
+     * @return whether the job was queued
+     */
+    boolean remove(ExtractionJob job) {
+        Lane lane = lanes.get(job.lane());
+        TenantQueue queue = lane.tenants.get(job.tenant());
+        if (queue == null) {
+            return false;
+        }
+        for (Entry entry : queue.byArrival) {
+            if (entry.job == job && !entry.taken) {
+                queue.remove(entry);
+                queue.deficit -= job.cost();
+                lane.size--;
+                size--;
+                if (queue.isEmpty()) {
+                    lane.rotation.remove(queue);
+                    lane.tenants.remove(queue.tenant);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class Lane {
+        final Map<String, TenantQueue> tenants = new HashMap<>();
+        final ArrayDeque<TenantQueue> rotation = new ArrayDeque<>();
+        int size;
+    }
+
+    private static final class Entry {
+        final ExtractionJob job;
+        final long sequence;
+        final long enqueuedNanos;
+        boolean taken;
+
+        Entry(ExtractionJob job, long sequence, long enqueuedNanos) {
+            this.job = job;
+            this.sequence = sequence;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    private final class TenantQueue {
+        final String tenant;
+        // Same entries in two orders; taken entries are dropped lazily from the other one
+        final PriorityQueue<Entry> byCost = new PriorityQueue<>(CHEAPEST_FIRST);
+        final ArrayDeque<Entry> byArrival = new ArrayDeque<>();
+        long deficit;
+        boolean credited;
+        int count;
+
+        TenantQueue(String tenant) {
+            this.tenant = tenant;
+        }
+
+        void add(Entry entry) {
+            byCost.add(entry);
+            byArrival.addLast(entry);
+            count++;
+        }
+
+        Entry head(long nowNanos) {
+            Entry oldest = byArrival.peekFirst();
+            if (nowNanos - oldest.enqueuedNanos > maxWaitNanos) {
+                return oldest;
+            }
+            return byCost.peek();
+        }
+
+        void remove(Entry entry) {
+            entry.taken = true;
+            count--;
+            while (!byCost.isEmpty() && byCost.peek().taken) {
+                byCost.poll();
+            }
+            while (!byArrival.isEmpty() && byArrival.peekFirst().taken) {
+                byArrival.pollFirst();
+            }
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+    }
+}
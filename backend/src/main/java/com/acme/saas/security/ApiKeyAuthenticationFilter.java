@@ -1,5 +1,6 @@
 package com.acme.saas.security;
 
+import com.acme.saas.config.ServesHttp;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,6 +25,7 @@ import java.util.List;
  * Must run before Spring Security's OAuth2 authentication.
  */
 @Component
+@ServesHttp
 @Order(Ordered.HIGHEST_PRECEDENCE + 10)
 public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
 
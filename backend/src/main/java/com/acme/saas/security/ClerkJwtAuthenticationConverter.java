@@ -1,5 +1,6 @@
 package com.acme.saas.security;
 
+import com.acme.saas.config.ServesHttp;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.GrantedAuthority;
@@ -16,6 +17,7 @@ import java.util.List;
  * Extracts organization information from JWT claims.
  */
 @Component
+@ServesHttp
 public class ClerkJwtAuthenticationConverter implements Converter<Jwt, ClerkAuthenticationToken> {
 
     @Override
@@ -1,5 +1,6 @@
 package com.acme.saas.security;
 
+import com.acme.saas.config.ServesHttp;
 import com.acme.saas.service.OrgService;
 import com.acme.saas.tenancy.TenantContext;
 import jakarta.servlet.FilterChain;
@@ -25,6 +26,7 @@ import java.io.IOException;
  * Also handles lazy provisioning of tenant schemas for new Clerk organizations.
  */
 @Component
+@ServesHttp
 @Order(Ordered.LOWEST_PRECEDENCE - 10)
 public class TenantAuthorizationFilter extends OncePerRequestFilter {
 
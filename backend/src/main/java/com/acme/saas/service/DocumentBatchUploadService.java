@@ -0,0 +1,186 @@
+package com.acme.saas.service;
+
+import com.acme.saas.config.ServesHttp;
+import com.acme.saas.domain.RfpDocument;
+import com.acme.saas.dto.BatchUploadResult;
+import com.acme.saas.repository.RfpDocumentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Uploads many documents in one request.
+ *
+ * Files are written to storage in parallel, and document rows are assembled as each write
+ * finishes. The rows of all stored files are then inserted with one JDBC batch, and the
+ * extraction of every document is queued when that transaction commits. A file that fails
+ * validation or storage is reported in its result without failing the rest of the batch.
+ */
+@Service
+@ServesHttp
+public class DocumentBatchUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentBatchUploadService.class);
+
+    private final RfpDocumentRepository repository;
+    private final RfpDocumentService documentService;
+    private final FileStorageService storageService;
+    private final DocumentProcessingService processingService;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxFiles;
+    // Shared by all batches on this node so concurrent batches do not exhaust the S3 connection pool
+    private final Semaphore storageSlots;
+
+    private record Stored(int index, RfpDocument document, String error) {}
+
+    public DocumentBatchUploadService(
+            RfpDocumentRepository repository,
+            RfpDocumentService documentService,
+            FileStorageService storageService,
+            DocumentProcessingService processingService,
+            PlatformTransactionManager transactionManager,
+            @Value("${upload.batch.max-files:500}") int maxFiles,
+            @Value("${upload.batch.parallelism:8}") int parallelism) {
+        this.repository = repository;
+        this.documentService = documentService;
+        this.storageService = storageService;
+        this.processingService = processingService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxFiles = maxFiles;
+        this.storageSlots = new Semaphore(parallelism);
+    }
+
+    /**
+     * Stores the files, creates their documents and queues their full extraction.
+     *
+     * @return one result per file, in the order of the files
+     */
+    public List<BatchUploadResult> uploadBatch(List<MultipartFile> files, String tenantId) {
+        if (files == null || files.isEmpty()) {
+            throw new IllegalArgumentException("No files uploaded");
+        }
+        if (files.size() > maxFiles) {
+            throw new IllegalArgumentException("Batch exceeds the maximum of " + maxFiles + " files");
+        }
+
+        BatchUploadResult[] results = new BatchUploadResult[files.size()];
+        RfpDocument[] stored = new RfpDocument[files.size()];
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletionService<Stored> stores = new ExecutorCompletionService<>(executor);
+            int submitted = 0;
+            for (int i = 0; i < files.size(); i++) {
+                MultipartFile file = files.get(i);
+                try {
+                    documentService.validate(file);
+                } catch (IllegalArgumentException e) {
+                    results[i] = BatchUploadResult.rejected(filename(file), e.getMessage());
+                    continue;
+                }
+                int index = i;
+                stores.submit(() -> store(index, file, tenantId));
+                submitted++;
+            }
+
+            for (; submitted > 0; submitted--) {
+                Stored done = stores.take().get();
+                if (done.document() != null) {
+                    stored[done.index()] = done.document();
+                } else {
+                    results[done.index()] = BatchUploadResult.rejected(filename(files.get(done.index())), done.error());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while storing batch", e);
+        } catch (ExecutionException e) {
+            // store() reports its failures in the result
+            throw new IllegalStateException(e.getCause());
+        }
+
+        List<RfpDocument> documents = new ArrayList<>(files.size());
+        for (RfpDocument document : stored) {
+            if (document != null) {
+                documents.add(document);
+            }
+        }
+        if (!documents.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    repository.insertAll(documents);
+                    // Submitted after commit, or queued for worker nodes in this transaction
+                    documents.forEach(processingService::scheduleFullExtraction);
+                });
+            } catch (RuntimeException e) {
+                for (RfpDocument document : documents) {
+                    deleteQuietly(document.getStoragePath());
+                }
+                throw e;
+            }
+        }
+
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                RfpDocument document = stored[i];
+                results[i] = BatchUploadResult.created(
+                        document.getOriginalFilename(), document.getId(), document.getStatus().toString());
+            }
+        }
+        log.info("Batch upload: {} of {} files stored", documents.size(), files.size());
+        return Arrays.asList(results);
+    }
+
+    private Stored store(int index, MultipartFile file, String tenantId) {
+        String storagePath = storageService.newKey(tenantId, file.getOriginalFilename());
+        try {
+            storageSlots.acquire();
+            try (InputStream content = file.getInputStream()) {
+                storageService.storeStream(storagePath, content, file.getSize(), file.getContentType());
+            } finally {
+                storageSlots.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Stored(index, null, "Upload was interrupted");
+        } catch (Exception e) {
+            log.warn("Failed to store batch file {}: {}", file.getOriginalFilename(), e.getMessage());
+            return new Stored(index, null, "Failed to store file: " + e.getMessage());
+        }
+
+        RfpDocument document = new RfpDocument();
+        document.setFilename(storagePath.substring(storagePath.lastIndexOf('/') + 1));
+        document.setOriginalFilename(filename(file));
+        document.setContentType(file.getContentType());
+        document.setFileSize(file.getSize());
+        document.setStoragePath(storagePath);
+        document.setStatus(RfpDocument.DocumentStatus.PROCESSING);
+        return new Stored(index, document, null);
+    }
+
+    private void deleteQuietly(String storagePath) {
+        try {
+            storageService.deleteFile(storagePath);
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete {} after a failed batch upload: {}", storagePath, e.getMessage());
+        }
+    }
+
+    private static String filename(MultipartFile file) {
+        String name = file == null ? null : file.getOriginalFilename();
+        return name == null || name.isBlank() ? "file" : name;
+    }
+}
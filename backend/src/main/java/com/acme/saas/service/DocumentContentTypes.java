@@ -0,0 +1,32 @@
+package com.acme.saas.service;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Content types of the supported document formats, for files that arrive without one
+ * (zip entries, imported S3 objects).
+ */
+final class DocumentContentTypes {
+
+    private static final Map<String, String> BY_EXTENSION = Map.of(
+            "pdf", "application/pdf",
+            "docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+            "xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+            "doc", "application/msword",
+            "txt", "text/plain");
+
+    private DocumentContentTypes() {
+    }
+
+    /**
+     * @return the content type for the file name's extension, or null if the format is not supported
+     */
+    static String forFilename(String name) {
+        int dot = name.lastIndexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        return BY_EXTENSION.get(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+}
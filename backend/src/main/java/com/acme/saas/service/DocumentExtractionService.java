@@ -3,89 +3,132 @@ package com.acme.saas.service;
 import com.acme.saas.domain.ExtractionStatus;
 import com.acme.saas.domain.RfpDocument;
 import com.acme.saas.domain.RfpDocumentExtraction;
-import com.acme.saas.dto.ExtractedTable;
+import com.acme.saas.dto.ExtractedUnit;
+import com.acme.saas.dto.ExtractionPreview;
 import com.acme.saas.dto.ExtractionResult;
-import com.acme.saas.dto.KeyValuePair;
+import com.acme.saas.extraction.CompactTableCodec;
+import com.acme.saas.extraction.DocumentExtractor;
+import com.acme.saas.extraction.ExtractionCounters;
+import com.acme.saas.extraction.ExtractionListener;
+import com.acme.saas.extraction.FullTextCollector;
+import com.acme.saas.extraction.KeyValueCollector;
+import com.acme.saas.extraction.PreviewLimiter;
+import com.acme.saas.extraction.TableCollector;
+import com.acme.saas.extraction.TableJsonWriter;
+import com.acme.saas.extraction.UnitRecorder;
+import com.acme.saas.extraction.worker.WorkerPool;
 import com.acme.saas.repository.RfpDocumentExtractionRepository;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.pdfbox.Loader;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.poi.xssf.usermodel.XSSFRow;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
-import org.apache.poi.xwpf.usermodel.XWPFParagraph;
-import org.apache.poi.xwpf.usermodel.XWPFTable;
-import org.apache.poi.xwpf.usermodel.XWPFTableCell;
-import org.apache.poi.xwpf.usermodel.XWPFTableRow;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.UUID;
 
 @Service
 public class DocumentExtractionService {
     private static final Logger log = LoggerFactory.getLogger(DocumentExtractionService.class);
-    private static final Pattern KV_PATTERN = Pattern.compile("^([^:]{2,60}):\\s*(.+)$");
-    private static final int MAX_KV_LINES = 120;
 
     private final FileStorageService fileStorageService;
     private final RfpDocumentExtractionRepository extractionRepository;
     private final ObjectMapper objectMapper;
+    private final KeyValueIndexService keyValueIndexService;
+    private final KeyValueRuleService keyValueRuleService;
+    private final TableCellIndexService tableCellIndexService;
+    private final ExtractionCheckpointService checkpointService;
+    private final WorkerPool workerPool;
+    private final boolean compactTables;
+    private final DocumentExtractor documentExtractor = new DocumentExtractor();
+
+    private enum Pass { FULL, FORKED, PREVIEW }
 
     public DocumentExtractionService(
             FileStorageService fileStorageService,
             RfpDocumentExtractionRepository extractionRepository,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            KeyValueIndexService keyValueIndexService,
+            KeyValueRuleService keyValueRuleService,
+            TableCellIndexService tableCellIndexService,
+            ExtractionCheckpointService checkpointService,
+            WorkerPool workerPool,
+            @Value("${extraction.tables.encoding:json}") String tablesEncoding) {
         this.fileStorageService = fileStorageService;
         this.extractionRepository = extractionRepository;
         this.objectMapper = objectMapper;
+        this.keyValueIndexService = keyValueIndexService;
+        this.keyValueRuleService = keyValueRuleService;
+        this.tableCellIndexService = tableCellIndexService;
+        this.checkpointService = checkpointService;
+        this.workerPool = workerPool;
+        this.compactTables = "compact".equalsIgnoreCase(tablesEncoding);
     }
 
     /**
      * Main extraction method that orchestrates the document processing.
+     * Replaces any earlier extraction of the document, including a preview.
      */
     @Transactional
     public RfpDocumentExtraction extractDocument(RfpDocument document) {
+        return extractDocument(document, false);
+    }
+
+    /**
+     * @param resumable commit per-unit checkpoints while extracting, and continue after the
+     *                  units already stored by an earlier, interrupted run. Requires the document
+     *                  row to be committed, since checkpoints are written in separate transactions.
+     */
+    @Transactional
+    public RfpDocumentExtraction extractDocument(RfpDocument document, boolean resumable) {
         log.info("Starting extraction for document: {}", document.getId());
 
-        RfpDocumentExtraction extraction = new RfpDocumentExtraction(document.getId());
+        RfpDocumentExtraction extraction = extractionRepository.findByDocumentId(document.getId())
+                .orElseGet(() -> new RfpDocumentExtraction(document.getId()));
+        ExtractionResult result = null;
+        ExtractionCheckpointService.Checkpointer checkpointer = null;
 
         try {
-            // Download file from S3
-            InputStream inputStream = fileStorageService.downloadFile(document.getStoragePath());
-
-            // Route to appropriate extractor based on content type
-            ExtractionResult result = switch (document.getContentType()) {
-                case "application/pdf" -> extractPdf(inputStream);
-                case "application/vnd.openxmlformats-officedocument.wordprocessingml.document" -> extractDocx(inputStream);
-                case "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet" -> extractXlsx(inputStream);
-                default -> throw new IllegalArgumentException("Unsupported content type: " + document.getContentType());
-            };
+            Map<String, ExtractedUnit> previous = previousVersionUnits(document);
+            List<ExtractedUnit> resumed = List.of();
+            List<ExtractedUnit> units = new ArrayList<>();
+            UnitRecorder recorder;
+            if (resumable) {
+                resumed = checkpointService.loadUnits(document.getId());
+                if (!resumed.isEmpty()) {
+                    log.info("Resuming extraction for document {} after {} checkpointed units",
+                            document.getId(), resumed.size());
+                }
+                checkpointer = checkpointService.checkpointer(document.getId(), resumed.size());
+                recorder = new UnitRecorder(checkpointer);
+            } else {
+                recorder = new UnitRecorder((unit, unitCount) -> units.add(unit));
+            }
 
-            // Extract key-value pairs from fullText
-            List<KeyValuePair> keyValues = extractKeyValues(result.fullText());
+            // Download file from S3
+            try (InputStream inputStream = fileStorageService.downloadFile(document.getStoragePath(), document.getFileSize())) {
+                result = parse(document, inputStream, extraction, List.of(recorder), resumed, previous,
+                        workerPool.enabled() ? Pass.FORKED : Pass.FULL);
+            }
 
-            // Populate extraction entity
-            extraction.setExtractedText(result.fullText());
-            extraction.setTablesJson(objectMapper.writeValueAsString(result.tables()));
-            extraction.setKeyValuesJson(objectMapper.writeValueAsString(keyValues));
-            extraction.setPageCount(result.pageCount());
-            extraction.setSheetCount(result.sheetCount());
-            extraction.setCharacterCount(result.characterCount());
-            extraction.setTableCount(result.tables().size());
+            if (checkpointer != null) {
+                checkpointer.flush();
+            } else {
+                checkpointService.saveUnits(document.getId(), units);
+            }
             extraction.setStatus(ExtractionStatus.SUCCESS);
+            extraction.setErrorMessage(null);
             extraction.setExtractedAt(OffsetDateTime.now());
+            extraction.setExtractorVersion(DocumentExtractor.VERSION);
 
             log.info("Extraction completed successfully for document: {}", document.getId());
 
@@ -94,200 +137,191 @@ public class DocumentExtractionService {
             extraction.setStatus(ExtractionStatus.FAILED);
             extraction.setErrorMessage(e.getMessage());
             extraction.setExtractedAt(OffsetDateTime.now());
+            extraction.setExtractorVersion(DocumentExtractor.VERSION);
+            if (checkpointer != null) {
+                flushQuietly(checkpointer, document);
+            }
         }
 
-        return extractionRepository.save(extraction);
+        return save(extraction, result);
     }
 
     /**
-     * Extract text and tables from PDF using Apache PDFBox.
+     * Extracts a document again with the current extractor, e.g. for a backfill. Unlike
+     * {@link #extractDocument}, a failure is thrown and rolls back, so the document keeps
+     * its current extraction.
      */
-    private ExtractionResult extractPdf(InputStream inputStream) throws IOException {
-        try (PDDocument document = Loader.loadPDF(inputStream.readAllBytes())) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            String fullText = stripper.getText(document);
-
-            int pageCount = document.getNumberOfPages();
-            int characterCount = fullText.length();
+    @Transactional(rollbackFor = Exception.class)
+    public RfpDocumentExtraction reextractDocument(RfpDocument document) throws IOException {
+        log.info("Re-extracting document {} with extractor version {}", document.getId(), DocumentExtractor.VERSION);
+
+        RfpDocumentExtraction extraction = extractionRepository.findByDocumentId(document.getId())
+                .orElseGet(() -> new RfpDocumentExtraction(document.getId()));
+        List<ExtractedUnit> units = new ArrayList<>();
+        UnitRecorder recorder = new UnitRecorder((unit, unitCount) -> units.add(unit));
+        ExtractionResult result;
+        try (InputStream inputStream = fileStorageService.downloadFile(document.getStoragePath(), document.getFileSize())) {
+            result = parse(document, inputStream, extraction, List.of(recorder), List.of(), Map.of(),
+                    workerPool.enabled() ? Pass.FORKED : Pass.FULL);
+        }
 
-            // Note: PDF table extraction with PDFBox is limited
-            // For production, consider Azure Document Intelligence
-            List<ExtractedTable> tables = new ArrayList<>();
+        checkpointService.saveUnits(document.getId(), units);
+        extraction.setStatus(ExtractionStatus.SUCCESS);
+        extraction.setErrorMessage(null);
+        extraction.setExtractedAt(OffsetDateTime.now());
+        extraction.setExtractorVersion(DocumentExtractor.VERSION);
+        return save(extraction, result);
+    }
 
-            return new ExtractionResult(
-                    fullText,
-                    tables,
-                    List.of(), // keyValues extracted separately
-                    pageCount,
-                    0, // sheetCount not applicable for PDF
-                    characterCount
-            );
+    private RfpDocumentExtraction save(RfpDocumentExtraction extraction, ExtractionResult result) {
+        RfpDocumentExtraction saved = extractionRepository.save(extraction);
+        if (saved.getStatus() == ExtractionStatus.SUCCESS) {
+            // Materialize pairs and table cells into normalized, indexed tables for cross-document queries
+            keyValueIndexService.index(saved, result.keyValues());
+            tableCellIndexService.index(saved, result.tables());
         }
+        return saved;
     }
 
     /**
-     * Extract text and tables from DOCX using Apache POI.
+     * Units of the version this document revises, by content hash; unchanged units are taken from
+     * there instead of being parsed again. Units from an older extractor version are not reused.
      */
-    private ExtractionResult extractDocx(InputStream inputStream) throws IOException {
-        try (XWPFDocument document = new XWPFDocument(inputStream)) {
-            StringBuilder fullText = new StringBuilder();
-            List<ExtractedTable> tables = new ArrayList<>();
-            int tableCounter = 1;
-
-            // Extract paragraphs
-            for (XWPFParagraph paragraph : document.getParagraphs()) {
-                fullText.append(paragraph.getText()).append("\n");
-            }
-
-            // Extract tables
-            for (XWPFTable table : document.getTables()) {
-                List<List<String>> rows = new ArrayList<>();
-
-                for (XWPFTableRow row : table.getRows()) {
-                    List<String> cells = new ArrayList<>();
-                    for (XWPFTableCell cell : row.getTableCells()) {
-                        cells.add(cell.getText().trim());
-                    }
-                    rows.add(cells);
-                }
-
-                if (!rows.isEmpty()) {
-                    tables.add(new ExtractedTable("Table " + tableCounter++, rows));
-                }
-            }
-
-            String text = fullText.toString();
-            return new ExtractionResult(
-                    text,
-                    tables,
-                    List.of(), // keyValues extracted separately
-                    0, // pageCount not applicable for DOCX
-                    0, // sheetCount not applicable for DOCX
-                    text.length()
-            );
+    private Map<String, ExtractedUnit> previousVersionUnits(RfpDocument document) {
+        UUID previousId = document.getPreviousVersionId();
+        if (previousId == null) {
+            return Map.of();
+        }
+        boolean current = extractionRepository.findByDocumentId(previousId)
+                .map(previous -> Integer.valueOf(DocumentExtractor.VERSION).equals(previous.getExtractorVersion()))
+                .orElse(false);
+        if (!current) {
+            log.info("Document {} revises {}, which was extracted by an older extractor; nothing reused",
+                    document.getId(), previousId);
+            return Map.of();
         }
+        Map<String, ExtractedUnit> units = checkpointService.loadUnitsByHash(previousId);
+        log.info("Document {} revises {}; {} units available for reuse", document.getId(), previousId, units.size());
+        return units;
     }
 
     /**
-     * Extract text and tables from XLSX using Apache POI.
-     * Optimized for LLM consumption (field extraction and summarization).
+     * Keeps the units completed before a failure, so a retry does not redo them.
      */
-    private ExtractionResult extractXlsx(InputStream inputStream) throws IOException {
-        try (XSSFWorkbook workbook = new XSSFWorkbook(inputStream)) {
-            StringBuilder fullText = new StringBuilder();
-            List<ExtractedTable> tables = new ArrayList<>();
-            int sheetCount = workbook.getNumberOfSheets();
-
-            for (int i = 0; i < sheetCount; i++) {
-                XSSFSheet sheet = workbook.getSheetAt(i);
-                String sheetName = sheet.getSheetName();
-
-                // Add sheet header for context
-                if (fullText.length() > 0) {
-                    fullText.append("\n\n");
-                }
-                fullText.append("Sheet: ").append(sheetName).append("\n");
-
-                List<List<String>> rows = new ArrayList<>();
-
-                for (org.apache.poi.ss.usermodel.Row row : sheet) {
-                    List<String> cells = new ArrayList<>();
-                    List<String> meaningfulCells = new ArrayList<>();
-
-                    for (org.apache.poi.ss.usermodel.Cell cell : row) {
-                        String cellValue = getCellValueAsString(cell);
-                        cells.add(cellValue);
-
-                        // Only add meaningful cells to fullText
-                        if (isMeaningfulCell(cellValue)) {
-                            meaningfulCells.add(cellValue.trim());
-                        }
-                    }
-
-                    rows.add(cells);
-
-                    // Add meaningful cells to fullText with space separator
-                    if (!meaningfulCells.isEmpty()) {
-                        fullText.append(String.join(" ", meaningfulCells)).append("\n");
-                    }
-                }
-
-                if (!rows.isEmpty()) {
-                    tables.add(new ExtractedTable(sheetName, rows));
-                }
-            }
-
-            String text = fullText.toString();
-            return new ExtractionResult(
-                    text,
-                    tables,
-                    List.of(), // keyValues extracted separately
-                    0, // pageCount not applicable for XLSX
-                    sheetCount,
-                    text.length()
-            );
+    private void flushQuietly(ExtractionCheckpointService.Checkpointer checkpointer, RfpDocument document) {
+        try {
+            checkpointer.flush();
+        } catch (Exception e) {
+            log.warn("Could not checkpoint units of failed extraction for document {}", document.getId(), e);
         }
     }
 
     /**
-     * Helper method to get cell value as string from Excel cell.
+     * Bounded first pass over freshly uploaded content. The partial result is stored with
+     * status PREVIEW so it can be read right away, until {@link #extractDocument} replaces it.
+     * Preview pairs and cells are not indexed; only the full extraction is queryable.
      */
-    private String getCellValueAsString(org.apache.poi.ss.usermodel.Cell cell) {
-        if (cell == null) {
-            return "";
-        }
-
-        return switch (cell.getCellType()) {
-            case STRING -> cell.getStringCellValue();
-            case NUMERIC -> String.valueOf(cell.getNumericCellValue());
-            case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
-            case FORMULA -> cell.getCellFormula();
-            default -> "";
-        };
+    @Transactional
+    public ExtractionPreview extractPreview(RfpDocument document, InputStream content, PreviewLimiter limiter)
+            throws IOException {
+        RfpDocumentExtraction extraction = new RfpDocumentExtraction(document.getId());
+        ExtractionResult result = parse(document, content, extraction, List.of(limiter), List.of(), Map.of(),
+                Pass.PREVIEW);
+        extraction.setStatus(ExtractionStatus.PREVIEW);
+        extraction.setExtractedAt(OffsetDateTime.now());
+        extractionRepository.save(extraction);
+
+        return new ExtractionPreview(
+                !limiter.truncated(),
+                result.pageCount(),
+                result.sheetCount(),
+                result.characterCount(),
+                result.fullText(),
+                result.keyValues(),
+                result.tables());
     }
 
     /**
-     * Check if a cell value is meaningful for text extraction.
-     * Filters out empty cells and cells containing only zeros (common in Excel for empty numeric cells).
+     * Parses the content once, feeding every consumer from the same event stream,
+     * and populates the extraction entity with the result.
+     *
+     * @param listeners additional listeners (limits, unit recording) that only see newly parsed units
+     * @param resumed   previously extracted units, replayed to the consumers before parsing continues after them
+     * @param previous  units of an earlier version of the document by content hash, emitted in place of unchanged units
+     * @param pass      how to parse: in this JVM, in an extraction worker process (only for passes that are
+     *                  never stopped early), or as a preview that streams what it can
      */
-    private boolean isMeaningfulCell(String cellValue) {
-        if (cellValue == null || cellValue.trim().isEmpty()) {
-            return false;
+    private ExtractionResult parse(RfpDocument document, InputStream inputStream, RfpDocumentExtraction extraction,
+                                   List<ExtractionListener> listeners, List<ExtractedUnit> resumed,
+                                   Map<String, ExtractedUnit> previous, Pass pass) throws IOException {
+        FullTextCollector text = new FullTextCollector();
+        KeyValueCollector keyValueCollector = new KeyValueCollector(keyValueRuleService.scannerForCurrentTenant());
+        TableCollector tableCollector = new TableCollector();
+        ExtractionCounters counters = new ExtractionCounters();
+        TableJsonWriter tableJson = compactTables ? null : new TableJsonWriter(objectMapper.getFactory());
+        List<ExtractionListener> consumers = new ArrayList<>(List.of(text, keyValueCollector, tableCollector, counters));
+        if (tableJson != null) {
+            consumers.add(tableJson);
+        }
+        ExtractionListener output = ExtractionListener.of(consumers);
+        for (ExtractedUnit unit : resumed) {
+            UnitRecorder.replay(unit, output);
         }
 
-        String trimmed = cellValue.trim();
-
-        // Skip cells that are just zeros (likely empty cells in Excel)
-        if (trimmed.equals("0") || trimmed.equals("0.0")) {
-            return false;
+        List<ExtractionListener> all = new ArrayList<>(consumers);
+        all.addAll(listeners);
+        switch (pass) {
+            case FORKED -> extractInWorker(document, inputStream, ExtractionListener.of(all), resumed.size(), previous);
+            case PREVIEW -> documentExtractor.extractPreview(document.getContentType(), inputStream,
+                    ExtractionListener.of(all));
+            default -> documentExtractor.extract(document.getContentType(), inputStream, ExtractionListener.of(all),
+                    resumed.size(), previous::get);
         }
 
-        return true;
+        ExtractionResult result = new ExtractionResult(
+                text.fullText(),
+                tableCollector.tables(),
+                keyValueCollector.keyValues(),
+                counters.pages(),
+                counters.sheets(),
+                text.length());
+
+        // Populate extraction entity
+        extraction.setExtractedText(result.fullText());
+        if (tableJson != null) {
+            extraction.setTablesJson(tableJson.json());
+            extraction.setTablesCompact(null);
+            extraction.setTablesCompactOffsets(null);
+            extraction.setTablesCompactNames(null);
+        } else {
+            byte[] compact = CompactTableCodec.encode(result.tables());
+            CompactTableCodec.Index index = CompactTableCodec.index(compact);
+            extraction.setTablesCompact(compact);
+            extraction.setTablesCompactOffsets(index.offsets());
+            extraction.setTablesCompactNames(index.names());
+            extraction.setTablesJson(null);
+        }
+        extraction.setKeyValuesJson(objectMapper.writeValueAsString(result.keyValues()));
+        extraction.setPageCount(result.pageCount());
+        extraction.setSheetCount(result.sheetCount());
+        extraction.setCharacterCount(result.characterCount());
+        extraction.setTableCount(counters.tables());
+        return result;
     }
 
     /**
-     * Extract key-value pairs from early lines of text.
-     * Based on n8n workflow pattern: /^([^:]{2,60}):\s*(.+)$/
+     * Hands the content to a worker process through a temporary file; events are dispatched on this thread.
      */
-    private List<KeyValuePair> extractKeyValues(String fullText) {
-        List<KeyValuePair> result = new ArrayList<>();
-        if (fullText == null || fullText.isBlank()) {
-            return result;
-        }
-
-        String[] lines = fullText.split("\n");
-        int linesToCheck = Math.min(MAX_KV_LINES, lines.length);
-
-        for (int i = 0; i < linesToCheck; i++) {
-            String line = lines[i].trim();
-            Matcher matcher = KV_PATTERN.matcher(line);
-            if (matcher.matches()) {
-                String key = matcher.group(1).trim();
-                String value = matcher.group(2).trim();
-                result.add(new KeyValuePair(key, value));
+    private void extractInWorker(RfpDocument document, InputStream inputStream, ExtractionListener listener,
+                                 int firstUnit, Map<String, ExtractedUnit> previous) throws IOException {
+        Path file = Files.createTempFile("extraction-", ".bin");
+        try {
+            try (inputStream) {
+                Files.copy(inputStream, file, StandardCopyOption.REPLACE_EXISTING);
             }
+            workerPool.extract(document.getContentType(), file, firstUnit, previous.values(), listener);
+        } finally {
+            Files.deleteIfExists(file);
         }
-
-        return result;
     }
 }
@@ -0,0 +1,426 @@
+package com.acme.saas.service;
+
+import com.acme.saas.config.ServesHttp;
+import com.acme.saas.domain.DocumentImport;
+import com.acme.saas.domain.DocumentImportFailure;
+import com.acme.saas.domain.RfpDocument;
+import com.acme.saas.repository.DocumentImportFailureRepository;
+import com.acme.saas.repository.DocumentImportRepository;
+import com.acme.saas.repository.RfpDocumentRepository;
+import com.acme.saas.tenancy.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Imports the documents under a prefix of an S3 bucket, for feeds that already land in S3.
+ *
+ * The prefix is listed a page at a time with ListObjectsV2. The supported objects of a page are
+ * copied into the tenant's area on the S3 side, in parallel, and the page's document rows are
+ * inserted with one batch in the same transaction that records the import's progress; their
+ * extraction is queued on the bulk lane when it commits. Objects that fail to copy are recorded
+ * with the page and retried first when the import resumes; an import with failures left ends as
+ * FAILED. An import that failed, or whose node died, resumes after the last recorded key.
+ */
+@Service
+@ServesHttp
+public class DocumentImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentImportService.class);
+
+    private final DocumentImportRepository importRepository;
+    private final DocumentImportFailureRepository failureRepository;
+    private final RfpDocumentRepository documentRepository;
+    private final FileStorageService storageService;
+    private final DocumentProcessingService processingService;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor importExecutor;
+    private final List<String> allowedSources;
+    private final int pageSize;
+    private final int parallelism;
+    private final Duration staleAfter;
+
+    // Outcome of copying one object: a document, skipped, or the error it failed with
+    private record Copied(RfpDocument document, boolean skipped, String error) {}
+
+    public DocumentImportService(
+            DocumentImportRepository importRepository,
+            DocumentImportFailureRepository failureRepository,
+            RfpDocumentRepository documentRepository,
+            FileStorageService storageService,
+            DocumentProcessingService processingService,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("importExecutor") Executor importExecutor,
+            @Value("${import.s3.allowed-sources:}") String allowedSources,
+            @Value("${import.s3.page-size:500}") int pageSize,
+            @Value("${import.s3.parallelism:16}") int parallelism,
+            @Value("${import.s3.stale-after:PT5M}") Duration staleAfter) {
+        this.importRepository = importRepository;
+        this.failureRepository = failureRepository;
+        this.documentRepository = documentRepository;
+        this.storageService = storageService;
+        this.processingService = processingService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.importExecutor = importExecutor;
+        this.allowedSources = Arrays.stream(allowedSources.split(","))
+                .map(String::trim)
+                .filter(source -> !source.isEmpty())
+                .toList();
+        this.pageSize = pageSize;
+        this.parallelism = parallelism;
+        this.staleAfter = staleAfter;
+    }
+
+    /**
+     * Starts importing the prefix into the current tenant in the background.
+     *
+     * @throws IllegalArgumentException if the bucket and prefix may not be imported from by this tenant
+     */
+    public DocumentImport start(String bucket, String prefix) {
+        String sourcePrefix = prefix == null ? "" : prefix;
+        if (bucket == null || !allowed(bucket, sourcePrefix, currentTenantId())) {
+            throw new IllegalArgumentException("Bucket or prefix is not allowed for imports: " + bucket + "/" + sourcePrefix);
+        }
+        if (bucket.equals(storageService.getBucketName()) && (sourcePrefix.isEmpty() || sourcePrefix.startsWith("tenant_"))) {
+            throw new IllegalArgumentException("Tenant storage cannot be imported from");
+        }
+
+        DocumentImport job = importRepository.save(new DocumentImport(bucket, sourcePrefix));
+        submit(job.getId());
+        return job;
+    }
+
+    /**
+     * Whether a source entry allows the prefix: entries are a bucket, granting all of it, or
+     * bucket/prefix, where {tenant} in the prefix stands for the importing tenant's id.
+     */
+    private boolean allowed(String bucket, String prefix, String tenantId) {
+        for (String source : allowedSources) {
+            int slash = source.indexOf('/');
+            String sourceBucket = slash < 0 ? source : source.substring(0, slash);
+            if (!sourceBucket.equals(bucket)) {
+                continue;
+            }
+            if (slash < 0) {
+                return true;
+            }
+            String allowedPrefix = source.substring(slash + 1).replace("{tenant}", tenantId);
+            // A prefix is a folder here, so tenant "acme" is not given "acme2/"
+            if (!allowedPrefix.isEmpty() && !allowedPrefix.endsWith("/")) {
+                allowedPrefix += "/";
+            }
+            if (prefix.startsWith(allowedPrefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String currentTenantId() {
+        return TenantContext.getCurrentTenant().substring("tenant_".length());
+    }
+
+    public Optional<DocumentImport> find(UUID id) {
+        return importRepository.findById(id);
+    }
+
+    /**
+     * Resumes a failed import, or a running one whose node stopped, after its last recorded key.
+     *
+     * @throws IllegalArgumentException if there is no such import
+     * @throws IllegalStateException if the import is finished or still running
+     */
+    public DocumentImport resume(UUID id) {
+        find(id).orElseThrow(() -> new IllegalArgumentException("Import not found: " + id));
+        OffsetDateTime now = OffsetDateTime.now();
+        if (importRepository.claim(id, now, now.minus(staleAfter)) == 0) {
+            throw new IllegalStateException("Import is not resumable: it is finished or still running");
+        }
+        submit(id);
+        return find(id).orElseThrow();
+    }
+
+    /**
+     * Stops a running import after its current page; that page's documents are not created.
+     *
+     * @return whether the import was running
+     */
+    public boolean cancel(UUID id) {
+        return importRepository.finish(id, DocumentImport.Status.CANCELLED, null, OffsetDateTime.now()) > 0;
+    }
+
+    /**
+     * Runs the import in the caller's tenant, and under its credentials so extraction goes to the bulk lane.
+     */
+    private void submit(UUID id) {
+        String tenant = TenantContext.getCurrentTenant();
+        SecurityContext security = SecurityContextHolder.getContext();
+        try {
+            importExecutor.execute(() -> {
+                TenantContext.setCurrentTenant(tenant);
+                SecurityContextHolder.setContext(security);
+                try {
+                    run(id);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                    TenantContext.clear();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            importRepository.finish(id, DocumentImport.Status.FAILED, "Too many imports running", OffsetDateTime.now());
+            throw new IllegalStateException("Too many imports running; resume the import later", e);
+        }
+    }
+
+    /**
+     * Imports the remaining pages of a running import. Failures end the import as FAILED.
+     */
+    void run(UUID id) {
+        DocumentImport job = importRepository.findById(id).orElseThrow();
+        String tenantId = currentTenantId();
+        String startAfter = job.getLastKey();
+        String continuationToken = null;
+        try {
+            if (!retryFailures(job, tenantId)) {
+                log.info("Import {} was cancelled", id);
+                return;
+            }
+            while (true) {
+                ListObjectsV2Response page = storageService.listObjects(
+                        job.getSourceBucket(), job.getSourcePrefix(), startAfter, continuationToken, pageSize);
+                List<S3Object> objects = page.contents();
+                if (!objects.isEmpty() && !importPage(job, objects, tenantId)) {
+                    log.info("Import {} was cancelled", id);
+                    return;
+                }
+                if (!Boolean.TRUE.equals(page.isTruncated())) {
+                    break;
+                }
+                continuationToken = page.nextContinuationToken();
+                if (!objects.isEmpty()) {
+                    startAfter = objects.get(objects.size() - 1).key();
+                }
+            }
+            long failed = failureRepository.countByImportId(id);
+            if (failed > 0) {
+                importRepository.finish(id, DocumentImport.Status.FAILED,
+                        failed + " objects could not be copied; resume the import to retry them", OffsetDateTime.now());
+                log.warn("Import {} of s3://{}/{} finished with {} failed objects",
+                        id, job.getSourceBucket(), job.getSourcePrefix(), failed);
+                return;
+            }
+            importRepository.finish(id, DocumentImport.Status.COMPLETED, null, OffsetDateTime.now());
+            log.info("Import {} of s3://{}/{} completed", id, job.getSourceBucket(), job.getSourcePrefix());
+        } catch (RuntimeException e) {
+            log.warn("Import {} failed; it can be resumed", id, e);
+            importRepository.finish(id, DocumentImport.Status.FAILED, e.getMessage(), OffsetDateTime.now());
+        }
+    }
+
+    /**
+     * Copies the page's objects and records them, along with the objects that failed to copy.
+     *
+     * @return false if the import was cancelled, in which case nothing of the page is kept
+     */
+    private boolean importPage(DocumentImport job, List<S3Object> objects, String tenantId) {
+        List<Copied> results = copyAll(job, objects, tenantId);
+        List<RfpDocument> documents = new ArrayList<>();
+        List<DocumentImportFailure> failures = new ArrayList<>();
+        int skipped = 0;
+        for (int i = 0; i < results.size(); i++) {
+            Copied copied = results.get(i);
+            S3Object object = objects.get(i);
+            if (copied.error() != null) {
+                failures.add(new DocumentImportFailure(job.getId(), object.key(),
+                        object.size() != null ? object.size() : 0, copied.error()));
+            } else if (copied.skipped()) {
+                skipped++;
+            } else {
+                documents.add(copied.document());
+            }
+        }
+
+        String lastKey = objects.get(objects.size() - 1).key();
+        int pageSkipped = skipped;
+        return record(documents, () -> {
+            if (importRepository.recordPage(job.getId(), lastKey, objects.size(), documents.size(),
+                    pageSkipped, failures.size(), OffsetDateTime.now()) == 0) {
+                return false;
+            }
+            failureRepository.saveAll(failures);
+            return true;
+        });
+    }
+
+    /**
+     * Copies the objects that failed on earlier attempts of the import again. Those still failing
+     * keep their record with the latest error.
+     *
+     * @return false if the import was cancelled, in which case nothing of the retry is kept
+     */
+    private boolean retryFailures(DocumentImport job, String tenantId) {
+        List<DocumentImportFailure> failures = failureRepository.findByImportIdOrderByObjectKey(job.getId());
+        if (failures.isEmpty()) {
+            return true;
+        }
+        log.info("Import {} retrying {} objects that failed to copy", job.getId(), failures.size());
+        List<S3Object> objects = failures.stream()
+                .map(failure -> S3Object.builder().key(failure.getObjectKey()).size(failure.getObjectSize()).build())
+                .toList();
+        List<Copied> results = copyAll(job, objects, tenantId);
+
+        List<RfpDocument> documents = new ArrayList<>();
+        List<DocumentImportFailure> resolved = new ArrayList<>();
+        List<DocumentImportFailure> remaining = new ArrayList<>();
+        int skipped = 0;
+        for (int i = 0; i < results.size(); i++) {
+            Copied copied = results.get(i);
+            DocumentImportFailure failure = failures.get(i);
+            if (copied.error() != null) {
+                failure.setErrorMessage(copied.error());
+                remaining.add(failure);
+                continue;
+            }
+            if (copied.skipped()) {
+                skipped++;
+            } else {
+                documents.add(copied.document());
+            }
+            resolved.add(failure);
+        }
+
+        int retrySkipped = skipped;
+        return record(documents, () -> {
+            if (importRepository.recordRetry(job.getId(), documents.size(), retrySkipped, resolved.size(),
+                    OffsetDateTime.now()) == 0) {
+                return false;
+            }
+            failureRepository.deleteAll(resolved);
+            failureRepository.saveAll(remaining);
+            return true;
+        });
+    }
+
+    /**
+     * Copies the objects in parallel; the outcomes are in the order of the objects.
+     */
+    private List<Copied> copyAll(DocumentImport job, List<S3Object> objects, String tenantId) {
+        List<Future<Copied>> copies = new ArrayList<>(objects.size());
+        Semaphore slots = new Semaphore(parallelism);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (S3Object object : objects) {
+                copies.add(executor.submit(() -> {
+                    slots.acquire();
+                    try {
+                        return copy(job, object, tenantId);
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
+        }
+
+        List<Copied> results = new ArrayList<>(copies.size());
+        for (int i = 0; i < copies.size(); i++) {
+            try {
+                results.add(copies.get(i).get());
+            } catch (Exception e) {
+                String error = e instanceof ExecutionException && e.getCause() != null
+                        ? e.getCause().getMessage() : e.getMessage();
+                log.warn("Import {} could not copy {}: {}", job.getId(), objects.get(i).key(), error);
+                results.add(new Copied(null, false, error != null ? error : e.getClass().getSimpleName()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Inserts the documents and queues their extraction in one transaction with the import's
+     * progress. If the progress is not recorded, the documents' copies are deleted again.
+     *
+     * @param recordProgress returns false if the import is no longer running
+     */
+    private boolean record(List<RfpDocument> documents, BooleanSupplier recordProgress) {
+        boolean recorded;
+        try {
+            recorded = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (!recordProgress.getAsBoolean()) {
+                    return false;
+                }
+                documentRepository.insertAll(documents);
+                // Submitted after commit, or queued for worker nodes in this transaction
+                documents.forEach(processingService::scheduleFullExtraction);
+                return true;
+            }));
+        } catch (RuntimeException e) {
+            deleteCopies(documents);
+            throw e;
+        }
+        if (!recorded) {
+            deleteCopies(documents);
+        }
+        return recorded;
+    }
+
+    /**
+     * Copies the object into the tenant's area, or skips it if it is not a supported document.
+     */
+    private Copied copy(DocumentImport job, S3Object object, String tenantId) {
+        String key = object.key();
+        String name = key.substring(job.getSourcePrefix().length());
+        if (name.startsWith("/")) {
+            name = name.substring(1);
+        }
+        String contentType = DocumentContentTypes.forFilename(key.substring(key.lastIndexOf('/') + 1));
+        long size = object.size() != null ? object.size() : 0;
+        if (key.endsWith("/") || contentType == null || size == 0 || size > RfpDocumentService.MAX_FILE_SIZE) {
+            return new Copied(null, true, null);
+        }
+
+        String storagePath = storageService.newKey(tenantId, name);
+        storageService.copyFrom(job.getSourceBucket(), key, storagePath);
+
+        RfpDocument document = new RfpDocument();
+        document.setFilename(storagePath.substring(storagePath.lastIndexOf('/') + 1));
+        document.setOriginalFilename(name);
+        document.setContentType(contentType);
+        document.setFileSize(size);
+        document.setStoragePath(storagePath);
+        document.setStatus(RfpDocument.DocumentStatus.PROCESSING);
+        return new Copied(document, false, null);
+    }
+
+    private void deleteCopies(List<RfpDocument> documents) {
+        for (RfpDocument document : documents) {
+            try {
+                storageService.deleteFile(document.getStoragePath());
+            } catch (RuntimeException e) {
+                log.warn("Failed to delete {} of an unrecorded import page: {}", document.getStoragePath(), e.getMessage());
+            }
+        }
+    }
+}
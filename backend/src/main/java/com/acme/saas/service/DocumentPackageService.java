@@ -0,0 +1,208 @@
+package com.acme.saas.service;
+
+import com.acme.saas.config.ServesHttp;
+import com.acme.saas.domain.RfpDocument;
+import com.acme.saas.dto.PackageUpload;
+import com.acme.saas.dto.PackageUpload.SkippedEntry;
+import com.acme.saas.repository.RfpDocumentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Ingests a zip archive holding an RFP package (main document, addenda, pricing sheets, ...).
+ *
+ * The archive is kept as a document of its own and every supported entry becomes a member
+ * document pointing at it. Entries are streamed out of the archive one at a time through a
+ * temporary file, so a member is never held in memory, and each member's full extraction is queued as soon as the member is stored, so the extraction
+ * workers start on the first members while later ones are still being unpacked.
+ */
+@Service
+@ServesHttp
+public class DocumentPackageService {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentPackageService.class);
+
+    private static final List<String> ZIP_CONTENT_TYPES =
+            List.of("application/zip", "application/x-zip-compressed");
+
+    private final RfpDocumentRepository repository;
+    private final FileStorageService storageService;
+    private final DocumentProcessingService processingService;
+    private final int maxMembers;
+    private final long maxExpandedBytes;
+
+    public DocumentPackageService(
+            RfpDocumentRepository repository,
+            FileStorageService storageService,
+            DocumentProcessingService processingService,
+            @Value("${upload.package.max-members:200}") int maxMembers,
+            @Value("${upload.package.max-expanded-size:1GB}") DataSize maxExpandedSize) {
+        this.repository = repository;
+        this.storageService = storageService;
+        this.processingService = processingService;
+        this.maxMembers = maxMembers;
+        this.maxExpandedBytes = maxExpandedSize.toBytes();
+    }
+
+    /**
+     * Stores the archive, unpacks its supported entries into member documents and queues
+     * their extraction. Unsupported or oversized entries are reported rather than failing
+     * the package.
+     *
+     * Not transactional on purpose: each member row commits on its own so its extraction can
+     * start while the rest of the archive is unpacked. If unpacking fails midway, the package
+     * is marked FAILED and the members stored so far stay. Once a member is stored, the failure
+     * is returned with them instead of thrown, so the result is kept for the Idempotency-Key and
+     * a retry of the request replays it rather than storing those members again.
+     */
+    public PackageUpload uploadPackage(MultipartFile file, String tenantId) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("File cannot be empty");
+        }
+        if (file.getContentType() == null || !ZIP_CONTENT_TYPES.contains(file.getContentType())) {
+            throw new IllegalArgumentException("File type not allowed. Packages must be zip archives");
+        }
+
+        try (ZipInputStream zip = new ZipInputStream(file.getInputStream())) {
+            ZipEntry entry = nextEntry(zip);
+            if (entry == null) {
+                throw new IllegalArgumentException("Archive is empty or not a zip file");
+            }
+
+            String storagePath = storageService.storeFile(file, tenantId);
+            RfpDocument pkg = new RfpDocument();
+            pkg.setId(UUID.randomUUID());
+            pkg.setFilename(storagePath.substring(storagePath.lastIndexOf('/') + 1));
+            pkg.setOriginalFilename(file.getOriginalFilename());
+            pkg.setContentType(file.getContentType());
+            pkg.setFileSize(file.getSize());
+            pkg.setStoragePath(storagePath);
+            // Not PROCESSING, so recovery leaves the package row alone while it is unpacked
+            pkg.setStatus(RfpDocument.DocumentStatus.UPLOADED);
+            pkg = repository.save(pkg);
+
+            List<RfpDocument> members = new ArrayList<>();
+            List<SkippedEntry> skipped = new ArrayList<>();
+            Path spool = null;
+            try {
+                spool = Files.createTempFile("package-member-", ".bin");
+                long expanded = 0;
+                for (; entry != null; entry = nextEntry(zip)) {
+                    String path = entry.getName();
+                    String name = path.substring(path.lastIndexOf('/') + 1);
+                    if (entry.isDirectory() || path.startsWith("__MACOSX/") || name.isEmpty() || name.startsWith(".")) {
+                        continue;
+                    }
+                    String contentType = DocumentContentTypes.forFilename(name);
+                    if (contentType == null) {
+                        skipped.add(new SkippedEntry(path, "Unsupported file type"));
+                        continue;
+                    }
+                    if (members.size() >= maxMembers) {
+                        skipped.add(new SkippedEntry(path, "Package exceeds " + maxMembers + " documents"));
+                        continue;
+                    }
+
+                    long size = readEntry(zip, Math.min(RfpDocumentService.MAX_FILE_SIZE, maxExpandedBytes - expanded), spool);
+                    if (size < 0) {
+                        skipped.add(new SkippedEntry(path, expanded + RfpDocumentService.MAX_FILE_SIZE > maxExpandedBytes
+                                ? "Package exceeds its maximum expanded size"
+                                : "File size exceeds maximum allowed size of 50MB"));
+                        continue;
+                    }
+                    if (size == 0) {
+                        skipped.add(new SkippedEntry(path, "File is empty"));
+                        continue;
+                    }
+                    expanded += size;
+                    members.add(storeMember(pkg, path, contentType, spool, size, tenantId));
+                }
+                pkg.setStatus(RfpDocument.DocumentStatus.COMPLETED);
+            } catch (IOException | RuntimeException e) {
+                pkg.setStatus(RfpDocument.DocumentStatus.FAILED);
+                pkg.setErrorMessage(e.getMessage());
+                pkg = repository.save(pkg);
+                if (members.isEmpty()) {
+                    throw e;
+                }
+                log.warn("Unpacking package {} failed after {} documents: {}", pkg.getId(), members.size(), e.getMessage());
+                return new PackageUpload(pkg, members, skipped);
+            } finally {
+                if (spool != null) {
+                    Files.deleteIfExists(spool);
+                }
+            }
+            pkg = repository.save(pkg);
+            log.info("Unpacked package {}: {} documents, {} skipped", pkg.getId(), members.size(), skipped.size());
+            return new PackageUpload(pkg, members, skipped);
+        }
+    }
+
+    private RfpDocument storeMember(RfpDocument pkg, String path, String contentType, Path content, long size,
+                                    String tenantId) throws IOException {
+        String storagePath = storageService.newKey(tenantId, path);
+        try (InputStream in = Files.newInputStream(content)) {
+            storageService.storeStream(storagePath, in, size, contentType);
+        }
+
+        RfpDocument member = new RfpDocument();
+        member.setId(UUID.randomUUID());
+        member.setFilename(storagePath.substring(storagePath.lastIndexOf('/') + 1));
+        member.setOriginalFilename(path);
+        member.setContentType(contentType);
+        member.setFileSize(size);
+        member.setStoragePath(storagePath);
+        member.setPackageId(pkg.getId());
+        member.setStatus(RfpDocument.DocumentStatus.PROCESSING);
+        member = repository.save(member);
+
+        // Committed already, so the extraction is submitted right away
+        processingService.scheduleFullExtraction(member);
+        return member;
+    }
+
+    private static ZipEntry nextEntry(ZipInputStream zip) throws IOException {
+        try {
+            return zip.getNextEntry();
+        } catch (ZipException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid zip archive: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Copies the current entry over the spool file and returns its size, or -1 if it is larger
+     * than {@code limit} bytes. Entry sizes in the archive's headers are not trusted.
+     */
+    private static long readEntry(ZipInputStream zip, long limit, Path spool) throws IOException {
+        try (OutputStream out = Files.newOutputStream(spool, StandardOpenOption.TRUNCATE_EXISTING)) {
+            byte[] buffer = new byte[8192];
+            long total = 0;
+            int read;
+            while ((read = zip.read(buffer)) != -1) {
+                total += read;
+                if (total > limit) {
+                    return -1;
+                }
+                out.write(buffer, 0, read);
+            }
+            return total;
+        }
+    }
+}
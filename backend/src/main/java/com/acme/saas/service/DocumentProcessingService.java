@@ -0,0 +1,251 @@
+package com.acme.saas.service;
+
+import com.acme.saas.domain.ExtractionStatus;
+import com.acme.saas.domain.RfpDocument;
+import com.acme.saas.domain.RfpDocumentExtraction;
+import com.acme.saas.dto.ExtractionPreview;
+import com.acme.saas.extraction.PreviewLimiter;
+import com.acme.saas.repository.RfpDocumentRepository;
+import com.acme.saas.scheduling.ExtractionCost;
+import com.acme.saas.scheduling.ExtractionJob;
+import com.acme.saas.scheduling.ExtractionLane;
+import com.acme.saas.security.ApiKeyAuthenticationToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Two-phase processing of uploaded documents: a bounded preview pass inside the upload
+ * request, then the full extraction on the extraction executor, which replaces the preview.
+ * Full extractions checkpoint per unit, so stalled ones are resumed rather than restarted.
+ * Jobs carry their tenant, lane and estimated cost so the executor can schedule them fairly.
+ * Nodes without an extraction executor (the api role) queue the job for worker nodes instead.
+ */
+@Service
+public class DocumentProcessingService {
+    private static final Logger log = LoggerFactory.getLogger(DocumentProcessingService.class);
+
+    private final DocumentExtractionService extractionService;
+    private final RfpDocumentRepository documentRepository;
+    private final Executor extractionExecutor;
+    private final ExtractionCheckpointService checkpointService;
+    private final ExtractionJobQueue jobQueue;
+
+    // Documents queued or running on this node, so recovery does not submit them twice
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Value("${extraction.preview.max-pages:5}")
+    private int previewMaxPages = 5;
+
+    @Value("${extraction.preview.max-rows:200}")
+    private int previewMaxRows = 200;
+
+    @Value("${extraction.preview.max-characters:20000}")
+    private int previewMaxCharacters = 20000;
+
+    @Value("${extraction.preview.budget:PT0.5S}")
+    private Duration previewBudget = Duration.ofMillis(500);
+
+    // A PROCESSING document without a checkpoint for this long is considered abandoned by its node
+    @Value("${extraction.recovery.stale-after:PT10M}")
+    private Duration staleAfter = Duration.ofMinutes(10);
+
+    public DocumentProcessingService(
+            DocumentExtractionService extractionService,
+            RfpDocumentRepository documentRepository,
+            @Qualifier("extractionExecutor") @Nullable Executor extractionExecutor,
+            ExtractionCheckpointService checkpointService,
+            ExtractionJobQueue jobQueue) {
+        this.extractionService = extractionService;
+        this.documentRepository = documentRepository;
+        this.extractionExecutor = extractionExecutor;
+        this.checkpointService = checkpointService;
+        this.jobQueue = jobQueue;
+    }
+
+    /**
+     * Extracts the first pages/rows of the uploaded content within the preview budget.
+     * A failed preview is not fatal; the full extraction still runs and reports the error.
+     */
+    public Optional<ExtractionPreview> preview(RfpDocument document, InputStream content) {
+        PreviewLimiter limiter = new PreviewLimiter(previewMaxPages, previewMaxRows, previewMaxCharacters, previewBudget);
+        try {
+            return Optional.of(extractionService.extractPreview(document, content, limiter));
+        } catch (Exception e) {
+            log.warn("Preview extraction failed for document {}: {}", document.getId(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Queues the full extraction. Inside a transaction it is submitted only after commit,
+     * so the worker sees the document row; a job for worker nodes is written in the transaction.
+     */
+    public void scheduleFullExtraction(RfpDocument document) {
+        UUID documentId = document.getId();
+        ExtractionLane lane = laneForCurrentRequest();
+        if (extractionExecutor == null) {
+            jobQueue.enqueue(documentId, lane,
+                    ExtractionCost.estimate(document.getContentType(), document.getFileSize()),
+                    ExtractionCost.heapBytes(document.getContentType(), document.getFileSize()));
+            return;
+        }
+        ExtractionJob job = job(document, lane);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(documentId, job);
+                }
+            });
+        } else {
+            submit(documentId, job);
+        }
+    }
+
+    /**
+     * Resubmits stalled documents of the current tenant, e.g. after the node extracting them died.
+     * The extraction resumes after the last checkpointed unit.
+     */
+    public int recoverStalled(int limit) {
+        int submitted = 0;
+        for (UUID documentId : checkpointService.findStalled(staleAfter, limit)) {
+            if (inFlight.contains(documentId)) {
+                continue;
+            }
+            Optional<RfpDocument> document = documentRepository.findById(documentId);
+            if (document.isPresent()) {
+                log.info("Resubmitting stalled extraction for document {}", documentId);
+                submit(documentId, job(document.get(), ExtractionLane.BULK));
+                submitted++;
+            }
+        }
+        return submitted;
+    }
+
+    /**
+     * Submits a job another node queued, for a document of the current tenant.
+     */
+    public void submitQueued(UUID documentId, ExtractionLane lane, long cost, long heapBytes) {
+        submit(documentId, job(documentId, lane, cost, heapBytes));
+    }
+
+    /**
+     * API-key clients are bulk ingestion; everything else is a user waiting on the upload.
+     */
+    private static ExtractionLane laneForCurrentRequest() {
+        return SecurityContextHolder.getContext().getAuthentication() instanceof ApiKeyAuthenticationToken
+                ? ExtractionLane.BULK
+                : ExtractionLane.INTERACTIVE;
+    }
+
+    /**
+     * Full extraction of the document in the current tenant, with its estimated cost and heap need.
+     */
+    private ExtractionJob job(RfpDocument document, ExtractionLane lane) {
+        return job(document.getId(), lane,
+                ExtractionCost.estimate(document.getContentType(), document.getFileSize()),
+                ExtractionCost.heapBytes(document.getContentType(), document.getFileSize()));
+    }
+
+    private ExtractionJob job(UUID documentId, ExtractionLane lane, long cost, long heapBytes) {
+        return ExtractionJob.forCurrentTenant(lane, cost, heapBytes,
+                () -> {
+                    try {
+                        runFullExtraction(documentId);
+                    } finally {
+                        inFlight.remove(documentId);
+                    }
+                });
+    }
+
+    private void submit(UUID documentId, ExtractionJob job) {
+        if (!inFlight.add(documentId)) {
+            return;
+        }
+        try {
+            extractionExecutor.execute(job);
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(documentId);
+            log.error("Extraction queue full, document {} not processed", documentId);
+            documentRepository.findById(documentId).ifPresent(document -> {
+                document.setStatus(RfpDocument.DocumentStatus.FAILED);
+                document.setErrorMessage("Extraction queue is full, please retry");
+                documentRepository.save(document);
+            });
+        }
+    }
+
+    /**
+     * Extracts a finished document again with the current extractor. The current extraction is
+     * kept if this fails; a document that had failed is completed if it now succeeds.
+     *
+     * @return whether the document was re-extracted
+     */
+    public boolean reextract(UUID documentId) {
+        Optional<RfpDocument> found = documentRepository.findById(documentId);
+        if (found.isEmpty() || found.get().getStatus() == RfpDocument.DocumentStatus.PROCESSING) {
+            return false; // deleted, or its regular extraction has not finished
+        }
+        RfpDocument document = found.get();
+        try {
+            extractionService.reextractDocument(document);
+        } catch (Exception e) {
+            log.warn("Re-extraction failed for document {}: {}", documentId, e.getMessage());
+            return false;
+        }
+        if (document.getStatus() == RfpDocument.DocumentStatus.FAILED) {
+            document.setStatus(RfpDocument.DocumentStatus.COMPLETED);
+            document.setErrorMessage(null);
+            document.setProcessedAt(OffsetDateTime.now());
+            documentRepository.save(document);
+        }
+        return true;
+    }
+
+    void runFullExtraction(UUID documentId) {
+        // Another node may have picked the document up while it waited in this node's queue
+        if (!checkpointService.claim(documentId, staleAfter)) {
+            log.info("Document {} is no longer processing or is being extracted elsewhere", documentId);
+            return;
+        }
+        Optional<RfpDocument> found = documentRepository.findById(documentId);
+        if (found.isEmpty()) {
+            log.info("Document {} was deleted before extraction", documentId);
+            return;
+        }
+        RfpDocument document = found.get();
+        try {
+            RfpDocumentExtraction extraction = extractionService.extractDocument(document, true);
+            if (extraction.getStatus() == ExtractionStatus.SUCCESS) {
+                document.setStatus(RfpDocument.DocumentStatus.COMPLETED);
+                document.setErrorMessage(null);
+            } else {
+                document.setStatus(RfpDocument.DocumentStatus.FAILED);
+                document.setErrorMessage(extraction.getErrorMessage());
+            }
+        } catch (Exception e) {
+            log.error("Background extraction failed for document {}", documentId, e);
+            document.setStatus(RfpDocument.DocumentStatus.FAILED);
+            document.setErrorMessage(e.getMessage());
+        }
+        document.setProcessedAt(OffsetDateTime.now());
+        documentRepository.save(document);
+    }
+}
@@ -0,0 +1,138 @@
+package com.acme.saas.service;
+
+import com.acme.saas.config.ServesHttp;
+import com.acme.saas.dto.DocumentSearchHit;
+import com.acme.saas.dto.DocumentSearchPage;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.util.HtmlUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Full-text search over extracted document text within the current tenant schema.
+ * Backed by the generated search_vector column and its GIN index (see V5 migration).
+ */
+@Service
+@ServesHttp
+public class DocumentSearchService {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    // Matches are marked with control characters, not tags: the snippet is HTML-escaped before the
+    // markers become <mark> tags, since the document text itself may hold markup
+    private static final char START_MARKER = '\u0002';
+    private static final char STOP_MARKER = '\u0003';
+    private static final String HEADLINE_OPTIONS =
+            "MaxFragments=2, MaxWords=25, MinWords=8, FragmentDelimiter=\" ... \", StartSel=\"" + START_MARKER
+            + "\", StopSel=\"" + STOP_MARKER + "\"";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private record Cursor(float rank, UUID documentId) {}
+
+    /**
+     * Ranked search with keyset pagination.
+     *
+     * @param query web-search syntax (quoted phrases, OR, -exclusion), e.g. {@code "stop-loss" -aggregate}
+     * @param after cursor from a previous page, or null for the first page
+     */
+    @Transactional(readOnly = true)
+    public DocumentSearchPage search(String query, int limit, String after) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query cannot be empty");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        Cursor cursor = after != null && !after.isBlank() ? decodeCursor(after) : null;
+
+        // Rank and paginate in the inner query; headlines are only computed for the returned page
+        String sql = "SELECT r.document_id, r.original_filename, r.rank, "
+                + "ts_headline('english', translate(e.extracted_text, chr(2) || chr(3), ''), "
+                + "            websearch_to_tsquery('english', :query), :options) AS snippet "
+                + "FROM ("
+                + "  SELECT e.id AS extraction_id, e.document_id, d.original_filename, "
+                + "         ts_rank_cd(e.search_vector, websearch_to_tsquery('english', :query)) AS rank "
+                + "  FROM rfp_document_extractions e "
+                + "  JOIN rfp_documents d ON d.id = e.document_id "
+                + "  WHERE e.search_vector @@ websearch_to_tsquery('english', :query) "
+                + (cursor != null
+                    ? "  AND (ts_rank_cd(e.search_vector, websearch_to_tsquery('english', :query)), e.document_id) "
+                      + "    < (CAST(:afterRank AS real), CAST(:afterId AS uuid)) "
+                    : "")
+                + "  ORDER BY rank DESC, e.document_id DESC "
+                + "  LIMIT :limit"
+                + ") r "
+                + "JOIN rfp_document_extractions e ON e.id = r.extraction_id "
+                + "ORDER BY r.rank DESC, r.document_id DESC";
+
+        NativeQuery<?> nativeQuery = entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addScalar("document_id", UUID.class)
+                .addScalar("original_filename", String.class)
+                .addScalar("rank", Float.class)
+                .addScalar("snippet", String.class)
+                .setParameter("query", query)
+                .setParameter("options", HEADLINE_OPTIONS)
+                .setParameter("limit", limit + 1); // one extra row tells us whether another page exists
+        if (cursor != null) {
+            nativeQuery.setParameter("afterRank", cursor.rank());
+            nativeQuery.setParameter("afterId", cursor.documentId());
+        }
+
+        List<DocumentSearchHit> hits = new ArrayList<>();
+        for (Object row : nativeQuery.getResultList()) {
+            Object[] columns = (Object[]) row;
+            hits.add(new DocumentSearchHit(
+                    (UUID) columns[0],
+                    (String) columns[1],
+                    (Float) columns[2],
+                    highlight((String) columns[3])));
+        }
+
+        String nextCursor = null;
+        if (hits.size() > limit) {
+            hits = hits.subList(0, limit);
+            DocumentSearchHit last = hits.get(limit - 1);
+            nextCursor = encodeCursor(new Cursor(last.rank(), last.documentId()));
+        }
+        return new DocumentSearchPage(List.copyOf(hits), nextCursor);
+    }
+
+    /**
+     * The headline as HTML: its text escaped, and only the matches wrapped in mark tags.
+     */
+    static String highlight(String headline) {
+        if (headline == null) {
+            return null;
+        }
+        return HtmlUtils.htmlEscape(headline, StandardCharsets.UTF_8.name())
+                .replace(String.valueOf(START_MARKER), "<mark>")
+                .replace(String.valueOf(STOP_MARKER), "</mark>");
+    }
+
+    private String encodeCursor(Cursor cursor) {
+        String raw = cursor.rank() + ":" + cursor.documentId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Cursor decodeCursor(String encoded) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new Cursor(Float.parseFloat(raw.substring(0, separator)), UUID.fromString(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid search cursor");
+        }
+    }
+}
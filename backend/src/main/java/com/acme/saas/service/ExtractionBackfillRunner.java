@@ -0,0 +1,196 @@
+package com.acme.saas.service;
+
+import com.acme.saas.config.RunsExtraction;
+import com.acme.saas.scheduling.ExtractionCost;
+import com.acme.saas.scheduling.ExtractionJob;
+import com.acme.saas.scheduling.ExtractionLane;
+import com.acme.saas.scheduling.FairExtractionScheduler;
+import com.acme.saas.tenancy.TenantContext;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Works through running backfills on this node, one batch of at most {@code parallelism}
+ * documents at a time. Re-extractions go to the bulk lane of the extraction executor, so
+ * uploads keep their reserved workers and tenants their fair share. A new batch is only
+ * started while the connection pool has headroom, which keeps the backfill from competing
+ * with request traffic for the primary database.
+ */
+@Service
+@RunsExtraction
+public class ExtractionBackfillRunner {
+    private static final Logger log = LoggerFactory.getLogger(ExtractionBackfillRunner.class);
+
+    // Empty tenants skipped per tick in a fleet-wide backfill
+    private static final int MAX_TENANTS_PER_TICK = 50;
+
+    private final ExtractionBackfillService backfillService;
+    private final DocumentProcessingService processingService;
+    private final FairExtractionScheduler extractionExecutor;
+    private final DataSource dataSource;
+    private final int parallelism;
+    private final double maxPoolUsage;
+    private final Duration staleAfter;
+    private final String node = UUID.randomUUID().toString();
+
+    private volatile Batch batch;
+
+    /**
+     * Documents submitted together; the backfill's position moves past them once all are done.
+     */
+    private static final class Batch {
+        final UUID backfillId;
+        final String tenant;
+        final UUID lastDocument;
+        final AtomicInteger pending;
+        final AtomicInteger done = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        volatile boolean rejected;
+
+        Batch(UUID backfillId, String tenant, UUID lastDocument, int size) {
+            this.backfillId = backfillId;
+            this.tenant = tenant;
+            this.lastDocument = lastDocument;
+            this.pending = new AtomicInteger(size);
+        }
+    }
+
+    public ExtractionBackfillRunner(
+            ExtractionBackfillService backfillService,
+            DocumentProcessingService processingService,
+            FairExtractionScheduler extractionExecutor,
+            DataSource dataSource,
+            @Value("${extraction.backfill.parallelism:2}") int parallelism,
+            @Value("${extraction.backfill.max-pool-usage:0.5}") double maxPoolUsage,
+            @Value("${extraction.backfill.stale-after:PT2M}") Duration staleAfter) {
+        this.backfillService = backfillService;
+        this.processingService = processingService;
+        this.extractionExecutor = extractionExecutor;
+        this.dataSource = dataSource;
+        this.parallelism = parallelism;
+        this.maxPoolUsage = maxPoolUsage;
+        this.staleAfter = staleAfter;
+    }
+
+    @Scheduled(fixedDelayString = "${extraction.backfill.interval:PT5S}")
+    public void tick() {
+        try {
+            Batch current = batch;
+            if (current != null) {
+                if (current.pending.get() > 0) {
+                    backfillService.heartbeat(current.backfillId, node);
+                    return;
+                }
+                finish(current);
+            }
+            if (!databaseHasHeadroom()) {
+                return;
+            }
+            backfillService.claim(node, staleAfter).ifPresent(this::startBatch);
+        } catch (Exception e) {
+            log.warn("Extraction backfill step failed: {}", e.getMessage());
+        }
+    }
+
+    private void finish(Batch finished) {
+        batch = null;
+        if (finished.rejected) {
+            // The executor was full; redo the batch, documents already re-extracted are no longer stale
+            backfillService.heartbeat(finished.backfillId, node);
+            return;
+        }
+        backfillService.checkpoint(finished.backfillId, node, finished.tenant, finished.lastDocument,
+                finished.done.get(), finished.failed.get());
+    }
+
+    private void startBatch(ExtractionBackfillService.Claim claim) {
+        String tenant = claim.currentTenant() != null ? claim.currentTenant() : claim.tenant();
+        UUID cursor = claim.cursor();
+        if (tenant == null) {
+            tenant = backfillService.nextTenant(null).orElse(null);
+        }
+        for (int skipped = 0; tenant != null && skipped < MAX_TENANTS_PER_TICK; skipped++) {
+            List<ExtractionBackfillService.StaleDocument> documents = staleDocuments(tenant, claim, cursor);
+            if (!documents.isEmpty()) {
+                submit(claim.id(), tenant, documents);
+                return;
+            }
+            if (claim.tenant() != null) {
+                tenant = null; // single-tenant backfill is through
+            } else {
+                tenant = backfillService.nextTenant(tenant).orElse(null);
+                cursor = null;
+                backfillService.checkpoint(claim.id(), node, tenant, null, 0, 0);
+            }
+        }
+        if (tenant == null) {
+            log.info("Extraction backfill {} completed", claim.id());
+            backfillService.complete(claim.id(), node);
+        }
+    }
+
+    private List<ExtractionBackfillService.StaleDocument> staleDocuments(
+            String tenant, ExtractionBackfillService.Claim claim, UUID cursor) {
+        TenantContext.setCurrentTenant(tenant);
+        try {
+            return backfillService.findStale(claim.targetVersion(), cursor, parallelism);
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    private void submit(UUID backfillId, String tenant, List<ExtractionBackfillService.StaleDocument> documents) {
+        Batch next = new Batch(backfillId, tenant, documents.get(documents.size() - 1).id(), documents.size());
+        batch = next;
+        TenantContext.setCurrentTenant(tenant);
+        try {
+            for (ExtractionBackfillService.StaleDocument document : documents) {
+                ExtractionJob job = ExtractionJob.forCurrentTenant(ExtractionLane.BULK,
+                        ExtractionCost.estimate(document.contentType(), document.fileSize()),
+                        ExtractionCost.heapBytes(document.contentType(), document.fileSize()),
+                        () -> {
+                            try {
+                                (processingService.reextract(document.id()) ? next.done : next.failed).incrementAndGet();
+                            } finally {
+                                next.pending.decrementAndGet();
+                            }
+                        });
+                try {
+                    extractionExecutor.execute(job);
+                } catch (RejectedExecutionException e) {
+                    next.rejected = true;
+                    next.pending.decrementAndGet();
+                }
+            }
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    /**
+     * False while requests are waiting for a connection or the pool is busier than the configured share.
+     */
+    private boolean databaseHasHeadroom() {
+        if (!(dataSource instanceof HikariDataSource hikari)) {
+            return true;
+        }
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        if (pool == null) {
+            return true;
+        }
+        return pool.getThreadsAwaitingConnection() == 0
+                && pool.getActiveConnections() < hikari.getMaximumPoolSize() * maxPoolUsage;
+    }
+}
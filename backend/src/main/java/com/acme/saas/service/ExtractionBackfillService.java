@@ -0,0 +1,235 @@
+package com.acme.saas.service;
+
+import com.acme.saas.dto.ExtractionBackfill;
+import com.acme.saas.extraction.DocumentExtractor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * State of re-extraction backfills in public.extraction_backfills, and the queries the
+ * {@link ExtractionBackfillRunner} uses to walk stale documents. A backfill is run by one
+ * worker at a time, which holds it through a heartbeat and checkpoints its position after
+ * every batch, so another worker continues where a dead one stopped.
+ */
+@Service
+public class ExtractionBackfillService {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String CANCELLED = "CANCELLED";
+
+    // Keyset lower bound for the first page of a tenant
+    private static final UUID FIRST = new UUID(0, 0);
+
+    private static final String COLUMNS = "id, tenant_schema, target_version, status, current_tenant, "
+            + "documents_done, documents_failed, created_at, finished_at";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Position of a claimed backfill: the tenant being processed and the last document handled in it.
+     */
+    public record Claim(UUID id, String tenant, int targetVersion, String currentTenant, UUID cursor) {}
+
+    /**
+     * A document whose extraction is older than the target version.
+     */
+    public record StaleDocument(UUID id, String contentType, Long fileSize) {}
+
+    /**
+     * Starts a backfill to the current extractor version, for one tenant schema or, when null, every tenant.
+     *
+     * @throws IllegalStateException if a backfill for the same scope is already running
+     */
+    @Transactional
+    public ExtractionBackfill start(String tenant) {
+        if (findRunning(tenant).isPresent()) {
+            throw new IllegalStateException("A backfill is already running for "
+                    + (tenant != null ? tenant : "all tenants"));
+        }
+        UUID id = UUID.randomUUID();
+        entityManager.createNativeQuery(
+                        "INSERT INTO public.extraction_backfills (id, tenant_schema, target_version, status, current_tenant) "
+                                + "VALUES (:id, :tenant, :version, 'RUNNING', :tenant)")
+                .setParameter("id", id)
+                .setParameter("tenant", tenant)
+                .setParameter("version", DocumentExtractor.VERSION)
+                .executeUpdate();
+        return find(id).orElseThrow();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ExtractionBackfill> find(UUID id) {
+        return backfillQuery("WHERE id = :id").setParameter("id", id).getResultList().stream()
+                .map(row -> toBackfill((Object[]) row))
+                .findFirst();
+    }
+
+    /**
+     * Stops a running backfill after its current batch. Returns false if it was not running.
+     */
+    @Transactional
+    public boolean cancel(UUID id) {
+        return entityManager.createNativeQuery(
+                        "UPDATE public.extraction_backfills SET status = 'CANCELLED', finished_at = now() "
+                                + "WHERE id = :id AND status = 'RUNNING'")
+                .setParameter("id", id)
+                .executeUpdate() > 0;
+    }
+
+    /**
+     * Takes the oldest running backfill that this node already holds or whose holder stopped
+     * reporting, skipping ones another node is updating at this moment.
+     */
+    @Transactional
+    public Optional<Claim> claim(String node, Duration staleAfter) {
+        List<?> rows = entityManager.createNativeQuery(
+                        "UPDATE public.extraction_backfills SET claimed_by = :node, heartbeat = now() "
+                                + "WHERE id = ("
+                                + "  SELECT id FROM public.extraction_backfills WHERE status = 'RUNNING' "
+                                + "  AND (claimed_by = :node OR heartbeat IS NULL OR heartbeat < :staleBefore) "
+                                + "  ORDER BY created_at LIMIT 1 FOR UPDATE SKIP LOCKED"
+                                + ") RETURNING id, tenant_schema, target_version, current_tenant, cursor_document_id")
+                .unwrap(NativeQuery.class)
+                .addScalar("id", UUID.class)
+                .addScalar("tenant_schema", String.class)
+                .addScalar("target_version", Integer.class)
+                .addScalar("current_tenant", String.class)
+                .addScalar("cursor_document_id", UUID.class)
+                .setParameter("node", node)
+                .setParameter("staleBefore", Timestamp.from(Instant.now().minus(staleAfter)))
+                .getResultList();
+        return rows.stream().findFirst().map(result -> {
+            Object[] row = (Object[]) result;
+            return new Claim((UUID) row[0], (String) row[1], (Integer) row[2], (String) row[3], (UUID) row[4]);
+        });
+    }
+
+    /**
+     * Records a finished batch: the new position and the documents it re-extracted or skipped.
+     * Only the node holding the backfill can advance it.
+     */
+    @Transactional
+    public void checkpoint(UUID id, String node, String currentTenant, UUID cursor, int done, int failed) {
+        entityManager.createNativeQuery(
+                        "UPDATE public.extraction_backfills SET current_tenant = :tenant, cursor_document_id = :cursor, "
+                                + "documents_done = documents_done + :done, documents_failed = documents_failed + :failed, "
+                                + "heartbeat = now() WHERE id = :id AND claimed_by = :node")
+                .setParameter("tenant", currentTenant)
+                .setParameter("cursor", cursor)
+                .setParameter("done", done)
+                .setParameter("failed", failed)
+                .setParameter("id", id)
+                .setParameter("node", node)
+                .executeUpdate();
+    }
+
+    @Transactional
+    public void heartbeat(UUID id, String node) {
+        entityManager.createNativeQuery(
+                        "UPDATE public.extraction_backfills SET heartbeat = now() WHERE id = :id AND claimed_by = :node")
+                .setParameter("id", id)
+                .setParameter("node", node)
+                .executeUpdate();
+    }
+
+    @Transactional
+    public void complete(UUID id, String node) {
+        entityManager.createNativeQuery(
+                        "UPDATE public.extraction_backfills SET status = 'COMPLETED', finished_at = now(), heartbeat = now() "
+                                + "WHERE id = :id AND claimed_by = :node AND status = 'RUNNING'")
+                .setParameter("id", id)
+                .setParameter("node", node)
+                .executeUpdate();
+    }
+
+    /**
+     * Next tenant schema after the given one in name order, or the first one when null.
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> nextTenant(String after) {
+        List<?> schemas = entityManager.createNativeQuery(
+                        "SELECT nspname FROM pg_namespace WHERE nspname LIKE 'tenant\\_%' AND nspname > :after "
+                                + "ORDER BY nspname LIMIT 1")
+                .setParameter("after", after != null ? after : "")
+                .getResultList();
+        return schemas.stream().map(String.class::cast).findFirst();
+    }
+
+    /**
+     * Finished documents of the current tenant whose extraction is missing or older than the
+     * version, in id order after the cursor. PROCESSING documents are left to their own extraction.
+     */
+    @Transactional(readOnly = true)
+    public List<StaleDocument> findStale(int version, UUID after, int limit) {
+        List<?> rows = entityManager.createNativeQuery(
+                        "SELECT d.id, d.content_type, d.file_size FROM rfp_documents d "
+                                + "LEFT JOIN rfp_document_extractions e ON e.document_id = d.id "
+                                + "WHERE d.status IN ('COMPLETED', 'FAILED') AND d.id > :after "
+                                + "AND (e.extractor_version IS NULL OR e.extractor_version < :version) "
+                                + "ORDER BY d.id LIMIT :limit")
+                .unwrap(NativeQuery.class)
+                .addScalar("id", UUID.class)
+                .addScalar("content_type", String.class)
+                .addScalar("file_size", Long.class)
+                .setParameter("after", after != null ? after : FIRST)
+                .setParameter("version", version)
+                .setParameter("limit", limit)
+                .getResultList();
+        return rows.stream().map(result -> {
+            Object[] row = (Object[]) result;
+            return new StaleDocument((UUID) row[0], (String) row[1], (Long) row[2]);
+        }).toList();
+    }
+
+    private Optional<ExtractionBackfill> findRunning(String tenant) {
+        NativeQuery<?> query = tenant != null
+                ? backfillQuery("WHERE status = 'RUNNING' AND tenant_schema = :tenant").setParameter("tenant", tenant)
+                : backfillQuery("WHERE status = 'RUNNING' AND tenant_schema IS NULL");
+        return query.getResultList().stream().map(row -> toBackfill((Object[]) row)).findFirst();
+    }
+
+    private NativeQuery<?> backfillQuery(String where) {
+        return entityManager.createNativeQuery("SELECT " + COLUMNS + " FROM public.extraction_backfills " + where)
+                .unwrap(NativeQuery.class)
+                .addScalar("id", UUID.class)
+                .addScalar("tenant_schema", String.class)
+                .addScalar("target_version", Integer.class)
+                .addScalar("status", String.class)
+                .addScalar("current_tenant", String.class)
+                .addScalar("documents_done", Integer.class)
+                .addScalar("documents_failed", Integer.class)
+                .addScalar("created_at", Instant.class)
+                .addScalar("finished_at", Instant.class);
+    }
+
+    private static ExtractionBackfill toBackfill(Object[] row) {
+        return new ExtractionBackfill(
+                (UUID) row[0],
+                (String) row[1],
+                (Integer) row[2],
+                (String) row[3],
+                (String) row[4],
+                (Integer) row[5],
+                (Integer) row[6],
+                toOffsetDateTime((Instant) row[7]),
+                toOffsetDateTime((Instant) row[8]));
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Instant instant) {
+        return instant != null ? instant.atOffset(ZoneOffset.UTC) : null;
+    }
+}
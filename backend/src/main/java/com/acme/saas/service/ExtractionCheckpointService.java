@@ -0,0 +1,267 @@
+package com.acme.saas.service;
+
+import com.acme.saas.dto.ExtractedTable;
+import com.acme.saas.dto.ExtractedUnit;
+import com.acme.saas.extraction.UnitRecorder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Persists per-unit extraction results (extraction_units) and document progress.
+ * Checkpoints are committed in their own transaction, so they survive a failure of the
+ * long-running extraction transaction and let another node resume where this one stopped.
+ */
+@Service
+public class ExtractionCheckpointService {
+
+    private static final TypeReference<List<ExtractedTable>> TABLE_LIST = new TypeReference<>() {};
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate newTransaction;
+    private final int checkpointUnits;
+    private final long checkpointIntervalNanos;
+
+    public ExtractionCheckpointService(
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${extraction.checkpoint.units:25}") int checkpointUnits,
+            @Value("${extraction.checkpoint.interval:PT15S}") Duration checkpointInterval) {
+        this.objectMapper = objectMapper;
+        this.checkpointUnits = checkpointUnits;
+        this.checkpointIntervalNanos = checkpointInterval.toNanos();
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Stored units from the start of the document up to the first missing one; a resumed
+     * extraction replays these and continues at the next index.
+     */
+    @Transactional(readOnly = true)
+    public List<ExtractedUnit> loadUnits(UUID documentId) {
+        List<ExtractedUnit> units = new ArrayList<>();
+        List<Object[]> rows = unitQuery("WHERE document_id = :documentId ORDER BY unit_index")
+                .setParameter("documentId", documentId)
+                .getResultList();
+        for (Object[] row : rows) {
+            ExtractedUnit unit = toUnit(row);
+            if (unit.index() != units.size()) {
+                break;
+            }
+            units.add(unit);
+        }
+        return units;
+    }
+
+    /**
+     * All hashed units of a document by content hash, for reuse when a revised version is extracted.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, ExtractedUnit> loadUnitsByHash(UUID documentId) {
+        Map<String, ExtractedUnit> units = new HashMap<>();
+        List<Object[]> rows = unitQuery("WHERE document_id = :documentId AND content_hash IS NOT NULL")
+                .setParameter("documentId", documentId)
+                .getResultList();
+        for (Object[] row : rows) {
+            ExtractedUnit unit = toUnit(row);
+            units.putIfAbsent(unit.contentHash(), unit);
+        }
+        return units;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ExtractedUnit> findUnit(UUID documentId, int index) {
+        List<Object[]> rows = unitQuery("WHERE document_id = :documentId AND unit_index = :index")
+                .setParameter("documentId", documentId)
+                .setParameter("index", index)
+                .getResultList();
+        return rows.isEmpty() ? Optional.empty() : Optional.of(toUnit(rows.get(0)));
+    }
+
+    /**
+     * Sink for {@link com.acme.saas.extraction.UnitRecorder} that batches completed units and
+     * commits them every few units or seconds, whichever comes first.
+     *
+     * @param unitsDone units already stored, when resuming
+     */
+    public Checkpointer checkpointer(UUID documentId, int unitsDone) {
+        return new Checkpointer(documentId, unitsDone);
+    }
+
+    public final class Checkpointer implements UnitRecorder.Sink {
+        private final UUID documentId;
+        private final List<ExtractedUnit> pending = new ArrayList<>();
+        private int unitsDone;
+        private int unitCount;
+        private long lastFlush = System.nanoTime();
+
+        private Checkpointer(UUID documentId, int unitsDone) {
+            this.documentId = documentId;
+            this.unitsDone = unitsDone;
+        }
+
+        @Override
+        public void unit(ExtractedUnit unit, int unitCount) {
+            pending.add(unit);
+            unitsDone++;
+            this.unitCount = unitCount;
+            if (pending.size() >= checkpointUnits || System.nanoTime() - lastFlush >= checkpointIntervalNanos) {
+                flush();
+            }
+        }
+
+        public void flush() {
+            checkpoint(documentId, pending, unitsDone, Math.max(unitCount, unitsDone));
+            pending.clear();
+            lastFlush = System.nanoTime();
+        }
+    }
+
+    /**
+     * Commits the units, progress and a heartbeat independently of the caller's transaction.
+     */
+    public void checkpoint(UUID documentId, List<ExtractedUnit> units, int unitsDone, int unitsTotal) {
+        newTransaction.executeWithoutResult(status -> write(documentId, units, unitsDone, unitsTotal, false));
+    }
+
+    /**
+     * Replaces all stored units of the document within the caller's transaction.
+     */
+    @Transactional
+    public void saveUnits(UUID documentId, List<ExtractedUnit> units) {
+        write(documentId, units, units.size(), units.size(), true);
+    }
+
+    /**
+     * Atomically takes over a PROCESSING document whose heartbeat is missing or older than
+     * the given staleness. Returns false if another worker is actively extracting it.
+     */
+    public boolean claim(UUID documentId, Duration staleAfter) {
+        Integer updated = newTransaction.execute(status -> entityManager.createNativeQuery(
+                        "UPDATE rfp_documents SET extraction_heartbeat = now() "
+                                + "WHERE id = :id AND status = 'PROCESSING' "
+                                + "AND (extraction_heartbeat IS NULL OR extraction_heartbeat < :staleBefore)")
+                .setParameter("id", documentId)
+                .setParameter("staleBefore", Timestamp.from(Instant.now().minus(staleAfter)))
+                .executeUpdate());
+        return updated != null && updated > 0;
+    }
+
+    /**
+     * PROCESSING documents in the current tenant that nobody has reported progress on recently.
+     */
+    @Transactional(readOnly = true)
+    public List<UUID> findStalled(Duration staleAfter, int limit) {
+        Timestamp staleBefore = Timestamp.from(Instant.now().minus(staleAfter));
+        List<?> ids = entityManager.createNativeQuery(
+                        "SELECT id FROM rfp_documents WHERE status = 'PROCESSING' "
+                                + "AND COALESCE(extraction_heartbeat, uploaded_at) < :staleBefore "
+                                + "ORDER BY uploaded_at LIMIT :limit")
+                .unwrap(NativeQuery.class)
+                .addScalar("id", UUID.class)
+                .setParameter("staleBefore", staleBefore)
+                .setParameter("limit", limit)
+                .getResultList();
+        return ids.stream().map(UUID.class::cast).toList();
+    }
+
+    private void write(UUID documentId, List<ExtractedUnit> units, int unitsDone, int unitsTotal, boolean replace) {
+        Session session = entityManager.unwrap(Session.class);
+        session.doWork(connection -> {
+            if (replace) {
+                try (PreparedStatement delete = connection.prepareStatement(
+                        "DELETE FROM extraction_units WHERE document_id = ?")) {
+                    delete.setObject(1, documentId);
+                    delete.executeUpdate();
+                }
+            }
+            if (!units.isEmpty()) {
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO extraction_units (document_id, unit_index, unit_type, unit_name, content_hash, "
+                                + "text, tables_json) VALUES (?, ?, ?, ?, ?, ?, CAST(? AS jsonb)) "
+                                + "ON CONFLICT (document_id, unit_index) DO UPDATE SET unit_type = EXCLUDED.unit_type, "
+                                + "unit_name = EXCLUDED.unit_name, content_hash = EXCLUDED.content_hash, "
+                                + "text = EXCLUDED.text, tables_json = EXCLUDED.tables_json, extracted_at = now()")) {
+                    for (ExtractedUnit unit : units) {
+                        insert.setObject(1, documentId);
+                        insert.setInt(2, unit.index());
+                        insert.setString(3, unit.type());
+                        insert.setString(4, unit.name());
+                        insert.setString(5, unit.contentHash());
+                        insert.setString(6, unit.text());
+                        insert.setString(7, unit.tables().isEmpty() ? null : toJson(unit.tables()));
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+            }
+            try (PreparedStatement progress = connection.prepareStatement(
+                    "UPDATE rfp_documents SET units_done = ?, units_total = ?, extraction_heartbeat = now() WHERE id = ?")) {
+                progress.setInt(1, unitsDone);
+                progress.setInt(2, unitsTotal);
+                progress.setObject(3, documentId);
+                progress.executeUpdate();
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private NativeQuery<Object[]> unitQuery(String where) {
+        return entityManager.createNativeQuery(
+                        "SELECT unit_index, unit_type, unit_name, content_hash, text, "
+                                + "CAST(tables_json AS text) AS tables_json FROM extraction_units " + where)
+                .unwrap(NativeQuery.class)
+                .addScalar("unit_index", Integer.class)
+                .addScalar("unit_type", String.class)
+                .addScalar("unit_name", String.class)
+                .addScalar("content_hash", String.class)
+                .addScalar("text", String.class)
+                .addScalar("tables_json", String.class);
+    }
+
+    private ExtractedUnit toUnit(Object[] row) {
+        String tablesJson = (String) row[5];
+        List<ExtractedTable> tables;
+        try {
+            tables = tablesJson == null ? List.of() : objectMapper.readValue(tablesJson, TABLE_LIST);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ExtractedUnit((Integer) row[0], (String) row[1], (String) row[2], (String) row[3],
+                (String) row[4], tables);
+    }
+
+    private String toJson(List<ExtractedTable> tables) {
+        try {
+            return objectMapper.writeValueAsString(tables);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
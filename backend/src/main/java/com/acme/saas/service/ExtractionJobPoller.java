@@ -0,0 +1,60 @@
+package com.acme.saas.service;
+
+import com.acme.saas.config.RunsExtraction;
+import com.acme.saas.scheduling.ExtractionLane;
+import com.acme.saas.scheduling.FairExtractionScheduler;
+import com.acme.saas.tenancy.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Moves extractions queued by API nodes onto this node's extraction executor, taking only
+ * as many as it can start soon so the rest stay available to other workers.
+ */
+@Service
+@RunsExtraction
+public class ExtractionJobPoller {
+    private static final Logger log = LoggerFactory.getLogger(ExtractionJobPoller.class);
+
+    private final ExtractionJobQueue jobQueue;
+    private final DocumentProcessingService processingService;
+    private final FairExtractionScheduler extractionExecutor;
+    private final int prefetch;
+
+    public ExtractionJobPoller(
+            ExtractionJobQueue jobQueue,
+            DocumentProcessingService processingService,
+            FairExtractionScheduler extractionExecutor,
+            @Value("${extraction.jobs.prefetch:8}") int prefetch) {
+        this.jobQueue = jobQueue;
+        this.processingService = processingService;
+        this.extractionExecutor = extractionExecutor;
+        this.prefetch = prefetch;
+    }
+
+    @Scheduled(fixedDelayString = "${extraction.jobs.poll-interval:PT2S}")
+    public void poll() {
+        int backlog = 0;
+        for (ExtractionLane lane : ExtractionLane.values()) {
+            backlog += extractionExecutor.queued(lane);
+        }
+        if (backlog >= prefetch) {
+            return;
+        }
+        try {
+            for (ExtractionJobQueue.QueuedJob job : jobQueue.take(prefetch - backlog)) {
+                TenantContext.setCurrentTenant(job.tenant());
+                try {
+                    processingService.submitQueued(job.documentId(), job.lane(), job.cost(), job.heapBytes());
+                } finally {
+                    TenantContext.clear();
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Could not take queued extraction jobs: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.acme.saas.service;
+
+import com.acme.saas.scheduling.ExtractionLane;
+import com.acme.saas.tenancy.TenantContext;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Durable hand-off of full extractions from nodes that do not extract (the api role) to worker
+ * nodes, in the shared public.extraction_jobs table. Each row is delivered to one worker.
+ */
+@Service
+public class ExtractionJobQueue {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final DataSource dataSource;
+
+    public record QueuedJob(String tenant, UUID documentId, ExtractionLane lane, long cost, long heapBytes) {}
+
+    public ExtractionJobQueue(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Queues extraction of a document of the current tenant. Joins the caller's transaction, so
+     * the job exists exactly when the upload commits. A document already queued is not added twice.
+     */
+    @Transactional
+    public void enqueue(UUID documentId, ExtractionLane lane, long cost, long heapBytes) {
+        entityManager.createNativeQuery(
+                        "INSERT INTO public.extraction_jobs (tenant_schema, document_id, lane, cost, heap_bytes) "
+                                + "VALUES (:tenant, :documentId, :lane, :cost, :heapBytes) "
+                                + "ON CONFLICT (tenant_schema, document_id) DO NOTHING")
+                .setParameter("tenant", TenantContext.getCurrentTenant())
+                .setParameter("documentId", documentId)
+                .setParameter("lane", lane.name())
+                .setParameter("cost", cost)
+                .setParameter("heapBytes", heapBytes)
+                .executeUpdate();
+    }
+
+    /**
+     * Removes and returns up to {@code limit} of the oldest jobs. Rows locked by a concurrent
+     * worker are skipped rather than waited on, so workers never block each other.
+     */
+    public List<QueuedJob> take(int limit) throws SQLException {
+        List<QueuedJob> jobs = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "DELETE FROM public.extraction_jobs WHERE id IN ("
+                             + "  SELECT id FROM public.extraction_jobs ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED"
+                             + ") RETURNING tenant_schema, document_id, lane, cost, heap_bytes")) {
+            statement.setInt(1, limit);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    jobs.add(new QueuedJob(
+                            rs.getString("tenant_schema"),
+                            rs.getObject("document_id", UUID.class),
+                            ExtractionLane.valueOf(rs.getString("lane")),
+                            rs.getLong("cost"),
+                            rs.getLong("heap_bytes")));
+                }
+            }
+        }
+        return jobs;
+    }
+}
@@ -0,0 +1,277 @@
+package com.acme.saas.service;
+
+import com.acme.saas.config.ServesHttp;
+import com.acme.saas.domain.RfpDocumentExtraction;
+import com.acme.saas.dto.ExtractedTextRange;
+import com.acme.saas.extraction.CompactTable;
+import com.acme.saas.extraction.CompactTableCodec;
+import com.acme.saas.repository.RfpDocumentExtractionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Partial reads of extraction results.
+ * Projection, text ranges and per-table lookups are all evaluated by Postgres
+ * so only the requested columns/characters/tables are transferred.
+ *
+ * Extractions stored in the compact table encoding are transparently served in
+ * the JSON shape; for those, per-table reads decode only the requested table.
+ */
+@Service
+@ServesHttp
+public class ExtractionQueryService {
+
+    public static final int MAX_TEXT_RANGE_LENGTH = 1_000_000;
+
+    private record ProjectedColumn(String expression, Class<?> type) {}
+
+    // API field name -> SQL expression (whitelist, never interpolate user input)
+    private static final Map<String, ProjectedColumn> PROJECTABLE_FIELDS = new LinkedHashMap<>();
+    static {
+        PROJECTABLE_FIELDS.put("id", new ProjectedColumn("id", UUID.class));
+        PROJECTABLE_FIELDS.put("documentId", new ProjectedColumn("document_id", UUID.class));
+        PROJECTABLE_FIELDS.put("extractedText", new ProjectedColumn("extracted_text", String.class));
+        PROJECTABLE_FIELDS.put("tablesJson", new ProjectedColumn("CAST(tables_json AS text)", String.class));
+        PROJECTABLE_FIELDS.put("keyValuesJson", new ProjectedColumn("CAST(key_values_json AS text)", String.class));
+        PROJECTABLE_FIELDS.put("status", new ProjectedColumn("status", String.class));
+        PROJECTABLE_FIELDS.put("errorMessage", new ProjectedColumn("error_message", String.class));
+        PROJECTABLE_FIELDS.put("pageCount", new ProjectedColumn("page_count", Integer.class));
+        PROJECTABLE_FIELDS.put("sheetCount", new ProjectedColumn("sheet_count", Integer.class));
+        PROJECTABLE_FIELDS.put("characterCount", new ProjectedColumn("character_count", Integer.class));
+        PROJECTABLE_FIELDS.put("tableCount", new ProjectedColumn("table_count", Integer.class));
+        PROJECTABLE_FIELDS.put("extractedAt", new ProjectedColumn("extracted_at", OffsetDateTime.class));
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final RfpDocumentExtractionRepository extractionRepository;
+    private final ObjectMapper objectMapper;
+
+    public ExtractionQueryService(RfpDocumentExtractionRepository extractionRepository, ObjectMapper objectMapper) {
+        this.extractionRepository = extractionRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Loads the full extraction, materializing compact tables into {@code tablesJson}.
+     */
+    @Transactional(readOnly = true)
+    public Optional<RfpDocumentExtraction> findExtraction(UUID documentId) {
+        return extractionRepository.findByDocumentId(documentId).map(extraction -> {
+            if (extraction.getTablesJson() == null && extraction.getTablesCompact() != null) {
+                // Detach so the materialized JSON is never written back over the compact form
+                entityManager.detach(extraction);
+                extraction.setTablesJson(toJson(CompactTableCodec.decode(extraction.getTablesCompact())
+                        .stream()
+                        .map(CompactTable::toExtractedTable)
+                        .toList()));
+            }
+            return extraction;
+        });
+    }
+
+    /**
+     * Loads only the requested extraction fields for a document.
+     *
+     * @throws IllegalArgumentException if no fields or an unknown field is requested
+     */
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> findProjection(UUID documentId, Collection<String> fields) {
+        List<String> requested = validateFields(fields);
+
+        List<String> selectList = new ArrayList<>();
+        for (int i = 0; i < requested.size(); i++) {
+            selectList.add(PROJECTABLE_FIELDS.get(requested.get(i)).expression() + " AS c" + i);
+        }
+        boolean withCompact = requested.contains("tablesJson");
+        if (withCompact) {
+            selectList.add("tables_compact AS compact");
+        }
+        int columnCount = selectList.size();
+
+        NativeQuery<?> query = entityManager.createNativeQuery(
+                        "SELECT " + String.join(", ", selectList)
+                                + " FROM rfp_document_extractions WHERE document_id = :documentId")
+                .unwrap(NativeQuery.class);
+        for (int i = 0; i < requested.size(); i++) {
+            query.addScalar("c" + i, PROJECTABLE_FIELDS.get(requested.get(i)).type());
+        }
+        if (withCompact) {
+            query.addScalar("compact", byte[].class);
+        }
+        query.setParameter("documentId", documentId);
+
+        List<?> rows = query.getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // Hibernate returns a bare value instead of Object[] for single-column selects
+        Object row = rows.get(0);
+        Object[] values = columnCount == 1 ? new Object[]{row} : (Object[]) row;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (int i = 0; i < requested.size(); i++) {
+            result.put(requested.get(i), values[i]);
+        }
+        if (withCompact && result.get("tablesJson") == null && values[columnCount - 1] != null) {
+            byte[] compact = (byte[]) values[columnCount - 1];
+            result.put("tablesJson", toJson(CompactTableCodec.decode(compact).stream()
+                    .map(CompactTable::toExtractedTable)
+                    .toList()));
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * Reads a character range of the extracted text using a database-side substring.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ExtractedTextRange> findTextRange(UUID documentId, int offset, int length) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must be >= 0");
+        }
+        if (length <= 0 || length > MAX_TEXT_RANGE_LENGTH) {
+            throw new IllegalArgumentException("length must be between 1 and " + MAX_TEXT_RANGE_LENGTH);
+        }
+
+        List<?> rows = entityManager.createNativeQuery(
+                        "SELECT substring(extracted_text from :start for :length) AS text_range, "
+                                + "char_length(extracted_text) AS total_length "
+                                + "FROM rfp_document_extractions WHERE document_id = :documentId")
+                .unwrap(NativeQuery.class)
+                .addScalar("text_range", String.class)
+                .addScalar("total_length", Integer.class)
+                .setParameter("start", offset + 1) // Postgres substring is 1-based
+                .setParameter("length", length)
+                .setParameter("documentId", documentId)
+                .getResultList();
+
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Object[] row = (Object[]) rows.get(0);
+        String text = row[0] != null ? (String) row[0] : "";
+        int totalLength = row[1] != null ? (Integer) row[1] : 0;
+        return Optional.of(new ExtractedTextRange(offset, text.length(), totalLength, text));
+    }
+
+    /**
+     * Returns the JSON of a single extracted table by position (0-based).
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> findTableJson(UUID documentId, int index) {
+        if (index < 0) {
+            throw new IllegalArgumentException("Table index must be >= 0");
+        }
+        // Only one of tables_json / tables_compact is populated for a given row. Compact tables are
+        // sliced out by their offsets; only rows written before the offsets were kept return the blob.
+        List<?> rows = entityManager.createNativeQuery(
+                        "SELECT CAST(tables_json -> CAST(:index AS int) AS text) AS t, "
+                                + "CASE WHEN tables_compact_offsets IS NULL THEN tables_compact END AS compact, "
+                                + "substring(tables_compact from tables_compact_offsets[CAST(:index AS int) + 1] + 1 "
+                                + "for tables_compact_offsets[CAST(:index AS int) + 2] "
+                                + "- tables_compact_offsets[CAST(:index AS int) + 1]) AS body "
+                                + "FROM rfp_document_extractions WHERE document_id = :documentId")
+                .unwrap(NativeQuery.class)
+                .addScalar("t", String.class)
+                .addScalar("compact", byte[].class)
+                .addScalar("body", byte[].class)
+                .setParameter("index", index)
+                .setParameter("documentId", documentId)
+                .getResultList();
+        return tableFromRow(rows, compact -> CompactTableCodec.decodeTable(compact, index));
+    }
+
+    /**
+     * Returns the JSON of the first extracted table with the given name (e.g. an XLSX sheet name).
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> findTableJsonByName(UUID documentId, String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Table name cannot be empty");
+        }
+        List<?> rows = entityManager.createNativeQuery(
+                        "SELECT CAST(jsonb_path_query_first(tables_json, '$[*] ? (@.name == $name)', "
+                                + "jsonb_build_object('name', CAST(:name AS text))) AS text) AS t, "
+                                + "CASE WHEN tables_compact_offsets IS NULL THEN tables_compact END AS compact, "
+                                + "substring(tables_compact from tables_compact_offsets[p] + 1 "
+                                + "for tables_compact_offsets[p + 1] - tables_compact_offsets[p]) AS body "
+                                + "FROM rfp_document_extractions, "
+                                + "LATERAL array_position(tables_compact_names, CAST(:name AS text)) AS pos(p) "
+                                + "WHERE document_id = :documentId")
+                .unwrap(NativeQuery.class)
+                .addScalar("t", String.class)
+                .addScalar("compact", byte[].class)
+                .addScalar("body", byte[].class)
+                .setParameter("name", name)
+                .setParameter("documentId", documentId)
+                .getResultList();
+        return tableFromRow(rows, compact -> CompactTableCodec.decodeTable(compact, name));
+    }
+
+    private List<String> validateFields(Collection<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            throw new IllegalArgumentException("At least one field must be requested");
+        }
+        List<String> requested = new ArrayList<>();
+        for (String field : fields) {
+            String trimmed = field.trim();
+            if (trimmed.isEmpty() || requested.contains(trimmed)) {
+                continue;
+            }
+            if (!PROJECTABLE_FIELDS.containsKey(trimmed)) {
+                throw new IllegalArgumentException("Unknown field: " + trimmed
+                        + ". Allowed fields: " + String.join(", ", PROJECTABLE_FIELDS.keySet()));
+            }
+            requested.add(trimmed);
+        }
+        if (requested.isEmpty()) {
+            throw new IllegalArgumentException("At least one field must be requested");
+        }
+        return requested;
+    }
+
+    private Optional<String> tableFromRow(List<?> rows, Function<byte[], Optional<CompactTable>> compactLookup) {
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = (Object[]) rows.get(0);
+        if (row[0] != null) {
+            return Optional.of((String) row[0]);
+        }
+        if (row[2] != null) {
+            return Optional.of(toJson(CompactTableCodec.decodeBody((byte[]) row[2]).toExtractedTable()));
+        }
+        if (row[1] != null) {
+            return compactLookup.apply((byte[]) row[1])
+                    .map(table -> toJson(table.toExtractedTable()));
+        }
+        return Optional.empty();
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize extracted tables", e);
+        }
+    }
+}
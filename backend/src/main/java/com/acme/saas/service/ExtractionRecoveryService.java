@@ -0,0 +1,67 @@
+package com.acme.saas.service;
+
+import com.acme.saas.config.RunsExtraction;
+import com.acme.saas.tenancy.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Periodically looks for extractions abandoned by a dead node in every tenant schema
+ * and resubmits them; they continue from their last checkpoint.
+ */
+@Service
+@RunsExtraction
+@ConditionalOnProperty(name = "extraction.recovery.enabled", havingValue = "true", matchIfMissing = true)
+public class ExtractionRecoveryService {
+    private static final Logger log = LoggerFactory.getLogger(ExtractionRecoveryService.class);
+
+    private static final int MAX_PER_TENANT = 20;
+
+    private final DataSource dataSource;
+    private final DocumentProcessingService processingService;
+
+    public ExtractionRecoveryService(DataSource dataSource, DocumentProcessingService processingService) {
+        this.dataSource = dataSource;
+        this.processingService = processingService;
+    }
+
+    @Scheduled(fixedDelayString = "${extraction.recovery.interval:PT1M}", initialDelayString = "${extraction.recovery.interval:PT1M}")
+    public void recoverStalledExtractions() {
+        for (String schema : tenantSchemas()) {
+            TenantContext.setCurrentTenant(schema);
+            try {
+                int submitted = processingService.recoverStalled(MAX_PER_TENANT);
+                if (submitted > 0) {
+                    log.info("Resubmitted {} stalled extractions in {}", submitted, schema);
+                }
+            } catch (Exception e) {
+                log.warn("Stalled extraction check failed for {}: {}", schema, e.getMessage());
+            } finally {
+                TenantContext.clear();
+            }
+        }
+    }
+
+    private List<String> tenantSchemas() {
+        List<String> schemas = new ArrayList<>();
+        try (var conn = dataSource.getConnection();
+             var stmt = conn.prepareStatement(
+                 "SELECT nspname FROM pg_namespace WHERE nspname LIKE 'tenant\\_%' ORDER BY nspname");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                schemas.add(rs.getString(1));
+            }
+        } catch (Exception e) {
+            log.error("Failed to list tenant schemas", e);
+        }
+        return schemas;
+    }
+}
@@ -1,26 +1,87 @@
 package com.acme.saas.service;
 
+import com.acme.saas.deadline.RequestDeadline;
+import com.acme.saas.exception.DeadlineExceededException;
 import com.acme.saas.exception.FileStorageException;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.async.BlockingInputStreamAsyncRequestBody;
+import software.amazon.awssdk.core.async.ResponsePublisher;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Object storage on S3 through the shared non-blocking client. Every method waits for its
+ * request to finish, so callers keep a blocking API while connections come from one bounded pool.
+ * Reads are hedged against slow responses, and no call waits past the request deadline.
+ */
 @Service
 public class FileStorageService {
-    private final S3Client s3Client;
+    private final S3AsyncClient s3Client;
+    private final S3Presigner s3Presigner;
+    private final HedgedReads hedgedReads;
+    private final OriginalsCache originalsCache;
     private final String bucketName;
+    private final long rangedThreshold;
+    private final long rangeSize;
+    // Ranged GETs in flight on this node, across all downloads
+    private final Semaphore rangePermits;
 
-    public FileStorageService(S3Client s3Client,
-                              @Value("${aws.s3.bucket}") String bucketName) {
+    public FileStorageService(S3AsyncClient s3Client,
+                              S3Presigner s3Presigner,
+                              HedgedReads hedgedReads,
+                              OriginalsCache originalsCache,
+                              @Value("${aws.s3.bucket}") String bucketName,
+                              @Value("${aws.s3.ranged-get.threshold:32MB}") DataSize rangedThreshold,
+                              @Value("${aws.s3.ranged-get.range-size:8MB}") DataSize rangeSize,
+                              @Value("${aws.s3.ranged-get.parallelism:16}") int rangeParallelism) {
+        if (rangeSize.toBytes() <= 0 || rangeParallelism < 1) {
+            throw new IllegalArgumentException("aws.s3.ranged-get.range-size and parallelism must be positive");
+        }
         this.s3Client = s3Client;
+        this.s3Presigner = s3Presigner;
+        this.hedgedReads = hedgedReads;
+        this.originalsCache = originalsCache;
         this.bucketName = bucketName;
+        this.rangedThreshold = rangedThreshold.toBytes();
+        this.rangeSize = rangeSize.toBytes();
+        this.rangePermits = new Semaphore(rangeParallelism);
     }
 
     /**
@@ -32,8 +93,17 @@ public class FileStorageService {
             throw new IllegalArgumentException("Cannot store empty file");
         }
 
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
+        String s3Key = newKey(tenantId, file.getOriginalFilename());
+        try (InputStream content = file.getInputStream()) {
+            storeStream(s3Key, content, file.getSize(), file.getContentType());
+        }
+        return s3Key;
+    }
+
+    /**
+     * Generates a unique S3 key for a file of the tenant: tenant_<id>/<uuid><extension>.
+     */
+    public String newKey(String tenantId, String originalFilename) {
         if (originalFilename == null || originalFilename.isBlank()) {
             originalFilename = "file";
         }
@@ -44,24 +114,23 @@ public class FileStorageService {
             extension = originalFilename.substring(lastDot);
         }
 
-        String filename = UUID.randomUUID() + extension;
-
-        // Generate S3 key: tenant_<id>/<filename>
-        String s3Key = "tenant_" + tenantId.toLowerCase() + "/" + filename;
+        return "tenant_" + tenantId.toLowerCase() + "/" + UUID.randomUUID() + extension;
+    }
 
+    /**
+     * Uploads the stream, which must hold exactly {@code size} bytes, under the given key. The stream is not closed.
+     */
+    public void storeStream(String s3Key, InputStream content, long size, String contentType) {
         try {
-            // Upload to S3
             PutObjectRequest putObjectRequest = PutObjectRequest.builder()
                     .bucket(bucketName)
                     .key(s3Key)
-                    .contentType(file.getContentType())
-                    .contentLength(file.getSize())
+                    .contentType(contentType)
+                    .contentLength(size)
                     .build();
 
-            s3Client.putObject(putObjectRequest,
-                             RequestBody.fromInputStream(file.getInputStream(), file.getSize()));
-
-            return s3Key;
+            BlockingInputStreamAsyncRequestBody body = AsyncRequestBody.forBlockingInputStream(size);
+            write(s3Client.putObject(putObjectRequest, body), body, content);
         } catch (S3Exception e) {
             throw new FileStorageException("Failed to upload file to S3: " + e.awsErrorDetails().errorMessage(), e);
         }
@@ -77,7 +146,10 @@ public class FileStorageService {
                     .key(s3Key)
                     .build();
 
-            s3Client.deleteObject(deleteObjectRequest);
+            // Looked up first: once the object is gone, so is the id of its cached content
+            Optional<String> contentId = originalsCache.isEnabled() ? contentId(s3Key) : Optional.empty();
+            join(s3Client.deleteObject(deleteObjectRequest));
+            contentId.ifPresent(originalsCache::invalidate);
         } catch (S3Exception e) {
             throw new FileStorageException("Failed to delete file from S3: " + e.awsErrorDetails().errorMessage(), e);
         }
@@ -93,7 +165,7 @@ public class FileStorageService {
                     .key(s3Key)
                     .build();
 
-            s3Client.headObject(headObjectRequest);
+            join(hedgedReads.read(HedgedReads.Operation.HEAD, () -> s3Client.headObject(headObjectRequest), response -> { }));
             return true;
         } catch (NoSuchKeyException e) {
             return false;
@@ -103,7 +175,8 @@ public class FileStorageService {
     }
 
     /**
-     * Downloads a file from S3 and returns an InputStream.
+     * Downloads a file from S3 and returns an InputStream. The caller must close it: until then
+     * it holds one of the pooled connections, and closing it early abandons the rest of the object.
      */
     public InputStream downloadFile(String s3Key) {
         try {
@@ -112,9 +185,459 @@ public class FileStorageService {
                     .key(s3Key)
                     .build();
 
-            return s3Client.getObject(getObjectRequest);
+            return join(hedgedReads.read(HedgedReads.Operation.GET,
+                    () -> s3Client.getObject(getObjectRequest, AsyncResponseTransformer.<GetObjectResponse>toBlockingInputStream()),
+                    ResponseInputStream::abort));
         } catch (S3Exception e) {
             throw new FileStorageException("Failed to download file from S3: " + e.awsErrorDetails().errorMessage(), e);
         }
     }
+
+    /**
+     * Downloads a file of known size, from the node's disk cache if it holds it. Otherwise files
+     * of at least the ranged-get threshold are fetched as byte ranges in parallel into a spool
+     * file, which is deleted when the returned stream is closed; smaller files, or a null size,
+     * stream as in {@link #downloadFile(String)}. Files the cache takes are fetched into it first;
+     * it holds them by content, which costs a HEAD per download to learn the object's ETag.
+     */
+    public InputStream downloadFile(String s3Key, Long size) {
+        if (originalsCache.takes(size)) {
+            Optional<String> contentId = contentId(s3Key);
+            if (contentId.isPresent()) {
+                return originalsCache.open(contentId.get(), size, target -> fetch(s3Key, size, target));
+            }
+        }
+        if (size == null || size < rangedThreshold || size <= rangeSize) {
+            return downloadFile(s3Key);
+        }
+        Path spool;
+        try {
+            spool = Files.createTempFile("s3-download-", ".bin");
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to create download spool file: " + e.getMessage(), e);
+        }
+        try {
+            fetch(s3Key, size, spool);
+            return Files.newInputStream(spool, StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            deleteQuietly(spool);
+            throw new FileStorageException("Failed to spool download from S3: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            deleteQuietly(spool);
+            throw e;
+        }
+    }
+
+    /**
+     * Lists one page of the objects under a prefix of any bucket this service can read.
+     *
+     * @param startAfter        key to start after when no continuation token is given; may be null
+     * @param continuationToken token from the previous page; may be null
+     */
+    public ListObjectsV2Response listObjects(String bucket, String prefix, String startAfter,
+                                             String continuationToken, int pageSize) {
+        try {
+            ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
+                    .bucket(bucket)
+                    .prefix(prefix)
+                    .startAfter(continuationToken == null ? startAfter : null)
+                    .continuationToken(continuationToken)
+                    .maxKeys(pageSize)
+                    .build();
+
+            return join(s3Client.listObjectsV2(listRequest));
+        } catch (S3Exception e) {
+            throw new FileStorageException("Failed to list files in S3: " + e.awsErrorDetails().errorMessage(), e);
+        }
+    }
+
+    /**
+     * Copies an object into this service's bucket on the S3 side, without transferring its content.
+     */
+    public void copyFrom(String sourceBucket, String sourceKey, String s3Key) {
+        try {
+            CopyObjectRequest copyObjectRequest = CopyObjectRequest.builder()
+                    .sourceBucket(sourceBucket)
+                    .sourceKey(sourceKey)
+                    .destinationBucket(bucketName)
+                    .destinationKey(s3Key)
+                    .build();
+
+            join(s3Client.copyObject(copyObjectRequest));
+        } catch (S3Exception e) {
+            throw new FileStorageException("Failed to copy file in S3: " + e.awsErrorDetails().errorMessage(), e);
+        }
+    }
+
+    /**
+     * Starts a multipart upload under the given key and returns its upload ID.
+     */
+    public String createMultipartUpload(String s3Key, String contentType) {
+        try {
+            CreateMultipartUploadRequest createRequest = CreateMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .contentType(contentType)
+                    .build();
+
+            return join(s3Client.createMultipartUpload(createRequest)).uploadId();
+        } catch (S3Exception e) {
+            throw new FileStorageException("Failed to start multipart upload in S3: " + e.awsErrorDetails().errorMessage(), e);
+        }
+    }
+
+    /**
+     * Uploads the stream, which must hold exactly {@code size} bytes, as one part, replacing any
+     * earlier upload of the same part number. The stream is not closed.
+     *
+     * @return the part's ETag
+     */
+    public String uploadPart(String s3Key, String uploadId, int partNumber, InputStream content, long size) {
+        try {
+            UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .contentLength(size)
+                    .build();
+
+            BlockingInputStreamAsyncRequestBody body = AsyncRequestBody.forBlockingInputStream(size);
+            return write(s3Client.uploadPart(uploadPartRequest, body), body, content).eTag();
+        } catch (S3Exception e) {
+            throw new FileStorageException("Failed to upload part to S3: " + e.awsErrorDetails().errorMessage(), e);
+        }
+    }
+
+    /**
+     * ETags of the parts uploaded so far for a multipart upload, by part number.
+     */
+    public Map<Integer, String> uploadedPartETags(String s3Key, String uploadId) {
+        try {
+            Map<Integer, String> eTags = new HashMap<>();
+            for (Part part : listParts(s3Key, uploadId)) {
+                eTags.put(part.partNumber(), part.eTag());
+            }
+            return eTags;
+        } catch (S3Exception e) {
+            throw new FileStorageException("Failed to list uploaded parts in S3: " + e.awsErrorDetails().errorMessage(), e);
+        }
+    }
+
+    /**
+     * Total size of the parts uploaded so far for a multipart upload.
+     */
+    public long uploadedPartsSize(String s3Key, String uploadId) {
+        try {
+            return listParts(s3Key, uploadId).stream().mapToLong(Part::size).sum();
+        } catch (S3Exception e) {
+            throw new FileStorageException("Failed to list uploaded parts in S3: " + e.awsErrorDetails().errorMessage(), e);
+        }
+    }
+
+    /**
+     * Assembles the object from every part uploaded so far, in part number order.
+     */
+    public void completeMultipartUpload(String s3Key, String uploadId) {
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            for (Part part : listParts(s3Key, uploadId)) {
+                parts.add(CompletedPart.builder().partNumber(part.partNumber()).eTag(part.eTag()).build());
+            }
+            parts.sort(Comparator.comparing(CompletedPart::partNumber));
+
+            CompleteMultipartUploadRequest completeRequest = CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build();
+
+            join(s3Client.completeMultipartUpload(completeRequest));
+        } catch (S3Exception e) {
+            throw new FileStorageException("Failed to complete multipart upload in S3: " + e.awsErrorDetails().errorMessage(), e);
+        }
+    }
+
+    /**
+     * Discards a multipart upload and the parts uploaded for it.
+     */
+    public void abortMultipartUpload(String s3Key, String uploadId) {
+        try {
+            AbortMultipartUploadRequest abortRequest = AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .uploadId(uploadId)
+                    .build();
+
+            join(s3Client.abortMultipartUpload(abortRequest));
+        } catch (NoSuchUploadException e) {
+            // Already completed or aborted
+        } catch (S3Exception e) {
+            throw new FileStorageException("Failed to abort multipart upload in S3: " + e.awsErrorDetails().errorMessage(), e);
+        }
+    }
+
+    /**
+     * Id of the stored object's content for the disk cache, from its ETag and size, or empty if
+     * there is no object under the key.
+     */
+    private Optional<String> contentId(String s3Key) {
+        try {
+            HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .build();
+
+            HeadObjectResponse head = join(hedgedReads.read(HedgedReads.Operation.HEAD,
+                    () -> s3Client.headObject(headObjectRequest), response -> { }));
+            return Optional.of(head.eTag() + "/" + head.contentLength());
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            throw new FileStorageException("Failed to check file in S3: " + e.awsErrorDetails().errorMessage(), e);
+        }
+    }
+
+    /**
+     * Size of the stored object, or empty if there is none under the key.
+     */
+    public OptionalLong objectSize(String s3Key) {
+        try {
+            HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .build();
+
+            return OptionalLong.of(join(hedgedReads.read(HedgedReads.Operation.HEAD, () -> s3Client.headObject(headObjectRequest), response -> { }))
+                    .contentLength());
+        } catch (NoSuchKeyException e) {
+            return OptionalLong.empty();
+        } catch (S3Exception e) {
+            throw new FileStorageException("Failed to check file in S3: " + e.awsErrorDetails().errorMessage(), e);
+        }
+    }
+
+    /**
+     * URL through which a client can PUT exactly this key, content type and size until it expires.
+     */
+    public URL presignPut(String s3Key, String contentType, long size, Duration ttl) {
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .contentType(contentType)
+                .contentLength(size)
+                .build();
+
+        return s3Presigner.presignPutObject(PutObjectPresignRequest.builder()
+                .signatureDuration(ttl)
+                .putObjectRequest(putObjectRequest)
+                .build()).url();
+    }
+
+    /**
+     * URL through which a client can PUT one part of a multipart upload until it expires.
+     */
+    public URL presignUploadPart(String s3Key, String uploadId, int partNumber, Duration ttl) {
+        UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .build();
+
+        return s3Presigner.presignUploadPart(UploadPartPresignRequest.builder()
+                .signatureDuration(ttl)
+                .uploadPartRequest(uploadPartRequest)
+                .build()).url();
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    /**
+     * Fetches every range of the object into its place in the channel. Waits for a node-wide
+     * permit before starting each range, and stops starting ranges once one has failed.
+     */
+    private void downloadRanges(String s3Key, long size, FileChannel channel) {
+        List<CompletableFuture<Void>> ranges = new ArrayList<>();
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        try {
+            for (long start = 0; start < size && !failed.isDone(); start += rangeSize) {
+                acquireRangePermit();
+                CompletableFuture<Void> range;
+                try {
+                    range = fetchRange(s3Key, start, Math.min(start + rangeSize, size) - 1, channel);
+                } catch (RuntimeException e) {
+                    rangePermits.release();
+                    throw e;
+                }
+                range.whenComplete((done, error) -> {
+                    rangePermits.release();
+                    if (error != null) {
+                        failed.completeExceptionally(error);
+                    }
+                });
+                ranges.add(range);
+            }
+            join(CompletableFuture.allOf(ranges.toArray(CompletableFuture[]::new)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ranges.forEach(range -> range.cancel(true));
+            throw new FileStorageException("Interrupted while downloading from S3", e);
+        } catch (S3Exception e) {
+            ranges.forEach(range -> range.cancel(true));
+            throw new FileStorageException("Failed to download file from S3: " + e.awsErrorDetails().errorMessage(), e);
+        } catch (RuntimeException e) {
+            ranges.forEach(range -> range.cancel(true));
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the whole object to the file, as parallel byte ranges if it is large enough.
+     */
+    private void fetch(String s3Key, long size, Path target) throws IOException {
+        if (size < rangedThreshold || size <= rangeSize) {
+            try (InputStream content = downloadFile(s3Key)) {
+                Files.copy(content, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            downloadRanges(s3Key, size, channel);
+        }
+    }
+
+    private void acquireRangePermit() throws InterruptedException {
+        Optional<Duration> remaining = RequestDeadline.remainingFor("S3 download");
+        if (remaining.isEmpty()) {
+            rangePermits.acquire();
+        } else if (!rangePermits.tryAcquire(remaining.get().toNanos(), TimeUnit.NANOSECONDS)) {
+            throw new DeadlineExceededException("Request deadline passed while waiting to download from S3");
+        }
+    }
+
+    private CompletableFuture<Void> fetchRange(String s3Key, long first, long last, FileChannel channel) {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .range("bytes=" + first + "-" + last)
+                .build();
+
+        return hedgedReads.read(HedgedReads.Operation.RANGED_GET,
+                        () -> s3Client.getObject(getObjectRequest, AsyncResponseTransformer.<GetObjectResponse>toPublisher()),
+                        FileStorageService::discard)
+                .thenCompose(publisher -> {
+                    long[] position = {first};
+                    return publisher.subscribe(buffer -> position[0] += write(channel, buffer, position[0]))
+                            .thenRun(() -> {
+                                if (position[0] != last + 1) {
+                                    throw new IllegalStateException("Range " + first + "-" + last + " of " + s3Key
+                                            + " ended after " + (position[0] - first) + " bytes");
+                                }
+                            });
+                });
+    }
+
+    private static int write(FileChannel channel, ByteBuffer buffer, long position) {
+        int written = 0;
+        try {
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer, position + written);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return written;
+    }
+
+    /**
+     * Releases the connection of a ranged GET whose body is not wanted.
+     */
+    private static void discard(ResponsePublisher<GetObjectResponse> publisher) {
+        publisher.subscribe(new Subscriber<ByteBuffer>() {
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.cancel();
+            }
+
+            @Override
+            public void onNext(ByteBuffer buffer) {
+            }
+
+            @Override
+            public void onError(Throwable error) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Left for the temp directory cleanup
+        }
+    }
+
+    private List<Part> listParts(String s3Key, String uploadId) {
+        List<Part> parts = new ArrayList<>();
+        join(s3Client.listPartsPaginator(ListPartsRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .uploadId(uploadId)
+                .build()).parts().subscribe(parts::add));
+        return parts;
+    }
+
+    /**
+     * Streams the content into a request body on the calling thread, as fast as the connection
+     * takes it, then waits for the response.
+     */
+    private static <T> T write(CompletableFuture<T> response, BlockingInputStreamAsyncRequestBody body,
+                               InputStream content) {
+        try {
+            body.writeInputStream(content);
+        } catch (RuntimeException e) {
+            if (!response.isDone()) {
+                response.cancel(true);
+                throw e;
+            }
+            // The request failed before taking the whole body; its own failure says why
+        }
+        return join(response);
+    }
+
+    /**
+     * Waits for a request, but no longer than the request deadline. Its failure is rethrown as is
+     * so S3Exception and its subtypes can be caught.
+     */
+    private static <T> T join(CompletableFuture<T> response) {
+        try {
+            Optional<Duration> remaining = RequestDeadline.remainingFor("S3 request");
+            return remaining.isEmpty()
+                    ? response.join()
+                    : response.get(remaining.get().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (DeadlineExceededException e) {
+            response.cancel(true);
+            throw e;
+        } catch (TimeoutException e) {
+            response.cancel(true);
+            throw new DeadlineExceededException("Request deadline passed while waiting for S3");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.cancel(true);
+            throw new FileStorageException("Interrupted while waiting for S3", e);
+        } catch (CompletionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
 }
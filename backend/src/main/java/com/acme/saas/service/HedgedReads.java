@@ -0,0 +1,193 @@
+package com.acme.saas.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Hedges S3 reads against slow responses. If a read has not answered within the configured
+ * percentile of recent time-to-first-byte, a second identical read is sent and whichever
+ * answers first is used; the other is cancelled, and its response discarded if it still
+ * arrives. By construction only the slowest few percent of reads are sent twice.
+ *
+ * Each kind of read keeps its own samples and delay: a HEAD answers far sooner than a GET of a
+ * whole object, so one shared window would hedge nearly every GET, or almost no HEAD.
+ */
+@Component
+public class HedgedReads {
+
+    /**
+     * Kind of read, each timed on its own.
+     */
+    public enum Operation { HEAD, GET, RANGED_GET }
+
+    // Recent time-to-first-byte samples the delay is taken from
+    private static final int WINDOW = 512;
+    private static final int MIN_SAMPLES = 32;
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long initialDelayNanos;
+
+    private final Map<Operation, Window> windows = new EnumMap<>(Operation.class);
+
+    public HedgedReads(
+            @Value("${aws.s3.hedge.enabled:true}") boolean enabled,
+            @Value("${aws.s3.hedge.percentile:95}") double percentile,
+            @Value("${aws.s3.hedge.min-delay:PT0.05S}") Duration minDelay,
+            @Value("${aws.s3.hedge.initial-delay:PT1S}") Duration initialDelay) {
+        if (percentile <= 0 || percentile >= 100) {
+            throw new IllegalArgumentException("aws.s3.hedge.percentile must be between 0 and 100");
+        }
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.initialDelayNanos = initialDelay.toNanos();
+        for (Operation operation : Operation.values()) {
+            windows.put(operation, new Window());
+        }
+    }
+
+    /**
+     * Runs the read, hedging it if it is slow.
+     *
+     * @param operation kind of read, whose recent timings set the hedge delay
+     * @param read      sends one attempt; called at most twice
+     * @param discard   releases the response of an attempt that lost
+     */
+    public <T> CompletableFuture<T> read(Operation operation, Supplier<CompletableFuture<T>> read, Consumer<T> discard) {
+        Window window = windows.get(operation);
+        if (!enabled) {
+            return attempt(window, read);
+        }
+        Race<T> race = new Race<>(discard);
+        race.attach(attempt(window, read));
+        CompletableFuture.delayedExecutor(window.delayNanos, TimeUnit.NANOSECONDS).execute(() -> {
+            if (race.startHedge()) {
+                CompletableFuture<T> hedge;
+                try {
+                    hedge = attempt(window, read);
+                } catch (RuntimeException e) {
+                    hedge = CompletableFuture.failedFuture(e);
+                }
+                race.attach(hedge);
+            }
+        });
+        return race.result;
+    }
+
+    /**
+     * Current hedge delay, for tests and diagnostics.
+     */
+    Duration delay(Operation operation) {
+        return Duration.ofNanos(windows.get(operation).delayNanos);
+    }
+
+    private <T> CompletableFuture<T> attempt(Window window, Supplier<CompletableFuture<T>> read) {
+        long started = System.nanoTime();
+        CompletableFuture<T> attempt = read.get();
+        attempt.whenComplete((response, error) -> {
+            if (error == null) {
+                window.record(System.nanoTime() - started);
+            }
+        });
+        return attempt;
+    }
+
+    /**
+     * Recent time-to-first-byte of one kind of read, and the delay taken from it.
+     */
+    private final class Window {
+        private final long[] samples = new long[WINDOW];
+        private long sampleCount;
+        private volatile long delayNanos = Math.max(minDelayNanos, initialDelayNanos);
+
+        synchronized void record(long nanos) {
+            samples[(int) (sampleCount % WINDOW)] = nanos;
+            sampleCount++;
+            if (sampleCount >= MIN_SAMPLES && sampleCount % RECOMPUTE_EVERY == 0) {
+                long[] sorted = Arrays.copyOf(samples, (int) Math.min(sampleCount, WINDOW));
+                Arrays.sort(sorted);
+                long atPercentile = sorted[(int) Math.min(sorted.length - 1, Math.ceil(sorted.length * percentile / 100) - 1)];
+                delayNanos = Math.max(minDelayNanos, atPercentile);
+            }
+        }
+    }
+
+    /**
+     * Attempts of one read. The first to succeed answers it; the read fails only once every
+     * attempt has failed and no hedge can still be sent.
+     */
+    private static final class Race<T> {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        private final Consumer<T> discard;
+        private final List<CompletableFuture<T>> attempts = new ArrayList<>();
+        private int running = 1;
+        private boolean hedgeAllowed = true;
+
+        Race(Consumer<T> discard) {
+            this.discard = discard;
+            // Whichever attempt is still running once there is an answer is not needed
+            result.whenComplete((response, error) -> cancelAttempts());
+        }
+
+        synchronized boolean startHedge() {
+            if (result.isDone() || !hedgeAllowed) {
+                return false;
+            }
+            hedgeAllowed = false;
+            running++;
+            return true;
+        }
+
+        void attach(CompletableFuture<T> attempt) {
+            synchronized (this) {
+                attempts.add(attempt);
+            }
+            attempt.whenComplete(this::onComplete);
+            if (result.isDone()) {
+                attempt.cancel(true);
+            }
+        }
+
+        private void onComplete(T response, Throwable error) {
+            if (error == null) {
+                if (!result.complete(response)) {
+                    discard.accept(response);
+                }
+                return;
+            }
+            boolean last;
+            synchronized (this) {
+                running--;
+                last = running == 0;
+                if (last) {
+                    hedgeAllowed = false;
+                }
+            }
+            if (last) {
+                result.completeExceptionally(error);
+            }
+        }
+
+        private void cancelAttempts() {
+            List<CompletableFuture<T>> running;
+            synchronized (this) {
+                running = List.copyOf(attempts);
+            }
+            running.forEach(attempt -> attempt.cancel(true));
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.acme.saas.service;
+
+import com.acme.saas.config.ServesHttp;
+import com.acme.saas.domain.IdempotencyKey;
+import com.acme.saas.repository.IdempotencyKeyRepository;
+import com.acme.saas.tenancy.TenantContext;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs upload requests at most once per Idempotency-Key, so clients can retry them safely.
+ *
+ * The first request with a key claims it in the tenant's key store and its response is kept
+ * for the key's TTL; a retry gets that response back without running anything. A duplicate
+ * arriving while the first request is still running on this node waits for it and shares its
+ * response, and one running on another node is told to retry. A key reused for a different
+ * request is rejected. Only successful responses are kept: a request that fails releases its
+ * key, so a retry runs it again once the failure has been fixed.
+ */
+@Service
+@ServesHttp
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 255;
+
+    private record InFlight(String fingerprint, CompletableFuture<ResponseEntity<?>> response) {}
+
+    private final ConcurrentMap<IdempotencyKey.Id, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    private final IdempotencyKeyRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration lockTimeout;
+
+    public IdempotencyService(
+            IdempotencyKeyRepository repository,
+            ObjectMapper objectMapper,
+            @Value("${upload.idempotency.ttl:P1D}") Duration ttl,
+            @Value("${upload.idempotency.lock-timeout:PT30M}") Duration lockTimeout) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.lockTimeout = lockTimeout;
+    }
+
+    /**
+     * Runs the request unless the key has been used already, in which case the first
+     * response is returned instead. Without a key the request simply runs.
+     *
+     * @param fingerprint identifies the request, see {@link #fingerprint}
+     */
+    public ResponseEntity<?> execute(String key, String fingerprint, Supplier<ResponseEntity<?>> request) {
+        if (key == null) {
+            return request.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters"));
+        }
+
+        IdempotencyKey.Id id = new IdempotencyKey.Id(TenantContext.getCurrentTenant(), key);
+        InFlight mine = new InFlight(fingerprint, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(id, mine);
+        if (running != null) {
+            return await(running, fingerprint);
+        }
+        try {
+            ResponseEntity<?> response = claimAndRun(id, fingerprint, request);
+            mine.response().complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            mine.response().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    /**
+     * SHA-256 over the parts that identify a request, hex encoded. Each part is followed by
+     * its length so adjacent parts cannot run into each other.
+     */
+    public static String fingerprint(Object... parts) {
+        MessageDigest digest = sha256();
+        for (Object part : parts) {
+            byte[] bytes = String.valueOf(part).getBytes(StandardCharsets.UTF_8);
+            digest.update(bytes);
+            digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * SHA-256 of an uploaded file's content, hex encoded, for fingerprints that must tell apart
+     * uploads whose name and size match. The part is buffered by the container already, so this
+     * reads it from memory or the local temp file.
+     */
+    public static String digest(MultipartFile file) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Deletes keys of every tenant whose TTL has passed.
+     */
+    @Scheduled(fixedDelayString = "${upload.idempotency.sweep-interval:PT1H}")
+    public void deleteExpired() {
+        int deleted = repository.deleteExpired(OffsetDateTime.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private ResponseEntity<?> claimAndRun(IdempotencyKey.Id id, String fingerprint, Supplier<ResponseEntity<?>> request) {
+        // Postgres keeps microseconds; the claim time identifies this claim in later updates
+        OffsetDateTime now = OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        if (repository.claim(id.getTenantSchema(), id.getIdempotencyKey(), fingerprint,
+                now, now.plus(ttl), now.minus(lockTimeout)) == 0) {
+            return replay(id, fingerprint);
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = request.get();
+        } catch (RuntimeException | Error e) {
+            repository.release(id, now);
+            throw e;
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            repository.release(id, now);
+            return response;
+        }
+        try {
+            String body = response.getBody() != null ? objectMapper.writeValueAsString(response.getBody()) : null;
+            repository.complete(id, now, response.getStatusCode().value(), body);
+        } catch (JsonProcessingException | RuntimeException e) {
+            // The request itself succeeded; only retries of it will run again
+            log.warn("Failed to record response for idempotency key {}: {}", id.getIdempotencyKey(), e.getMessage());
+            repository.release(id, now);
+        }
+        return response;
+    }
+
+    private ResponseEntity<?> replay(IdempotencyKey.Id id, String fingerprint) {
+        Optional<IdempotencyKey> stored = repository.findById(id);
+        if (stored.isPresent() && !stored.get().getFingerprint().equals(fingerprint)) {
+            return mismatch();
+        }
+        if (stored.isEmpty() || stored.get().getStatusCode() == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "A request with this " + HEADER + " is in progress; retry it later"));
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(stored.get().getStatusCode())
+            .header(REPLAYED_HEADER, "true");
+        String body = stored.get().getResponseBody();
+        return body != null ? response.contentType(MediaType.APPLICATION_JSON).body(body) : response.build();
+    }
+
+    private static ResponseEntity<?> await(InFlight running, String fingerprint) {
+        if (!running.fingerprint().equals(fingerprint)) {
+            return mismatch();
+        }
+        ResponseEntity<?> response;
+        try {
+            response = running.response().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+            .headers(response.getHeaders())
+            .header(REPLAYED_HEADER, "true")
+            .body(response.getBody());
+    }
+
+    private static ResponseEntity<?> mismatch() {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+            .body(Map.of("error", HEADER + " was already used for a different request"));
+    }
+}
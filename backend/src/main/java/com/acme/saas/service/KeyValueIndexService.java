@@ -0,0 +1,129 @@
+package com.acme.saas.service;
+
+import com.acme.saas.domain.ExtractedKeyValue;
+import com.acme.saas.domain.RfpDocumentExtraction;
+import com.acme.saas.dto.KeyValueMatch;
+import com.acme.saas.dto.KeyValuePair;
+import com.acme.saas.extraction.KeyValueNormalizer;
+import com.acme.saas.repository.ExtractedKeyValueRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Materializes extracted key-value pairs into the normalized extraction_key_values table
+ * and answers field filter queries against it ("Due Date in March", "Carrier Name = Aetna").
+ */
+@Service
+public class KeyValueIndexService {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    // Open range bounds (Postgres DATE cannot hold LocalDate.MIN/MAX)
+    private static final LocalDate MIN_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+    private static final BigDecimal MIN_NUMBER = new BigDecimal("-1e30");
+    private static final BigDecimal MAX_NUMBER = new BigDecimal("1e30");
+
+    private final ExtractedKeyValueRepository repository;
+
+    public KeyValueIndexService(ExtractedKeyValueRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Replaces the indexed pairs of the extraction's document with the given pairs.
+     */
+    @Transactional
+    public void index(RfpDocumentExtraction extraction, List<KeyValuePair> keyValues) {
+        repository.deleteByDocumentId(extraction.getDocumentId());
+
+        List<ExtractedKeyValue> rows = new ArrayList<>(keyValues.size());
+        for (int i = 0; i < keyValues.size(); i++) {
+            KeyValuePair pair = keyValues.get(i);
+            String normalizedKey = KeyValueNormalizer.normalizeKey(pair.key());
+            if (normalizedKey.isEmpty()) {
+                continue;
+            }
+            ExtractedKeyValue row = new ExtractedKeyValue();
+            row.setExtractionId(extraction.getId());
+            row.setDocumentId(extraction.getDocumentId());
+            row.setPairIndex(i);
+            row.setRawKey(pair.key());
+            row.setNormalizedKey(normalizedKey);
+            row.setRawValue(pair.value());
+            row.setValueText(KeyValueNormalizer.normalizeText(pair.value()));
+            row.setValueNumber(KeyValueNormalizer.parseNumber(pair.value()).orElse(null));
+            row.setValueDate(KeyValueNormalizer.parseDate(pair.value()).orElse(null));
+            rows.add(row);
+        }
+        repository.saveAll(rows);
+    }
+
+    /**
+     * Exact (case-insensitive) match on a field value. A null value returns every document with the field.
+     */
+    @Transactional(readOnly = true)
+    public List<KeyValueMatch> findByValue(String key, String value, int limit) {
+        String normalizedKey = requireKey(key);
+        Pageable page = page(limit);
+        List<ExtractedKeyValue> rows = value == null
+                ? repository.findByNormalizedKeyOrderByDocumentId(normalizedKey, page)
+                : repository.findByNormalizedKeyAndValueTextOrderByDocumentId(
+                        normalizedKey, KeyValueNormalizer.normalizeText(value), page);
+        return toMatches(rows);
+    }
+
+    /**
+     * Fields whose parsed date falls in [from, to]; either bound may be null.
+     */
+    @Transactional(readOnly = true)
+    public List<KeyValueMatch> findByDateRange(String key, LocalDate from, LocalDate to, int limit) {
+        return toMatches(repository.findByNormalizedKeyAndValueDateBetweenOrderByValueDate(
+                requireKey(key),
+                from != null ? from : MIN_DATE,
+                to != null ? to : MAX_DATE,
+                page(limit)));
+    }
+
+    /**
+     * Fields whose parsed number falls in [min, max]; either bound may be null.
+     */
+    @Transactional(readOnly = true)
+    public List<KeyValueMatch> findByNumberRange(String key, BigDecimal min, BigDecimal max, int limit) {
+        return toMatches(repository.findByNormalizedKeyAndValueNumberBetweenOrderByValueNumber(
+                requireKey(key),
+                min != null ? min : MIN_NUMBER,
+                max != null ? max : MAX_NUMBER,
+                page(limit)));
+    }
+
+    private String requireKey(String key) {
+        String normalizedKey = KeyValueNormalizer.normalizeKey(key);
+        if (normalizedKey.isEmpty()) {
+            throw new IllegalArgumentException("Field key cannot be empty");
+        }
+        return normalizedKey;
+    }
+
+    private Pageable page(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return PageRequest.of(0, limit);
+    }
+
+    private List<KeyValueMatch> toMatches(List<ExtractedKeyValue> rows) {
+        return rows.stream()
+                .map(row -> new KeyValueMatch(row.getDocumentId(), row.getRawKey(), row.getRawValue(),
+                        row.getValueNumber(), row.getValueDate()))
+                .toList();
+    }
+}
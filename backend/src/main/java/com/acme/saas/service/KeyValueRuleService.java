@@ -0,0 +1,159 @@
+package com.acme.saas.service;
+
+import com.acme.saas.domain.KeyValueRule;
+import com.acme.saas.extraction.KeyValueScanner;
+import com.acme.saas.repository.KeyValueRuleRepository;
+import com.acme.saas.tenancy.TenantContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Manages tenant key-value rules and caches one compiled {@link KeyValueScanner} per tenant,
+ * so extraction never re-reads or re-compiles rules per document.
+ */
+@Service
+public class KeyValueRuleService {
+
+    public static final int MAX_RULES = 500;
+    public static final int MAX_ALIASES = 50;
+    public static final int MAX_LINE_WINDOW = 5000;
+
+    private final KeyValueRuleRepository repository;
+    private final long cacheTtlNanos;
+
+    // Compiled scanners by tenant schema; entries expire so rule edits on other instances are picked up
+    private final ConcurrentMap<String, CachedScanner> scanners = new ConcurrentHashMap<>();
+
+    // When each tenant's rules last changed; scanners loaded before that are not cached
+    private final ConcurrentMap<String, Long> changedAt = new ConcurrentHashMap<>();
+
+    private record CachedScanner(KeyValueScanner scanner, long loadedAt) {}
+
+    public KeyValueRuleService(KeyValueRuleRepository repository,
+                               @Value("${extraction.kv-rules.cache-ttl:PT5M}") Duration cacheTtl) {
+        this.repository = repository;
+        this.cacheTtlNanos = cacheTtl.toNanos();
+    }
+
+    /**
+     * Compiled scanner for the current tenant: the generic {@code Key: value} pattern plus the tenant's rules.
+     */
+    @Transactional(readOnly = true)
+    public KeyValueScanner scannerForCurrentTenant() {
+        String tenant = TenantContext.getCurrentTenant();
+        long now = System.nanoTime();
+        CachedScanner cached = scanners.get(tenant);
+        if (cached == null || now - cached.loadedAt() > cacheTtlNanos) {
+            List<KeyValueRule> rules = repository.findAllByOrderByCreatedAt();
+            CachedScanner loaded = new CachedScanner(
+                    KeyValueScanner.compile(rules.stream().map(KeyValueRule::toDefinition).toList()), now);
+            // Rules committed while these were read may be missing from them, so they are used once only
+            scanners.compute(tenant, (key, existing) -> {
+                Long changed = changedAt.get(key);
+                return changed != null && changed - now >= 0 ? existing : loaded;
+            });
+            cached = loaded;
+        }
+        return cached.scanner();
+    }
+
+    @Transactional(readOnly = true)
+    public List<KeyValueRule> list() {
+        return repository.findAllByOrderByCreatedAt();
+    }
+
+    @Transactional
+    public KeyValueRule create(String canonicalKey, List<String> aliases, List<String> delimiters, Integer lineWindow) {
+        if (canonicalKey == null || canonicalKey.isBlank()) {
+            throw new IllegalArgumentException("canonicalKey cannot be empty");
+        }
+        if (repository.count() >= MAX_RULES) {
+            throw new IllegalArgumentException("At most " + MAX_RULES + " rules are supported per organization");
+        }
+
+        // The canonical key always matches itself
+        Set<String> allAliases = new LinkedHashSet<>();
+        allAliases.add(canonicalKey.trim());
+        if (aliases != null) {
+            for (String alias : aliases) {
+                if (alias != null && !alias.isBlank()) {
+                    allAliases.add(alias.trim());
+                }
+            }
+        }
+        if (allAliases.size() > MAX_ALIASES) {
+            throw new IllegalArgumentException("At most " + MAX_ALIASES + " aliases are supported per rule");
+        }
+
+        List<String> allDelimiters = new ArrayList<>();
+        if (delimiters != null) {
+            for (String delimiter : delimiters) {
+                if (delimiter != null && !delimiter.isBlank()) {
+                    allDelimiters.add(delimiter.trim());
+                }
+            }
+        }
+        if (allDelimiters.isEmpty()) {
+            allDelimiters.add(":");
+        }
+
+        int window = lineWindow != null ? lineWindow : KeyValueScanner.DEFAULT_LINE_WINDOW;
+        if (window < 1 || window > MAX_LINE_WINDOW) {
+            throw new IllegalArgumentException("lineWindow must be between 1 and " + MAX_LINE_WINDOW);
+        }
+
+        KeyValueRule rule = new KeyValueRule();
+        rule.setCanonicalKey(canonicalKey.trim());
+        rule.setAliases(allAliases.toArray(String[]::new));
+        rule.setDelimiters(allDelimiters.toArray(String[]::new));
+        rule.setLineWindow(window);
+        KeyValueRule saved = repository.save(rule);
+        evictAfterCommit();
+        return saved;
+    }
+
+    @Transactional
+    public boolean delete(UUID id) {
+        if (!repository.existsById(id)) {
+            return false;
+        }
+        repository.deleteById(id);
+        evictAfterCommit();
+        return true;
+    }
+
+    /**
+     * Drops the current tenant's scanner once the rule change is committed. Evicting earlier would
+     * let an extraction reload and cache the uncommitted rules for the whole TTL.
+     */
+    private void evictAfterCommit() {
+        String tenant = TenantContext.getCurrentTenant();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(tenant);
+                }
+            });
+        } else {
+            evict(tenant);
+        }
+    }
+
+    private void evict(String tenant) {
+        changedAt.put(tenant, System.nanoTime());
+        scanners.remove(tenant);
+    }
+}
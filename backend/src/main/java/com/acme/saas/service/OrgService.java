@@ -1,5 +1,6 @@
 package com.acme.saas.service;
 
+import com.acme.saas.config.ServesHttp;
 import com.acme.saas.domain.Org;
 import com.acme.saas.repository.OrgRepository;
 import org.flywaydb.core.Flyway;
@@ -15,6 +16,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 @Service
+@ServesHttp
 public class OrgService {
 
     private static final Logger log = LoggerFactory.getLogger(OrgService.class);
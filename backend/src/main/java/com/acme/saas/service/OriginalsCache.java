@@ -0,0 +1,309 @@
+package com.acme.saas.service;
+
+import com.acme.saas.deadline.RequestDeadline;
+import com.acme.saas.exception.DeadlineExceededException;
+import com.acme.saas.exception.FileStorageException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * Node-local disk cache of original documents from S3, evicting the least recently used once
+ * it holds more than its maximum size.
+ *
+ * Files are named by a hash of a content id the caller derives from the object's content, such
+ * as its ETag, rather than by its key. The same content stored under several keys, e.g. a
+ * re-upload or an imported copy, is then cached once, and an object replaced under its key is
+ * never served from the copy of its old content. A miss is filled into a temporary file that is
+ * moved into place once complete, so readers never see a partial file, and concurrent misses for
+ * the same content wait for one fill instead of each downloading it.
+ */
+@Component
+public class OriginalsCache {
+
+    private static final Logger log = LoggerFactory.getLogger(OriginalsCache.class);
+
+    /**
+     * Writes the complete object to the given file.
+     */
+    @FunctionalInterface
+    public interface Filler {
+        void fill(Path target) throws IOException;
+    }
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxBytes;
+
+    // Sizes of the cached files by file name, least recently used first; guarded by itself
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    // Fills in progress by file name, joined by concurrent misses for the same object
+    private final Map<String, CompletableFuture<Path>> filling = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public OriginalsCache(
+            @Value("${storage.cache.enabled:true}") boolean enabled,
+            @Value("${storage.cache.directory:${java.io.tmpdir}/rfp-originals}") Path directory,
+            @Value("${storage.cache.max-size:10GB}") DataSize maxSize,
+            MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.maxBytes = maxSize.toBytes();
+        this.meterRegistry = meterRegistry;
+        this.hits = meterRegistry.counter("storage.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("storage.cache.requests", "result", "miss");
+        this.evictions = meterRegistry.counter("storage.cache.evictions");
+        this.enabled = enabled && maxBytes > 0 && load();
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("storage.cache.size", this, OriginalsCache::size).baseUnit("bytes").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether {@link #open} caches an object of this size, so callers can skip working out its
+     * content id otherwise.
+     */
+    public boolean takes(Long size) {
+        return enabled && size != null && size <= maxBytes;
+    }
+
+    /**
+     * Opens the cached copy of an object's content, filling the cache first on a miss. Objects
+     * the cache does not take, see {@link #takes}, are returned null so the caller reads them
+     * from S3.
+     *
+     * @param contentId identifies the object's content, e.g. its ETag and size
+     */
+    public InputStream open(String contentId, Long size, Filler filler) {
+        if (!takes(size)) {
+            return null;
+        }
+        String name = nameFor(contentId);
+        if (touch(name)) {
+            try {
+                InputStream in = Files.newInputStream(directory.resolve(name));
+                hits.increment();
+                return in;
+            } catch (NoSuchFileException e) {
+                forget(name);
+            } catch (IOException e) {
+                throw new FileStorageException("Failed to read cached file: " + e.getMessage(), e);
+            }
+        }
+        misses.increment();
+
+        CompletableFuture<Path> fill = new CompletableFuture<>();
+        CompletableFuture<Path> running = filling.putIfAbsent(name, fill);
+        Path path;
+        if (running != null) {
+            path = await(running);
+        } else {
+            try {
+                path = fill(name, filler);
+                fill.complete(path);
+            } catch (RuntimeException e) {
+                fill.completeExceptionally(e);
+                throw e;
+            } finally {
+                filling.remove(name, fill);
+            }
+        }
+        try {
+            return Files.newInputStream(path);
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to read cached file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Drops the cached copy of some content, e.g. once its object has been deleted.
+     */
+    public void invalidate(String contentId) {
+        if (enabled) {
+            String name = nameFor(contentId);
+            if (forget(name)) {
+                deleteQuietly(directory.resolve(name));
+            }
+        }
+    }
+
+    long size() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    /**
+     * @return whether the file is cached, marking it as most recently used if so
+     */
+    private boolean touch(String name) {
+        synchronized (entries) {
+            return entries.get(name) != null;
+        }
+    }
+
+    private Path fill(String name, Filler filler) {
+        Path target = directory.resolve(name);
+        Path temp = directory.resolve(name + "." + UUID.randomUUID() + ".tmp");
+        try {
+            filler.fill(temp);
+            long length = Files.size(temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            add(name, length);
+            return target;
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to fill cache: " + e.getMessage(), e);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    private void add(String name, long length) {
+        List<String> evicted = new ArrayList<>();
+        synchronized (entries) {
+            Long previous = entries.put(name, length);
+            totalBytes += length - (previous != null ? previous : 0);
+            var eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                if (entry.getKey().equals(name)) {
+                    continue;
+                }
+                totalBytes -= entry.getValue();
+                evicted.add(entry.getKey());
+                eldest.remove();
+            }
+        }
+        // A reader that still has an evicted file open keeps reading it after the delete
+        for (String key : evicted) {
+            deleteQuietly(directory.resolve(key));
+            evictions.increment();
+        }
+    }
+
+    private boolean forget(String name) {
+        synchronized (entries) {
+            Long length = entries.remove(name);
+            if (length == null) {
+                return false;
+            }
+            totalBytes -= length;
+            return true;
+        }
+    }
+
+    /**
+     * Waits for another request's fill, but no longer than the request deadline. The fill itself
+     * carries on for the requests still waiting on it.
+     */
+    private static Path await(CompletableFuture<Path> fill) {
+        try {
+            Optional<Duration> remaining = RequestDeadline.remainingFor("S3 download");
+            return remaining.isEmpty()
+                    ? fill.join()
+                    : fill.get(remaining.get().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("Request deadline passed while waiting to download from S3");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileStorageException("Interrupted while waiting for S3", e);
+        } catch (CompletionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    private static String nameFor(String contentId) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(contentId.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Creates the directory and takes over the files left by an earlier run, least recently
+     * modified first, and deletes unfinished fills.
+     *
+     * @return false if the directory cannot be used, which disables the cache
+     */
+    private boolean load() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(Files::isRegularFile).toList();
+            }
+            List<Map.Entry<Path, BasicFileAttributes>> kept = new ArrayList<>();
+            for (Path file : files) {
+                if (file.getFileName().toString().endsWith(".tmp")) {
+                    deleteQuietly(file);
+                } else {
+                    kept.add(Map.entry(file, Files.readAttributes(file, BasicFileAttributes.class)));
+                }
+            }
+            kept.sort(Comparator.comparing(entry -> entry.getValue().lastModifiedTime()));
+            for (Map.Entry<Path, BasicFileAttributes> entry : kept) {
+                add(entry.getKey().getFileName().toString(), entry.getValue().size());
+            }
+            return true;
+        } catch (IOException e) {
+            log.warn("Disk cache disabled, cannot use {}: {}", directory, e.getMessage());
+            return false;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Failed to delete {}: {}", file, e.getMessage());
+        }
+    }
+}
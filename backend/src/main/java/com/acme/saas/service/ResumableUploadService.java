@@ -0,0 +1,344 @@
+package com.acme.saas.service;
+
+import com.acme.saas.config.ServesHttp;
+import com.acme.saas.domain.RfpDocument;
+import com.acme.saas.domain.UploadSession;
+import com.acme.saas.dto.DirectUpload;
+import com.acme.saas.repository.RfpDocumentRepository;
+import com.acme.saas.repository.UploadSessionRepository;
+import com.acme.saas.tenancy.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Resumable uploads of large files over unreliable connections.
+ *
+ * A client creates a session for the file, then sends it in chunks, each at the offset the
+ * session has received so far. Every chunk is streamed straight into one part of an S3
+ * multipart upload, so nothing is buffered here, and a failed chunk is retried on its own
+ * after asking for the current offset. Finishing the session assembles the object and
+ * creates the document like any other upload.
+ *
+ * A direct session instead hands the client presigned URLs for its tenant's key, and the
+ * bytes go to S3 without passing through this service at all. Completing it checks the
+ * stored object before creating the document.
+ */
+@Service
+@ServesHttp
+public class ResumableUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ResumableUploadService.class);
+
+    // S3 minimum size for every part but the last, and maximum number of parts
+    public static final long MIN_CHUNK_SIZE = 5L * 1024 * 1024;
+    private static final int MAX_PARTS = 10_000;
+
+    private final UploadSessionRepository sessionRepository;
+    private final RfpDocumentRepository documentRepository;
+    private final FileStorageService storageService;
+    private final DocumentProcessingService processingService;
+    private final long maxSize;
+    private final Duration expireAfter;
+    private final long directPartSize;
+    private final Duration directUrlTtl;
+
+    public ResumableUploadService(
+            UploadSessionRepository sessionRepository,
+            RfpDocumentRepository documentRepository,
+            FileStorageService storageService,
+            DocumentProcessingService processingService,
+            @Value("${upload.resumable.max-size:1GB}") DataSize maxSize,
+            @Value("${upload.resumable.expire-after:P1D}") Duration expireAfter,
+            @Value("${upload.direct.part-size:64MB}") DataSize directPartSize,
+            @Value("${upload.direct.url-ttl:PT1H}") Duration directUrlTtl) {
+        this.sessionRepository = sessionRepository;
+        this.documentRepository = documentRepository;
+        this.storageService = storageService;
+        this.processingService = processingService;
+        this.maxSize = maxSize.toBytes();
+        this.expireAfter = expireAfter;
+        if (directPartSize.toBytes() < MIN_CHUNK_SIZE) {
+            throw new IllegalArgumentException("upload.direct.part-size must be at least 5MB");
+        }
+        this.directPartSize = directPartSize.toBytes();
+        this.directUrlTtl = directUrlTtl;
+    }
+
+    /**
+     * Opens a session for a file of the given size in the current tenant.
+     */
+    public UploadSession create(String filename, String contentType, long size, String tenantId) {
+        validate(filename, contentType, size);
+
+        String storagePath = storageService.newKey(tenantId, filename);
+        UploadSession session = newSession(filename, contentType, size, storagePath);
+        session.setS3UploadId(storageService.createMultipartUpload(storagePath, contentType));
+        return sessionRepository.save(session);
+    }
+
+    /**
+     * Opens a session whose client uploads straight to S3, under a key in the current tenant's area.
+     * Files up to the part size get one presigned PUT; larger ones a presigned PUT per part.
+     */
+    public DirectUpload createDirect(String filename, String contentType, long size, String tenantId) {
+        validate(filename, contentType, size);
+
+        String storagePath = storageService.newKey(tenantId, filename);
+        UploadSession session = newSession(filename, contentType, size, storagePath);
+        session.setDirect(true);
+        Instant expiresAt = Instant.now().plus(directUrlTtl);
+        if (size <= directPartSize) {
+            session = sessionRepository.save(session);
+            String url = storageService.presignPut(storagePath, contentType, size, directUrlTtl).toString();
+            return new DirectUpload(session.getId(), url, Map.of("Content-Type", contentType), null, null, expiresAt);
+        }
+
+        int partCount = (int) Math.ceilDiv(size, directPartSize);
+        if (partCount > MAX_PARTS) {
+            throw new IllegalArgumentException("File too large for upload.direct.part-size");
+        }
+        session.setS3UploadId(storageService.createMultipartUpload(storagePath, contentType));
+        session = sessionRepository.save(session);
+        List<DirectUpload.PartUrl> parts = new ArrayList<>(partCount);
+        for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+            parts.add(new DirectUpload.PartUrl(partNumber, storageService.presignUploadPart(
+                    storagePath, session.getS3UploadId(), partNumber, directUrlTtl).toString()));
+        }
+        return new DirectUpload(session.getId(), null, null, parts, directPartSize, expiresAt);
+    }
+
+    private void validate(String filename, String contentType, long size) {
+        if (filename == null || filename.isBlank()) {
+            throw new IllegalArgumentException("filename is required");
+        }
+        if (!RfpDocumentService.isAllowedContentType(contentType)) {
+            throw new IllegalArgumentException("File type not allowed. Allowed types: PDF, DOCX, DOC, TXT");
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        if (size > maxSize) {
+            throw new IllegalArgumentException("File size exceeds maximum allowed size of " + DataSize.ofBytes(maxSize).toMegabytes() + "MB");
+        }
+    }
+
+    private static UploadSession newSession(String filename, String contentType, long size, String storagePath) {
+        UploadSession session = new UploadSession();
+        session.setTenantSchema(TenantContext.getCurrentTenant());
+        session.setOriginalFilename(filename);
+        session.setContentType(contentType);
+        session.setTotalSize(size);
+        session.setStoragePath(storagePath);
+        return session;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the current tenant has no such session
+     */
+    public UploadSession get(UUID id) {
+        return sessionRepository.findByIdAndTenantSchema(id, TenantContext.getCurrentTenant())
+                .orElseThrow(() -> new IllegalArgumentException("Upload session not found: " + id));
+    }
+
+    /**
+     * Streams a chunk into the next part. Chunks are at least {@link #MIN_CHUNK_SIZE}, except the last.
+     *
+     * @return the offset of the next chunk
+     * @throws IllegalStateException if the offset is not the session's current offset or the session is closed
+     */
+    public long appendChunk(UUID id, long offset, InputStream content, long length) {
+        UploadSession session = get(id);
+        if (session.isDirect()) {
+            throw new IllegalArgumentException("Direct upload sessions are uploaded to S3, not in chunks");
+        }
+        if (session.getStatus() != UploadSession.Status.OPEN) {
+            throw new IllegalStateException("Upload session is " + session.getStatus());
+        }
+        if (offset != session.getReceivedBytes()) {
+            throw new IllegalStateException("Expected offset " + session.getReceivedBytes());
+        }
+        if (length <= 0 || offset + length > session.getTotalSize()) {
+            throw new IllegalArgumentException("Chunk must be non-empty and end within the file size");
+        }
+        boolean last = offset + length == session.getTotalSize();
+        if (!last && length < MIN_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunks other than the last must be at least " + MIN_CHUNK_SIZE + " bytes");
+        }
+        if (!last && session.getParts() + 1 >= MAX_PARTS) {
+            throw new IllegalArgumentException("Too many chunks; use larger chunks");
+        }
+
+        // Part numbers follow the offset, so a retried chunk replaces its failed attempt. A duplicate
+        // sent while the first is still streaming writes the same part; completing checks its ETag.
+        String eTag = storageService.uploadPart(
+                session.getStoragePath(), session.getS3UploadId(), session.getParts() + 1, content, length);
+        if (sessionRepository.recordChunk(id, offset, length, eTag, OffsetDateTime.now()) == 0) {
+            throw new IllegalStateException("A chunk at offset " + offset + " was already received");
+        }
+        return offset + length;
+    }
+
+    /**
+     * Assembles the uploaded file and creates its document, whose full extraction is queued.
+     * Every part must still hold the chunk recorded for it. For a direct session, the object the
+     * client stored must be there with the declared size.
+     *
+     * @throws IllegalStateException if chunks or parts are missing or replaced, or the session is closed
+     */
+    @Transactional
+    public RfpDocument complete(UUID id) {
+        UploadSession session = get(id);
+        if (session.getStatus() != UploadSession.Status.OPEN) {
+            throw new IllegalStateException("Upload session is " + session.getStatus());
+        }
+        if (session.isDirect()) {
+            return completeDirect(session);
+        }
+        if (session.getReceivedBytes() != session.getTotalSize()) {
+            throw new IllegalStateException("Received " + session.getReceivedBytes() + " of " + session.getTotalSize() + " bytes");
+        }
+
+        String storagePath = session.getStoragePath();
+        // An object under the session's key was assembled by an earlier completion whose commit failed
+        OptionalLong stored = storageService.objectSize(storagePath);
+        if (stored.isPresent() && stored.getAsLong() != session.getTotalSize()) {
+            throw new IllegalStateException("Uploaded file is " + stored.getAsLong() + " bytes, expected " + session.getTotalSize());
+        }
+        if (stored.isEmpty()) {
+            checkParts(session);
+        }
+
+        RfpDocument document = newDocument(session);
+        if (sessionRepository.close(id, UploadSession.Status.COMPLETED, document.getId(), OffsetDateTime.now()) == 0) {
+            throw new IllegalStateException("Upload session is already closed");
+        }
+        document = documentRepository.save(document);
+
+        // Last, so a failure here rolls the session back to OPEN and completing can be retried
+        if (stored.isEmpty()) {
+            storageService.completeMultipartUpload(storagePath, session.getS3UploadId());
+        }
+        processingService.scheduleFullExtraction(document);
+        return document;
+    }
+
+    /**
+     * Checks that S3 holds exactly the parts recorded for the session's chunks. Two chunks sent at
+     * the same offset at once both upload that part; if the one that was not recorded finished
+     * last, its bytes replaced the recorded chunk.
+     */
+    private void checkParts(UploadSession session) {
+        String[] recorded = session.getPartETags();
+        Map<Integer, String> uploaded = storageService.uploadedPartETags(session.getStoragePath(), session.getS3UploadId());
+        if (uploaded.size() != recorded.length) {
+            throw new IllegalStateException("S3 holds " + uploaded.size() + " parts, expected " + recorded.length);
+        }
+        for (int i = 0; i < recorded.length; i++) {
+            if (!recorded[i].equals(uploaded.get(i + 1))) {
+                throw new IllegalStateException("Part " + (i + 1) + " was overwritten by a conflicting chunk; "
+                        + "abort the upload and start it again");
+            }
+        }
+    }
+
+    private RfpDocument completeDirect(UploadSession session) {
+        String storagePath = session.getStoragePath();
+        OptionalLong stored = storageService.objectSize(storagePath);
+        if (stored.isEmpty() && session.getS3UploadId() != null) {
+            // Not assembled yet; a retried completion finds the object already there
+            long uploaded = storageService.uploadedPartsSize(storagePath, session.getS3UploadId());
+            if (uploaded != session.getTotalSize()) {
+                throw new IllegalStateException("Uploaded parts hold " + uploaded + " of " + session.getTotalSize() + " bytes");
+            }
+            storageService.completeMultipartUpload(storagePath, session.getS3UploadId());
+            stored = storageService.objectSize(storagePath);
+        }
+        if (stored.isEmpty()) {
+            throw new IllegalStateException("No file has been uploaded yet");
+        }
+        if (stored.getAsLong() != session.getTotalSize()) {
+            throw new IllegalStateException("Uploaded file is " + stored.getAsLong() + " bytes, expected " + session.getTotalSize());
+        }
+
+        RfpDocument document = newDocument(session);
+        if (sessionRepository.close(session.getId(), UploadSession.Status.COMPLETED, document.getId(), OffsetDateTime.now()) == 0) {
+            throw new IllegalStateException("Upload session is already closed");
+        }
+        document = documentRepository.save(document);
+        processingService.scheduleFullExtraction(document);
+        return document;
+    }
+
+    private static RfpDocument newDocument(UploadSession session) {
+        String storagePath = session.getStoragePath();
+        RfpDocument document = new RfpDocument();
+        document.setFilename(storagePath.substring(storagePath.lastIndexOf('/') + 1));
+        document.setOriginalFilename(session.getOriginalFilename());
+        document.setContentType(session.getContentType());
+        document.setFileSize(session.getTotalSize());
+        document.setStoragePath(storagePath);
+        document.setStatus(RfpDocument.DocumentStatus.PROCESSING);
+        return document;
+    }
+
+    /**
+     * Discards the session and its uploaded chunks.
+     *
+     * @return whether the session was open
+     */
+    public boolean abort(UUID id) {
+        return abort(get(id));
+    }
+
+    /**
+     * Aborts sessions of every tenant that received nothing for longer than the expiry,
+     * so their parts stop taking up storage.
+     */
+    @Scheduled(fixedDelayString = "${upload.resumable.sweep-interval:PT1H}")
+    public void abortExpired() {
+        OffsetDateTime before = OffsetDateTime.now().minus(expireAfter);
+        int aborted = 0;
+        for (UploadSession session : sessionRepository.findByStatusAndUpdatedAtBefore(
+                UploadSession.Status.OPEN, before, PageRequest.of(0, 100))) {
+            try {
+                if (abort(session)) {
+                    aborted++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to abort expired upload session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+        if (aborted > 0) {
+            log.info("Aborted {} expired upload sessions", aborted);
+        }
+    }
+
+    private boolean abort(UploadSession session) {
+        if (sessionRepository.close(session.getId(), UploadSession.Status.ABORTED, null, OffsetDateTime.now()) == 0) {
+            return false;
+        }
+        if (session.getS3UploadId() != null) {
+            storageService.abortMultipartUpload(session.getStoragePath(), session.getS3UploadId());
+        } else {
+            // A presigned PUT may have stored the file without the session being completed
+            storageService.deleteFile(session.getStoragePath());
+        }
+        return true;
+    }
+}
@@ -1,47 +1,100 @@
 package com.acme.saas.service;
 
+import com.acme.saas.config.ServesHttp;
 import com.acme.saas.domain.RfpDocument;
+import com.acme.saas.dto.DocumentUpload;
+import com.acme.saas.dto.ExtractionPreview;
 import com.acme.saas.repository.RfpDocumentRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
+@ServesHttp
 public class RfpDocumentService {
+    public static final long MAX_FILE_SIZE = 50 * 1024 * 1024; // 50MB
+
     private final RfpDocumentRepository repository;
     private final FileStorageService storageService;
     private final DocumentExtractionService extractionService;
+    private final DocumentProcessingService processingService;
 
     public RfpDocumentService(
             RfpDocumentRepository repository,
             FileStorageService storageService,
-            DocumentExtractionService extractionService) {
+            DocumentExtractionService extractionService,
+            DocumentProcessingService processingService) {
         this.repository = repository;
         this.storageService = storageService;
         this.extractionService = extractionService;
+        this.processingService = processingService;
     }
     
+    /**
+     * Stores the file and runs the full extraction before returning.
+     */
     @Transactional
     public RfpDocument uploadDocument(MultipartFile file, String tenantId) throws IOException {
-        // Validate file
-        if (file == null || file.isEmpty()) {
-            throw new IllegalArgumentException("File cannot be empty");
+        return uploadDocument(file, tenantId, null);
+    }
+
+    /**
+     * @param previousVersionId document this upload revises; its unchanged pages, sections and
+     *                          sheets are reused instead of being extracted again. May be null.
+     */
+    @Transactional
+    public RfpDocument uploadDocument(MultipartFile file, String tenantId, UUID previousVersionId) throws IOException {
+        RfpDocument document = storeDocument(file, tenantId, previousVersionId);
+
+        // Trigger document extraction
+        try {
+            extractionService.extractDocument(document);
+            document.setStatus(RfpDocument.DocumentStatus.COMPLETED);
+        } catch (Exception e) {
+            document.setStatus(RfpDocument.DocumentStatus.FAILED);
+            document.setErrorMessage(e.getMessage());
         }
-        
-        // Validate file type (allow PDF, DOCX, DOC, etc.)
-        String contentType = file.getContentType();
-        if (contentType == null || !isAllowedContentType(contentType)) {
-            throw new IllegalArgumentException("File type not allowed. Allowed types: PDF, DOCX, DOC, TXT");
+        document = repository.save(document);
+
+        return document;
+    }
+
+    /**
+     * Stores the file, extracts a bounded preview from the uploaded bytes and queues the
+     * full extraction in the background. The document stays PROCESSING until it finishes.
+     */
+    @Transactional
+    public DocumentUpload uploadDocumentWithPreview(MultipartFile file, String tenantId) throws IOException {
+        return uploadDocumentWithPreview(file, tenantId, null);
+    }
+
+    @Transactional
+    public DocumentUpload uploadDocumentWithPreview(MultipartFile file, String tenantId, UUID previousVersionId)
+            throws IOException {
+        RfpDocument document = storeDocument(file, tenantId, previousVersionId);
+        document.setStatus(RfpDocument.DocumentStatus.PROCESSING);
+        document = repository.save(document);
+
+        // Read from the request body rather than downloading from storage again
+        Optional<ExtractionPreview> preview;
+        try (InputStream content = file.getInputStream()) {
+            preview = processingService.preview(document, content);
         }
-        
-        // Validate file size (max 50MB)
-        long maxSize = 50 * 1024 * 1024; // 50MB
-        if (file.getSize() > maxSize) {
-            throw new IllegalArgumentException("File size exceeds maximum allowed size of 50MB");
+        processingService.scheduleFullExtraction(document);
+
+        return new DocumentUpload(document, preview.orElse(null));
+    }
+
+    private RfpDocument storeDocument(MultipartFile file, String tenantId, UUID previousVersionId) throws IOException {
+        validate(file);
+        if (previousVersionId != null && !repository.existsById(previousVersionId)) {
+            throw new IllegalArgumentException("Previous version not found: " + previousVersionId);
         }
         
         // Store file
@@ -52,23 +105,34 @@ public class RfpDocumentService {
         document.setId(UUID.randomUUID());
         document.setFilename(storagePath.substring(storagePath.lastIndexOf('/') + 1));
         document.setOriginalFilename(file.getOriginalFilename());
-        document.setContentType(contentType);
+        document.setContentType(file.getContentType());
         document.setFileSize(file.getSize());
         document.setStoragePath(storagePath);
+        document.setPreviousVersionId(previousVersionId);
         document.setStatus(RfpDocument.DocumentStatus.UPLOADED);
-        document = repository.save(document);
+        return repository.save(document);
+    }
 
-        // Trigger document extraction
-        try {
-            extractionService.extractDocument(document);
-            document.setStatus(RfpDocument.DocumentStatus.COMPLETED);
-        } catch (Exception e) {
-            document.setStatus(RfpDocument.DocumentStatus.FAILED);
-            document.setErrorMessage(e.getMessage());
+    /**
+     * Checks that the file may be uploaded as a document.
+     *
+     * @throws IllegalArgumentException if it is empty, of an unsupported type or too large
+     */
+    public void validate(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("File cannot be empty");
+        }
+        
+        // Validate file type (allow PDF, DOCX, DOC, etc.)
+        String contentType = file.getContentType();
+        if (contentType == null || !isAllowedContentType(contentType)) {
+            throw new IllegalArgumentException("File type not allowed. Allowed types: PDF, DOCX, DOC, TXT");
+        }
+        
+        // Validate file size (max 50MB)
+        if (file.getSize() > MAX_FILE_SIZE) {
+            throw new IllegalArgumentException("File size exceeds maximum allowed size of 50MB");
         }
-        document = repository.save(document);
-
-        return document;
     }
     
     @Transactional(readOnly = true)
@@ -82,14 +146,30 @@ public class RfpDocumentService {
             .orElseThrow(() -> new IllegalArgumentException("Document not found: " + id));
     }
     
+    /**
+     * Deletes the document and its file. Deleting a package also deletes its members.
+     */
     @Transactional
     public void deleteDocument(UUID id) throws IOException {
         RfpDocument document = getDocument(id);
+        for (RfpDocument member : repository.findByPackageIdOrderByOriginalFilename(id)) {
+            storageService.deleteFile(member.getStoragePath());
+            repository.delete(member);
+        }
         storageService.deleteFile(document.getStoragePath());
         repository.delete(document);
     }
+
+    /**
+     * Member documents of a package, by name.
+     */
+    @Transactional(readOnly = true)
+    public List<RfpDocument> getPackageMembers(UUID packageId) {
+        getDocument(packageId);
+        return repository.findByPackageIdOrderByOriginalFilename(packageId);
+    }
     
-    private boolean isAllowedContentType(String contentType) {
+    static boolean isAllowedContentType(String contentType) {
         return contentType != null && (
             contentType.equals("application/pdf") ||
             contentType.equals("application/vnd.openxmlformats-officedocument.wordprocessingml.document") || // DOCX
@@ -0,0 +1,218 @@
+package com.acme.saas.service;
+
+import com.acme.saas.domain.RfpDocumentExtraction;
+import com.acme.saas.dto.ExtractedTable;
+import com.acme.saas.dto.TableRowMatch;
+import com.acme.saas.extraction.KeyValueNormalizer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Maintains the normalized extraction_table_cells table and answers row-level cell
+ * predicates ("rows where plan = PPO and tier = employee") with index lookups,
+ * so table payloads never have to be loaded and deserialized in the JVM.
+ */
+@Service
+public class TableCellIndexService {
+    private static final Logger log = LoggerFactory.getLogger(TableCellIndexService.class);
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+    public static final int MAX_PREDICATES = 10;
+    private static final int BATCH_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final int maxCellsPerDocument;
+
+    public record CellPredicate(String column, String value) {}
+
+    public TableCellIndexService(@Value("${extraction.table-index.max-cells:200000}") int maxCellsPerDocument) {
+        this.maxCellsPerDocument = maxCellsPerDocument;
+    }
+
+    /**
+     * Replaces the indexed cells of the extraction's document with the cells of the given tables.
+     * Uses a JDBC batch on the tenant-scoped session connection; cells past the per-document cap are skipped.
+     */
+    @Transactional
+    public void index(RfpDocumentExtraction extraction, List<ExtractedTable> tables) {
+        Session session = entityManager.unwrap(Session.class);
+        // The extraction row must be written before cells can reference it
+        session.flush();
+        session.doWork(connection -> {
+            try (PreparedStatement delete = connection.prepareStatement(
+                    "DELETE FROM extraction_table_cells WHERE document_id = ?")) {
+                delete.setObject(1, extraction.getDocumentId());
+                delete.executeUpdate();
+            }
+
+            int written = 0;
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO extraction_table_cells (extraction_id, document_id, table_index, table_name, "
+                            + "row_index, column_index, column_key, raw_value, value_text) "
+                            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                int pending = 0;
+                tables:
+                for (int t = 0; t < tables.size(); t++) {
+                    ExtractedTable table = tables.get(t);
+                    List<List<String>> rows = table.rows();
+                    if (rows == null || rows.size() < 2) {
+                        continue; // header only, nothing to query
+                    }
+                    List<String> columnKeys = columnKeys(rows.get(0));
+                    for (int r = 1; r < rows.size(); r++) {
+                        List<String> row = rows.get(r);
+                        for (int c = 0; c < row.size(); c++) {
+                            String value = row.get(c);
+                            if (value == null || value.isBlank()) {
+                                continue;
+                            }
+                            if (written >= maxCellsPerDocument) {
+                                log.warn("Table cell index capped at {} cells for document {}",
+                                        maxCellsPerDocument, extraction.getDocumentId());
+                                break tables;
+                            }
+                            insert.setObject(1, extraction.getId());
+                            insert.setObject(2, extraction.getDocumentId());
+                            insert.setInt(3, t);
+                            insert.setString(4, table.name() != null ? table.name() : "");
+                            insert.setInt(5, r);
+                            insert.setInt(6, c);
+                            insert.setString(7, c < columnKeys.size() ? columnKeys.get(c) : "column " + (c + 1));
+                            insert.setString(8, value);
+                            insert.setString(9, KeyValueNormalizer.normalizeText(value));
+                            insert.addBatch();
+                            written++;
+                            if (++pending == BATCH_SIZE) {
+                                insert.executeBatch();
+                                pending = 0;
+                            }
+                        }
+                    }
+                }
+                if (pending > 0) {
+                    insert.executeBatch();
+                }
+            }
+            log.debug("Indexed {} table cells for document {}", written, extraction.getDocumentId());
+        });
+    }
+
+    /**
+     * Finds table rows where every predicate matches a cell in that row (case-insensitive equality).
+     * Column names are matched after normalization against the table's header row.
+     */
+    @Transactional(readOnly = true)
+    public List<TableRowMatch> findRows(List<CellPredicate> predicates, int limit) {
+        if (predicates == null || predicates.isEmpty()) {
+            throw new IllegalArgumentException("At least one cell predicate is required");
+        }
+        if (predicates.size() > MAX_PREDICATES) {
+            throw new IllegalArgumentException("At most " + MAX_PREDICATES + " predicates are supported");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        // Column keys are unique within a row, so a row matches when it has a cell for every distinct
+        // (column, value) pair; two values for one column can never both match
+        Set<Map.Entry<String, String>> distinctPredicates = new LinkedHashSet<>();
+        for (CellPredicate predicate : predicates) {
+            String column = KeyValueNormalizer.normalizeKey(predicate.column());
+            if (column.isEmpty()) {
+                throw new IllegalArgumentException("Predicate column cannot be empty");
+            }
+            distinctPredicates.add(Map.entry(column, KeyValueNormalizer.normalizeText(predicate.value())));
+        }
+        List<String> conditions = new ArrayList<>();
+        // The index is on md5 of both texts, so cells of any length can be indexed
+        for (int i = 0; i < distinctPredicates.size(); i++) {
+            conditions.add("(md5(column_key) = md5(:k" + i + ") AND md5(value_text) = md5(:v" + i + ")"
+                    + " AND column_key = :k" + i + " AND value_text = :v" + i + ")");
+        }
+
+        // Rows are matched (and limited) on the index first, then only their cells are read back
+        String sql = "WITH matched AS ("
+                + "  SELECT document_id, table_index, row_index FROM extraction_table_cells "
+                + "  WHERE " + String.join(" OR ", conditions)
+                + "  GROUP BY document_id, table_index, row_index "
+                + "  HAVING count(DISTINCT (column_key, value_text)) = :predicateCount "
+                + "  ORDER BY document_id, table_index, row_index "
+                + "  LIMIT :limit"
+                + ") "
+                + "SELECT c.document_id, c.table_index, c.table_name, c.row_index, c.column_key, c.raw_value "
+                + "FROM extraction_table_cells c "
+                + "JOIN matched m ON m.document_id = c.document_id AND m.table_index = c.table_index "
+                + "  AND m.row_index = c.row_index "
+                + "ORDER BY c.document_id, c.table_index, c.row_index, c.column_index";
+
+        NativeQuery<?> query = entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addScalar("document_id", UUID.class)
+                .addScalar("table_index", Integer.class)
+                .addScalar("table_name", String.class)
+                .addScalar("row_index", Integer.class)
+                .addScalar("column_key", String.class)
+                .addScalar("raw_value", String.class)
+                .setParameter("predicateCount", distinctPredicates.size())
+                .setParameter("limit", limit);
+        int i = 0;
+        for (Map.Entry<String, String> predicate : distinctPredicates) {
+            query.setParameter("k" + i, predicate.getKey());
+            query.setParameter("v" + i, predicate.getValue());
+            i++;
+        }
+
+        List<TableRowMatch> matches = new ArrayList<>();
+        TableRowMatch current = null;
+        for (Object result : query.getResultList()) {
+            Object[] row = (Object[]) result;
+            UUID documentId = (UUID) row[0];
+            int tableIndex = (Integer) row[1];
+            int rowIndex = (Integer) row[3];
+            if (current == null || !current.documentId().equals(documentId)
+                    || current.tableIndex() != tableIndex || current.rowIndex() != rowIndex) {
+                current = new TableRowMatch(documentId, tableIndex, (String) row[2], rowIndex, new LinkedHashMap<>());
+                matches.add(current);
+            }
+            current.cells().put((String) row[4], (String) row[5]);
+        }
+        return matches;
+    }
+
+    /**
+     * Derives unique column keys from the header row: normalized header text,
+     * "column N" for blank headers, and a numeric suffix for repeated headers.
+     */
+    static List<String> columnKeys(List<String> header) {
+        List<String> keys = new ArrayList<>(header.size());
+        Map<String, Integer> seen = new LinkedHashMap<>();
+        for (int c = 0; c < header.size(); c++) {
+            String key = KeyValueNormalizer.normalizeKey(header.get(c));
+            if (key.isEmpty()) {
+                key = "column " + (c + 1);
+            }
+            int occurrences = seen.merge(key, 1, Integer::sum);
+            keys.add(occurrences == 1 ? key : key + " " + occurrences);
+        }
+        return keys;
+    }
+}
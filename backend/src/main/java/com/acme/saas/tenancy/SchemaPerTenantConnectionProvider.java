@@ -1,5 +1,6 @@
 package com.acme.saas.tenancy;
 
+import com.acme.saas.deadline.RequestDeadline;
 import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -7,6 +8,8 @@ import org.springframework.stereotype.Component;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Optional;
 
 @Component
 public class SchemaPerTenantConnectionProvider implements MultiTenantConnectionProvider<String> {
@@ -28,7 +31,11 @@ public class SchemaPerTenantConnectionProvider implements MultiTenantConnectionP
     public Connection getConnection(String tenantIdentifier) throws SQLException {
         final Connection connection = getAnyConnection();
         try {
-            connection.createStatement().execute("set search_path to " + tenantIdentifier + ",public");
+            // Statements of a request with a deadline are cancelled by Postgres once it passes
+            Optional<Duration> remaining = RequestDeadline.remaining();
+            String timeout = remaining.isEmpty() ? "default" : String.valueOf(Math.max(1, remaining.get().toMillis()));
+            connection.createStatement().execute("set search_path to " + tenantIdentifier + ",public; "
+                    + "set statement_timeout to " + timeout);
         } catch (SQLException e) {
             throw new SQLException("Could not alter JDBC connection to specified schema [" + tenantIdentifier + "]", e);
         }
@@ -38,7 +45,7 @@ public class SchemaPerTenantConnectionProvider implements MultiTenantConnectionP
     @Override
     public void releaseConnection(String tenantIdentifier, Connection connection) throws SQLException {
         try {
-            connection.createStatement().execute("set search_path to public");
+            connection.createStatement().execute("set search_path to public; set statement_timeout to default");
         } catch (SQLException e) {
             // ignore
         }
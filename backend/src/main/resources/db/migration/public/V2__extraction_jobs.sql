@@ -0,0 +1,13 @@
+-- Full extractions queued by API nodes for worker nodes, across tenants. Workers take rows with
+-- FOR UPDATE SKIP LOCKED and delete them; a document taken by a worker that then dies is still
+-- PROCESSING in its tenant schema and is picked up by the stalled-extraction sweep.
+CREATE TABLE IF NOT EXISTS extraction_jobs (
+  id BIGSERIAL PRIMARY KEY,
+  tenant_schema TEXT NOT NULL,
+  document_id UUID NOT NULL,
+  lane TEXT NOT NULL,
+  cost BIGINT NOT NULL,
+  heap_bytes BIGINT NOT NULL,
+  enqueued_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  UNIQUE (tenant_schema, document_id)
+);
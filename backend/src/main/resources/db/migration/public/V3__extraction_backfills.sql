@@ -0,0 +1,21 @@
+-- Admin-triggered re-extraction of documents extracted by an older extractor version, for one
+-- tenant or for every tenant (tenant_schema NULL). One worker at a time runs a backfill and
+-- checkpoints its position (current_tenant, cursor_document_id) after each batch.
+CREATE TABLE IF NOT EXISTS extraction_backfills (
+  id UUID PRIMARY KEY,
+  tenant_schema TEXT,
+  target_version INT NOT NULL,
+  status TEXT NOT NULL,
+  current_tenant TEXT,
+  cursor_document_id UUID,
+  documents_done INT NOT NULL DEFAULT 0,
+  documents_failed INT NOT NULL DEFAULT 0,
+  claimed_by TEXT,
+  heartbeat TIMESTAMPTZ,
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  finished_at TIMESTAMPTZ
+);
+
+-- At most one running backfill per scope
+CREATE UNIQUE INDEX IF NOT EXISTS idx_extraction_backfills_running_scope
+  ON extraction_backfills(COALESCE(tenant_schema, '*')) WHERE status = 'RUNNING';
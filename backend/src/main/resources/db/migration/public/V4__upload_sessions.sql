@@ -0,0 +1,19 @@
+-- Resumable uploads, across tenants so abandoned ones can be swept. Each chunk a client sends
+-- becomes one part of the S3 multipart upload; received_bytes is the offset of the next chunk.
+CREATE TABLE IF NOT EXISTS upload_sessions (
+  id UUID PRIMARY KEY,
+  tenant_schema TEXT NOT NULL,
+  original_filename TEXT NOT NULL,
+  content_type TEXT NOT NULL,
+  total_size BIGINT NOT NULL,
+  storage_path TEXT NOT NULL,
+  s3_upload_id TEXT NOT NULL,
+  received_bytes BIGINT NOT NULL DEFAULT 0,
+  parts INT NOT NULL DEFAULT 0,
+  status TEXT NOT NULL,
+  document_id UUID,
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  updated_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_upload_sessions_open ON upload_sessions(updated_at) WHERE status = 'OPEN';
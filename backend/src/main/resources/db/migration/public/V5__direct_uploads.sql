@@ -0,0 +1,4 @@
+-- Sessions whose client uploads straight to S3 through presigned URLs. Small files are a single
+-- presigned PUT and have no multipart upload.
+ALTER TABLE upload_sessions ADD COLUMN IF NOT EXISTS direct BOOLEAN NOT NULL DEFAULT false;
+ALTER TABLE upload_sessions ALTER COLUMN s3_upload_id DROP NOT NULL;
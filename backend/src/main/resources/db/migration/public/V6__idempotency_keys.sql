@@ -0,0 +1,15 @@
+-- Results of upload requests sent with an Idempotency-Key, so a retry replays the first result
+-- instead of uploading again. Keys are scoped to a tenant; status_code is NULL while the first
+-- request is still running. Rows past expires_at are free to be claimed again and are swept.
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+  tenant_schema TEXT NOT NULL,
+  idempotency_key TEXT NOT NULL,
+  fingerprint TEXT NOT NULL,
+  status_code INT,
+  response_body TEXT,
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  expires_at TIMESTAMPTZ NOT NULL,
+  PRIMARY KEY (tenant_schema, idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires_at ON idempotency_keys(expires_at);
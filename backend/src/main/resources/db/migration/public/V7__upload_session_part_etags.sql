@@ -0,0 +1,3 @@
+-- ETag of each chunk's part as it was recorded, in part number order. Completing a session checks
+-- S3 still holds exactly these parts, so a concurrent duplicate chunk that overwrote a part is caught.
+ALTER TABLE upload_sessions ADD COLUMN IF NOT EXISTS part_etags TEXT[] NOT NULL DEFAULT '{}';
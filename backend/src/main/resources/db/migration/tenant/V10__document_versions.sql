@@ -0,0 +1,9 @@
+-- Revised versions of a document point at the version they replace; extraction reuses the
+-- previous version's units whose source content hash is unchanged
+ALTER TABLE rfp_documents ADD COLUMN IF NOT EXISTS previous_version_id UUID
+  REFERENCES rfp_documents(id) ON DELETE SET NULL;
+
+CREATE INDEX IF NOT EXISTS idx_rfp_documents_previous_version ON rfp_documents(previous_version_id);
+
+-- SHA-256 of the unit's source (page content streams, section XML, sheet cells)
+ALTER TABLE extraction_units ADD COLUMN IF NOT EXISTS content_hash TEXT;
@@ -0,0 +1,3 @@
+-- Version of the extractor that produced each extraction; NULL rows predate versioning.
+-- Backfills re-extract documents whose extraction is older than the running extractor.
+ALTER TABLE rfp_document_extractions ADD COLUMN IF NOT EXISTS extractor_version INT;
@@ -0,0 +1,5 @@
+-- Documents unpacked from an uploaded zip package point at the package's own document row
+ALTER TABLE rfp_documents ADD COLUMN IF NOT EXISTS package_id UUID
+  REFERENCES rfp_documents(id) ON DELETE CASCADE;
+
+CREATE INDEX IF NOT EXISTS idx_rfp_documents_package ON rfp_documents(package_id);
@@ -0,0 +1,17 @@
+-- Bulk imports of documents from an S3 prefix. last_key is the resume point: every object
+-- listed up to and including it has been imported, skipped or counted as failed.
+CREATE TABLE IF NOT EXISTS document_imports (
+  id UUID PRIMARY KEY,
+  source_bucket TEXT NOT NULL,
+  source_prefix TEXT NOT NULL,
+  status TEXT NOT NULL,
+  last_key TEXT,
+  objects_listed INT NOT NULL DEFAULT 0,
+  documents_created INT NOT NULL DEFAULT 0,
+  objects_skipped INT NOT NULL DEFAULT 0,
+  objects_failed INT NOT NULL DEFAULT 0,
+  error_message TEXT,
+  heartbeat TIMESTAMPTZ,
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  finished_at TIMESTAMPTZ
+);
@@ -0,0 +1,7 @@
+-- Offsets of each table body in tables_compact (followed by its end) and the table names, so one
+-- table is read with substring() instead of fetching the whole encoding.
+ALTER TABLE rfp_document_extractions ADD COLUMN IF NOT EXISTS tables_compact_offsets INT[];
+ALTER TABLE rfp_document_extractions ADD COLUMN IF NOT EXISTS tables_compact_names TEXT[];
+-- Uncompressed out-of-line storage lets substring() read only the TOAST chunks it needs.
+-- The encoding is already dictionary/RLE compressed.
+ALTER TABLE rfp_document_extractions ALTER COLUMN tables_compact SET STORAGE EXTERNAL;
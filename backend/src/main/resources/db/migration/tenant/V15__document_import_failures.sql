@@ -0,0 +1,10 @@
+-- Objects of an import whose copy failed. They are behind last_key, so a resumed import retries
+-- them before listing further; objects_failed counts the rows still here.
+CREATE TABLE IF NOT EXISTS document_import_failures (
+  id UUID PRIMARY KEY,
+  import_id UUID NOT NULL REFERENCES document_imports(id) ON DELETE CASCADE,
+  object_key TEXT NOT NULL,
+  object_size BIGINT NOT NULL,
+  error_message TEXT,
+  UNIQUE (import_id, object_key)
+);
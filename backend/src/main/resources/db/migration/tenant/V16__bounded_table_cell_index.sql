@@ -0,0 +1,5 @@
+-- B-tree entries are limited to about a third of a page, so indexing whole cell texts made long
+-- cells (and long headers) fail the insert. Index their md5 instead; lookups compare the hashes on
+-- the index and the texts on the heap row.
+DROP INDEX IF EXISTS idx_cells_key_value;
+CREATE INDEX IF NOT EXISTS idx_cells_key_value_md5 ON extraction_table_cells(md5(column_key), md5(value_text));
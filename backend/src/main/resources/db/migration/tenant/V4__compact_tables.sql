@@ -0,0 +1,3 @@
+-- Compact binary table encoding (see CompactTableCodec).
+-- When extraction.tables.encoding=compact, tables are stored here and tables_json is left NULL.
+ALTER TABLE rfp_document_extractions ADD COLUMN IF NOT EXISTS tables_compact BYTEA;
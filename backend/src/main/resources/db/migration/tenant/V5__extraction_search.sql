@@ -0,0 +1,10 @@
+-- Full-text search over extracted text.
+-- The generated column is recomputed by Postgres whenever an extraction row is written,
+-- so the GIN index is maintained incrementally with no application-side reindexing.
+-- Input is capped at 500k characters to stay well under the 1MB tsvector limit.
+ALTER TABLE rfp_document_extractions
+  ADD COLUMN IF NOT EXISTS search_vector tsvector
+  GENERATED ALWAYS AS (to_tsvector('english', left(coalesce(extracted_text, ''), 500000))) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_extractions_search_vector
+  ON rfp_document_extractions USING GIN (search_vector);
@@ -0,0 +1,19 @@
+-- Normalized key-value pairs materialized from extractions for cross-document field queries
+CREATE TABLE IF NOT EXISTS extraction_key_values (
+  id UUID PRIMARY KEY,
+  extraction_id UUID NOT NULL REFERENCES rfp_document_extractions(id) ON DELETE CASCADE,
+  document_id UUID NOT NULL REFERENCES rfp_documents(id) ON DELETE CASCADE,
+  pair_index INT NOT NULL,
+  raw_key TEXT NOT NULL,
+  normalized_key TEXT NOT NULL,
+  raw_value TEXT NOT NULL,
+  value_text TEXT NOT NULL,
+  value_number NUMERIC,
+  value_date DATE
+);
+
+CREATE INDEX IF NOT EXISTS idx_kv_document_id ON extraction_key_values(document_id);
+CREATE INDEX IF NOT EXISTS idx_kv_extraction_id ON extraction_key_values(extraction_id);
+CREATE INDEX IF NOT EXISTS idx_kv_key_text ON extraction_key_values(normalized_key, value_text);
+CREATE INDEX IF NOT EXISTS idx_kv_key_number ON extraction_key_values(normalized_key, value_number) WHERE value_number IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_kv_key_date ON extraction_key_values(normalized_key, value_date) WHERE value_date IS NOT NULL;
@@ -0,0 +1,18 @@
+-- Normalized table cells for row-level predicates over extracted tables ("rows where plan = PPO").
+-- Only non-empty data cells are stored; the first row of each table is used as the header
+-- and becomes column_key for the cells below it.
+CREATE TABLE IF NOT EXISTS extraction_table_cells (
+  extraction_id UUID NOT NULL REFERENCES rfp_document_extractions(id) ON DELETE CASCADE,
+  document_id UUID NOT NULL REFERENCES rfp_documents(id) ON DELETE CASCADE,
+  table_index INT NOT NULL,
+  table_name TEXT NOT NULL,
+  row_index INT NOT NULL,
+  column_index INT NOT NULL,
+  column_key TEXT NOT NULL,
+  raw_value TEXT NOT NULL,
+  value_text TEXT NOT NULL,
+  PRIMARY KEY (extraction_id, table_index, row_index, column_index)
+);
+
+CREATE INDEX IF NOT EXISTS idx_cells_key_value ON extraction_table_cells(column_key, value_text);
+CREATE INDEX IF NOT EXISTS idx_cells_row ON extraction_table_cells(document_id, table_index, row_index);
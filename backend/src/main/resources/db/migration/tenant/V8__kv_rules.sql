@@ -0,0 +1,9 @@
+-- Tenant-defined key-value extraction rules (compiled into a single matcher per tenant)
+CREATE TABLE IF NOT EXISTS kv_rules (
+  id UUID PRIMARY KEY,
+  canonical_key TEXT NOT NULL,
+  aliases TEXT[] NOT NULL,
+  delimiters TEXT[] NOT NULL,
+  line_window INT NOT NULL,
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
@@ -0,0 +1,20 @@
+-- Per-unit extraction results (PDF page, XLSX sheet, DOCX section), written as checkpoints during
+-- extraction so an interrupted run can resume, and so each unit can be read on its own
+CREATE TABLE IF NOT EXISTS extraction_units (
+  document_id UUID NOT NULL REFERENCES rfp_documents(id) ON DELETE CASCADE,
+  unit_index INT NOT NULL,
+  unit_type TEXT NOT NULL,
+  unit_name TEXT NOT NULL,
+  text TEXT NOT NULL,
+  tables_json JSONB,
+  extracted_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  PRIMARY KEY (document_id, unit_index)
+);
+
+-- Extraction progress and liveness of the node working on the document
+ALTER TABLE rfp_documents ADD COLUMN IF NOT EXISTS units_total INT;
+ALTER TABLE rfp_documents ADD COLUMN IF NOT EXISTS units_done INT;
+ALTER TABLE rfp_documents ADD COLUMN IF NOT EXISTS extraction_heartbeat TIMESTAMPTZ;
+
+CREATE INDEX IF NOT EXISTS idx_rfp_documents_processing_heartbeat
+  ON rfp_documents(extraction_heartbeat) WHERE status = 'PROCESSING';
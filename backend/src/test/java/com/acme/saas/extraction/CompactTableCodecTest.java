@@ -0,0 +1,118 @@
+package com.acme.saas.extraction;
+
+import com.acme.saas.dto.ExtractedTable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactTableCodecTest {
+
+    @Test
+    void testRoundTrip_RaggedRows_PreservesShapeExactly() {
+        // Given
+        List<ExtractedTable> tables = List.of(
+                new ExtractedTable("Plan Details", List.of(
+                        List.of("Plan", "Tier", "Rate"),
+                        List.of("PPO", "Employee", "512.40"),
+                        List.of("PPO", "", ""),
+                        List.of("HMO"),
+                        List.of())),
+                new ExtractedTable("Table 2", List.of(List.of("a", "b"))));
+
+        // When
+        List<CompactTable> decoded = CompactTableCodec.decode(CompactTableCodec.encode(tables));
+
+        // Then
+        assertThat(decoded).hasSize(2);
+        assertThat(decoded.get(0).toExtractedTable()).isEqualTo(tables.get(0));
+        assertThat(decoded.get(1).toExtractedTable()).isEqualTo(tables.get(1));
+        assertThat(decoded.get(0).columnCount()).isEqualTo(3);
+    }
+
+    @Test
+    void testDecodeTable_ByIndexAndName_DecodesOnlyThatTable() {
+        // Given
+        byte[] encoded = CompactTableCodec.encode(List.of(
+                new ExtractedTable("Census", List.of(List.of("Name", "Age"))),
+                new ExtractedTable("Pricing", List.of(List.of("Plan", "Rate"), List.of("PPO", "100")))));
+
+        // When & Then
+        assertThat(CompactTableCodec.tableCount(encoded)).isEqualTo(2);
+        assertThat(CompactTableCodec.decodeTable(encoded, 1)).get()
+                .extracting(CompactTable::name).isEqualTo("Pricing");
+        assertThat(CompactTableCodec.decodeTable(encoded, "Census")).get()
+                .extracting(table -> table.row(0)).isEqualTo(List.of("Name", "Age"));
+        assertThat(CompactTableCodec.decodeTable(encoded, 5)).isEmpty();
+        assertThat(CompactTableCodec.decodeTable(encoded, "Missing")).isEmpty();
+    }
+
+    @Test
+    void testIndex_SlicedBody_DecodesThatTableAlone() {
+        // Given
+        List<ExtractedTable> tables = List.of(
+                new ExtractedTable("Census", List.of(List.of("Name", "Age"))),
+                new ExtractedTable("Pricing", List.of(List.of("Plan", "Rate"), List.of("PPO", "100"))));
+        byte[] encoded = CompactTableCodec.encode(tables);
+
+        // When
+        CompactTableCodec.Index index = CompactTableCodec.index(encoded);
+        byte[] body = Arrays.copyOfRange(encoded, index.offsets()[1], index.offsets()[2]);
+
+        // Then
+        assertThat(index.names()).containsExactly("Census", "Pricing");
+        assertThat(index.offsets()[2]).isEqualTo(encoded.length);
+        assertThat(CompactTableCodec.decodeBody(body).toExtractedTable()).isEqualTo(tables.get(1));
+    }
+
+    @Test
+    void testRows_LazyView_DecodesRandomAccessCorrectly() {
+        // Given - long runs with values changing at irregular positions
+        List<List<String>> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add(List.of(i % 100 == 0 ? "marker" + i : "", i < 500 ? "PPO" : "HMO"));
+        }
+        CompactTable table = CompactTableCodec.decode(
+                CompactTableCodec.encode(List.of(new ExtractedTable("Sheet1", rows)))).get(0);
+
+        // When & Then
+        assertThat(table.rowCount()).isEqualTo(1000);
+        assertThat(table.cell(300, 0)).isEqualTo("marker300");
+        assertThat(table.cell(301, 0)).isEmpty();
+        assertThat(table.cell(499, 1)).isEqualTo("PPO");
+        assertThat(table.cell(500, 1)).isEqualTo("HMO");
+        assertThat(table.rows()).isEqualTo(rows);
+    }
+
+    @Test
+    void testEncode_SparseSheet_MuchSmallerThanJson() throws Exception {
+        // Given - a sparse census-style sheet with repeated values
+        List<List<String>> rows = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            List<String> row = new ArrayList<>();
+            for (int c = 0; c < 30; c++) {
+                row.add(c == 0 ? "Employee" : c == 1 ? (i % 2 == 0 ? "PPO" : "HMO") : "");
+            }
+            rows.add(row);
+        }
+        List<ExtractedTable> tables = List.of(new ExtractedTable("Census", rows));
+
+        // When
+        byte[] compact = CompactTableCodec.encode(tables);
+        byte[] json = new ObjectMapper().writeValueAsBytes(tables);
+
+        // Then
+        assertThat(compact.length * 10).isLessThan(json.length);
+    }
+
+    @Test
+    void testDecode_InvalidData_Throws() {
+        assertThatThrownBy(() -> CompactTableCodec.decode("[]".getBytes()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,270 @@
+package com.acme.saas.extraction;
+
+import com.acme.saas.dto.ExtractedTable;
+import com.acme.saas.dto.ExtractedUnit;
+import com.acme.saas.util.TestFileHelper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DocumentExtractorTest {
+
+    private final DocumentExtractor extractor = new DocumentExtractor();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testExtractPdf_EmitsPagesAndText() throws Exception {
+        FullTextCollector text = new FullTextCollector();
+        ExtractionCounters counters = new ExtractionCounters();
+
+        try (InputStream in = TestFileHelper.getTestFileStream("sample.pdf")) {
+            extractor.extract(DocumentExtractor.PDF, in, ExtractionListener.of(List.of(text, counters)));
+        }
+
+        assertThat(counters.pages()).isGreaterThan(0);
+        assertThat(counters.characters()).isEqualTo(text.length());
+        assertThat(text.fullText()).isNotBlank();
+    }
+
+    @Test
+    void testExtractXlsx_StreamedJsonMatchesCollectedTables() throws Exception {
+        TableCollector tables = new TableCollector();
+        TableJsonWriter json = new TableJsonWriter(objectMapper.getFactory());
+        ExtractionCounters counters = new ExtractionCounters();
+
+        try (InputStream in = TestFileHelper.getTestFileStream("sample.xlsx")) {
+            extractor.extract(DocumentExtractor.XLSX, in, ExtractionListener.of(List.of(tables, json, counters)));
+        }
+
+        List<ExtractedTable> fromJson = objectMapper.readValue(json.json(), new TypeReference<>() {});
+        assertThat(fromJson).isEqualTo(tables.tables());
+        assertThat(counters.tables()).isEqualTo(tables.tables().size());
+        assertThat(counters.sheets()).isGreaterThanOrEqualTo(tables.tables().size());
+    }
+
+    @Test
+    void testExtractXlsx_ResumeAfterFirstUnit_MatchesFullPass() throws Exception {
+        // Full pass, recording units
+        FullTextCollector fullText = new FullTextCollector();
+        TableCollector fullTables = new TableCollector();
+        List<ExtractedUnit> units = new ArrayList<>();
+        UnitRecorder recorder = new UnitRecorder((unit, unitCount) -> units.add(unit));
+        try (InputStream in = TestFileHelper.getTestFileStream("sample.xlsx")) {
+            extractor.extract(DocumentExtractor.XLSX, in, ExtractionListener.of(List.of(fullText, fullTables, recorder)));
+        }
+        assertThat(units).extracting(ExtractedUnit::index).containsExactly(0, 1);
+
+        // Resumed pass: replay the first unit, parse from the second
+        FullTextCollector resumedText = new FullTextCollector();
+        TableCollector resumedTables = new TableCollector();
+        ExtractionListener resumed = ExtractionListener.of(List.of(resumedText, resumedTables));
+        UnitRecorder.replay(units.get(0), resumed);
+        try (InputStream in = TestFileHelper.getTestFileStream("sample.xlsx")) {
+            extractor.extract(DocumentExtractor.XLSX, in, resumed, 1);
+        }
+
+        assertThat(resumedText.fullText()).isEqualTo(fullText.fullText());
+        assertThat(resumedTables.tables()).isEqualTo(fullTables.tables());
+    }
+
+    @Test
+    void testExtractPreview_StreamedXlsx_MatchesFullPass() throws Exception {
+        FullTextCollector fullText = new FullTextCollector();
+        TableCollector fullTables = new TableCollector();
+        try (InputStream in = TestFileHelper.getTestFileStream("sample.xlsx")) {
+            extractor.extract(DocumentExtractor.XLSX, in, ExtractionListener.of(List.of(fullText, fullTables)));
+        }
+
+        FullTextCollector previewText = new FullTextCollector();
+        TableCollector previewTables = new TableCollector();
+        try (InputStream in = TestFileHelper.getTestFileStream("sample.xlsx")) {
+            extractor.extractPreview(DocumentExtractor.XLSX, in, ExtractionListener.of(List.of(previewText, previewTables)));
+        }
+
+        assertThat(previewText.fullText()).isEqualTo(fullText.fullText());
+        assertThat(previewTables.tables()).isEqualTo(fullTables.tables());
+    }
+
+    @Test
+    void testExtractPreview_StreamedXlsx_StopsWithinSheet() throws Exception {
+        TableCollector tables = new TableCollector();
+        PreviewLimiter limiter = new PreviewLimiter(100, 2, 100_000, Duration.ofMinutes(1));
+
+        try (InputStream in = TestFileHelper.getTestFileStream("sample.xlsx")) {
+            extractor.extractPreview(DocumentExtractor.XLSX, in, ExtractionListener.of(List.of(tables, limiter)));
+        }
+
+        assertThat(limiter.truncated()).isTrue();
+        assertThat(tables.tables()).hasSize(1);
+        assertThat(tables.tables().get(0).rows()).hasSize(2);
+    }
+
+    @Test
+    void testExtractPreview_DocumentExactlyAtLimit_NotTruncated() throws Exception {
+        // Given
+        TableCollector fullTables = new TableCollector();
+        try (InputStream in = TestFileHelper.getTestFileStream("sample.xlsx")) {
+            extractor.extract(DocumentExtractor.XLSX, in, fullTables);
+        }
+        int rows = fullTables.tables().stream().mapToInt(table -> table.rows().size()).sum();
+        PreviewLimiter rowLimiter = new PreviewLimiter(100, rows, 100_000, Duration.ofMinutes(1));
+        PreviewLimiter pageLimiter = new PreviewLimiter(3, 1000, 100_000, Duration.ofMinutes(1));
+        PreviewLimiter shortPageLimiter = new PreviewLimiter(2, 1000, 100_000, Duration.ofMinutes(1));
+
+        // When
+        try (InputStream in = TestFileHelper.getTestFileStream("sample.xlsx")) {
+            extractor.extractPreview(DocumentExtractor.XLSX, in, rowLimiter);
+        }
+        extractor.extractPreview(DocumentExtractor.PDF, new ByteArrayInputStream(pdfWithBlankPage()), pageLimiter);
+        extractor.extractPreview(DocumentExtractor.PDF, new ByteArrayInputStream(pdfWithBlankPage()), shortPageLimiter);
+
+        // Then: the limits were reached, but only the two-page limit left a page out
+        assertThat(rowLimiter.stopRequested()).isTrue();
+        assertThat(rowLimiter.truncated()).isFalse();
+        assertThat(pageLimiter.stopRequested()).isTrue();
+        assertThat(pageLimiter.truncated()).isFalse();
+        assertThat(shortPageLimiter.truncated()).isTrue();
+    }
+
+    @Test
+    void testExtractPdf_BlankPage_IsAUnitAndResumeMatchesFullPass() throws Exception {
+        byte[] pdf = pdfWithBlankPage();
+
+        // Full pass, recording units
+        FullTextCollector fullText = new FullTextCollector();
+        KeyValueCollector fullKeyValues = new KeyValueCollector(KeyValueScanner.defaults());
+        List<ExtractedUnit> units = new ArrayList<>();
+        UnitRecorder recorder = new UnitRecorder((unit, unitCount) -> units.add(unit));
+        extractor.extract(DocumentExtractor.PDF, new ByteArrayInputStream(pdf),
+                ExtractionListener.of(List.of(fullText, fullKeyValues, recorder)));
+        assertThat(units).extracting(ExtractedUnit::index).containsExactly(0, 1, 2);
+        assertThat(units.get(1).text()).isEmpty();
+
+        // Resumed after the blank page: replay the first two units, parse from the third
+        FullTextCollector resumedText = new FullTextCollector();
+        KeyValueCollector resumedKeyValues = new KeyValueCollector(KeyValueScanner.defaults());
+        ExtractionListener resumed = ExtractionListener.of(List.of(resumedText, resumedKeyValues));
+        UnitRecorder.replay(units.get(0), resumed);
+        UnitRecorder.replay(units.get(1), resumed);
+        extractor.extract(DocumentExtractor.PDF, new ByteArrayInputStream(pdf), resumed, 2);
+
+        assertThat(resumedText.fullText()).isEqualTo(fullText.fullText());
+        assertThat(resumedKeyValues.keyValues()).isEqualTo(fullKeyValues.keyValues());
+    }
+
+    @Test
+    void testExtractPdf_UnchangedPages_ReusedFromPreviousVersion() throws Exception {
+        List<ExtractedUnit> original = recordUnits(DocumentExtractor.PDF, "sample.pdf", PreviousUnits.NONE);
+        assertThat(original).isNotEmpty().allMatch(unit -> unit.contentHash() != null);
+
+        // Mark the stored text so a reused page is distinguishable from a re-parsed one
+        Map<String, ExtractedUnit> previous = new HashMap<>();
+        for (ExtractedUnit unit : original) {
+            previous.put(unit.contentHash(), new ExtractedUnit(unit.index(), unit.type(), unit.name(),
+                    unit.contentHash(), "reused " + unit.index() + "\n", unit.tables()));
+        }
+        List<ExtractedUnit> revised = recordUnits(DocumentExtractor.PDF, "sample.pdf", previous::get);
+
+        assertThat(revised).extracting(ExtractedUnit::contentHash)
+                .containsExactlyElementsOf(original.stream().map(ExtractedUnit::contentHash).toList());
+        assertThat(revised).allMatch(unit -> unit.text().equals("reused " + unit.index() + "\n"));
+    }
+
+    @Test
+    void testExtractDocx_ReusedSections_MatchFullPass() throws Exception {
+        List<ExtractedUnit> original = recordUnits(DocumentExtractor.DOCX, "sample-with-tables.docx", PreviousUnits.NONE);
+        Map<String, ExtractedUnit> previous = new HashMap<>();
+        original.forEach(unit -> previous.put(unit.contentHash(), unit));
+
+        List<ExtractedUnit> revised = recordUnits(DocumentExtractor.DOCX, "sample-with-tables.docx", previous::get);
+
+        assertThat(revised).isEqualTo(original);
+    }
+
+    @Test
+    void testExtractXlsx_OnlyChangedSheetIsParsed() throws Exception {
+        List<ExtractedUnit> original = recordUnits(DocumentExtractor.XLSX, "sample.xlsx", PreviousUnits.NONE);
+        assertThat(original).hasSize(2);
+        assertThat(original.get(0).contentHash()).isNotEqualTo(original.get(1).contentHash());
+
+        // Only the first sheet is known from the previous version
+        ExtractedUnit first = original.get(0);
+        ExtractedUnit stored = new ExtractedUnit(0, "sheet", first.name(), first.contentHash(), "stored\n", first.tables());
+        List<ExtractedUnit> revised = recordUnits(DocumentExtractor.XLSX, "sample.xlsx",
+                hash -> hash.equals(first.contentHash()) ? stored : null);
+
+        assertThat(revised.get(0).text()).isEqualTo("stored\n");
+        assertThat(revised.get(1)).isEqualTo(original.get(1));
+    }
+
+    @Test
+    void testKeyValueCollector_FragmentedTextMatchesScan() {
+        String text = "RFP Title: Health Benefits\nDue Date: March 15, 2025\nnoise\nCarrier: Aetna";
+        KeyValueCollector collector = new KeyValueCollector(KeyValueScanner.defaults());
+
+        List<String> fragments = new ArrayList<>();
+        for (int i = 0; i < text.length(); i += 7) {
+            fragments.add(text.substring(i, Math.min(text.length(), i + 7)));
+        }
+        fragments.forEach(collector::text);
+        collector.endDocument();
+
+        assertThat(collector.keyValues()).isEqualTo(KeyValueScanner.defaults().scan(text));
+        assertThat(collector.keyValues()).hasSize(3);
+    }
+
+    private static byte[] pdfWithBlankPage() throws Exception {
+        try (PDDocument document = new PDDocument()) {
+            addTextPage(document, "Carrier: Aetna");
+            document.addPage(new PDPage());
+            addTextPage(document, "Plan: PPO");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static void addTextPage(PDDocument document, String text) throws Exception {
+        PDPage page = new PDPage();
+        document.addPage(page);
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+            content.beginText();
+            content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+            content.newLineAtOffset(72, 700);
+            content.showText(text);
+            content.endText();
+        }
+    }
+
+    private List<ExtractedUnit> recordUnits(String contentType, String file, PreviousUnits previous) throws Exception {
+        List<ExtractedUnit> units = new ArrayList<>();
+        try (InputStream in = TestFileHelper.getTestFileStream(file)) {
+            extractor.extract(contentType, in, new UnitRecorder((unit, unitCount) -> units.add(unit)), 0, previous);
+        }
+        return units;
+    }
+
+    @Test
+    void testExtract_UnsupportedContentType_Throws() {
+        assertThatThrownBy(() -> extractor.extract("text/plain", InputStream.nullInputStream(), new ExtractionListener() {}))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unsupported content type");
+    }
+}
@@ -0,0 +1,52 @@
+package com.acme.saas.extraction;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyValueNormalizerTest {
+
+    @Test
+    void testNormalizeKey_VariantSpellings_NormalizeToSameKey() {
+        assertThat(KeyValueNormalizer.normalizeKey("Due Date")).isEqualTo("due date");
+        assertThat(KeyValueNormalizer.normalizeKey("  DUE   DATE: ")).isEqualTo("due date");
+        assertThat(KeyValueNormalizer.normalizeKey("due-date")).isEqualTo("due date");
+    }
+
+    @Test
+    void testParseNumber_NumericValues_Parsed() {
+        assertThat(KeyValueNormalizer.parseNumber("1,250.50")).contains(new BigDecimal("1250.50"));
+        assertThat(KeyValueNormalizer.parseNumber("$512")).contains(new BigDecimal("512"));
+        assertThat(KeyValueNormalizer.parseNumber("85%")).contains(new BigDecimal("85"));
+        assertThat(KeyValueNormalizer.parseNumber("-3.5")).contains(new BigDecimal("-3.5"));
+    }
+
+    @Test
+    void testParseNumber_Identifiers_NotParsed() {
+        assertThat(KeyValueNormalizer.parseNumber("RFP-2025-001")).isEmpty();
+        assertThat(KeyValueNormalizer.parseNumber("Aetna")).isEmpty();
+        assertThat(KeyValueNormalizer.parseNumber("-")).isEmpty();
+        assertThat(KeyValueNormalizer.parseNumber("")).isEmpty();
+    }
+
+    @Test
+    void testParseDate_CommonFormats_Parsed() {
+        LocalDate expected = LocalDate.of(2025, 1, 15);
+        assertThat(KeyValueNormalizer.parseDate("January 15, 2025")).contains(expected);
+        assertThat(KeyValueNormalizer.parseDate("Jan. 15th 2025 at 5pm ET")).contains(expected);
+        assertThat(KeyValueNormalizer.parseDate("15 January 2025")).contains(expected);
+        assertThat(KeyValueNormalizer.parseDate("01/15/2025")).contains(expected);
+        assertThat(KeyValueNormalizer.parseDate("2025-01-15")).contains(expected);
+        assertThat(KeyValueNormalizer.parseDate("March 2025")).contains(LocalDate.of(2025, 3, 1));
+    }
+
+    @Test
+    void testParseDate_NonDates_NotParsed() {
+        assertThat(KeyValueNormalizer.parseDate("Aetna")).isEmpty();
+        assertThat(KeyValueNormalizer.parseDate("02/30/2025")).isEmpty();
+        assertThat(KeyValueNormalizer.parseDate(null)).isEmpty();
+    }
+}
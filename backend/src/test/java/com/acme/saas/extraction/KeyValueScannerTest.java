@@ -0,0 +1,130 @@
+package com.acme.saas.extraction;
+
+import com.acme.saas.dto.KeyValuePair;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyValueScannerTest {
+
+    private static final Pattern LEGACY_PATTERN = Pattern.compile("^([^:]{2,60}):\\s*(.+)$");
+
+    @Test
+    void testDefaults_MatchesLegacyLinePattern() {
+        String text = "RFP Title: Health Benefits\n"
+                + "  Due Date :  March 15, 2025  \n"
+                + "x: too short\n"
+                + "No delimiter here\n"
+                + "Empty value:\n"
+                + "URL: https://example.com:8443/path\n"
+                + "\n"
+                + "A".repeat(61) + ": too long\n"
+                + "Carrier:Aetna\r\n";
+
+        assertThat(KeyValueScanner.defaults().scan(text)).isEqualTo(legacyScan(text));
+        assertThat(KeyValueScanner.defaults().scan(text)).extracting(KeyValuePair::key)
+                .containsExactly("RFP Title", "Due Date", "URL", "Carrier");
+    }
+
+    @Test
+    void testDefaults_OnlyFirst120Lines() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 150; i++) {
+            text.append("Key ").append(i).append(": value\n");
+        }
+        assertThat(KeyValueScanner.defaults().scan(text)).hasSize(120);
+    }
+
+    @Test
+    void testRules_AliasesMapToCanonicalKey() {
+        KeyValueScanner scanner = KeyValueScanner.compile(List.of(
+                new KeyValueRuleDefinition("Due Date", List.of("Due Date", "Proposals Due", "Responses  due"),
+                        List.of(":", "-"), 50),
+                new KeyValueRuleDefinition("Carrier", List.of("Carrier", "Incumbent Carrier"), List.of("="), 50)));
+
+        List<KeyValuePair> pairs = scanner.scan(
+                "PROPOSALS DUE - March 15, 2025\n"
+                        + "Incumbent carrier = Aetna\n"
+                        + "Responses due: April 1\n");
+
+        assertThat(pairs).containsExactly(
+                new KeyValuePair("Due Date", "March 15, 2025"),
+                new KeyValuePair("Carrier", "Aetna"),
+                new KeyValuePair("Due Date", "April 1"));
+    }
+
+    @Test
+    void testRules_RequireWordBoundaryAndDelimiter() {
+        KeyValueScanner scanner = KeyValueScanner.compile(List.of(
+                new KeyValueRuleDefinition("Date", List.of("date"), List.of("-"), 50)));
+
+        // "update" is not the "date" alias; it falls back to the generic pattern
+        assertThat(scanner.scan("Update: weekly")).containsExactly(new KeyValuePair("Update", "weekly"));
+        // Alias without its delimiter is not a match
+        assertThat(scanner.scan("date is tbd")).isEmpty();
+    }
+
+    @Test
+    void testRules_LineWindowIsPerRule() {
+        KeyValueScanner scanner = KeyValueScanner.compile(List.of(
+                new KeyValueRuleDefinition("Effective Date", List.of("effective"), List.of("-"), 300),
+                new KeyValueRuleDefinition("Carrier", List.of("carrier"), List.of("-"), 2)));
+
+        StringBuilder text = new StringBuilder("carrier - Aetna\n");
+        for (int i = 0; i < 200; i++) {
+            text.append("filler\n");
+        }
+        text.append("carrier - Cigna\n");
+        text.append("Effective - January 1, 2026\n");
+
+        assertThat(scanner.lineWindow()).isEqualTo(300);
+        assertThat(scanner.scan(text)).containsExactly(
+                new KeyValuePair("Carrier", "Aetna"),
+                new KeyValuePair("Effective Date", "January 1, 2026"));
+    }
+
+    @Test
+    void testLineMatcher_MatchesLikeScanAcrossLinesOfAnyLength() {
+        // "plan year" and "annual plan" overlap, so matching has to follow failure links
+        KeyValueScanner scanner = KeyValueScanner.compile(List.of(
+                new KeyValueRuleDefinition("Plan Year", List.of("plan year"), List.of(":"), 50),
+                new KeyValueRuleDefinition("Renewal", List.of("annual plan renewal"), List.of("-"), 50)));
+        List<String> lines = List.of(
+                "The annual plan year: 2026",
+                "x".repeat(300) + " annual plan renewal - July 1",
+                "Plan   Year: 2027",
+                "unrelated");
+
+        KeyValueScanner.LineMatcher matcher = scanner.lineMatcher();
+        List<KeyValuePair> matched = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            KeyValuePair pair = matcher.match(lines.get(i), i);
+            if (pair != null) {
+                matched.add(pair);
+            }
+        }
+
+        assertThat(matched).containsExactly(
+                new KeyValuePair("Plan Year", "2026"),
+                new KeyValuePair("Renewal", "July 1"),
+                new KeyValuePair("Plan Year", "2027"));
+        assertThat(matched).isEqualTo(scanner.scan(String.join("\n", lines)));
+    }
+
+    private static List<KeyValuePair> legacyScan(String text) {
+        List<KeyValuePair> result = new ArrayList<>();
+        String[] lines = text.split("\n");
+        for (int i = 0; i < Math.min(120, lines.length); i++) {
+            Matcher matcher = LEGACY_PATTERN.matcher(lines[i].trim());
+            if (matcher.matches()) {
+                result.add(new KeyValuePair(matcher.group(1).trim(), matcher.group(2).trim()));
+            }
+        }
+        return result;
+    }
+}
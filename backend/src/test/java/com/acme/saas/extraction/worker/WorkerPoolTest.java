@@ -0,0 +1,73 @@
+package com.acme.saas.extraction.worker;
+
+import com.acme.saas.extraction.DocumentExtractor;
+import com.acme.saas.extraction.ExtractionListener;
+import com.acme.saas.extraction.FullTextCollector;
+import com.acme.saas.extraction.TableCollector;
+import com.acme.saas.util.TestFileHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WorkerPoolTest {
+
+    private static final String XLSX = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    @TempDir
+    Path tempDir;
+
+    private final WorkerPool pool = new WorkerPool(
+            new WorkerPool.Settings(true, 1, "256m", List.of(), 2, Duration.ofMinutes(1)));
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void forkedExtraction_MatchesInProcessEvents() throws Exception {
+        Path file = copy("sample.xlsx");
+        FullTextCollector expectedText = new FullTextCollector();
+        TableCollector expectedTables = new TableCollector();
+        try (InputStream in = Files.newInputStream(file)) {
+            new DocumentExtractor().extract(XLSX, in, ExtractionListener.of(List.of(expectedText, expectedTables)));
+        }
+
+        // Three jobs on one worker recycled after two: the third runs in a fresh process
+        for (int run = 0; run < 3; run++) {
+            FullTextCollector text = new FullTextCollector();
+            TableCollector tables = new TableCollector();
+            pool.extract(XLSX, file, 0, List.of(), ExtractionListener.of(List.of(text, tables)));
+
+            assertThat(text.fullText()).isEqualTo(expectedText.fullText());
+            assertThat(tables.tables()).isEqualTo(expectedTables.tables());
+        }
+    }
+
+    @Test
+    void failureReportedByWorker_KeepsPoolUsable() throws Exception {
+        Path file = copy("sample.xlsx");
+
+        assertThatThrownBy(() -> pool.extract("text/plain", file, 0, List.of(), new ExtractionListener() {}))
+                .hasMessageContaining("Unsupported");
+
+        FullTextCollector text = new FullTextCollector();
+        pool.extract(XLSX, file, 0, List.of(), text);
+        assertThat(text.fullText()).isNotBlank();
+    }
+
+    private Path copy(String name) throws Exception {
+        Path file = tempDir.resolve(name);
+        Files.write(file, TestFileHelper.getTestFileBytes(name));
+        return file;
+    }
+}
@@ -10,7 +10,7 @@ import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
-import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
@@ -53,7 +53,7 @@ public abstract class BaseIntegrationTest {
     }
 
     @MockBean
-    protected S3Client s3Client; // Mock S3 globally for all integration tests
+    protected S3AsyncClient s3Client; // Mock S3 globally for all integration tests
 
     @Autowired
     protected DataSource dataSource;
@@ -5,16 +5,25 @@ import com.acme.saas.domain.RfpDocument;
 import com.acme.saas.domain.RfpDocumentExtraction;
 import com.acme.saas.repository.RfpDocumentExtractionRepository;
 import com.acme.saas.repository.RfpDocumentRepository;
+import com.acme.saas.dto.DocumentSearchPage;
+import com.acme.saas.dto.ExtractedTextRange;
+import com.acme.saas.dto.TableRowMatch;
 import com.acme.saas.service.DocumentExtractionService;
+import com.acme.saas.service.DocumentSearchService;
+import com.acme.saas.service.ExtractionQueryService;
 import com.acme.saas.service.OrgService;
+import com.acme.saas.service.TableCellIndexService;
 import com.acme.saas.tenancy.TenantContext;
+import com.acme.saas.util.TestFileHelper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.mock.web.MockMultipartFile;
 import software.amazon.awssdk.core.ResponseInputStream;
-import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
 import software.amazon.awssdk.http.AbortableInputStream;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
@@ -23,10 +32,14 @@ import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 
 import java.io.ByteArrayInputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.when;
 
 /**
@@ -43,6 +56,15 @@ class DocumentExtractionIntegrationTest extends BaseIntegrationTest {
     @Autowired
     private DocumentExtractionService extractionService;
 
+    @Autowired
+    private ExtractionQueryService extractionQueryService;
+
+    @Autowired
+    private DocumentSearchService searchService;
+
+    @Autowired
+    private TableCellIndexService tableCellIndexService;
+
     @Autowired
     private RfpDocumentRepository documentRepository;
 
@@ -66,8 +88,10 @@ class DocumentExtractionIntegrationTest extends BaseIntegrationTest {
         TenantContext.setCurrentTenant(testTenantSchema);
 
         // Mock S3 operations
-        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
-                .thenReturn(PutObjectResponse.builder().build());
+        // Drains the body as S3 would, so the uploading thread can finish writing it
+        when(s3Client.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenAnswer(invocation -> invocation.<AsyncRequestBody>getArgument(1).subscribe(buffer -> { })
+                        .thenApply(done -> PutObjectResponse.builder().build()));
     }
 
     @AfterEach
@@ -204,6 +228,87 @@ class DocumentExtractionIntegrationTest extends BaseIntegrationTest {
         assertThat(extraction.getErrorMessage()).isNotNull();
     }
 
+    @Test
+    void testProjection_ReturnsOnlyRequestedFields() throws Exception {
+        // Given
+        byte[] pdfBytes = TestFileHelper.getTestFileBytes("sample.pdf");
+        UUID documentId = UUID.randomUUID();
+        RfpDocument document = createTestDocument(documentId, "sample.pdf", "application/pdf", pdfBytes.length);
+        mockS3Download(document.getStoragePath(), pdfBytes);
+        extractionService.extractDocument(document);
+
+        // When
+        Optional<Map<String, Object>> projection =
+                extractionQueryService.findProjection(documentId, List.of("keyValuesJson", "pageCount"));
+
+        // Then
+        assertThat(projection).isPresent();
+        assertThat(projection.get()).containsOnlyKeys("keyValuesJson", "pageCount");
+        assertThat((String) projection.get().get("keyValuesJson")).contains("Carrier");
+    }
+
+    @Test
+    void testTextRange_ReturnsSubstringAndTotalLength() throws Exception {
+        // Given
+        byte[] pdfBytes = TestFileHelper.getTestFileBytes("sample.pdf");
+        UUID documentId = UUID.randomUUID();
+        RfpDocument document = createTestDocument(documentId, "sample.pdf", "application/pdf", pdfBytes.length);
+        mockS3Download(document.getStoragePath(), pdfBytes);
+        RfpDocumentExtraction extraction = extractionService.extractDocument(document);
+
+        // When
+        Optional<ExtractedTextRange> range = extractionQueryService.findTextRange(documentId, 5, 10);
+
+        // Then
+        assertThat(range).isPresent();
+        assertThat(range.get().text()).isEqualTo(extraction.getExtractedText().substring(5, 15));
+        assertThat(range.get().totalLength()).isEqualTo(extraction.getExtractedText().length());
+    }
+
+    @Test
+    void testSearch_MatchingTerm_ReturnsRankedHitWithSnippet() throws Exception {
+        // Given
+        byte[] pdfBytes = TestFileHelper.getTestFileBytes("sample.pdf");
+        UUID documentId = UUID.randomUUID();
+        RfpDocument document = createTestDocument(documentId, "sample.pdf", "application/pdf", pdfBytes.length);
+        mockS3Download(document.getStoragePath(), pdfBytes);
+        extractionService.extractDocument(document);
+
+        // When
+        DocumentSearchPage page = searchService.search("Aetna", 10, null);
+        DocumentSearchPage noMatch = searchService.search("nonexistentterm", 10, null);
+
+        // Then
+        assertThat(page.hits()).extracting("documentId").containsExactly(documentId);
+        assertThat(page.hits().get(0).snippet()).contains("<mark>");
+        assertThat(page.nextCursor()).isNull();
+        assertThat(noMatch.hits()).isEmpty();
+    }
+
+    @Test
+    void testTableRowQuery_CellPredicates_ReturnsMatchingRows() throws Exception {
+        // Given - sample.xlsx "Plan Details": Platinum Plus/Gold Standard are PPO, Silver/Bronze are HMO
+        byte[] xlsxBytes = TestFileHelper.getTestFileBytes("sample.xlsx");
+        UUID documentId = UUID.randomUUID();
+        RfpDocument document = createTestDocument(documentId, "sample.xlsx",
+                "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", xlsxBytes.length);
+        mockS3Download(document.getStoragePath(), xlsxBytes);
+        extractionService.extractDocument(document);
+
+        // When
+        List<TableRowMatch> ppoRows = tableCellIndexService.findRows(
+                List.of(new TableCellIndexService.CellPredicate("Type", "ppo")), 10);
+        List<TableRowMatch> silverRows = tableCellIndexService.findRows(List.of(
+                new TableCellIndexService.CellPredicate("Type", "HMO"),
+                new TableCellIndexService.CellPredicate("Plan Name", "Silver Select")), 10);
+
+        // Then
+        assertThat(ppoRows).hasSize(2);
+        assertThat(ppoRows).allMatch(row -> row.documentId().equals(documentId));
+        assertThat(ppoRows.get(0).cells()).containsEntry("plan name", "Platinum Plus");
+        assertThat(silverRows).singleElement().extracting(TableRowMatch::rowIndex).isEqualTo(3);
+    }
+
     // ===== Helper Methods =====
 
     private RfpDocument createTestDocument(UUID id, String filename, String contentType, long fileSize) {
@@ -230,8 +335,9 @@ class DocumentExtractionIntegrationTest extends BaseIntegrationTest {
         ResponseInputStream<GetObjectResponse> responseStream =
                 new ResponseInputStream<>(response, abortableStream);
 
-        when(s3Client.getObject(any(GetObjectRequest.class)))
-                .thenReturn(responseStream);
+        doReturn(CompletableFuture.completedFuture(responseStream))
+                .when(s3Client).getObject(any(GetObjectRequest.class),
+                        ArgumentMatchers.<AsyncResponseTransformer<GetObjectResponse, ResponseInputStream<GetObjectResponse>>>any());
     }
 
     private byte[] createSimplePdfBytes(String content) {
@@ -0,0 +1,101 @@
+package com.acme.saas.scheduling;
+
+import com.acme.saas.tenancy.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FairExtractionSchedulerTest {
+
+    private FairExtractionScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new FairExtractionScheduler(1, 10, 0, 1, 1024, Duration.ofMinutes(5), Long.MAX_VALUE);
+        TenantContext.setCurrentTenant("tenant_acme");
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+        TenantContext.clear();
+    }
+
+    @Test
+    void testExecute_JobThrowsError_WorkerKeepsRunningLaterJobs() throws InterruptedException {
+        // Given
+        CountDownLatch ran = new CountDownLatch(1);
+
+        // When
+        scheduler.execute(() -> {
+            throw new StackOverflowError("deeply nested document");
+        });
+        scheduler.execute(ran::countDown);
+
+        // Then
+        assertThat(ran.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(scheduler.reservedBytes()).isZero();
+    }
+
+    @Test
+    void testExecute_LargeJobOverdue_StartsBeforeLaterSmallJobs() throws InterruptedException {
+        // Given: a budget for one large job, or a few small ones, and a small job running
+        FairExtractionScheduler heapBound = new FairExtractionScheduler(4, 10, 0, 4, 1024, Duration.ofMillis(50), 100);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        List<String> started = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+        try {
+            heapBound.execute(new ExtractionJob("tenant_a", ExtractionLane.INTERACTIVE, 1, 10, () -> {
+                firstStarted.countDown();
+                await(releaseFirst);
+            }));
+            assertThat(firstStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            heapBound.execute(new ExtractionJob("tenant_b", ExtractionLane.INTERACTIVE, 1, 100, () -> {
+                started.add("large");
+                done.countDown();
+            }));
+            Thread.sleep(100);
+
+            // When: another small job arrives once the large one is overdue; it would fit next to the first
+            heapBound.execute(new ExtractionJob("tenant_a", ExtractionLane.INTERACTIVE, 1, 10, () -> {
+                started.add("small");
+                done.countDown();
+            }));
+            Thread.sleep(100);
+            assertThat(started).isEmpty();
+            releaseFirst.countDown();
+
+            // Then
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(started).containsExactly("large", "small");
+        } finally {
+            releaseFirst.countDown();
+            heapBound.shutdown();
+        }
+    }
+
+    @Test
+    void testConstructor_NoWorkerLeftForBulk_ThrowsException() {
+        assertThatThrownBy(() -> new FairExtractionScheduler(1, 10, 1, 1, 1024, Duration.ofMinutes(5), Long.MAX_VALUE))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("interactive-reserved-threads");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.acme.saas.scheduling;
+
+import com.acme.saas.tenancy.TenantContext;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FairQueueTest {
+
+    private static final long QUANTUM = 1024;
+    private static final String XLSX = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    private final FairQueue queue = new FairQueue(QUANTUM, Duration.ofMinutes(5));
+
+    @Test
+    void testPoll_SmallJobOfQuietTenant_NotBlockedByLargeBacklog() {
+        // Given - tenant A queued ten 2GB documents before tenant B's one-page PDF
+        for (int i = 0; i < 10; i++) {
+            queue.add(job("tenant_a", ExtractionLane.INTERACTIVE, 2_000_000, "a" + i), 0);
+        }
+        queue.add(job("tenant_b", ExtractionLane.INTERACTIVE, 50, "b"), 0);
+
+        // When / Then - B goes first even though A arrived earlier
+        assertThat(name(queue.poll(ExtractionLane.INTERACTIVE, 0, job -> true))).isEqualTo("b");
+        assertThat(name(queue.poll(ExtractionLane.INTERACTIVE, 0, job -> true))).isEqualTo("a0");
+    }
+
+    @Test
+    void testPoll_TenantsShareWorkEqually() {
+        // Given - A queues many small jobs, B a few larger ones of the same total size per turn
+        for (int i = 0; i < 40; i++) {
+            queue.add(job("tenant_a", ExtractionLane.INTERACTIVE, 256, "a"), 0);
+        }
+        for (int i = 0; i < 10; i++) {
+            queue.add(job("tenant_b", ExtractionLane.INTERACTIVE, 1024, "b"), 0);
+        }
+
+        // When - dispatch the first 20 jobs
+        long costA = 0;
+        long costB = 0;
+        for (int i = 0; i < 20; i++) {
+            ExtractionJob job = queue.poll(ExtractionLane.INTERACTIVE, 0, next -> true);
+            if (job.tenant().equals("tenant_a")) {
+                costA += job.cost();
+            } else {
+                costB += job.cost();
+            }
+        }
+
+        // Then - both received about the same amount of work
+        assertThat(Math.abs(costA - costB)).isLessThanOrEqualTo(QUANTUM);
+    }
+
+    @Test
+    void testPoll_WithinTenant_CheapestFirstUntilMaxWait() {
+        // Given
+        queue.add(job("tenant_a", ExtractionLane.INTERACTIVE, 5000, "large"), 0);
+        queue.add(job("tenant_a", ExtractionLane.INTERACTIVE, 10, "small"), 0);
+        queue.add(job("tenant_a", ExtractionLane.INTERACTIVE, 20, "medium"), 0);
+
+        // When / Then - cheapest first
+        assertThat(name(queue.poll(ExtractionLane.INTERACTIVE, 0, job -> true))).isEqualTo("small");
+
+        // Once the large job has waited past maxWait it is taken before cheaper ones
+        long later = Duration.ofMinutes(6).toNanos();
+        assertThat(name(queue.poll(ExtractionLane.INTERACTIVE, later, job -> true))).isEqualTo("large");
+        assertThat(name(queue.poll(ExtractionLane.INTERACTIVE, later, job -> true))).isEqualTo("medium");
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    void testPoll_IneligibleTenantSkipped_LanesIndependent() {
+        // Given
+        queue.add(job("tenant_a", ExtractionLane.INTERACTIVE, 10, "a"), 0);
+        queue.add(job("tenant_b", ExtractionLane.BULK, 10, "b"), 0);
+
+        // When / Then
+        assertThat(queue.poll(ExtractionLane.INTERACTIVE, 0, job -> !job.tenant().equals("tenant_a"))).isNull();
+        assertThat(queue.size(ExtractionLane.BULK)).isEqualTo(1);
+        assertThat(name(queue.poll(ExtractionLane.BULK, 0, job -> true))).isEqualTo("b");
+        assertThat(name(queue.poll(ExtractionLane.INTERACTIVE, 0, job -> true))).isEqualTo("a");
+    }
+
+    @Test
+    void testOverdue_OldestMatchingJobPastMaxWait_CanBeRemovedOutOfTurn() {
+        // Given
+        FairQueue overdueQueue = new FairQueue(QUANTUM, Duration.ofNanos(100));
+        overdueQueue.add(job("tenant_a", ExtractionLane.BULK, 5000, "large"), 0);
+        overdueQueue.add(job("tenant_b", ExtractionLane.INTERACTIVE, 10, "small"), 50);
+        overdueQueue.add(job("tenant_b", ExtractionLane.INTERACTIVE, 10, "recent"), 500);
+
+        // When
+        ExtractionJob overdue = overdueQueue.overdue(200, job -> true);
+
+        // Then
+        assertThat(name(overdue)).isEqualTo("large");
+        assertThat(name(overdueQueue.overdue(200, job -> job.lane() == ExtractionLane.INTERACTIVE))).isEqualTo("small");
+        assertThat(overdueQueue.remove(overdue)).isTrue();
+        assertThat(overdueQueue.size(ExtractionLane.BULK)).isZero();
+        assertThat(overdueQueue.poll(ExtractionLane.BULK, 200, job -> true)).isNull();
+        assertThat(overdueQueue.overdue(200, job -> job.lane() == ExtractionLane.BULK)).isNull();
+    }
+
+    @Test
+    void testScheduler_RunsJobsInSubmittingTenant() throws Exception {
+        FairExtractionScheduler scheduler = new FairExtractionScheduler(2, 10, 1, 2, QUANTUM, Duration.ofMinutes(5),
+                Long.MAX_VALUE);
+        List<String> tenants = new ArrayList<>();
+        try {
+            scheduler.execute(new ExtractionJob("tenant_a", ExtractionLane.BULK, 10, 0, () -> {
+                synchronized (tenants) {
+                    tenants.add(TenantContext.getCurrentTenant());
+                    tenants.notifyAll();
+                }
+            }));
+            synchronized (tenants) {
+                long deadline = System.currentTimeMillis() + 5000;
+                while (tenants.isEmpty() && System.currentTimeMillis() < deadline) {
+                    tenants.wait(100);
+                }
+            }
+        } finally {
+            scheduler.shutdown();
+        }
+        assertThat(tenants).containsExactly("tenant_a");
+    }
+
+    @Test
+    void testScheduler_JobOverHeapBudget_WaitsForReservationsToBeReleased() throws Exception {
+        // Given - budget for one large XLSX at a time, plenty of workers
+        long xlsxHeap = ExtractionCost.heapBytes(XLSX, 100L * 1024 * 1024);
+        FairExtractionScheduler scheduler = new FairExtractionScheduler(4, 10, 0, 4, QUANTUM, Duration.ofMinutes(5),
+                xlsxHeap + xlsxHeap / 2);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch secondStarted = new CountDownLatch(1);
+        try {
+            scheduler.execute(new ExtractionJob("tenant_a", ExtractionLane.INTERACTIVE, 1, xlsxHeap, () -> {
+                firstStarted.countDown();
+                await(releaseFirst);
+            }));
+            assertThat(firstStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            scheduler.execute(new ExtractionJob("tenant_b", ExtractionLane.INTERACTIVE, 1, xlsxHeap,
+                    secondStarted::countDown));
+
+            // When - the second job does not fit next to the first
+            assertThat(secondStarted.await(200, TimeUnit.MILLISECONDS)).isFalse();
+            assertThat(scheduler.reservedBytes()).isEqualTo(xlsxHeap);
+            assertThat(scheduler.queued(ExtractionLane.INTERACTIVE)).isEqualTo(1);
+
+            // Then - it starts once the first releases its reservation
+            releaseFirst.countDown();
+            assertThat(secondStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            releaseFirst.countDown();
+            scheduler.shutdown();
+        }
+        assertThat(scheduler.reservedBytes()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExtractionJob job(String tenant, ExtractionLane lane, long cost, String name) {
+        return new ExtractionJob(tenant, lane, cost, 0, new NamedTask(name));
+    }
+
+    private static String name(ExtractionJob job) {
+        return ((NamedTask) job.task()).name;
+    }
+
+    private record NamedTask(String name) implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+}
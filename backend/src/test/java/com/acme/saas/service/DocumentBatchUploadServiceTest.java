@@ -0,0 +1,116 @@
+package com.acme.saas.service;
+
+import com.acme.saas.domain.RfpDocument;
+import com.acme.saas.dto.BatchUploadResult;
+import com.acme.saas.exception.FileStorageException;
+import com.acme.saas.repository.RfpDocumentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentBatchUploadServiceTest {
+
+    @Mock
+    private RfpDocumentRepository repository;
+
+    @Mock
+    private RfpDocumentService documentService;
+
+    @Mock
+    private FileStorageService storageService;
+
+    @Mock
+    private DocumentProcessingService processingService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DocumentBatchUploadService batchUploadService;
+
+    @BeforeEach
+    void setUp() {
+        batchUploadService = new DocumentBatchUploadService(
+                repository, documentService, storageService, processingService, transactionManager, 10, 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUploadBatch_ReportsEachFileAndInsertsStoredOnesInOneBatch() {
+        // Given
+        MockMultipartFile first = new MockMultipartFile("files", "a.pdf", "application/pdf", new byte[] {1});
+        MockMultipartFile empty = new MockMultipartFile("files", "b.pdf", "application/pdf", new byte[0]);
+        MockMultipartFile unstored = new MockMultipartFile("files", "c.txt", "text/plain", new byte[] {2});
+        MockMultipartFile last = new MockMultipartFile("files", "d.pdf", "application/pdf", new byte[] {3});
+        lenient().doThrow(new IllegalArgumentException("File cannot be empty")).when(documentService).validate(empty);
+        when(storageService.newKey(eq("acme"), anyString()))
+                .thenAnswer(invocation -> "tenant_acme/" + invocation.getArgument(1));
+        lenient().doThrow(new FileStorageException("Failed to upload file to S3: slow down", null))
+                .when(storageService).storeStream(eq("tenant_acme/c.txt"), any(), anyLong(), anyString());
+
+        // When
+        List<BatchUploadResult> results = batchUploadService.uploadBatch(
+                List.<MultipartFile>of(first, empty, unstored, last), "acme");
+
+        // Then
+        assertThat(results).extracting(BatchUploadResult::filename).containsExactly("a.pdf", "b.pdf", "c.txt", "d.pdf");
+        assertThat(results).extracting(BatchUploadResult::isCreated).containsExactly(true, false, false, true);
+        assertThat(results.get(0).status()).isEqualTo("PROCESSING");
+        assertThat(results.get(1).error()).isEqualTo("File cannot be empty");
+        assertThat(results.get(2).error()).contains("slow down");
+
+        ArgumentCaptor<List<RfpDocument>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(1)).insertAll(inserted.capture());
+        assertThat(inserted.getValue())
+                .extracting(RfpDocument::getOriginalFilename)
+                .containsExactly("a.pdf", "d.pdf");
+        ArgumentCaptor<RfpDocument> scheduled = ArgumentCaptor.forClass(RfpDocument.class);
+        verify(processingService, times(2)).scheduleFullExtraction(scheduled.capture());
+        assertThat(scheduled.getAllValues())
+                .extracting(RfpDocument::getId)
+                .containsExactly(results.get(0).id(), results.get(3).id());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void testUploadBatch_InsertFails_DeletesStoredFiles() {
+        // Given
+        MockMultipartFile file = new MockMultipartFile("files", "a.pdf", "application/pdf", new byte[] {1});
+        when(storageService.newKey("acme", "a.pdf")).thenReturn("tenant_acme/a.pdf");
+        doThrow(new IllegalStateException("connection reset")).when(repository).insertAll(any());
+
+        // When & Then
+        assertThatThrownBy(() -> batchUploadService.uploadBatch(List.of(file), "acme"))
+                .isInstanceOf(IllegalStateException.class);
+        verify(storageService).deleteFile("tenant_acme/a.pdf");
+        verify(processingService, never()).scheduleFullExtraction(any());
+    }
+
+    @Test
+    void testUploadBatch_TooManyFiles_ThrowsException() {
+        List<MultipartFile> files = Collections.nCopies(11,
+                new MockMultipartFile("files", "a.pdf", "application/pdf", new byte[] {1}));
+
+        assertThatThrownBy(() -> batchUploadService.uploadBatch(files, "acme"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("maximum of 10 files");
+        verifyNoInteractions(storageService);
+    }
+}
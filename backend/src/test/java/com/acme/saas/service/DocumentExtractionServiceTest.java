@@ -4,7 +4,15 @@ import com.acme.saas.domain.ExtractionStatus;
 import com.acme.saas.domain.RfpDocument;
 import com.acme.saas.domain.RfpDocumentExtraction;
 import com.acme.saas.dto.ExtractedTable;
+import com.acme.saas.dto.ExtractedUnit;
+import com.acme.saas.dto.ExtractionPreview;
 import com.acme.saas.dto.KeyValuePair;
+import com.acme.saas.extraction.CompactTable;
+import com.acme.saas.extraction.CompactTableCodec;
+import com.acme.saas.extraction.DocumentExtractor;
+import com.acme.saas.extraction.KeyValueScanner;
+import com.acme.saas.extraction.PreviewLimiter;
+import com.acme.saas.extraction.worker.WorkerPool;
 import com.acme.saas.repository.RfpDocumentExtractionRepository;
 import com.acme.saas.util.TestFileHelper;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -21,10 +29,14 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -37,6 +49,21 @@ class DocumentExtractionServiceTest {
     @Mock
     private RfpDocumentExtractionRepository extractionRepository;
 
+    @Mock
+    private KeyValueIndexService keyValueIndexService;
+
+    @Mock
+    private KeyValueRuleService keyValueRuleService;
+
+    @Mock
+    private TableCellIndexService tableCellIndexService;
+
+    @Mock
+    private ExtractionCheckpointService checkpointService;
+
+    @Mock
+    private WorkerPool workerPool;
+
     @Spy
     private ObjectMapper objectMapper = new ObjectMapper();
 
@@ -52,6 +79,7 @@ class DocumentExtractionServiceTest {
         testDocument = new RfpDocument();
         testDocument.setId(documentId);
         testDocument.setStoragePath("tenant_test/" + documentId + ".pdf");
+        lenient().when(keyValueRuleService.scannerForCurrentTenant()).thenReturn(KeyValueScanner.defaults());
     }
 
     // ===== PDF Extraction Tests =====
@@ -64,7 +92,7 @@ class DocumentExtractionServiceTest {
 
         // Mock file storage service to return a simple PDF-like input
         // Note: For real tests, use actual PDF files. This is a simplified mock.
-        when(fileStorageService.downloadFile(anyString()))
+        when(fileStorageService.downloadFile(anyString(), any()))
                 .thenReturn(createMockPdfStream(pdfText));
         when(extractionRepository.save(any(RfpDocumentExtraction.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -84,7 +112,7 @@ class DocumentExtractionServiceTest {
     void testExtractPdf_S3DownloadFailure_SetsFailedStatus() throws Exception {
         // Given
         testDocument.setContentType("application/pdf");
-        when(fileStorageService.downloadFile(anyString()))
+        when(fileStorageService.downloadFile(anyString(), any()))
                 .thenThrow(new RuntimeException("S3 download failed"));
         when(extractionRepository.save(any(RfpDocumentExtraction.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -105,7 +133,7 @@ class DocumentExtractionServiceTest {
         // Given - Using real sample-with-tables.docx which contains a table
         testDocument.setContentType("application/vnd.openxmlformats-officedocument.wordprocessingml.document");
 
-        when(fileStorageService.downloadFile(anyString()))
+        when(fileStorageService.downloadFile(anyString(), any()))
                 .thenReturn(TestFileHelper.getTestFileStream("sample-with-tables.docx"));
 
         ArgumentCaptor<RfpDocumentExtraction> captor = ArgumentCaptor.forClass(RfpDocumentExtraction.class);
@@ -136,7 +164,7 @@ class DocumentExtractionServiceTest {
         // Given - Using real sample.xlsx which has 2 sheets
         testDocument.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
 
-        when(fileStorageService.downloadFile(anyString()))
+        when(fileStorageService.downloadFile(anyString(), any()))
                 .thenReturn(TestFileHelper.getTestFileStream("sample.xlsx"));
         when(extractionRepository.save(any(RfpDocumentExtraction.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -150,6 +178,31 @@ class DocumentExtractionServiceTest {
         assertThat(result.getExtractedText()).isNotNull();
     }
 
+    @Test
+    void testExtractXlsx_CompactEncoding_StoresCompactTablesOnly() throws Exception {
+        // Given - service configured with extraction.tables.encoding=compact
+        DocumentExtractionService compactService = new DocumentExtractionService(
+                fileStorageService, extractionRepository, objectMapper, keyValueIndexService, keyValueRuleService,
+                tableCellIndexService, checkpointService, workerPool, "compact");
+        testDocument.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+        when(fileStorageService.downloadFile(anyString(), any()))
+                .thenReturn(TestFileHelper.getTestFileStream("sample.xlsx"));
+        when(extractionRepository.save(any(RfpDocumentExtraction.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        RfpDocumentExtraction result = compactService.extractDocument(testDocument);
+
+        // Then
+        assertThat(result.getStatus()).isEqualTo(ExtractionStatus.SUCCESS);
+        assertThat(result.getTablesJson()).isNull();
+        assertThat(result.getTablesCompact()).isNotNull();
+        assertThat(CompactTableCodec.decode(result.getTablesCompact()))
+                .extracting(CompactTable::name)
+                .containsExactly("Plan Details", "Pricing");
+    }
+
     // ===== Key-Value Extraction Tests =====
 
     @Test
@@ -157,7 +210,7 @@ class DocumentExtractionServiceTest {
         // Given - Using real sample.pdf which contains key-value pairs
         testDocument.setContentType("application/pdf");
 
-        when(fileStorageService.downloadFile(anyString()))
+        when(fileStorageService.downloadFile(anyString(), any()))
                 .thenReturn(TestFileHelper.getTestFileStream("sample.pdf"));
 
         ArgumentCaptor<RfpDocumentExtraction> captor = ArgumentCaptor.forClass(RfpDocumentExtraction.class);
@@ -186,7 +239,7 @@ class DocumentExtractionServiceTest {
         // Given - Using real PDF, but this test verifies the 120-line limit logic
         testDocument.setContentType("application/pdf");
 
-        when(fileStorageService.downloadFile(anyString()))
+        when(fileStorageService.downloadFile(anyString(), any()))
                 .thenReturn(TestFileHelper.getTestFileStream("sample.pdf"));
 
         ArgumentCaptor<RfpDocumentExtraction> captor = ArgumentCaptor.forClass(RfpDocumentExtraction.class);
@@ -212,7 +265,7 @@ class DocumentExtractionServiceTest {
         // Given - Using real PDF which has valid key-value patterns
         testDocument.setContentType("application/pdf");
 
-        when(fileStorageService.downloadFile(anyString()))
+        when(fileStorageService.downloadFile(anyString(), any()))
                 .thenReturn(TestFileHelper.getTestFileStream("sample.pdf"));
         when(extractionRepository.save(any(RfpDocumentExtraction.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -236,7 +289,7 @@ class DocumentExtractionServiceTest {
     void testExtractKeyValues_NoKeyValuePatterns_ReturnsEmptyOrMinimalList() throws Exception {
         // Given - Using sample-simple.docx which has plain text without key-value patterns
         testDocument.setContentType("application/vnd.openxmlformats-officedocument.wordprocessingml.document");
-        when(fileStorageService.downloadFile(anyString()))
+        when(fileStorageService.downloadFile(anyString(), any()))
                 .thenReturn(TestFileHelper.getTestFileStream("sample-simple.docx"));
         when(extractionRepository.save(any(RfpDocumentExtraction.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -255,13 +308,48 @@ class DocumentExtractionServiceTest {
         assertThat(keyValues).hasSizeLessThan(5);
     }
 
+    @Test
+    void testExtractKeyValues_Success_IndexesPairs() throws Exception {
+        // Given
+        testDocument.setContentType("application/pdf");
+        when(fileStorageService.downloadFile(anyString(), any()))
+                .thenReturn(TestFileHelper.getTestFileStream("sample.pdf"));
+        when(extractionRepository.save(any(RfpDocumentExtraction.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        RfpDocumentExtraction result = extractionService.extractDocument(testDocument);
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<KeyValuePair>> captor = ArgumentCaptor.forClass(List.class);
+        verify(keyValueIndexService).index(eq(result), captor.capture());
+        assertThat(captor.getValue()).extracting("key").contains("Carrier", "Due Date");
+    }
+
+    @Test
+    void testExtractDocument_Failure_DoesNotIndexPairs() throws Exception {
+        // Given
+        testDocument.setContentType("image/png");
+        when(fileStorageService.downloadFile(anyString(), any()))
+                .thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        when(extractionRepository.save(any(RfpDocumentExtraction.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        extractionService.extractDocument(testDocument);
+
+        // Then
+        verify(keyValueIndexService, never()).index(any(), any());
+    }
+
     // ===== JSON Serialization Tests =====
 
     @Test
     void testExtractDocument_TablesJson_SerializesAndDeserializesCorrectly() throws Exception {
         // Given - Using real sample-with-tables.docx
         testDocument.setContentType("application/vnd.openxmlformats-officedocument.wordprocessingml.document");
-        when(fileStorageService.downloadFile(anyString()))
+        when(fileStorageService.downloadFile(anyString(), any()))
                 .thenReturn(TestFileHelper.getTestFileStream("sample-with-tables.docx"));
         when(extractionRepository.save(any(RfpDocumentExtraction.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -288,7 +376,7 @@ class DocumentExtractionServiceTest {
     void testExtractDocument_UnsupportedContentType_SetsFailedStatus() throws Exception {
         // Given
         testDocument.setContentType("image/png");
-        when(fileStorageService.downloadFile(anyString()))
+        when(fileStorageService.downloadFile(anyString(), any()))
                 .thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
         when(extractionRepository.save(any(RfpDocumentExtraction.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -306,7 +394,7 @@ class DocumentExtractionServiceTest {
         // Given
         testDocument.setContentType("application/pdf");
         // Return invalid PDF data
-        when(fileStorageService.downloadFile(anyString()))
+        when(fileStorageService.downloadFile(anyString(), any()))
                 .thenReturn(new ByteArrayInputStream("not a valid pdf".getBytes()));
         when(extractionRepository.save(any(RfpDocumentExtraction.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -323,7 +411,7 @@ class DocumentExtractionServiceTest {
     void testExtractDocument_CallsRepositorySave() throws Exception {
         // Given
         testDocument.setContentType("application/pdf");
-        when(fileStorageService.downloadFile(anyString()))
+        when(fileStorageService.downloadFile(anyString(), any()))
                 .thenReturn(createMockPdfStream("Test content"));
         when(extractionRepository.save(any(RfpDocumentExtraction.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -340,6 +428,140 @@ class DocumentExtractionServiceTest {
         assertThat(savedExtraction.getExtractedAt()).isNotNull();
     }
 
+    @Test
+    void testExtractDocument_ExistingPreview_IsReplaced() throws Exception {
+        // Given
+        testDocument.setContentType("application/pdf");
+        RfpDocumentExtraction preview = new RfpDocumentExtraction(documentId);
+        preview.setStatus(ExtractionStatus.PREVIEW);
+        when(extractionRepository.findByDocumentId(documentId)).thenReturn(Optional.of(preview));
+        when(fileStorageService.downloadFile(anyString(), any())).thenReturn(createMockPdfStream("Test content"));
+        when(extractionRepository.save(any(RfpDocumentExtraction.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        RfpDocumentExtraction result = extractionService.extractDocument(testDocument);
+
+        // Then
+        assertThat(result.getId()).isEqualTo(preview.getId());
+        assertThat(result.getStatus()).isEqualTo(ExtractionStatus.SUCCESS);
+    }
+
+    @Test
+    void testExtractDocument_Xlsx_StoresOneUnitPerSheet() throws Exception {
+        // Given
+        testDocument.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        when(fileStorageService.downloadFile(anyString(), any()))
+                .thenReturn(TestFileHelper.getTestFileStream("sample.xlsx"));
+        when(extractionRepository.save(any(RfpDocumentExtraction.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        extractionService.extractDocument(testDocument);
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ExtractedUnit>> captor = ArgumentCaptor.forClass(List.class);
+        verify(checkpointService).saveUnits(eq(documentId), captor.capture());
+        assertThat(captor.getValue()).extracting(ExtractedUnit::name).containsExactly("Plan Details", "Pricing");
+        assertThat(captor.getValue()).allMatch(unit -> unit.type().equals("sheet") && !unit.tables().isEmpty());
+    }
+
+    @Test
+    void testExtractDocument_RevisedVersion_ReusesUnchangedSheets() throws Exception {
+        // Given - the previous version has the same "Plan Details" sheet
+        UUID previousId = UUID.randomUUID();
+        testDocument.setPreviousVersionId(previousId);
+        testDocument.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        when(fileStorageService.downloadFile(anyString(), any()))
+                .thenAnswer(invocation -> TestFileHelper.getTestFileStream("sample.xlsx"));
+        when(extractionRepository.save(any(RfpDocumentExtraction.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ExtractedUnit>> captor = ArgumentCaptor.forClass(List.class);
+        extractionService.extractDocument(testDocument);
+        verify(checkpointService).saveUnits(eq(documentId), captor.capture());
+        ExtractedUnit planDetails = captor.getValue().get(0);
+        ExtractedUnit stored = new ExtractedUnit(0, "sheet", planDetails.name(), planDetails.contentHash(),
+                "Sheet: Plan Details\nfrom previous version\n", planDetails.tables());
+        when(checkpointService.loadUnitsByHash(previousId)).thenReturn(Map.of(stored.contentHash(), stored));
+        RfpDocumentExtraction previousExtraction = new RfpDocumentExtraction(previousId);
+        previousExtraction.setExtractorVersion(DocumentExtractor.VERSION);
+        lenient().when(extractionRepository.findByDocumentId(previousId)).thenReturn(Optional.of(previousExtraction));
+
+        // When
+        RfpDocumentExtraction result = extractionService.extractDocument(testDocument);
+
+        // Then
+        assertThat(result.getStatus()).isEqualTo(ExtractionStatus.SUCCESS);
+        assertThat(result.getExtractedText()).startsWith("Sheet: Plan Details\nfrom previous version\n");
+        assertThat(result.getExtractedText()).contains("Sheet: Pricing");
+        assertThat(result.getExtractorVersion()).isEqualTo(DocumentExtractor.VERSION);
+    }
+
+    @Test
+    void testExtractDocument_PreviousVersionFromOlderExtractor_NotReused() throws Exception {
+        // Given - the previous version predates extractor versioning
+        UUID previousId = UUID.randomUUID();
+        testDocument.setPreviousVersionId(previousId);
+        testDocument.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        when(fileStorageService.downloadFile(anyString(), any())).thenReturn(TestFileHelper.getTestFileStream("sample.xlsx"));
+        when(extractionRepository.save(any(RfpDocumentExtraction.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(extractionRepository.findByDocumentId(previousId))
+                .thenReturn(Optional.of(new RfpDocumentExtraction(previousId)));
+
+        // When
+        RfpDocumentExtraction result = extractionService.extractDocument(testDocument);
+
+        // Then
+        assertThat(result.getStatus()).isEqualTo(ExtractionStatus.SUCCESS);
+        verify(checkpointService, never()).loadUnitsByHash(previousId);
+    }
+
+    @Test
+    void testReextractDocument_Failure_ThrowsAndKeepsCurrentExtraction() throws Exception {
+        // Given - a successful extraction from an older extractor
+        RfpDocumentExtraction current = new RfpDocumentExtraction(documentId);
+        current.setStatus(ExtractionStatus.SUCCESS);
+        testDocument.setContentType("application/pdf");
+        when(extractionRepository.findByDocumentId(documentId)).thenReturn(Optional.of(current));
+        when(fileStorageService.downloadFile(anyString(), any()))
+                .thenReturn(new ByteArrayInputStream("not a pdf".getBytes()));
+
+        // When / Then
+        assertThatThrownBy(() -> extractionService.reextractDocument(testDocument)).isInstanceOf(IOException.class);
+        verify(extractionRepository, never()).save(any());
+        assertThat(current.getStatus()).isEqualTo(ExtractionStatus.SUCCESS);
+    }
+
+    // ===== Preview Tests =====
+
+    @Test
+    void testExtractPreview_RowLimit_StoresTruncatedPreview() throws Exception {
+        // Given
+        testDocument.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        when(extractionRepository.save(any(RfpDocumentExtraction.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        PreviewLimiter limiter = new PreviewLimiter(5, 2, 20000, Duration.ofSeconds(30));
+
+        // When
+        ExtractionPreview preview;
+        try (InputStream content = TestFileHelper.getTestFileStream("sample.xlsx")) {
+            preview = extractionService.extractPreview(testDocument, content, limiter);
+        }
+
+        // Then
+        assertThat(preview.complete()).isFalse();
+        assertThat(preview.tables()).isNotEmpty();
+        assertThat(preview.tables().stream().mapToInt(t -> t.rows().size()).sum()).isEqualTo(2);
+
+        ArgumentCaptor<RfpDocumentExtraction> captor = ArgumentCaptor.forClass(RfpDocumentExtraction.class);
+        verify(extractionRepository).save(captor.capture());
+        assertThat(captor.getValue().getStatus()).isEqualTo(ExtractionStatus.PREVIEW);
+        verifyNoInteractions(keyValueIndexService, tableCellIndexService);
+    }
+
     // ===== Helper Methods for Loading Real Test Files =====
 
     private InputStream createMockPdfStream(String text) {
@@ -0,0 +1,248 @@
+package com.acme.saas.service;
+
+import com.acme.saas.domain.DocumentImport;
+import com.acme.saas.domain.DocumentImportFailure;
+import com.acme.saas.domain.RfpDocument;
+import com.acme.saas.exception.FileStorageException;
+import com.acme.saas.repository.DocumentImportFailureRepository;
+import com.acme.saas.repository.DocumentImportRepository;
+import com.acme.saas.repository.RfpDocumentRepository;
+import com.acme.saas.tenancy.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentImportServiceTest {
+
+    @Mock
+    private DocumentImportRepository importRepository;
+
+    @Mock
+    private DocumentImportFailureRepository failureRepository;
+
+    @Mock
+    private RfpDocumentRepository documentRepository;
+
+    @Mock
+    private FileStorageService storageService;
+
+    @Mock
+    private DocumentProcessingService processingService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DocumentImportService importService;
+
+    private DocumentImport job;
+
+    @BeforeEach
+    void setUp() {
+        importService = new DocumentImportService(importRepository, failureRepository, documentRepository,
+                storageService, processingService, transactionManager, Runnable::run,
+                "carrier-feeds, app-bucket, partner-drop/{tenant}", 2, 4, Duration.ofMinutes(5));
+        TenantContext.setCurrentTenant("tenant_acme");
+        job = new DocumentImport("carrier-feeds", "feeds/");
+        lenient().when(importRepository.findById(job.getId())).thenReturn(Optional.of(job));
+        lenient().when(storageService.getBucketName()).thenReturn("app-bucket");
+        lenient().when(storageService.newKey(eq("acme"), anyString()))
+                .thenAnswer(invocation -> "tenant_acme/" + invocation.getArgument(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRun_CopiesSupportedObjectsPageByPage() {
+        // Given
+        when(storageService.listObjects("carrier-feeds", "feeds/", null, null, 2)).thenReturn(page("next",
+                object("feeds/a.pdf", 100), object("feeds/drawing.dwg", 100)));
+        when(storageService.listObjects("carrier-feeds", "feeds/", "feeds/drawing.dwg", "next", 2)).thenReturn(page(null,
+                object("feeds/huge.pdf", RfpDocumentService.MAX_FILE_SIZE + 1), object("feeds/q/b.xlsx", 200)));
+        when(importRepository.recordPage(eq(job.getId()), anyString(), anyInt(), anyInt(), anyInt(), anyInt(), any()))
+                .thenReturn(1);
+
+        // When
+        importService.run(job.getId());
+
+        // Then
+        verify(storageService).copyFrom("carrier-feeds", "feeds/a.pdf", "tenant_acme/a.pdf");
+        verify(storageService).copyFrom("carrier-feeds", "feeds/q/b.xlsx", "tenant_acme/q/b.xlsx");
+        verify(storageService, times(2)).copyFrom(anyString(), anyString(), anyString());
+        verify(importRepository).recordPage(eq(job.getId()), eq("feeds/drawing.dwg"), eq(2), eq(1), eq(1), eq(0), any());
+        verify(importRepository).recordPage(eq(job.getId()), eq("feeds/q/b.xlsx"), eq(2), eq(1), eq(1), eq(0), any());
+
+        ArgumentCaptor<List<RfpDocument>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(documentRepository, times(2)).insertAll(inserted.capture());
+        assertThat(inserted.getAllValues()).flatExtracting(documents -> documents)
+                .extracting(RfpDocument::getOriginalFilename, RfpDocument::getContentType)
+                .containsExactly(
+                        tuple("a.pdf", "application/pdf"),
+                        tuple("q/b.xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+        verify(processingService, times(2)).scheduleFullExtraction(any());
+        verify(importRepository).finish(eq(job.getId()), eq(DocumentImport.Status.COMPLETED), isNull(), any());
+    }
+
+    @Test
+    void testRun_ResumesAfterLastRecordedKey() {
+        // Given
+        job.setLastKey("feeds/m.pdf");
+        when(storageService.listObjects("carrier-feeds", "feeds/", "feeds/m.pdf", null, 2)).thenReturn(page(null));
+
+        // When
+        importService.run(job.getId());
+
+        // Then
+        verify(storageService, never()).copyFrom(anyString(), anyString(), anyString());
+        verify(importRepository).finish(eq(job.getId()), eq(DocumentImport.Status.COMPLETED), isNull(), any());
+    }
+
+    @Test
+    void testRun_CancelledDuringPage_DeletesItsCopies() {
+        // Given
+        when(storageService.listObjects("carrier-feeds", "feeds/", null, null, 2)).thenReturn(page("next",
+                object("feeds/a.pdf", 100)));
+        when(importRepository.recordPage(eq(job.getId()), anyString(), anyInt(), anyInt(), anyInt(), anyInt(), any()))
+                .thenReturn(0);
+
+        // When
+        importService.run(job.getId());
+
+        // Then
+        verify(storageService).deleteFile("tenant_acme/a.pdf");
+        verify(documentRepository, never()).insertAll(any());
+        verify(processingService, never()).scheduleFullExtraction(any());
+        verify(importRepository, never()).finish(any(), eq(DocumentImport.Status.COMPLETED), any(), any());
+        verify(storageService, times(1)).listObjects(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void testRun_ListingFails_MarksImportFailed() {
+        // Given
+        when(storageService.listObjects(any(), any(), any(), any(), anyInt()))
+                .thenThrow(new IllegalStateException("Access Denied"));
+
+        // When
+        importService.run(job.getId());
+
+        // Then
+        verify(importRepository).finish(eq(job.getId()), eq(DocumentImport.Status.FAILED), eq("Access Denied"), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRun_CopyFails_RecordsObjectAndFailsImport() {
+        // Given
+        when(storageService.listObjects("carrier-feeds", "feeds/", null, null, 2)).thenReturn(page(null,
+                object("feeds/a.pdf", 100), object("feeds/b.pdf", 100)));
+        lenient().doThrow(new FileStorageException("Throttled")).when(storageService)
+                .copyFrom("carrier-feeds", "feeds/b.pdf", "tenant_acme/b.pdf");
+        when(importRepository.recordPage(eq(job.getId()), anyString(), anyInt(), anyInt(), anyInt(), anyInt(), any()))
+                .thenReturn(1);
+        when(failureRepository.countByImportId(job.getId())).thenReturn(1L);
+
+        // When
+        importService.run(job.getId());
+
+        // Then: the page is recorded past b.pdf, and b.pdf is kept for the retry on resume
+        verify(importRepository).recordPage(eq(job.getId()), eq("feeds/b.pdf"), eq(2), eq(1), eq(0), eq(1), any());
+        ArgumentCaptor<List<DocumentImportFailure>> failures = ArgumentCaptor.forClass(List.class);
+        verify(failureRepository).saveAll(failures.capture());
+        assertThat(failures.getValue())
+                .extracting(DocumentImportFailure::getObjectKey, DocumentImportFailure::getObjectSize,
+                        DocumentImportFailure::getErrorMessage)
+                .containsExactly(tuple("feeds/b.pdf", 100L, "Throttled"));
+        verify(importRepository).finish(eq(job.getId()), eq(DocumentImport.Status.FAILED),
+                eq("1 objects could not be copied; resume the import to retry them"), any());
+    }
+
+    @Test
+    void testRun_Resumed_RetriesFailedObjectsFirst() {
+        // Given
+        job.setLastKey("feeds/m.pdf");
+        DocumentImportFailure resolved = new DocumentImportFailure(job.getId(), "feeds/b.pdf", 100, "Throttled");
+        DocumentImportFailure remaining = new DocumentImportFailure(job.getId(), "feeds/c.pdf", 100, "Throttled");
+        when(failureRepository.findByImportIdOrderByObjectKey(job.getId())).thenReturn(List.of(resolved, remaining));
+        lenient().doThrow(new FileStorageException("Access Denied")).when(storageService)
+                .copyFrom("carrier-feeds", "feeds/c.pdf", "tenant_acme/c.pdf");
+        when(importRepository.recordRetry(eq(job.getId()), eq(1), eq(0), eq(1), any())).thenReturn(1);
+        when(storageService.listObjects("carrier-feeds", "feeds/", "feeds/m.pdf", null, 2)).thenReturn(page(null));
+        when(failureRepository.countByImportId(job.getId())).thenReturn(1L);
+
+        // When
+        importService.run(job.getId());
+
+        // Then
+        verify(storageService).copyFrom("carrier-feeds", "feeds/b.pdf", "tenant_acme/b.pdf");
+        verify(documentRepository).insertAll(argThat(documents -> documents.size() == 1));
+        verify(failureRepository).deleteAll(List.of(resolved));
+        verify(failureRepository).saveAll(List.of(remaining));
+        assertThat(remaining.getErrorMessage()).isEqualTo("Access Denied");
+        verify(importRepository).finish(eq(job.getId()), eq(DocumentImport.Status.FAILED), anyString(), any());
+    }
+
+    @Test
+    void testStart_PrefixOfOtherTenant_ThrowsException() {
+        when(importRepository.save(any(DocumentImport.class))).thenReturn(job);
+        when(storageService.listObjects(any(), any(), any(), any(), anyInt())).thenReturn(page(null));
+
+        importService.start("partner-drop", "acme/2024/");
+        verify(importRepository).save(argThat(saved -> saved.getSourcePrefix().equals("acme/2024/")));
+        // The import ran inline and cleared the tenant when it finished
+        TenantContext.setCurrentTenant("tenant_acme");
+        assertThatThrownBy(() -> importService.start("partner-drop", "acme2/"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not allowed");
+        assertThatThrownBy(() -> importService.start("partner-drop", ""))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not allowed");
+    }
+
+    @Test
+    void testStart_BucketNotAllowed_ThrowsException() {
+        assertThatThrownBy(() -> importService.start("someone-elses-bucket", "feeds/"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not allowed");
+        assertThatThrownBy(() -> importService.start("app-bucket", "tenant_other/"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Tenant storage");
+        verify(importRepository, never()).save(any());
+    }
+
+    private static ListObjectsV2Response page(String nextToken, S3Object... objects) {
+        return ListObjectsV2Response.builder()
+                .contents(objects)
+                .isTruncated(nextToken != null)
+                .nextContinuationToken(nextToken)
+                .build();
+    }
+
+    private static S3Object object(String key, long size) {
+        return S3Object.builder().key(key).size(size).build();
+    }
+}
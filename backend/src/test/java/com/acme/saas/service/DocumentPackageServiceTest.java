@@ -0,0 +1,158 @@
+package com.acme.saas.service;
+
+import com.acme.saas.domain.RfpDocument;
+import com.acme.saas.dto.PackageUpload;
+import com.acme.saas.repository.RfpDocumentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentPackageServiceTest {
+
+    @Mock
+    private RfpDocumentRepository repository;
+
+    @Mock
+    private FileStorageService storageService;
+
+    @Mock
+    private DocumentProcessingService processingService;
+
+    private DocumentPackageService packageService;
+
+    @BeforeEach
+    void setUp() {
+        packageService = new DocumentPackageService(
+                repository, storageService, processingService, 200, DataSize.ofMegabytes(100));
+    }
+
+    @Test
+    void testUploadPackage_CreatesMembersAndQueuesTheirExtraction() throws Exception {
+        // Given
+        MockMultipartFile archive = new MockMultipartFile("file", "rfp-package.zip", "application/zip", zip(
+                "RFP/main.pdf", "%PDF-1.4",
+                "RFP/pricing.XLSX", "sheet",
+                "RFP/drawing.dwg", "cad",
+                "__MACOSX/RFP/._main.pdf", "resource fork",
+                "RFP/.DS_Store", "finder"));
+        when(storageService.storeFile(archive, "acme")).thenReturn("tenant_acme/package.zip");
+        when(storageService.newKey(eq("acme"), anyString())).thenReturn("tenant_acme/member");
+        when(repository.save(any(RfpDocument.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        List<String> stored = new ArrayList<>();
+        doAnswer(invocation -> {
+            InputStream content = invocation.getArgument(1);
+            stored.add(new String(content.readAllBytes(), StandardCharsets.UTF_8));
+            return null;
+        }).when(storageService).storeStream(anyString(), any(), anyLong(), anyString());
+
+        // When
+        PackageUpload upload = packageService.uploadPackage(archive, "acme");
+
+        // Then
+        assertThat(stored).containsExactly("%PDF-1.4", "sheet");
+        assertThat(upload.members()).extracting(RfpDocument::getFileSize).containsExactly(8L, 5L);
+        assertThat(upload.document().getStatus()).isEqualTo(RfpDocument.DocumentStatus.COMPLETED);
+        assertThat(upload.document().getContentType()).isEqualTo("application/zip");
+        assertThat(upload.members())
+                .extracting(RfpDocument::getOriginalFilename, RfpDocument::getContentType)
+                .containsExactly(
+                        tuple("RFP/main.pdf", "application/pdf"),
+                        tuple("RFP/pricing.XLSX", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+        assertThat(upload.members())
+                .allSatisfy(member -> {
+                    assertThat(member.getPackageId()).isEqualTo(upload.document().getId());
+                    assertThat(member.getStatus()).isEqualTo(RfpDocument.DocumentStatus.PROCESSING);
+                });
+        assertThat(upload.skipped())
+                .containsExactly(new PackageUpload.SkippedEntry("RFP/drawing.dwg", "Unsupported file type"));
+
+        verify(storageService, times(2)).storeStream(eq("tenant_acme/member"), any(), anyLong(), anyString());
+        ArgumentCaptor<RfpDocument> scheduled = ArgumentCaptor.forClass(RfpDocument.class);
+        verify(processingService, times(2)).scheduleFullExtraction(scheduled.capture());
+        assertThat(scheduled.getAllValues()).containsExactlyElementsOf(upload.members());
+    }
+
+    @Test
+    void testUploadPackage_FailsAfterStoringMembers_ReturnsThem() throws Exception {
+        // Given
+        MockMultipartFile archive = new MockMultipartFile("file", "rfp-package.zip", "application/zip", zip(
+                "RFP/main.pdf", "%PDF-1.4",
+                "RFP/addendum.pdf", "%PDF-1.4"));
+        when(storageService.storeFile(archive, "acme")).thenReturn("tenant_acme/package.zip");
+        when(storageService.newKey(eq("acme"), anyString())).thenAnswer(invocation -> "tenant_acme/" + invocation.getArgument(1));
+        doNothing().doThrow(new IllegalStateException("S3 unavailable"))
+                .when(storageService).storeStream(anyString(), any(), anyLong(), anyString());
+        when(repository.save(any(RfpDocument.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        PackageUpload upload = packageService.uploadPackage(archive, "acme");
+
+        // Then: the result is returned, so an idempotent retry replays it instead of storing main.pdf again
+        assertThat(upload.document().getStatus()).isEqualTo(RfpDocument.DocumentStatus.FAILED);
+        assertThat(upload.document().getErrorMessage()).isEqualTo("S3 unavailable");
+        assertThat(upload.members()).extracting(RfpDocument::getOriginalFilename).containsExactly("RFP/main.pdf");
+    }
+
+    @Test
+    void testUploadPackage_NotAZip_ThrowsException() throws Exception {
+        // Given
+        MockMultipartFile archive = new MockMultipartFile(
+                "file", "rfp-package.zip", "application/zip", "not a zip".getBytes(StandardCharsets.UTF_8));
+
+        // When & Then
+        assertThatThrownBy(() -> packageService.uploadPackage(archive, "acme"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not a zip file");
+
+        verify(storageService, never()).storeFile(any(), anyString());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void testUploadPackage_WrongContentType_ThrowsException() {
+        // Given
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "rfp.pdf", "application/pdf", "%PDF-1.4".getBytes(StandardCharsets.UTF_8));
+
+        // When & Then
+        assertThatThrownBy(() -> packageService.uploadPackage(file, "acme"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("zip archives");
+    }
+
+    private static byte[] zip(String... namesAndContents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(namesAndContents[i]));
+                zip.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,182 @@
+package com.acme.saas.service;
+
+import com.acme.saas.domain.ExtractionStatus;
+import com.acme.saas.domain.RfpDocument;
+import com.acme.saas.domain.RfpDocumentExtraction;
+import com.acme.saas.repository.RfpDocumentRepository;
+import com.acme.saas.scheduling.ExtractionLane;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentProcessingServiceTest {
+
+    @Mock
+    private DocumentExtractionService extractionService;
+
+    @Mock
+    private RfpDocumentRepository documentRepository;
+
+    @Mock
+    private ExtractionCheckpointService checkpointService;
+
+    @Mock
+    private ExtractionJobQueue jobQueue;
+
+    private RfpDocument document;
+
+    @BeforeEach
+    void setUp() {
+        document = new RfpDocument();
+        document.setStatus(RfpDocument.DocumentStatus.PROCESSING);
+        lenient().when(documentRepository.findById(document.getId())).thenReturn(Optional.of(document));
+        lenient().when(checkpointService.claim(eq(document.getId()), any())).thenReturn(true);
+    }
+
+    @Test
+    void testScheduleFullExtraction_Success_MarksCompleted() {
+        // Given - executor runs tasks inline
+        DocumentProcessingService service = new DocumentProcessingService(extractionService, documentRepository, Runnable::run,
+                checkpointService, jobQueue);
+        RfpDocumentExtraction extraction = new RfpDocumentExtraction(document.getId());
+        extraction.setStatus(ExtractionStatus.SUCCESS);
+        when(extractionService.extractDocument(document, true)).thenReturn(extraction);
+
+        // When
+        service.scheduleFullExtraction(document);
+
+        // Then
+        assertThat(document.getStatus()).isEqualTo(RfpDocument.DocumentStatus.COMPLETED);
+        assertThat(document.getProcessedAt()).isNotNull();
+        verify(documentRepository).save(document);
+    }
+
+    @Test
+    void testScheduleFullExtraction_ExtractionFailed_MarksFailed() {
+        // Given
+        DocumentProcessingService service = new DocumentProcessingService(extractionService, documentRepository, Runnable::run,
+                checkpointService, jobQueue);
+        RfpDocumentExtraction extraction = new RfpDocumentExtraction(document.getId());
+        extraction.setStatus(ExtractionStatus.FAILED);
+        extraction.setErrorMessage("corrupted file");
+        when(extractionService.extractDocument(document, true)).thenReturn(extraction);
+
+        // When
+        service.scheduleFullExtraction(document);
+
+        // Then
+        assertThat(document.getStatus()).isEqualTo(RfpDocument.DocumentStatus.FAILED);
+        assertThat(document.getErrorMessage()).isEqualTo("corrupted file");
+    }
+
+    @Test
+    void testScheduleFullExtraction_QueueFull_MarksFailed() {
+        // Given
+        DocumentProcessingService service = new DocumentProcessingService(extractionService, documentRepository,
+                task -> { throw new RejectedExecutionException("full"); }, checkpointService, jobQueue);
+
+        // When
+        service.scheduleFullExtraction(document);
+
+        // Then
+        assertThat(document.getStatus()).isEqualTo(RfpDocument.DocumentStatus.FAILED);
+        verify(extractionService, never()).extractDocument(any(), anyBoolean());
+    }
+
+    @Test
+    void testScheduleFullExtraction_NoExecutor_QueuesForWorkers() {
+        // Given - api role: this node has no extraction executor
+        DocumentProcessingService service = new DocumentProcessingService(extractionService, documentRepository, null,
+                checkpointService, jobQueue);
+        document.setContentType("application/pdf");
+        document.setFileSize(2048L);
+
+        // When
+        service.scheduleFullExtraction(document);
+
+        // Then
+        verify(jobQueue).enqueue(eq(document.getId()), eq(ExtractionLane.INTERACTIVE), eq(2L), anyLong());
+        verify(extractionService, never()).extractDocument(any(), anyBoolean());
+        assertThat(document.getStatus()).isEqualTo(RfpDocument.DocumentStatus.PROCESSING);
+    }
+
+    @Test
+    void testRunFullExtraction_ClaimedElsewhere_Skips() {
+        // Given - another node holds a fresh heartbeat
+        DocumentProcessingService service = new DocumentProcessingService(extractionService, documentRepository, Runnable::run,
+                checkpointService, jobQueue);
+        when(checkpointService.claim(eq(document.getId()), any())).thenReturn(false);
+
+        // When
+        service.scheduleFullExtraction(document);
+
+        // Then
+        verify(extractionService, never()).extractDocument(any(), anyBoolean());
+        assertThat(document.getStatus()).isEqualTo(RfpDocument.DocumentStatus.PROCESSING);
+    }
+
+    @Test
+    void testRecoverStalled_ResumesStalledDocuments() {
+        // Given
+        DocumentProcessingService service = new DocumentProcessingService(extractionService, documentRepository, Runnable::run,
+                checkpointService, jobQueue);
+        RfpDocumentExtraction extraction = new RfpDocumentExtraction(document.getId());
+        extraction.setStatus(ExtractionStatus.SUCCESS);
+        when(checkpointService.findStalled(any(), eq(20))).thenReturn(List.of(document.getId()));
+        when(extractionService.extractDocument(document, true)).thenReturn(extraction);
+
+        // When
+        int submitted = service.recoverStalled(20);
+
+        // Then
+        assertThat(submitted).isEqualTo(1);
+        assertThat(document.getStatus()).isEqualTo(RfpDocument.DocumentStatus.COMPLETED);
+    }
+
+    @Test
+    void testReextract_PreviouslyFailed_MarksCompleted() throws Exception {
+        // Given
+        DocumentProcessingService service = new DocumentProcessingService(extractionService, documentRepository, Runnable::run,
+                checkpointService, jobQueue);
+        document.setStatus(RfpDocument.DocumentStatus.FAILED);
+        document.setErrorMessage("old parser error");
+
+        // When
+        boolean reextracted = service.reextract(document.getId());
+
+        // Then
+        assertThat(reextracted).isTrue();
+        verify(extractionService).reextractDocument(document);
+        assertThat(document.getStatus()).isEqualTo(RfpDocument.DocumentStatus.COMPLETED);
+        assertThat(document.getErrorMessage()).isNull();
+    }
+
+    @Test
+    void testReextract_StillProcessing_Skips() throws Exception {
+        // Given - the regular extraction has not finished
+        DocumentProcessingService service = new DocumentProcessingService(extractionService, documentRepository, Runnable::run,
+                checkpointService, jobQueue);
+
+        // When
+        boolean reextracted = service.reextract(document.getId());
+
+        // Then
+        assertThat(reextracted).isFalse();
+        verify(extractionService, never()).reextractDocument(any());
+    }
+}
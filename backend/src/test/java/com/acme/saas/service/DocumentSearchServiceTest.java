@@ -0,0 +1,16 @@
+package com.acme.saas.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocumentSearchServiceTest {
+
+    @Test
+    void testHighlight_EscapesDocumentMarkupAndMarksMatches() {
+        String headline = "<script>alert(1)</script> the \u0002Aetna\u0003 plan & <b>rates</b>";
+
+        assertThat(DocumentSearchService.highlight(headline)).isEqualTo(
+                "&lt;script&gt;alert(1)&lt;/script&gt; the <mark>Aetna</mark> plan &amp; &lt;b&gt;rates&lt;/b&gt;");
+    }
+}
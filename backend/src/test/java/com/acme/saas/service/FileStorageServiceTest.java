@@ -0,0 +1,192 @@
+package com.acme.saas.service;
+
+import com.acme.saas.deadline.RequestDeadline;
+import com.acme.saas.exception.DeadlineExceededException;
+import com.acme.saas.exception.FileStorageException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.async.ResponsePublisher;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileStorageServiceTest {
+
+    @Mock
+    private S3AsyncClient s3Client;
+
+    @Mock
+    private S3Presigner s3Presigner;
+
+    private FileStorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        storageService = new FileStorageService(s3Client, s3Presigner,
+                new HedgedReads(false, 95, Duration.ofMillis(50), Duration.ofSeconds(1)),
+                new OriginalsCache(false, Path.of("originals"), DataSize.ofMegabytes(1), new SimpleMeterRegistry()),
+                "app-bucket", DataSize.ofBytes(16),
+                DataSize.ofBytes(8), 2);
+    }
+
+    @Test
+    void testStoreStream_StreamsContentIntoRequestBody() {
+        // Given
+        byte[] content = "rfp content".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        when(s3Client.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenAnswer(invocation -> invocation.<AsyncRequestBody>getArgument(1)
+                        .subscribe(buffer -> received.writeBytes(bytes(buffer)))
+                        .thenApply(done -> PutObjectResponse.builder().build()));
+
+        // When
+        storageService.storeStream("tenant_acme/a.pdf", new ByteArrayInputStream(content), content.length,
+                "application/pdf");
+
+        // Then
+        assertThat(received.toByteArray()).isEqualTo(content);
+        verify(s3Client).putObject(eq(PutObjectRequest.builder()
+                .bucket("app-bucket")
+                .key("tenant_acme/a.pdf")
+                .contentType("application/pdf")
+                .contentLength((long) content.length)
+                .build()), any(AsyncRequestBody.class));
+    }
+
+    @Test
+    void testDownloadFile_LargeObject_FetchesRangesIntoSpoolFile() throws Exception {
+        // Given
+        byte[] content = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.UTF_8);
+        List<String> ranges = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            String range = invocation.<GetObjectRequest>getArgument(0).range();
+            ranges.add(range);
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            byte[] slice = Arrays.copyOfRange(content, Integer.parseInt(bounds[0]), Integer.parseInt(bounds[1]) + 1);
+            return CompletableFuture.completedFuture(
+                    new ResponsePublisher<>(GetObjectResponse.builder().build(), AsyncRequestBody.fromBytes(slice)));
+        }).when(s3Client).getObject(any(GetObjectRequest.class),
+                ArgumentMatchers.<AsyncResponseTransformer<GetObjectResponse, ResponsePublisher<GetObjectResponse>>>any());
+
+        // When
+        byte[] downloaded;
+        try (InputStream in = storageService.downloadFile("tenant_acme/big.pdf", (long) content.length)) {
+            downloaded = in.readAllBytes();
+        }
+
+        // Then
+        assertThat(downloaded).isEqualTo(content);
+        assertThat(ranges).containsExactlyInAnyOrder(
+                "bytes=0-7", "bytes=8-15", "bytes=16-23", "bytes=24-31", "bytes=32-35");
+    }
+
+    @Test
+    void testDownloadFile_SameContentUnderTwoKeys_IsCachedOnce(@TempDir Path directory) throws Exception {
+        // Given: a re-upload of the same file has the same ETag under its own key
+        FileStorageService cachingService = new FileStorageService(s3Client, s3Presigner,
+                new HedgedReads(false, 95, Duration.ofMillis(50), Duration.ofSeconds(1)),
+                new OriginalsCache(true, directory, DataSize.ofMegabytes(1), new SimpleMeterRegistry()),
+                "app-bucket", DataSize.ofBytes(1024), DataSize.ofBytes(1024), 2);
+        byte[] content = "rfp content".getBytes(StandardCharsets.UTF_8);
+        when(s3Client.headObject(any(HeadObjectRequest.class))).thenReturn(CompletableFuture.completedFuture(
+                HeadObjectResponse.builder().eTag("\"3f2a\"").contentLength((long) content.length).build()));
+        when(s3Client.getObject(any(GetObjectRequest.class),
+                ArgumentMatchers.<AsyncResponseTransformer<GetObjectResponse, ResponseInputStream<GetObjectResponse>>>any()))
+                .thenReturn(CompletableFuture.completedFuture(new ResponseInputStream<>(
+                        GetObjectResponse.builder().build(), new ByteArrayInputStream(content))));
+
+        // When
+        byte[] first;
+        try (InputStream in = cachingService.downloadFile("tenant_acme/a.pdf", (long) content.length)) {
+            first = in.readAllBytes();
+        }
+        byte[] second;
+        try (InputStream in = cachingService.downloadFile("tenant_acme/a-copy.pdf", (long) content.length)) {
+            second = in.readAllBytes();
+        }
+
+        // Then
+        assertThat(first).isEqualTo(content);
+        assertThat(second).isEqualTo(content);
+        verify(s3Client, times(1)).getObject(any(GetObjectRequest.class),
+                ArgumentMatchers.<AsyncResponseTransformer<GetObjectResponse, ResponseInputStream<GetObjectResponse>>>any());
+    }
+
+    @Test
+    void testObjectSize_MissingObject_ReturnsEmpty() {
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(NoSuchKeyException.builder().build()));
+
+        assertThat(storageService.objectSize("tenant_acme/a.pdf")).isEqualTo(OptionalLong.empty());
+    }
+
+    @Test
+    void testDeleteFile_S3Error_ThrowsFileStorageException() {
+        when(s3Client.deleteObject(any(DeleteObjectRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(S3Exception.builder()
+                        .awsErrorDetails(AwsErrorDetails.builder().errorMessage("Access Denied").build())
+                        .build()));
+
+        assertThatThrownBy(() -> storageService.deleteFile("tenant_acme/a.pdf"))
+                .isInstanceOf(FileStorageException.class)
+                .hasMessageContaining("Access Denied");
+    }
+
+    @Test
+    void testObjectSize_DeadlinePasses_ThrowsDeadlineExceeded() {
+        when(s3Client.headObject(any(HeadObjectRequest.class))).thenReturn(new CompletableFuture<>());
+        RequestDeadline.set(Instant.now().plusMillis(50));
+        try {
+            assertThatThrownBy(() -> storageService.objectSize("tenant_acme/a.pdf"))
+                    .isInstanceOf(DeadlineExceededException.class);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
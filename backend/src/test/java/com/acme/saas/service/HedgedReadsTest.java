@@ -0,0 +1,111 @@
+package com.acme.saas.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HedgedReadsTest {
+
+    @Test
+    void testRead_FastAttempt_IsNotHedged() throws Exception {
+        HedgedReads hedgedReads = new HedgedReads(true, 95, Duration.ofMillis(20), Duration.ofMillis(20));
+        List<CompletableFuture<String>> attempts = new CopyOnWriteArrayList<>();
+
+        String response = hedgedReads.read(HedgedReads.Operation.GET, () -> {
+            CompletableFuture<String> attempt = CompletableFuture.completedFuture("first");
+            attempts.add(attempt);
+            return attempt;
+        }, discarded -> { }).get(1, TimeUnit.SECONDS);
+        Thread.sleep(60);
+
+        assertThat(response).isEqualTo("first");
+        assertThat(attempts).hasSize(1);
+    }
+
+    @Test
+    void testRead_SlowAttempt_HedgeAnswersAndLoserIsDiscarded() throws Exception {
+        // Given: the first attempt stalls, the hedge answers at once
+        HedgedReads hedgedReads = new HedgedReads(true, 95, Duration.ofMillis(20), Duration.ofMillis(20));
+        List<CompletableFuture<String>> attempts = new CopyOnWriteArrayList<>();
+        List<String> discarded = new CopyOnWriteArrayList<>();
+
+        // When
+        String response = hedgedReads.read(HedgedReads.Operation.GET, () -> {
+            CompletableFuture<String> attempt = attempts.isEmpty()
+                    ? new CompletableFuture<>()
+                    : CompletableFuture.completedFuture("hedge");
+            attempts.add(attempt);
+            return attempt;
+        }, discarded::add).get(1, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(response).isEqualTo("hedge");
+        assertThat(attempts).hasSize(2);
+        assertThat(attempts.get(0)).isCancelled();
+    }
+
+    @Test
+    void testRead_HedgeFailsButFirstSucceeds_ReturnsFirst() throws Exception {
+        HedgedReads hedgedReads = new HedgedReads(true, 95, Duration.ofMillis(20), Duration.ofMillis(20));
+        CompletableFuture<String> first = new CompletableFuture<>();
+        List<CompletableFuture<String>> attempts = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<String> result = hedgedReads.read(HedgedReads.Operation.GET, () -> {
+            CompletableFuture<String> attempt = attempts.isEmpty()
+                    ? first
+                    : CompletableFuture.failedFuture(new IllegalStateException("503 Slow Down"));
+            attempts.add(attempt);
+            return attempt;
+        }, discarded -> { });
+        Thread.sleep(60);
+        first.complete("first");
+
+        assertThat(result.get(1, TimeUnit.SECONDS)).isEqualTo("first");
+    }
+
+    @Test
+    void testRead_EveryAttemptFails_Fails() {
+        HedgedReads hedgedReads = new HedgedReads(true, 95, Duration.ofMillis(20), Duration.ofMillis(20));
+
+        CompletableFuture<String> result = hedgedReads.read(HedgedReads.Operation.HEAD,
+                () -> CompletableFuture.failedFuture(new IllegalStateException("Access Denied")), discarded -> { });
+
+        assertThatThrownBy(() -> result.get(1, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testDelay_FollowsPercentileOfRecentLatencies() throws Exception {
+        HedgedReads hedgedReads = new HedgedReads(false, 50, Duration.ofMillis(1), Duration.ofSeconds(5));
+        List<CompletableFuture<String>> pending = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            CompletableFuture<String> attempt = new CompletableFuture<>();
+            pending.add(attempt);
+            hedgedReads.read(HedgedReads.Operation.GET, () -> attempt, discarded -> { });
+        }
+        Thread.sleep(20);
+        pending.forEach(attempt -> attempt.complete("done"));
+
+        assertThat(hedgedReads.delay(HedgedReads.Operation.GET))
+                .isLessThan(Duration.ofSeconds(1)).isGreaterThanOrEqualTo(Duration.ofMillis(20));
+    }
+
+    @Test
+    void testDelay_IsKeptPerOperation() throws Exception {
+        HedgedReads hedgedReads = new HedgedReads(false, 50, Duration.ofMillis(1), Duration.ofSeconds(5));
+        for (int i = 0; i < 32; i++) {
+            hedgedReads.read(HedgedReads.Operation.HEAD, () -> CompletableFuture.completedFuture("head"), discarded -> { });
+        }
+
+        assertThat(hedgedReads.delay(HedgedReads.Operation.HEAD)).isLessThan(Duration.ofSeconds(1));
+        assertThat(hedgedReads.delay(HedgedReads.Operation.GET)).isEqualTo(Duration.ofSeconds(5));
+        assertThat(hedgedReads.delay(HedgedReads.Operation.RANGED_GET)).isEqualTo(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,188 @@
+package com.acme.saas.service;
+
+import com.acme.saas.domain.IdempotencyKey;
+import com.acme.saas.repository.IdempotencyKeyRepository;
+import com.acme.saas.tenancy.TenantContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    private static final IdempotencyKey.Id ID = new IdempotencyKey.Id("tenant_acme", "key-1");
+
+    @Mock
+    private IdempotencyKeyRepository repository;
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(repository, new ObjectMapper(), Duration.ofDays(1),
+                Duration.ofMinutes(30));
+        TenantContext.setCurrentTenant("tenant_acme");
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void testExecute_FirstRequest_RunsAndRecordsResponse() {
+        // Given
+        when(repository.claim(eq("tenant_acme"), eq("key-1"), eq("fp"), any(), any(), any())).thenReturn(1);
+
+        // When
+        ResponseEntity<?> response = idempotencyService.execute("key-1", "fp",
+                () -> ResponseEntity.status(HttpStatus.CREATED).body(Map.of("id", "doc-1")));
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        verify(repository).complete(eq(ID), any(), eq(201), eq("{\"id\":\"doc-1\"}"));
+    }
+
+    @Test
+    void testExecute_Retry_ReplaysRecordedResponseWithoutRunning() {
+        // Given
+        when(repository.claim(anyString(), anyString(), anyString(), any(), any(), any())).thenReturn(0);
+        IdempotencyKey stored = new IdempotencyKey(ID, "fp");
+        stored.setStatusCode(201);
+        stored.setResponseBody("{\"id\":\"doc-1\"}");
+        when(repository.findById(ID)).thenReturn(Optional.of(stored));
+        AtomicInteger runs = new AtomicInteger();
+
+        // When
+        ResponseEntity<?> response = idempotencyService.execute("key-1", "fp", () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.ok().build();
+        });
+
+        // Then
+        assertThat(runs).hasValue(0);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(response.getBody()).isEqualTo("{\"id\":\"doc-1\"}");
+        assertThat(response.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    void testExecute_KeyReusedForDifferentRequest_Returns422() {
+        when(repository.claim(anyString(), anyString(), anyString(), any(), any(), any())).thenReturn(0);
+        when(repository.findById(ID)).thenReturn(Optional.of(new IdempotencyKey(ID, "other")));
+
+        ResponseEntity<?> response = idempotencyService.execute("key-1", "fp", () -> ResponseEntity.ok().build());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @Test
+    void testExecute_RunningOnAnotherNode_Returns409() {
+        when(repository.claim(anyString(), anyString(), anyString(), any(), any(), any())).thenReturn(0);
+        when(repository.findById(ID)).thenReturn(Optional.of(new IdempotencyKey(ID, "fp")));
+
+        ResponseEntity<?> response = idempotencyService.execute("key-1", "fp", () -> ResponseEntity.ok().build());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void testExecute_FailedRequest_ReleasesKey() {
+        when(repository.claim(anyString(), anyString(), anyString(), any(), any(), any())).thenReturn(1);
+
+        ResponseEntity<?> response = idempotencyService.execute("key-1", "fp",
+                () -> ResponseEntity.internalServerError().body(Map.of("error", "S3 unavailable")));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        verify(repository).release(eq(ID), any());
+        verify(repository, never()).complete(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void testExecute_ConcurrentDuplicates_RunOnce() throws Exception {
+        // Given: should the duplicate arrive only after the first finished, it finds the recorded response
+        when(repository.claim(anyString(), anyString(), anyString(), any(), any(), any())).thenReturn(1, 0);
+        IdempotencyKey stored = new IdempotencyKey(ID, "fp");
+        stored.setStatusCode(201);
+        stored.setResponseBody("{\"id\":\"doc-1\"}");
+        lenient().when(repository.findById(ID)).thenReturn(Optional.of(stored));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // When
+            Future<ResponseEntity<?>> first = executor.submit(() -> {
+                TenantContext.setCurrentTenant("tenant_acme");
+                return idempotencyService.execute("key-1", "fp", () -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("id", "doc-1"));
+                });
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<ResponseEntity<?>> second = executor.submit(() -> {
+                TenantContext.setCurrentTenant("tenant_acme");
+                return idempotencyService.execute("key-1", "fp", () -> {
+                    runs.incrementAndGet();
+                    return ResponseEntity.ok().build();
+                });
+            });
+            Thread.sleep(100);
+            release.countDown();
+
+            // Then
+            assertThat(first.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            ResponseEntity<?> duplicate = second.get(5, TimeUnit.SECONDS);
+            assertThat(duplicate.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            assertThat(duplicate.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+            assertThat(runs).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testDigest_SameNameAndSizeDifferentContent_Differs() throws Exception {
+        MockMultipartFile first = new MockMultipartFile("file", "rfp.pdf", "application/pdf", "%PDF-1.4 a".getBytes());
+        MockMultipartFile second = new MockMultipartFile("file", "rfp.pdf", "application/pdf", "%PDF-1.4 b".getBytes());
+
+        assertThat(IdempotencyService.digest(first)).isNotEqualTo(IdempotencyService.digest(second));
+        assertThat(IdempotencyService.digest(first))
+                .isEqualTo(IdempotencyService.digest(new MockMultipartFile("other", "%PDF-1.4 a".getBytes())));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
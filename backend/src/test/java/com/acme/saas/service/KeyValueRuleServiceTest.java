@@ -0,0 +1,90 @@
+package com.acme.saas.service;
+
+import com.acme.saas.domain.KeyValueRule;
+import com.acme.saas.extraction.KeyValueScanner;
+import com.acme.saas.repository.KeyValueRuleRepository;
+import com.acme.saas.tenancy.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KeyValueRuleServiceTest {
+
+    @Mock
+    private KeyValueRuleRepository repository;
+
+    private KeyValueRuleService ruleService;
+
+    @BeforeEach
+    void setUp() {
+        ruleService = new KeyValueRuleService(repository, Duration.ofMinutes(5));
+        TenantContext.setCurrentTenant("tenant_acme");
+        lenient().when(repository.findAllByOrderByCreatedAt()).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TenantContext.clear();
+    }
+
+    @Test
+    void testScannerForCurrentTenant_CachesCompiledRules() {
+        KeyValueScanner first = ruleService.scannerForCurrentTenant();
+
+        assertThat(ruleService.scannerForCurrentTenant()).isSameAs(first);
+        verify(repository, times(1)).findAllByOrderByCreatedAt();
+    }
+
+    @Test
+    void testCreate_EvictsScannerOnlyAfterCommit() {
+        // Given
+        ruleService.scannerForCurrentTenant();
+        when(repository.save(any(KeyValueRule.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        ruleService.create("Group Number", List.of("Group #"), null, null);
+
+        // Then: a reload before commit would read the old rules, so the cached scanner is kept until then
+        ruleService.scannerForCurrentTenant();
+        verify(repository, times(1)).findAllByOrderByCreatedAt();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        ruleService.scannerForCurrentTenant();
+        verify(repository, times(2)).findAllByOrderByCreatedAt();
+    }
+
+    @Test
+    void testScannerForCurrentTenant_LoadedBeforeCommittedChange_IsNotCached() {
+        // Given: a change commits while the rules are being read
+        UUID id = UUID.randomUUID();
+        when(repository.existsById(id)).thenReturn(true);
+        doAnswer(invocation -> {
+            ruleService.delete(id);
+            return List.of();
+        }).doReturn(List.of()).when(repository).findAllByOrderByCreatedAt();
+
+        // When
+        ruleService.scannerForCurrentTenant();
+        ruleService.scannerForCurrentTenant();
+
+        // Then
+        verify(repository, times(2)).findAllByOrderByCreatedAt();
+    }
+}
@@ -0,0 +1,161 @@
+package com.acme.saas.service;
+
+import com.acme.saas.exception.FileStorageException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OriginalsCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testOpen_FillsOnceThenServesFromDisk() throws IOException {
+        // Given
+        OriginalsCache cache = cache(DataSize.ofKilobytes(1));
+        AtomicInteger fills = new AtomicInteger();
+        OriginalsCache.Filler filler = target -> {
+            fills.incrementAndGet();
+            Files.writeString(target, "rfp content");
+        };
+
+        // When
+        String first = read(cache.open("\"3f2a\"/11", 11L, filler));
+        String second = read(cache.open("\"3f2a\"/11", 11L, filler));
+
+        // Then
+        assertThat(first).isEqualTo("rfp content");
+        assertThat(second).isEqualTo("rfp content");
+        assertThat(fills).hasValue(1);
+        assertThat(meterRegistry.counter("storage.cache.requests", "result", "hit").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("storage.cache.requests", "result", "miss").count()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(11);
+        assertThat(meterRegistry.get("storage.cache.size").gauge().value()).isEqualTo(11);
+    }
+
+    @Test
+    void testOpen_OverMaxSize_EvictsLeastRecentlyUsed() throws IOException {
+        // Given
+        OriginalsCache cache = cache(DataSize.ofBytes(250));
+        read(cache.open("a", 100L, target -> Files.write(target, new byte[100])));
+        read(cache.open("b", 100L, target -> Files.write(target, new byte[100])));
+        read(cache.open("a", 100L, target -> Files.write(target, new byte[100])));
+
+        // When
+        read(cache.open("c", 100L, target -> Files.write(target, new byte[100])));
+
+        // Then
+        assertThat(cache.size()).isEqualTo(200);
+        assertThat(meterRegistry.counter("storage.cache.evictions").count()).isEqualTo(1);
+        AtomicInteger fills = new AtomicInteger();
+        read(cache.open("a", 100L, target -> fills.incrementAndGet()));
+        assertThat(fills).hasValue(0);
+    }
+
+    @Test
+    void testOpen_ConcurrentMisses_ShareOneFill() throws Exception {
+        // Given
+        OriginalsCache cache = cache(DataSize.ofKilobytes(1));
+        CountDownLatch filling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger fills = new AtomicInteger();
+        OriginalsCache.Filler filler = target -> {
+            fills.incrementAndGet();
+            filling.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Files.writeString(target, "rfp content");
+        };
+
+        // When
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> read(cache.open("a", 11L, filler)));
+        assertThat(filling.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> read(cache.open("a", 11L, filler)));
+        Thread.sleep(50);
+        release.countDown();
+
+        // Then
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("rfp content");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("rfp content");
+        assertThat(fills).hasValue(1);
+    }
+
+    @Test
+    void testOpen_FailedFill_LeavesNothingBehind() throws IOException {
+        OriginalsCache cache = cache(DataSize.ofKilobytes(1));
+
+        assertThatThrownBy(() -> cache.open("a", 11L, target -> {
+            Files.writeString(target, "partial");
+            throw new IOException("connection reset");
+        }))
+                .isInstanceOf(FileStorageException.class)
+                .hasMessageContaining("connection reset");
+        assertThat(cache.size()).isZero();
+        try (var files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void testOpen_TooLargeOrUnknownSize_IsNotCached() {
+        OriginalsCache cache = cache(DataSize.ofBytes(100));
+
+        assertThat(cache.takes(100L)).isTrue();
+        assertThat(cache.takes(101L)).isFalse();
+        assertThat(cache.takes(null)).isFalse();
+
+        assertThat(cache.open("a", 101L, target -> Files.write(target, new byte[101]))).isNull();
+        assertThat(cache.open("a", null, target -> Files.write(target, new byte[10]))).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void testConstructor_TakesOverFilesOfEarlierRun() throws IOException {
+        // Given
+        read(cache(DataSize.ofKilobytes(1)).open("a", 11L, target -> Files.writeString(target, "rfp content")));
+        Files.writeString(directory.resolve("abandoned.tmp"), "partial");
+
+        // When
+        OriginalsCache restarted = cache(DataSize.ofKilobytes(1));
+
+        // Then
+        assertThat(restarted.size()).isEqualTo(11);
+        assertThat(read(restarted.open("a", 11L, target -> {
+            throw new IOException("should be cached");
+        }))).isEqualTo("rfp content");
+        assertThat(directory.resolve("abandoned.tmp")).doesNotExist();
+    }
+
+    private OriginalsCache cache(DataSize maxSize) {
+        OriginalsCache cache = new OriginalsCache(true, directory, maxSize, meterRegistry);
+        cache.registerMetrics();
+        return cache;
+    }
+
+    private static String read(InputStream in) {
+        try (in) {
+            return new String(in.readAllBytes());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
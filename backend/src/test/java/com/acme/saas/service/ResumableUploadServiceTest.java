@@ -0,0 +1,286 @@
+package com.acme.saas.service;
+
+import com.acme.saas.domain.RfpDocument;
+import com.acme.saas.domain.UploadSession;
+import com.acme.saas.dto.DirectUpload;
+import com.acme.saas.repository.RfpDocumentRepository;
+import com.acme.saas.repository.UploadSessionRepository;
+import com.acme.saas.tenancy.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResumableUploadServiceTest {
+
+    private static final long SIZE = 12L * 1024 * 1024;
+
+    @Mock
+    private UploadSessionRepository sessionRepository;
+
+    @Mock
+    private RfpDocumentRepository documentRepository;
+
+    @Mock
+    private FileStorageService storageService;
+
+    @Mock
+    private DocumentProcessingService processingService;
+
+    private ResumableUploadService uploadService;
+
+    private UploadSession session;
+
+    @BeforeEach
+    void setUp() {
+        uploadService = new ResumableUploadService(sessionRepository, documentRepository, storageService,
+                processingService, DataSize.ofMegabytes(100), Duration.ofDays(1), DataSize.ofMegabytes(8), Duration.ofHours(1));
+        TenantContext.setCurrentTenant("tenant_acme");
+
+        session = new UploadSession();
+        session.setTenantSchema("tenant_acme");
+        session.setOriginalFilename("rfp.pdf");
+        session.setContentType("application/pdf");
+        session.setTotalSize(SIZE);
+        session.setStoragePath("tenant_acme/abc.pdf");
+        session.setS3UploadId("upload-1");
+        lenient().when(sessionRepository.findByIdAndTenantSchema(session.getId(), "tenant_acme"))
+                .thenReturn(Optional.of(session));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void testCreate_StartsMultipartUpload() {
+        // Given
+        when(storageService.newKey("acme", "rfp.pdf")).thenReturn("tenant_acme/abc.pdf");
+        when(storageService.createMultipartUpload("tenant_acme/abc.pdf", "application/pdf")).thenReturn("upload-1");
+        when(sessionRepository.save(any(UploadSession.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        UploadSession created = uploadService.create("rfp.pdf", "application/pdf", SIZE, "acme");
+
+        // Then
+        assertThat(created.getTenantSchema()).isEqualTo("tenant_acme");
+        assertThat(created.getS3UploadId()).isEqualTo("upload-1");
+        assertThat(created.getReceivedBytes()).isZero();
+        assertThat(created.getStatus()).isEqualTo(UploadSession.Status.OPEN);
+    }
+
+    @Test
+    void testCreate_LargerThanSingleUploadLimit_IsAllowed() {
+        when(storageService.newKey(any(), any())).thenReturn("tenant_acme/abc.pdf");
+        when(sessionRepository.save(any(UploadSession.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        UploadSession created = uploadService.create("rfp.pdf", "application/pdf", RfpDocumentService.MAX_FILE_SIZE * 2, "acme");
+
+        assertThat(created.getTotalSize()).isEqualTo(RfpDocumentService.MAX_FILE_SIZE * 2);
+        assertThatThrownBy(() -> uploadService.create("rfp.pdf", "application/pdf", DataSize.ofMegabytes(101).toBytes(), "acme"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("maximum allowed size");
+    }
+
+    @Test
+    void testAppendChunk_StreamsChunkAsNextPart() {
+        // Given
+        session.setReceivedBytes(ResumableUploadService.MIN_CHUNK_SIZE);
+        session.setParts(1);
+        long length = SIZE - ResumableUploadService.MIN_CHUNK_SIZE;
+        InputStream content = new ByteArrayInputStream(new byte[0]);
+        when(storageService.uploadPart("tenant_acme/abc.pdf", "upload-1", 2, content, length)).thenReturn("\"etag-2\"");
+        when(sessionRepository.recordChunk(eq(session.getId()), eq(session.getReceivedBytes()), eq(length),
+                eq("\"etag-2\""), any())).thenReturn(1);
+
+        // When
+        long next = uploadService.appendChunk(session.getId(), session.getReceivedBytes(), content, length);
+
+        // Then
+        assertThat(next).isEqualTo(SIZE);
+    }
+
+    @Test
+    void testAppendChunk_WrongOffset_ThrowsWithoutUploading() {
+        session.setReceivedBytes(ResumableUploadService.MIN_CHUNK_SIZE);
+
+        assertThatThrownBy(() -> uploadService.appendChunk(
+                session.getId(), 0, InputStream.nullInputStream(), ResumableUploadService.MIN_CHUNK_SIZE))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Expected offset " + ResumableUploadService.MIN_CHUNK_SIZE);
+        verify(storageService, never()).uploadPart(any(), any(), anyInt(), any(), anyLong());
+    }
+
+    @Test
+    void testAppendChunk_SmallChunkBeforeTheEnd_ThrowsException() {
+        assertThatThrownBy(() -> uploadService.appendChunk(session.getId(), 0, InputStream.nullInputStream(), 1024))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("at least");
+    }
+
+    @Test
+    void testComplete_AssemblesObjectAndQueuesExtraction() {
+        // Given
+        session.setReceivedBytes(SIZE);
+        session.setPartETags(new String[] {"\"etag-1\"", "\"etag-2\""});
+        when(storageService.objectSize("tenant_acme/abc.pdf")).thenReturn(OptionalLong.empty());
+        when(storageService.uploadedPartETags("tenant_acme/abc.pdf", "upload-1"))
+                .thenReturn(Map.of(1, "\"etag-1\"", 2, "\"etag-2\""));
+        when(sessionRepository.close(eq(session.getId()), eq(UploadSession.Status.COMPLETED), any(), any())).thenReturn(1);
+        when(documentRepository.save(any(RfpDocument.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        RfpDocument document = uploadService.complete(session.getId());
+
+        // Then
+        assertThat(document.getStoragePath()).isEqualTo("tenant_acme/abc.pdf");
+        assertThat(document.getFileSize()).isEqualTo(SIZE);
+        assertThat(document.getStatus()).isEqualTo(RfpDocument.DocumentStatus.PROCESSING);
+        verify(storageService).completeMultipartUpload("tenant_acme/abc.pdf", "upload-1");
+        verify(processingService).scheduleFullExtraction(document);
+    }
+
+    @Test
+    void testComplete_PartOverwrittenByConflictingChunk_ThrowsException() {
+        // Given: a duplicate chunk at the second offset finished after the recorded one
+        session.setReceivedBytes(SIZE);
+        session.setPartETags(new String[] {"\"etag-1\"", "\"etag-2\""});
+        when(storageService.objectSize("tenant_acme/abc.pdf")).thenReturn(OptionalLong.empty());
+        when(storageService.uploadedPartETags("tenant_acme/abc.pdf", "upload-1"))
+                .thenReturn(Map.of(1, "\"etag-1\"", 2, "\"etag-other\""));
+
+        // When & Then
+        assertThatThrownBy(() -> uploadService.complete(session.getId()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Part 2 was overwritten");
+        verify(storageService, never()).completeMultipartUpload(any(), any());
+        verify(sessionRepository, never()).close(any(), any(), any(), any());
+    }
+
+    @Test
+    void testComplete_RetryAfterAssembledObject_DoesNotAssembleAgain() {
+        // Given: an earlier completion assembled the object, then its commit failed
+        session.setReceivedBytes(SIZE);
+        when(storageService.objectSize("tenant_acme/abc.pdf")).thenReturn(OptionalLong.of(SIZE));
+        when(sessionRepository.close(eq(session.getId()), eq(UploadSession.Status.COMPLETED), any(), any())).thenReturn(1);
+        when(documentRepository.save(any(RfpDocument.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        RfpDocument document = uploadService.complete(session.getId());
+
+        // Then
+        assertThat(document.getFileSize()).isEqualTo(SIZE);
+        verify(storageService, never()).uploadedPartETags(any(), any());
+        verify(storageService, never()).completeMultipartUpload(any(), any());
+        verify(processingService).scheduleFullExtraction(document);
+    }
+
+    @Test
+    void testComplete_MissingChunks_ThrowsException() {
+        session.setReceivedBytes(ResumableUploadService.MIN_CHUNK_SIZE);
+
+        assertThatThrownBy(() -> uploadService.complete(session.getId()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Received");
+        verify(storageService, never()).completeMultipartUpload(any(), any());
+    }
+
+    @Test
+    void testCreateDirect_SmallFile_PresignsSinglePut() throws Exception {
+        // Given
+        when(storageService.newKey("acme", "rfp.pdf")).thenReturn("tenant_acme/abc.pdf");
+        when(sessionRepository.save(any(UploadSession.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(storageService.presignPut("tenant_acme/abc.pdf", "application/pdf", 1024, Duration.ofHours(1)))
+                .thenReturn(new URL("https://bucket.s3.amazonaws.com/tenant_acme/abc.pdf?X-Amz-Signature=x"));
+
+        // When
+        DirectUpload upload = uploadService.createDirect("rfp.pdf", "application/pdf", 1024, "acme");
+
+        // Then
+        assertThat(upload.url()).startsWith("https://bucket.s3.amazonaws.com/tenant_acme/");
+        assertThat(upload.headers()).containsEntry("Content-Type", "application/pdf");
+        assertThat(upload.parts()).isNull();
+        verify(storageService, never()).createMultipartUpload(any(), any());
+    }
+
+    @Test
+    void testCreateDirect_LargeFile_PresignsEveryPart() throws Exception {
+        // Given
+        when(storageService.newKey("acme", "rfp.pdf")).thenReturn("tenant_acme/abc.pdf");
+        when(storageService.createMultipartUpload("tenant_acme/abc.pdf", "application/pdf")).thenReturn("upload-1");
+        when(sessionRepository.save(any(UploadSession.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(storageService.presignUploadPart(eq("tenant_acme/abc.pdf"), eq("upload-1"), anyInt(), any()))
+                .thenReturn(new URL("https://bucket.s3.amazonaws.com/tenant_acme/abc.pdf?partNumber=1"));
+
+        // When
+        DirectUpload upload = uploadService.createDirect("rfp.pdf", "application/pdf", SIZE, "acme");
+
+        // Then
+        assertThat(upload.url()).isNull();
+        assertThat(upload.partSize()).isEqualTo(DataSize.ofMegabytes(8).toBytes());
+        assertThat(upload.parts()).extracting(DirectUpload.PartUrl::partNumber).containsExactly(1, 2);
+    }
+
+    @Test
+    void testComplete_Direct_VerifiesStoredObject() {
+        // Given
+        session.setDirect(true);
+        session.setS3UploadId(null);
+        when(storageService.objectSize("tenant_acme/abc.pdf")).thenReturn(OptionalLong.of(SIZE));
+        when(sessionRepository.close(eq(session.getId()), eq(UploadSession.Status.COMPLETED), any(), any())).thenReturn(1);
+        when(documentRepository.save(any(RfpDocument.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        RfpDocument document = uploadService.complete(session.getId());
+
+        // Then
+        assertThat(document.getFileSize()).isEqualTo(SIZE);
+        verify(processingService).scheduleFullExtraction(document);
+        verify(storageService, never()).completeMultipartUpload(any(), any());
+    }
+
+    @Test
+    void testComplete_DirectWithWrongSize_ThrowsException() {
+        session.setDirect(true);
+        session.setS3UploadId(null);
+        when(storageService.objectSize("tenant_acme/abc.pdf")).thenReturn(OptionalLong.of(10));
+
+        assertThatThrownBy(() -> uploadService.complete(session.getId()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("expected " + SIZE);
+        verify(processingService, never()).scheduleFullExtraction(any());
+    }
+
+    @Test
+    void testComplete_DirectMultipartWithMissingParts_DoesNotAssemble() {
+        session.setDirect(true);
+        when(storageService.objectSize("tenant_acme/abc.pdf")).thenReturn(OptionalLong.empty());
+        when(storageService.uploadedPartsSize("tenant_acme/abc.pdf", "upload-1")).thenReturn(SIZE / 2);
+
+        assertThatThrownBy(() -> uploadService.complete(session.getId()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Uploaded parts hold");
+        verify(storageService, never()).completeMultipartUpload(any(), any());
+    }
+}
@@ -1,6 +1,8 @@
 package com.acme.saas.service;
 
 import com.acme.saas.domain.RfpDocument;
+import com.acme.saas.dto.DocumentUpload;
+import com.acme.saas.dto.ExtractionPreview;
 import com.acme.saas.repository.RfpDocumentRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -35,6 +37,9 @@ class RfpDocumentServiceTest {
     @Mock
     private DocumentExtractionService extractionService;
 
+    @Mock
+    private DocumentProcessingService processingService;
+
     @InjectMocks
     private RfpDocumentService documentService;
 
@@ -305,6 +310,33 @@ class RfpDocumentServiceTest {
         assertThat(result.getErrorMessage()).contains("Extraction failed");
     }
 
+    @Test
+    void testUploadDocumentWithPreview_ReturnsPreviewAndSchedulesFullExtraction() throws Exception {
+        // Given
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "test.pdf",
+                "application/pdf",
+                "test content".getBytes()
+        );
+
+        when(storageService.storeFile(any(), anyString()))
+                .thenReturn("tenant_test/file.pdf");
+        when(repository.save(any(RfpDocument.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        ExtractionPreview preview = new ExtractionPreview(false, 5, 0, 1200, "preview text", List.of(), List.of());
+        when(processingService.preview(any(RfpDocument.class), any())).thenReturn(Optional.of(preview));
+
+        // When
+        DocumentUpload result = documentService.uploadDocumentWithPreview(file, testTenantId);
+
+        // Then
+        assertThat(result.preview()).isEqualTo(preview);
+        assertThat(result.document().getStatus()).isEqualTo(RfpDocument.DocumentStatus.PROCESSING);
+        verify(processingService).scheduleFullExtraction(result.document());
+        verify(extractionService, never()).extractDocument(any());
+    }
+
     // ===== CRUD Tests =====
 
     @Test